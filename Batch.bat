@@ -0,0 +1,9 @@
+@echo off
+rem Masaüstü olmadan çekirdek: Batch.bat betik.jsh [argüman...] ya da Batch.bat -c "komut; komut"
+rem Ayrı bir sınıf arşivi (AppCDS) açılışı kısaltır; ilk çalıştırmada yazılır.
+if not exist javaos-batch.jsa goto archive
+java -XX:SharedArchiveFile=javaos-batch.jsa -cp javaos.jar Kernel %*
+exit /b %errorlevel%
+:archive
+java -XX:ArchiveClassesAtExit=javaos-batch.jsa -cp javaos.jar Kernel %*
+exit /b %errorlevel%
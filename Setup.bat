@@ -1,3 +1,6 @@
 @echo off
-javac -encoding UTF-8 Kernel.java OS.java
+rem Sınıf arşivi (AppCDS) yalnızca jar ile çalışır; derleme eski arşivi geçersiz kılar.
+del /q javaos.jsa javaos-batch.jsa 2>nul
+javac -encoding UTF-8 -XDstringConcat=inline -d build kernel\src\main\java\*.java desktop\src\main\java\*.java
+jar --create --file javaos.jar --main-class OS -C build . -C desktop\src\main\resources META-INF
 pause
\ No newline at end of file
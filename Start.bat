@@ -1 +1,7 @@
-java OS
\ No newline at end of file
+@echo off
+rem İlk çalıştırmada sınıf arşivi (AppCDS) yazılır, sonraki açılışlar onu kullanır.
+if exist javaos.jsa (
+    java -XX:SharedArchiveFile=javaos.jsa -jar javaos.jar
+) else (
+    java -XX:ArchiveClassesAtExit=javaos.jsa -jar javaos.jar
+)
\ No newline at end of file
@@ -0,0 +1,120 @@
+// BenchFixtures.java
+import java.awt.Color;
+
+/**
+ * JMH ölçümlerinin gövdeleri. JMH varsayılan paketteki sınıfları ölçemez, isimli paketler de
+ * varsayılan paketi göremez; bu yüzden javaos.bench sınıfları buradaki yöntemleri
+ * MethodHandle üzerinden çağırır. Tutamaklar static final olduğundan JIT çağrıyı satır içine alır.
+ *
+ * İmzalarda yalnızca JDK türleri kullanılır.
+ */
+public final class BenchFixtures {
+    private BenchFixtures() {
+    }
+
+    // --- CommandRegistry ---
+
+    public static Object registry(String[] names) {
+        Kernel.CommandRegistry registry = new Kernel.CommandRegistry();
+        for (String name : names) registry.register(name, (a, in, out) -> { });
+        return registry;
+    }
+
+    public static Object lookup(Object registry, String name) {
+        return ((Kernel.CommandRegistry) registry).get(name);
+    }
+
+    public static Object complete(Object registry, String prefix) {
+        return ((Kernel.CommandRegistry) registry).complete(prefix, 20);
+    }
+
+    // --- Terminal satırı ---
+
+    public static Object tokenize(String line) {
+        return Kernel.Shell.tokenize(line);
+    }
+
+    // --- HTML: görünür metin ve bağlantılar tek geçişte ---
+
+    public static int html(String page) throws Exception {
+        int[] counts = new int[2];
+        new Kernel.HtmlTokenizer(new java.io.StringReader(page), new Kernel.HtmlTokenizer.Handler() {
+            public boolean text(String chunk) {
+                counts[0] += chunk.length();
+                return true;
+            }
+
+            public void link(String href) {
+                counts[1]++;
+            }
+        }).run(Integer.MAX_VALUE);
+        return counts[0] + counts[1];
+    }
+
+    // --- JSON alan projeksiyonu ---
+
+    public static Object json(String json, String[] paths) throws Exception {
+        return Kernel.JsonReader.project(new java.io.StringReader(json), paths);
+    }
+
+    // --- Hesap makinesi ---
+
+    public static Object calculator() {
+        return new Kernel.ExpressionEngine();
+    }
+
+    public static double eval(Object engine, String expr) {
+        return ((Kernel.ExpressionEngine) engine).eval(expr);
+    }
+
+    // --- Paint fırça darbesi ---
+
+    public static Object canvas(int width, int height) {
+        return new PaintApp.TiledImage(width, height, Color.WHITE);
+    }
+
+    public static Object stroke(Object canvas, int[] xs, int[] ys, int n) {
+        return ((PaintApp.TiledImage) canvas).drawPolyline(xs, ys, n, Color.BLACK, 3f);
+    }
+
+    /** Geri alma kaydıyla birlikte: karo kopyası + XOR farkının sıkıştırılması dahil. */
+    public static Object strokeEdit(Object canvas, int[] xs, int[] ys, int n) {
+        PaintApp.TiledImage image = (PaintApp.TiledImage) canvas;
+        image.beginEdit();
+        image.drawPolyline(xs, ys, n, Color.BLACK, 3f);
+        return image.endEdit();
+    }
+
+    // --- Paint süzgeçleri (karolar fork-join havuzunda) ---
+
+    /** Düzgün olmayan (sıkıştırılamaz) içerikli düz TYPE_INT_RGB pikselleri. */
+    public static int[] image(int width, int height) {
+        int[] px = new int[width * height];
+        java.util.SplittableRandom rnd = new java.util.SplittableRandom(11);
+        for (int i = 0; i < px.length; i++) px[i] = rnd.nextInt() & 0xFFFFFF;
+        return px;
+    }
+
+    /** @param filter blur, sharpen, invert, grayscale ya da resize (dst, boyutun 3/4'ü) */
+    public static void filter(java.util.concurrent.ForkJoinPool pool, String filter, int[] src, int[] dst, int width, int height) {
+        switch (filter) {
+            case "blur":
+                PaintApp.Filters.blur(pool, src, dst, width, height, 2);
+                break;
+            case "sharpen":
+                PaintApp.Filters.sharpen(pool, src, dst, width, height);
+                break;
+            case "invert":
+                PaintApp.Filters.invert(pool, src, dst, width, height);
+                break;
+            case "grayscale":
+                PaintApp.Filters.grayscale(pool, src, dst, width, height);
+                break;
+            case "resize":
+                PaintApp.Filters.resize(pool, src, width, height, dst, width * 3 / 4, height * 3 / 4);
+                break;
+            default:
+                throw new IllegalArgumentException(filter);
+        }
+    }
+}
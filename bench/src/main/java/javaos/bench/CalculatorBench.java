@@ -0,0 +1,44 @@
+// CalculatorBench.java
+package javaos.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Hesap makinesi: önbellekteki ağacın değerlendirilmesi ve her seferinde yeni ifadenin
+ * derlenmesi (ifade havuzu önbellekten büyük tutulur).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculatorBench {
+    private static final MethodHandle CALCULATOR = Fixtures.find("calculator", Object.class);
+    private static final MethodHandle EVAL = Fixtures.find("eval", double.class, Object.class, String.class);
+
+    private static final String CACHED = "2 * (3 + 4) ^ 2 / sqrt(16) - sin(pi / 6) * 1.5 % 7";
+
+    private Object engine;
+    private String[] fresh;
+    private int next;
+
+    @Setup
+    public void setup() throws Throwable {
+        engine = (Object) CALCULATOR.invokeExact();
+        fresh = new String[4096];
+        for (int i = 0; i < fresh.length; i++) fresh[i] = "(" + i + " + 3.25) * 2 ^ 3 / (1 + cos(" + i + ")) - " + (i % 17);
+    }
+
+    @Benchmark
+    public double evalCached() throws Throwable {
+        return (double) EVAL.invokeExact(engine, CACHED);
+    }
+
+    @Benchmark
+    public double parseAndEval() throws Throwable {
+        return (double) EVAL.invokeExact(engine, fresh[next++ & 4095]);
+    }
+}
@@ -0,0 +1,65 @@
+// CommandRegistryBench.java
+package javaos.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Komut tablosu: büyük/küçük harf duyarsız arama (isabet ve ıska) ve önek tamamlama.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandRegistryBench {
+    private static final MethodHandle REGISTRY = Fixtures.find("registry", Object.class, String[].class);
+    private static final MethodHandle LOOKUP = Fixtures.find("lookup", Object.class, Object.class, String.class);
+    private static final MethodHandle COMPLETE = Fixtures.find("complete", Object.class, Object.class, String.class);
+
+    @Param({"100", "10000"})
+    public int commands;
+
+    private Object registry;
+    private String[] hits, misses, prefixes;
+    private int next;
+
+    @Setup
+    public void setup() throws Throwable {
+        java.util.Random rnd = new java.util.Random(42);
+        String[] names = new String[commands];
+        hits = new String[1024];
+        misses = new String[1024];
+        prefixes = new String[1024];
+        for (int i = 0; i < commands; i++) {
+            StringBuilder sb = new StringBuilder();
+            int len = 4 + rnd.nextInt(8);
+            for (int k = 0; k < len; k++) sb.append((char) ('a' + rnd.nextInt(26)));
+            names[i] = sb.append(i).toString();
+        }
+        for (int i = 0; i < hits.length; i++) {
+            String name = names[rnd.nextInt(commands)];
+            hits[i] = name.toUpperCase();
+            misses[i] = name + "x";
+            prefixes[i] = name.substring(0, 2);
+        }
+        registry = (Object) REGISTRY.invokeExact(names);
+    }
+
+    @Benchmark
+    public Object lookup() throws Throwable {
+        return (Object) LOOKUP.invokeExact(registry, hits[next++ & 1023]);
+    }
+
+    @Benchmark
+    public Object lookupMiss() throws Throwable {
+        return (Object) LOOKUP.invokeExact(registry, misses[next++ & 1023]);
+    }
+
+    @Benchmark
+    public Object complete() throws Throwable {
+        return (Object) COMPLETE.invokeExact(registry, prefixes[next++ & 1023]);
+    }
+}
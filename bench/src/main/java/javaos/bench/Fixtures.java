@@ -0,0 +1,32 @@
+// Fixtures.java
+package javaos.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Varsayılan paketteki BenchFixtures yöntemlerine tutamak verir.
+ */
+final class Fixtures {
+    private static final Class<?> FIXTURES = load();
+
+    private Fixtures() {
+    }
+
+    private static Class<?> load() {
+        try {
+            return Class.forName("BenchFixtures");
+        } catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    static MethodHandle find(String name, Class<?> returnType, Class<?>... parameterTypes) {
+        try {
+            return MethodHandles.publicLookup().findStatic(FIXTURES, name, MethodType.methodType(returnType, parameterTypes));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BenchFixtures." + name, e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+// HtmlBench.java
+package javaos.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * HTML'den görünür metin ve bağlantıların tek geçişte çıkarılması (eski stripHtmlTags +
+ * extractLinks). Sayfa betik, stil, yorum ve varlıklar içerir.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HtmlBench {
+    private static final MethodHandle HTML = Fixtures.find("html", int.class, String.class);
+
+    @Param({"16", "512"})
+    public int kilobytes;
+
+    private String page;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("<!DOCTYPE html><html><head><title>Örnek</title>"
+                + "<style>body { font: 12px sans-serif } .x > a { color: red }</style>"
+                + "<script>var s = '<p>betik</p>'; if (a < b && c > d) run();</script></head><body>\n");
+        for (int i = 0; sb.length() < kilobytes * 1024; i++) {
+            sb.append("<div class=\"item\" id=\"i").append(i).append("\"><h2>Başlık ").append(i).append("</h2>\n")
+                    .append("<p>Lorem ipsum dolor sit amet, &amp; consectetur &lt;adipiscing&gt; elit &#231;&#x11F; ")
+                    .append("<a href=\"https://example.com/sayfa/").append(i).append("?q=1&amp;r=2\">bağlantı</a> ")
+                    .append("sed do eiusmod tempor.<br/>\n<!-- yorum ").append(i).append(" --></p>")
+                    .append("<ul><li>bir</li><li>iki</li><li><a href='/rel/").append(i).append("'>üç</a></li></ul></div>\n");
+        }
+        page = sb.append("</body></html>").toString();
+    }
+
+    @Benchmark
+    public int strip() throws Throwable {
+        return (int) HTML.invokeExact(page);
+    }
+}
@@ -0,0 +1,61 @@
+// JsonBench.java
+package javaos.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * JSON alan projeksiyonu (eski findJsonField): küçük bir API yanıtında baştaki ve sondaki
+ * alanlar, büyük bir dizide ise tüm elemanlardan tek alan.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBench {
+    private static final MethodHandle JSON = Fixtures.find("json", Object.class, String.class, String[].class);
+
+    private static final String USER = "{\"login\":\"octocat\",\"id\":583231,\"node_id\":\"MDQ6VXNlcjU4MzIzMQ==\","
+            + "\"avatar_url\":\"https://avatars.githubusercontent.com/u/583231?v=4\",\"gravatar_id\":\"\","
+            + "\"url\":\"https://api.github.com/users/octocat\",\"type\":\"User\",\"site_admin\":false,"
+            + "\"name\":\"The Octocat\",\"company\":\"@github\",\"blog\":\"https://github.blog\","
+            + "\"location\":\"San Francisco\",\"email\":null,\"hireable\":null,\"bio\":null,"
+            + "\"twitter_username\":null,\"public_repos\":8,\"public_gists\":8,\"followers\":9999,"
+            + "\"following\":9,\"created_at\":\"2011-01-25T18:44:36Z\",\"updated_at\":\"2024-01-22T12:14:23Z\"}";
+
+    private static final String[] FIRST = {"login"};
+    private static final String[] PROFILE = {"login", "name", "public_repos", "followers"};
+    private static final String[] NAMES = {"[].name"};
+
+    private String array;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 500; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(i).append(",\"name\":\"repo-").append(i)
+                    .append("\",\"description\":\"Açıklama \\\"tırnaklı\\\" \\u00e7 metin\",\"topics\":[\"a\",\"b\"],")
+                    .append("\"owner\":{\"login\":\"octocat\",\"id\":1},\"stars\":").append(i * 7).append('}');
+        }
+        array = sb.append(']').toString();
+    }
+
+    @Benchmark
+    public Object firstField() throws Throwable {
+        return (Object) JSON.invokeExact(USER, FIRST);
+    }
+
+    @Benchmark
+    public Object profile() throws Throwable {
+        return (Object) JSON.invokeExact(USER, PROFILE);
+    }
+
+    @Benchmark
+    public Object arrayField() throws Throwable {
+        return (Object) JSON.invokeExact(array, NAMES);
+    }
+}
@@ -0,0 +1,56 @@
+// PaintFilterBench.java
+package javaos.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Paint süzgeçlerinin 20 megapiksellik (5472x3648) bir görüntüde iş parçacığı sayısıyla
+ * ölçeklenmesi. Her süzgeç raster'ın int[] dizisinde 256x256 karolar hâlinde fork-join
+ * havuzunda çalışır; "threads" havuzun paralelliğidir. İdeal ölçeklenmede skor çekirdek
+ * sayısına kadar iş parçacığı sayısıyla doğru orantılı artar; nokta işlemleri (invert,
+ * grayscale) daha erken bellek bant genişliğine dayanır.
+ *
+ *   java -jar bench/target/benchmarks.jar PaintFilter -p threads=1,2,4,8 -rff filters.json
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx1g"})
+public class PaintFilterBench {
+    private static final MethodHandle IMAGE = Fixtures.find("image", int[].class, int.class, int.class);
+    private static final MethodHandle FILTER = Fixtures.find("filter", void.class,
+            ForkJoinPool.class, String.class, int[].class, int[].class, int.class, int.class);
+    private static final int WIDTH = 5472, HEIGHT = 3648;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"blur", "sharpen", "invert", "grayscale", "resize"})
+    public String filter;
+
+    private ForkJoinPool pool;
+    private int[] src, dst;
+
+    @Setup
+    public void setup() throws Throwable {
+        pool = new ForkJoinPool(threads);
+        src = (int[]) IMAGE.invokeExact(WIDTH, HEIGHT);
+        dst = new int[WIDTH * HEIGHT];
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public int[] apply() throws Throwable {
+        FILTER.invokeExact(pool, filter, src, dst, WIDTH, HEIGHT);
+        return dst;
+    }
+}
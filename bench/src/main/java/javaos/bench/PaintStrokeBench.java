@@ -0,0 +1,57 @@
+// PaintStrokeBench.java
+package javaos.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Paint fırça darbesinin karolu BufferedImage tuvale çizilmesi; ayrıca geri alma kaydıyla
+ * (değişen karoların kopyası ve XOR farkının sıkıştırılması) birlikte.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PaintStrokeBench {
+    private static final MethodHandle CANVAS = Fixtures.find("canvas", Object.class, int.class, int.class);
+    private static final MethodHandle STROKE = Fixtures.find("stroke", Object.class, Object.class, int[].class, int[].class, int.class);
+    private static final MethodHandle STROKE_EDIT = Fixtures.find("strokeEdit", Object.class, Object.class, int[].class, int[].class, int.class);
+
+    /** Darbedeki nokta sayısı (bir karede biriken fare olayları). */
+    @Param({"8", "64"})
+    public int points;
+
+    private Object canvas;
+    private int[][] xs, ys;
+    private int next;
+
+    @Setup
+    public void setup() throws Throwable {
+        canvas = (Object) CANVAS.invokeExact(1024, 1024);
+        java.util.Random rnd = new java.util.Random(7);
+        xs = new int[64][points];
+        ys = new int[64][points];
+        for (int s = 0; s < xs.length; s++) {
+            int x = 100 + rnd.nextInt(824), y = 100 + rnd.nextInt(824);
+            for (int i = 0; i < points; i++) {
+                xs[s][i] = x = Math.max(0, Math.min(1023, x + rnd.nextInt(21) - 10));
+                ys[s][i] = y = Math.max(0, Math.min(1023, y + rnd.nextInt(21) - 10));
+            }
+        }
+    }
+
+    @Benchmark
+    public Object stroke() throws Throwable {
+        int s = next++ & 63;
+        return (Object) STROKE.invokeExact(canvas, xs[s], ys[s], points);
+    }
+
+    @Benchmark
+    public Object strokeWithUndo() throws Throwable {
+        int s = next++ & 63;
+        return (Object) STROKE_EDIT.invokeExact(canvas, xs[s], ys[s], points);
+    }
+}
@@ -0,0 +1,37 @@
+// Run.java
+package javaos.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ölçüm başlatıcısı: JMH komut satırı seçeneklerinin hepsini kabul eder, ayrıca sonucu
+ * varsayılan olarak jmh-result.json dosyasına JSON yazar ve GC profilleyicisini ekler
+ * (gc.alloc.rate.norm = işlem başına ayrılan bayt). Sürümler arası karşılaştırma için
+ * iki JSON'daki primaryMetric.score ve secondaryMetrics["gc.alloc.rate.norm"] yeterlidir.
+ */
+public final class Run {
+    private Run() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp()) {
+            cmd.showHelp();
+            return;
+        }
+        if (cmd.shouldList()) {
+            new Runner(cmd).list();
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+        if (!cmd.getResultFormat().hasValue()) options.resultFormat(ResultFormatType.JSON);
+        if (!cmd.getResult().hasValue()) options.result("jmh-result.json");
+        if (cmd.getProfilers().isEmpty()) options.addProfiler(GCProfiler.class);
+        new Runner(options.build()).run();
+    }
+}
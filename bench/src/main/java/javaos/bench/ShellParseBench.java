@@ -0,0 +1,44 @@
+// ShellParseBench.java
+package javaos.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Terminal satırının simgelere ayrılması (tırnak, boru ve yönlendirme dahil).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShellParseBench {
+    private static final MethodHandle TOKENIZE = Fixtures.find("tokenize", Object.class, String.class);
+
+    @Param({"simple", "pipeline", "quoted"})
+    public String kind;
+
+    private String line;
+
+    @Setup
+    public void setup() {
+        switch (kind) {
+            case "simple":
+                line = "echo merhaba dünya";
+                break;
+            case "pipeline":
+                line = "grep -i -n hata /var/log/sistem.log | sort | uniq -c > /tmp/ozet.txt";
+                break;
+            default:
+                line = "write /notlar/a.txt \"tırnak içinde | boru ve > işaret\" 'tek tırnak'";
+                break;
+        }
+    }
+
+    @Benchmark
+    public Object tokenize() throws Throwable {
+        return (Object) TOKENIZE.invokeExact(line);
+    }
+}
@@ -0,0 +1,20 @@
+// AppContext.java
+import javax.swing.*;
+
+/**
+ * Uygulamalara verilen ortam: çekirdek servisleri, pencere yöneticisi, masaüstü çerçevesi
+ * ve uygulamanın süreci. Uygulama arka plan işlerini process.execute ile zamanlayıcıya verir.
+ */
+public final class AppContext {
+    public final Kernel kernel;
+    public final WindowManager windowManager;
+    public final JFrame desktop;
+    public final Kernel.ProcessTable.Process process;
+
+    public AppContext(Kernel kernel, WindowManager windowManager, JFrame desktop, Kernel.ProcessTable.Process process) {
+        this.kernel = kernel;
+        this.windowManager = windowManager;
+        this.desktop = desktop;
+        this.process = process;
+    }
+}
@@ -0,0 +1,40 @@
+// AppProvider.java
+/**
+ * Uygulama sağlayıcısı. Sağlayıcılar META-INF/services/AppProvider dosyasından
+ * ServiceLoader ile bulunur; menü yalnızca id/başlık/sıra bilgisinden kurulur ve
+ * uygulamanın asıl sınıfları ilk open() çağrısında yüklenir.
+ */
+public interface AppProvider {
+    /** Pencere anahtarı; açık pencere varsa yenisi açılmaz, öne alınır. */
+    String id();
+
+    /** Başlat menüsündeki ad. */
+    String title();
+
+    /** Menüdeki sıra (küçük olan önce). */
+    default int order() {
+        return 100;
+    }
+
+    /** EDT üzerinde çağrılır. */
+    void open(AppContext ctx);
+
+    /**
+     * Kayıtlı uygulama sağlayıcılarını sırasına göre döndürür. Hatalı bir kayıt diğerlerini
+     * engellemez, sadece raporlanıp atlanır.
+     */
+    static java.util.List<AppProvider> load() {
+        java.util.List<AppProvider> apps = new java.util.ArrayList<>();
+        java.util.Iterator<AppProvider> it = java.util.ServiceLoader.load(AppProvider.class, AppProvider.class.getClassLoader()).iterator();
+        while (true) {
+            try {
+                if (!it.hasNext()) break;
+                apps.add(it.next());
+            } catch (java.util.ServiceConfigurationError e) {
+                System.err.println("Uygulama yüklenemedi: " + e.getMessage());
+            }
+        }
+        apps.sort(java.util.Comparator.comparingInt(AppProvider::order).thenComparing(AppProvider::title));
+        return apps;
+    }
+}
@@ -0,0 +1,66 @@
+// BuiltinApps.java
+
+/**
+ * Yerleşik uygulamaların sağlayıcıları. Bunlar yalnızca menü bilgisini taşır; uygulama
+ * sınıfları (TerminalApp, PaintApp, ...) ilk açılışta yüklenir.
+ */
+public final class BuiltinApps {
+    private BuiltinApps() {
+    }
+
+    public static final class Terminal implements AppProvider {
+        public String id() { return "terminal"; }
+        public String title() { return "Terminal"; }
+        public int order() { return 10; }
+        public void open(AppContext ctx) { TerminalApp.open(ctx); }
+    }
+
+    public static final class Notepad implements AppProvider {
+        public String id() { return "notepad"; }
+        public String title() { return "Not Defteri"; }
+        public int order() { return 20; }
+        public void open(AppContext ctx) { NotepadApp.open(ctx); }
+    }
+
+    public static final class Paint implements AppProvider {
+        public String id() { return "paint"; }
+        public String title() { return "Paint"; }
+        public int order() { return 30; }
+        public void open(AppContext ctx) { PaintApp.open(ctx); }
+    }
+
+    public static final class Calculator implements AppProvider {
+        public String id() { return "calc"; }
+        public String title() { return "Calculator"; }
+        public int order() { return 40; }
+        public void open(AppContext ctx) { CalculatorApp.open(ctx); }
+    }
+
+    public static final class Internet implements AppProvider {
+        public String id() { return "internet"; }
+        public String title() { return "Internet"; }
+        public int order() { return 50; }
+        public void open(AppContext ctx) { InternetApp.open(ctx); }
+    }
+
+    public static final class SimpleBrowser implements AppProvider {
+        public String id() { return "simplebrowser"; }
+        public String title() { return "Simple Browser"; }
+        public int order() { return 60; }
+        public void open(AppContext ctx) { SimpleBrowserApp.open(ctx); }
+    }
+
+    public static final class GitHubInfo implements AppProvider {
+        public String id() { return "github"; }
+        public String title() { return "GitHub Info"; }
+        public int order() { return 70; }
+        public void open(AppContext ctx) { GitHubInfoApp.open(ctx); }
+    }
+
+    public static final class SystemMonitor implements AppProvider {
+        public String id() { return "sysmon"; }
+        public String title() { return "Sistem İzleyici"; }
+        public int order() { return 80; }
+        public void open(AppContext ctx) { SystemMonitorApp.open(ctx); }
+    }
+}
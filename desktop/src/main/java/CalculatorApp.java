@@ -0,0 +1,36 @@
+// CalculatorApp.java
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Hesap makinesi; ifadeler çekirdeğin ifade motoruyla hesaplanır.
+ */
+final class CalculatorApp {
+    static void open(AppContext ctx) {
+        MiniWindow calc = new MiniWindow("Calculator", 250, 250, ctx.desktop, ctx.windowManager, "calc");
+        JTextField display = new JTextField();
+        display.setEditable(false);
+        JPanel buttons = new JPanel(new GridLayout(4, 4, 5, 5));
+        String[] labels = {"7","8","9","/","4","5","6","*","1","2","3","-","0",".","=","+"};
+        for (String lab : labels) {
+            JButton b = new JButton(lab);
+            b.addActionListener(e -> {
+                String t = display.getText();
+                if (lab.equals("=")) {
+                    try {
+                        display.setText(Kernel.ExpressionEngine.format(ctx.kernel.expressions.eval(t)));
+                    } catch (Exception ex) {
+                        display.setText("ERR");
+                    }
+                } else {
+                    display.setText(t + lab);
+                }
+            });
+            buttons.add(b);
+        }
+        calc.setContent(new BorderLayout());
+        calc.addContent(display, BorderLayout.NORTH);
+        calc.addContent(buttons, BorderLayout.CENTER);
+        calc.showOn(ctx.desktop, ctx.windowManager.count());
+    }
+}
@@ -0,0 +1,70 @@
+// GitHubInfoApp.java
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * GitHub Info: GitHub API'den kullanıcı bilgilerini gösterir.
+ */
+final class GitHubInfoApp {
+    static void open(AppContext ctx) {
+        MiniWindow win = new MiniWindow("GitHub Kullanıcı", 500, 300, ctx.desktop, ctx.windowManager, "github");
+
+        JPanel top = new JPanel(new BorderLayout(5,5));
+        JTextField userField = new JTextField("octocat");
+        JButton fetch = new JButton("Getir");
+        top.add(new JLabel("GitHub kullanıcı:"), BorderLayout.WEST);
+        top.add(userField, BorderLayout.CENTER);
+        top.add(fetch, BorderLayout.EAST);
+
+        JTextArea output = new JTextArea();
+        output.setEditable(false);
+        JScrollPane scroll = new JScrollPane(output);
+
+        fetch.addActionListener(e -> {
+            String user = userField.getText().trim();
+            output.setText("Yükleniyor...\n");
+            // Pencere kapanırsa istek kapsamla birlikte iptal edilir.
+            ctx.kernel.http().getAsync("https://api.github.com/users/" + user, ctx.process.scope()).whenComplete((res, ex) -> {
+                if (ex instanceof java.util.concurrent.CancellationException) return;
+                if (ex != null) {
+                    SwingUtilities.invokeLater(() -> output.setText("Hata: " + Kernel.errorMessage(ex)));
+                    return;
+                }
+                Kernel.JsonReader.Projection json;
+                try {
+                    json = Kernel.JsonReader.project(res.reader(), "login", "name", "public_repos", "followers");
+                } catch (java.io.IOException jsonEx) {
+                    SwingUtilities.invokeLater(() -> output.setText("Hata: " + jsonEx.getMessage()));
+                    return;
+                }
+
+                String login = jsonField(json, "login");
+                String name = jsonField(json, "name");
+                String repos = jsonField(json, "public_repos");
+                String followers = jsonField(json, "followers");
+
+                SwingUtilities.invokeLater(() -> {
+                    output.setText("");
+                    output.append("Login: " + login + "\n");
+                    output.append("Name: " + name + "\n");
+                    output.append("Public Repos: " + repos + "\n");
+                    output.append("Followers: " + followers + "\n");
+                    output.append("Raw HTTP Code: " + res.status + (res.fromCache ? " (önbellek)" : "") + "\n");
+                });
+            });
+        });
+
+        JPanel container = new JPanel(new BorderLayout());
+        container.add(top, BorderLayout.NORTH);
+        container.add(scroll, BorderLayout.CENTER);
+
+        win.setContent(new BorderLayout());
+        win.addContent(container, BorderLayout.CENTER);
+        win.showOn(ctx.desktop, ctx.windowManager.count());
+    }
+
+    private static String jsonField(Kernel.JsonReader.Projection json, String field) {
+        String v = json.get(field);
+        return v != null ? v : "(yok)";
+    }
+}
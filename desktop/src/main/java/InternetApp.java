@@ -0,0 +1,569 @@
+// InternetApp.java
+import javax.swing.*;
+import javax.swing.event.HyperlinkEvent;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.html.HTML;
+import javax.swing.text.html.HTMLDocument;
+import javax.swing.text.html.HTMLEditorKit;
+import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.net.URL;
+
+/**
+ * Internet uygulaması: sekmeli HTML görüntüleyici.
+ *
+ * İndirme HttpService'te, HTMLDocument ayrıştırması sürecin iş parçacıklarında yapılır; EDT'ye
+ * yalnızca bitmiş belge takılır. Ayrıştırılmış belgeler bütün Internet pencerelerinin paylaştığı,
+ * bellek bütçeli bir LRU'da ({@link PageCache}) tutulur: geri/ileri ve yeniden ziyaret ne indirir
+ * ne ayrıştırır. Her sekmenin kendi JEditorPane'i olduğundan sekme değiştirmek yerleşimi yeniden
+ * kurmaz. Gösterilen sayfanın olası sonraki bağlantıları ile fare altındaki bağlantı BACKGROUND
+ * öncelikle önceden yüklenir.
+ */
+final class InternetApp {
+    private static final String HOME = "https://example.com";
+    // Sayfa başına önceden yüklenecek bağlantı sayısı (0: kapalı).
+    private static final int PREFETCH = Integer.getInteger("javaos.browser.prefetch", 4);
+    private static final PageCache CACHE = new PageCache(Long.getLong("javaos.browser.cacheBytes", 32L << 20));
+    // Ayrıştırma durumsuzdur; varsayılan stil sayfası sınıf EDT'de yüklenirken bir kez kurulur.
+    private static final HTMLEditorKit KIT = new HTMLEditorKit();
+
+    static {
+        KIT.getStyleSheet();
+    }
+
+    static void open(AppContext ctx) {
+        new Browser(ctx).show();
+    }
+
+    /** Ayrıştırılmış sayfa. Belge EDT'ye verildikten sonra yalnızca okunur. */
+    static final class Page {
+        final String url;
+        final int status;
+        final HTMLDocument doc;
+        final String title;
+        // Mutlak http(s) adresleri, belge sırasıyla ve tekrarsız; parça (#...) atılmış.
+        final java.util.List<String> links;
+        final long bytes;
+        final long expires;
+
+        Page(String url, int status, HTMLDocument doc, String title, java.util.List<String> links, long bytes, long expires) {
+            this.url = url;
+            this.status = status;
+            this.doc = doc;
+            this.title = title;
+            this.links = links;
+            this.bytes = bytes;
+            this.expires = expires;
+        }
+
+        boolean isFresh() {
+            return System.currentTimeMillis() < expires;
+        }
+    }
+
+    /**
+     * Ayrıştırılmış sayfaların LRU'su. Bellek belge metninden (karakter başına 2 bayt) ve öğe başına
+     * sabit bir paydan tahmin edilir. Önceden yüklenen sayfalar bütçenin dörtte biri kadar ayrı bir
+     * bölmede bekler ve ilk kullanımda ana bölmeye geçer; hiç açılmayan bağlantılar geri/ileri
+     * geçmişindeki sayfaları önbellekten atmaz.
+     */
+    static final class PageCache {
+        private final long budget;
+        private final java.util.LinkedHashMap<String, Page> main = new java.util.LinkedHashMap<>(16, 0.75f, true);
+        private final java.util.LinkedHashMap<String, Page> speculative = new java.util.LinkedHashMap<>();
+        private long mainBytes, speculativeBytes;
+
+        PageCache(long budget) {
+            this.budget = budget;
+        }
+
+        synchronized Page get(String url) {
+            Page p = main.get(url);
+            if (p != null) return p;
+            p = speculative.remove(url);
+            if (p != null) {
+                speculativeBytes -= p.bytes;
+                putMain(url, p);
+            }
+            return p;
+        }
+
+        synchronized boolean contains(String url) {
+            return main.containsKey(url) || speculative.containsKey(url);
+        }
+
+        synchronized void put(String url, Page p, boolean prefetched) {
+            remove(url);
+            if (!prefetched) {
+                putMain(url, p);
+                return;
+            }
+            if (p.bytes > budget / 4) return;
+            speculative.put(url, p);
+            speculativeBytes += p.bytes;
+            java.util.Iterator<Page> it = speculative.values().iterator();
+            while (speculativeBytes > budget / 4 && it.hasNext()) {
+                speculativeBytes -= it.next().bytes;
+                it.remove();
+            }
+        }
+
+        synchronized void remove(String url) {
+            Page p = main.remove(url);
+            if (p != null) mainBytes -= p.bytes;
+            p = speculative.remove(url);
+            if (p != null) speculativeBytes -= p.bytes;
+        }
+
+        synchronized long bytes() {
+            return mainBytes + speculativeBytes;
+        }
+
+        private void putMain(String url, Page p) {
+            if (p.bytes > budget) return;
+            main.put(url, p);
+            mainBytes += p.bytes;
+            java.util.Iterator<Page> it = main.values().iterator();
+            while (mainBytes > budget && it.hasNext()) {
+                mainBytes -= it.next().bytes;
+                it.remove();
+            }
+        }
+    }
+
+    // Çağıran iş parçacığında: yanıtı ayrık bir HTMLDocument'e ayrıştırır, başlığı ve bağlantıları çıkarır.
+    static Page parse(Kernel.HttpService.Response res, Kernel.Metrics metrics) throws Exception {
+        Kernel.Metrics.Span span = metrics.span("browser.parse", Kernel.Metrics.Kind.RENDER, res.url);
+        try {
+            HTMLDocument doc = (HTMLDocument) KIT.createDefaultDocument();
+            URL base = new URL(res.url);
+            doc.setBase(base);
+            doc.putProperty("IgnoreCharsetDirective", Boolean.TRUE);
+            doc.setAsynchronousLoadPriority(-1);
+            String type = res.contentType == null ? "text/html" : res.contentType.toLowerCase(java.util.Locale.ROOT);
+            java.io.Reader in;
+            if (type.startsWith("text/html") || type.contains("xhtml")) in = res.reader();
+            else if (type.startsWith("image/")) in = new java.io.StringReader("<html><body><img src=\"" + escape(res.url) + "\"></body></html>");
+            else in = new java.io.StringReader("<html><body><pre>" + escape(res.text()) + "</pre></body></html>");
+            KIT.read(in, doc, 0);
+
+            java.util.LinkedHashSet<String> links = new java.util.LinkedHashSet<>();
+            for (HTMLDocument.Iterator it = doc.getIterator(HTML.Tag.A); it.isValid(); it.next()) {
+                Object href = it.getAttributes().getAttribute(HTML.Attribute.HREF);
+                if (href == null) continue;
+                try {
+                    URL u = new URL(base, href.toString());
+                    if (!u.getProtocol().equals("http") && !u.getProtocol().equals("https")) continue;
+                    String s = u.toString();
+                    int hash = s.indexOf('#');
+                    links.add(hash < 0 ? s : s.substring(0, hash));
+                } catch (java.net.MalformedURLException ignored) {
+                }
+            }
+            links.remove(res.url);
+            Object title = doc.getProperty(Document.TitleProperty);
+            long bytes = 2L * doc.getLength() + 160L * elements(doc.getDefaultRootElement());
+            for (String l : links) bytes += 48 + 2L * l.length();
+            span.bytes(res.body.length);
+            return new Page(res.url, res.status, doc, title == null ? null : title.toString().trim(),
+                    new java.util.ArrayList<>(links), bytes, res.expires);
+        } catch (Exception e) {
+            span.failed();
+            throw e;
+        } finally {
+            span.close();
+        }
+    }
+
+    private static long elements(Element e) {
+        long n = 1;
+        for (int i = 0; i < e.getElementCount(); i++) n += elements(e.getElement(i));
+        return n;
+    }
+
+    private static String escape(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static String normalize(String url) {
+        url = url.trim();
+        return url.startsWith("http://") || url.startsWith("https://") ? url : "http://" + url;
+    }
+
+    private static String host(String url) {
+        try {
+            return new URL(url).getHost();
+        } catch (java.net.MalformedURLException e) {
+            return "";
+        }
+    }
+
+    /** Geçmişteki bir durak: adres ve ayrılırken kalınan kaydırma konumu. */
+    private static final class Entry {
+        final String url;
+        int scrollY;
+
+        Entry(String url) {
+            this.url = url;
+        }
+    }
+
+    private static final class Tab {
+        final JEditorPane view = new JEditorPane();
+        final JScrollPane scroll = new JScrollPane(view);
+        final java.util.List<Entry> history = new java.util.ArrayList<>();
+        int index = -1;
+        // Her gezinmede artar; geç gelen eski yüklemeler bununla elenir.
+        long ticket;
+        // Oturumdan geri yüklenen ve henüz seçilmemiş sekmenin adresi.
+        String pending;
+        Page page;
+
+        Tab() {
+            view.setEditable(false);
+            view.setContentType("text/html");
+        }
+
+        Entry current() {
+            return index < 0 ? null : history.get(index);
+        }
+
+        String url() {
+            Entry e = current();
+            return e != null ? e.url : pending;
+        }
+    }
+
+    private static final class Browser {
+        private final AppContext ctx;
+        private final MiniWindow window;
+        private final JTabbedPane tabs = new JTabbedPane(JTabbedPane.TOP, JTabbedPane.SCROLL_TAB_LAYOUT);
+        private final JTextField urlField = new JTextField();
+        private final JButton back = new JButton("<");
+        private final JButton forward = new JButton(">");
+        private final JLabel status = new JLabel(" ");
+        // Bu pencerede süren yüklemeler; önceden yüklenmekte olan bir sayfaya gidilirse aynı iş beklenir.
+        private final java.util.Map<String, java.util.concurrent.CompletableFuture<Page>> loading = new java.util.HashMap<>();
+        private final Kernel.Metrics.Counter hits, misses;
+        private long modifications;
+        // İlk sekme, olası oturum geri yüklemesi bitene kadar yüklenmez.
+        private boolean ready;
+
+        Browser(AppContext ctx) {
+            this.ctx = ctx;
+            this.window = new MiniWindow("Internet", 700, 500, ctx.desktop, ctx.windowManager, "internet");
+            this.hits = ctx.kernel.metrics.counter("browser.cache.hits");
+            this.misses = ctx.kernel.metrics.counter("browser.cache.misses");
+            // Önbellekteki belgeler görünümlere dinleyici olarak bağlıdır; kapanışta sökülmezse
+            // ortak önbellek kapanmış pencereyi bellekte tutar.
+            ctx.process.scope().onClose(() -> {
+                if (SwingUtilities.isEventDispatchThread()) detachAll();
+                else SwingUtilities.invokeLater(this::detachAll);
+            });
+
+            JButton reload = new JButton("Yenile");
+            JButton newTab = new JButton("+");
+            JButton closeTab = new JButton("x");
+            JButton go = new JButton("Git");
+            JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT, 2, 0));
+            buttons.add(back);
+            buttons.add(forward);
+            buttons.add(reload);
+            JPanel tabButtons = new JPanel(new FlowLayout(FlowLayout.LEFT, 2, 0));
+            tabButtons.add(go);
+            tabButtons.add(newTab);
+            tabButtons.add(closeTab);
+            JPanel top = new JPanel(new BorderLayout(5, 5));
+            top.add(buttons, BorderLayout.WEST);
+            top.add(urlField, BorderLayout.CENTER);
+            top.add(tabButtons, BorderLayout.EAST);
+
+            back.addActionListener(e -> step(-1));
+            forward.addActionListener(e -> step(1));
+            reload.addActionListener(e -> reload());
+            newTab.addActionListener(e -> select(addTab(HOME)));
+            closeTab.addActionListener(e -> closeTab());
+            go.addActionListener(e -> go(current(), urlField.getText()));
+            urlField.addActionListener(e -> go(current(), urlField.getText()));
+            // Oturumdan gelen sekmeler ilk seçildiklerinde yüklenir.
+            tabs.addChangeListener(e -> {
+                Tab t = current();
+                if (t == null) return;
+                if (ready) activate(t);
+                updateChrome();
+                modifications++;
+            });
+
+            JPanel container = new JPanel(new BorderLayout());
+            container.add(top, BorderLayout.NORTH);
+            container.add(tabs, BorderLayout.CENTER);
+            container.add(status, BorderLayout.SOUTH);
+            bind(container, KeyStroke.getKeyStroke(KeyEvent.VK_T, InputEvent.CTRL_DOWN_MASK), () -> select(addTab(HOME)));
+            bind(container, KeyStroke.getKeyStroke(KeyEvent.VK_W, InputEvent.CTRL_DOWN_MASK), this::closeTab);
+            bind(container, KeyStroke.getKeyStroke(KeyEvent.VK_LEFT, InputEvent.ALT_DOWN_MASK), () -> step(-1));
+            bind(container, KeyStroke.getKeyStroke(KeyEvent.VK_RIGHT, InputEvent.ALT_DOWN_MASK), () -> step(1));
+            bind(container, KeyStroke.getKeyStroke(KeyEvent.VK_F5, 0), this::reload);
+            bind(container, KeyStroke.getKeyStroke(KeyEvent.VK_L, InputEvent.CTRL_DOWN_MASK), () -> {
+                urlField.requestFocusInWindow();
+                urlField.selectAll();
+            });
+
+            window.setContent(new BorderLayout());
+            window.addContent(container, BorderLayout.CENTER);
+            window.setPersistence(new SessionStore.Persistent() {
+                public void save(SessionStore.Sections out) {
+                    out.section("tabs", modifications, () -> {
+                        String[] urls = new String[tabs.getTabCount()];
+                        for (int i = 0; i < urls.length; i++) urls[i] = tab(i).url();
+                        int selected = tabs.getSelectedIndex();
+                        return o -> {
+                            o.writeInt(selected);
+                            o.writeInt(urls.length);
+                            for (String u : urls) o.writeUTF(u == null ? HOME : u);
+                        };
+                    });
+                }
+
+                public void restore(SessionStore.SavedWindow saved) {
+                    java.io.DataInputStream in = saved.open("tabs");
+                    if (in == null) return;
+                    try {
+                        int selected = in.readInt();
+                        int n = in.readInt();
+                        if (n <= 0) return;
+                        String[] urls = new String[n];
+                        for (int i = 0; i < n; i++) urls[i] = in.readUTF();
+                        while (tabs.getTabCount() > 0) discard(0);
+                        for (String u : urls) addTab(u);
+                        tabs.setSelectedIndex(Math.max(0, Math.min(selected, n - 1)));
+                        if (ready) activate(current());
+                    } catch (java.io.IOException ex) {
+                        status.setText("Önceki oturumun sekmeleri okunamadı: " + Kernel.errorMessage(ex));
+                    }
+                }
+            });
+        }
+
+        void show() {
+            addTab(HOME);
+            window.showOn(ctx.desktop, ctx.windowManager.count());
+            // Oturum geri yüklemesi sekmeleri aynı olay içinde değiştirir; ilk yükleme ondan sonra başlar.
+            SwingUtilities.invokeLater(() -> {
+                ready = true;
+                Tab t = current();
+                if (t != null) activate(t);
+            });
+        }
+
+        private static void bind(JComponent c, KeyStroke key, Runnable action) {
+            String name = key.toString();
+            c.getInputMap(JComponent.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT).put(key, name);
+            c.getActionMap().put(name, new AbstractAction() {
+                public void actionPerformed(java.awt.event.ActionEvent e) {
+                    action.run();
+                }
+            });
+        }
+
+        private Tab tab(int i) {
+            return (Tab) ((JComponent) tabs.getComponentAt(i)).getClientProperty(Tab.class);
+        }
+
+        private Tab current() {
+            int i = tabs.getSelectedIndex();
+            return i < 0 ? null : tab(i);
+        }
+
+        private void select(Tab t) {
+            tabs.setSelectedComponent(t.scroll);
+        }
+
+        private Tab addTab(String url) {
+            Tab t = new Tab();
+            t.pending = url;
+            t.scroll.putClientProperty(Tab.class, t);
+            t.view.addHyperlinkListener(e -> link(t, e));
+            tabs.addTab("Yeni sekme", t.scroll);
+            modifications++;
+            return t;
+        }
+
+        private void activate(Tab t) {
+            if (t.pending == null) return;
+            String url = t.pending;
+            t.pending = null;
+            go(t, url);
+        }
+
+        private void closeTab() {
+            if (tabs.getTabCount() <= 1) return;
+            discard(tabs.getSelectedIndex());
+        }
+
+        private void discard(int i) {
+            Tab t = tab(i);
+            detach(t);
+            tabs.removeTabAt(i);
+            modifications++;
+        }
+
+        // Sekmeyi belgesinden ayırır; süren yüklemesi artık gösterilmez.
+        private void detach(Tab t) {
+            t.ticket++;
+            t.page = null;
+            t.view.setDocument(t.view.getEditorKit().createDefaultDocument());
+        }
+
+        private void detachAll() {
+            for (int i = 0; i < tabs.getTabCount(); i++) detach(tab(i));
+        }
+
+        private void link(Tab t, HyperlinkEvent e) {
+            String url = e.getURL() != null ? e.getURL().toString() : e.getDescription();
+            if (e.getEventType() == HyperlinkEvent.EventType.ENTERED) {
+                status.setText(url);
+                // Fare altındaki bağlantı en olası sonraki sayfadır.
+                if (e.getURL() != null) prefetch(url);
+            } else if (e.getEventType() == HyperlinkEvent.EventType.EXITED) {
+                status.setText(" ");
+            } else if (e.getEventType() == HyperlinkEvent.EventType.ACTIVATED && url != null) {
+                java.awt.event.InputEvent input = e.getInputEvent();
+                boolean newTab = input != null && (input.isControlDown()
+                        || input instanceof MouseEvent && SwingUtilities.isMiddleMouseButton((MouseEvent) input));
+                if (newTab) addTab(url);
+                else go(t, url);
+            }
+        }
+
+        // Yeni adrese gider: ileri geçmişi atılır.
+        private void go(Tab t, String url) {
+            if (t == null) return;
+            Entry from = t.current();
+            if (from != null) from.scrollY = t.scroll.getViewport().getViewPosition().y;
+            while (t.history.size() > t.index + 1) t.history.remove(t.history.size() - 1);
+            t.history.add(new Entry(normalize(url)));
+            t.index++;
+            navigate(t, false, false);
+        }
+
+        private void step(int delta) {
+            Tab t = current();
+            if (t == null || t.index + delta < 0 || t.index + delta >= t.history.size()) return;
+            t.current().scrollY = t.scroll.getViewport().getViewPosition().y;
+            t.index += delta;
+            navigate(t, true, false);
+        }
+
+        private void reload() {
+            Tab t = current();
+            if (t == null || t.current() == null) return;
+            t.current().scrollY = t.scroll.getViewport().getViewPosition().y;
+            navigate(t, true, true);
+        }
+
+        // Geçmişteki duraklar (geri/ileri) önbellekteki sayfayı bayat olsa da gösterir; yeni gezinme tazesini ister.
+        private void navigate(Tab t, boolean history, boolean reload) {
+            Entry entry = t.current();
+            long ticket = ++t.ticket;
+            modifications++;
+            updateChrome();
+            Page cached = reload ? null : CACHE.get(entry.url);
+            if (cached != null && (history || cached.isFresh())) {
+                hits.increment();
+                display(t, cached, entry.scrollY, "Önbellekten: ");
+                return;
+            }
+            misses.increment();
+            if (reload) CACHE.remove(entry.url);
+            status.setText("Yükleniyor: " + entry.url);
+            load(entry.url, ctx.process.priority(), false).whenComplete((page, ex) -> SwingUtilities.invokeLater(() -> {
+                if (t.ticket != ticket) return;
+                if (ex != null) {
+                    t.page = null;
+                    t.view.setText("<html><body><h3>Yüklenemedi:</h3><pre>" + escape(Kernel.errorMessage(ex)) + "</pre></body></html>");
+                    status.setText("Yüklenemedi: " + entry.url);
+                    updateChrome();
+                    return;
+                }
+                display(t, page, entry.scrollY, "");
+            }));
+        }
+
+        /**
+         * Sayfayı indirir ve verilen öncelikle ayrıştırır (EDT'de çağrılır). Sonuç önbelleğe girer;
+         * aynı adres için süren bir yükleme varsa o paylaşılır. Yükleme pencerenin kapsamına
+         * bağlıdır: pencere kapanınca istek ve ayrıştırma iptal edilir.
+         */
+        private java.util.concurrent.CompletableFuture<Page> load(String url, Kernel.ProcessTable.Priority priority, boolean prefetch) {
+            java.util.concurrent.CompletableFuture<Page> running = loading.get(url);
+            if (running != null) return running;
+            Kernel.ProcessTable.Scope scope = ctx.process.scope();
+            java.util.concurrent.CompletableFuture<Page> f = scope.own(ctx.kernel.http().getAsync(url, scope).thenApplyAsync(res -> {
+                try {
+                    Page p = parse(res, ctx.kernel.metrics);
+                    if (p.status == 200) CACHE.put(url, p, prefetch);
+                    return p;
+                } catch (Exception e) {
+                    throw new java.util.concurrent.CompletionException(e);
+                }
+            }, r -> ctx.process.execute(priority, r)));
+            loading.put(url, f);
+            f.whenComplete((p, ex) -> SwingUtilities.invokeLater(() -> loading.remove(url, f)));
+            return f;
+        }
+
+        // EDT: bitmiş belgeyi takar; görünüm ağacı ve yerleşim burada kurulur.
+        private void display(Tab t, Page page, int scrollY, String note) {
+            Kernel.Metrics.Span span = ctx.kernel.metrics.span("browser.render", Kernel.Metrics.Kind.RENDER, page.url);
+            try {
+                t.page = page;
+                t.view.setDocument(page.doc);
+                t.view.setCaretPosition(0);
+            } catch (RuntimeException e) {
+                span.failed();
+                throw e;
+            } finally {
+                span.close();
+            }
+            SwingUtilities.invokeLater(() -> t.scroll.getViewport().setViewPosition(new Point(0, scrollY)));
+            String title = page.title == null || page.title.isEmpty() ? host(page.url) : page.title;
+            int i = tabs.indexOfComponent(t.scroll);
+            if (i >= 0) {
+                tabs.setTitleAt(i, title.length() > 24 ? title.substring(0, 23) + "…" : title);
+                tabs.setToolTipTextAt(i, page.url);
+            }
+            if (t == current()) {
+                status.setText(note + page.url);
+                updateChrome();
+                prefetch(page);
+            }
+        }
+
+        // Aynı sunucudaki bağlantılar önce, sonra ötekiler; belge sırasıyla ilk PREFETCH tanesi.
+        private void prefetch(Page page) {
+            if (PREFETCH <= 0) return;
+            String host = host(page.url);
+            java.util.List<String> picks = new java.util.ArrayList<>();
+            for (String l : page.links) if (picks.size() < PREFETCH && host(l).equals(host)) picks.add(l);
+            for (String l : page.links) if (picks.size() < PREFETCH && !picks.contains(l)) picks.add(l);
+            for (String l : picks) prefetch(l);
+        }
+
+        private void prefetch(String url) {
+            if (PREFETCH <= 0 || CACHE.contains(url) || loading.containsKey(url)) return;
+            ctx.kernel.metrics.counter("browser.prefetch").increment();
+            load(url, Kernel.ProcessTable.Priority.BACKGROUND, true);
+        }
+
+        private void updateChrome() {
+            Tab t = current();
+            back.setEnabled(t != null && t.index > 0);
+            forward.setEnabled(t != null && t.index + 1 < t.history.size());
+            String url = t == null ? null : t.url();
+            if (url != null && !url.equals(urlField.getText())) urlField.setText(url);
+        }
+    }
+}
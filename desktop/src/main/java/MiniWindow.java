@@ -0,0 +1,185 @@
+// MiniWindow.java
+import javax.swing.*;
+import javax.swing.border.LineBorder;
+import java.awt.*;
+import java.awt.event.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Küçük taşınabilir pencere sınıfı.
+ */
+public class MiniWindow extends JPanel {
+    private final JPanel titleBar = new JPanel();
+    private final JLabel titleLabel = new JLabel();
+    private final JButton closeBtn = new JButton("x");
+    private final JPanel contentPane = new JPanel();
+    private Point dragOrigin, dragScreen, pendingMove;
+    private java.awt.image.BufferedImage buffer;
+    private Rectangle damage;
+    private final int width, height;
+    private final WindowManager ownerManager;
+    final String key;
+    // Oturum kaydında aynı anahtarla yeniden açılan pencereyi ayırt eder.
+    private static final java.util.concurrent.atomic.AtomicLong SERIALS = new java.util.concurrent.atomic.AtomicLong();
+    final long serial = SERIALS.incrementAndGet();
+    SessionStore.Persistent persistence;
+
+    public MiniWindow(String title, int w, int h, JFrame desktop, WindowManager manager, String key) {
+        this.width = w;
+        this.height = h;
+        this.ownerManager = manager;
+        this.key = key.toLowerCase();
+        setLayout(new BorderLayout());
+        setBorder(new LineBorder(Color.GRAY, 2));
+        setSize(w, h);
+        setOpaque(true);
+        setBackground(new Color(50, 50, 50));
+        titleBar.setLayout(new BorderLayout());
+        titleBar.setPreferredSize(new Dimension(w, 25));
+        titleBar.setBackground(new Color(70, 70, 70));
+        titleLabel.setText(" " + title);
+        titleLabel.setForeground(Color.WHITE);
+        titleBar.add(titleLabel, BorderLayout.WEST);
+
+        closeBtn.setBorder(null);
+        closeBtn.setOpaque(false);
+        closeBtn.setContentAreaFilled(false);
+        closeBtn.setForeground(Color.WHITE);
+        closeBtn.setFocusable(false);
+        closeBtn.setPreferredSize(new Dimension(45, 25));
+        titleBar.add(closeBtn, BorderLayout.EAST);
+        add(titleBar, BorderLayout.NORTH);
+
+        contentPane.setLayout(new BorderLayout());
+        add(contentPane, BorderLayout.CENTER);
+
+        // Taşıma: ekran koordinatıyla hesaplanır, kare başına tek setLocation yapılır.
+        titleBar.addMouseListener(new MouseAdapter() {
+            public void mousePressed(MouseEvent e) {
+                toFront();
+                dragOrigin = getLocation();
+                dragScreen = e.getLocationOnScreen();
+            }
+        });
+        titleBar.addMouseMotionListener(new MouseMotionAdapter() {
+            public void mouseDragged(MouseEvent e) {
+                Point p = e.getLocationOnScreen();
+                boolean scheduled = pendingMove != null;
+                pendingMove = new Point(dragOrigin.x + p.x - dragScreen.x, dragOrigin.y + p.y - dragScreen.y);
+                if (!scheduled) {
+                    SwingUtilities.invokeLater(() -> {
+                        setLocation(pendingMove);
+                        pendingMove = null;
+                        ownerManager.metrics.counter("wm.moves").increment();
+                    });
+                }
+            }
+        });
+
+        // Kapat
+        closeBtn.addActionListener(e -> close(desktop));
+
+        // Öne çıkar
+        addMouseListener(new MouseAdapter() {
+            public void mousePressed(MouseEvent e) {
+                toFront();
+            }
+        });
+    }
+
+    public void setContent(LayoutManager lm) {
+        contentPane.setLayout(lm);
+        removeAll();
+        add(titleBar, BorderLayout.NORTH);
+        add(contentPane, BorderLayout.CENTER);
+    }
+
+    public void addContent(Component comp, Object constraints) {
+        contentPane.add(comp, constraints);
+    }
+
+    /** İçeriği oturum kaydına katar (bkz. WindowManager.saveSession). */
+    public void setPersistence(SessionStore.Persistent persistence) {
+        this.persistence = persistence;
+    }
+
+    public void showOn(JFrame desktop, int offsetIndex) {
+        if (ownerManager.isCompositing()) useSimpleScrolling(this);
+        desktop.getLayeredPane().add(this, JLayeredPane.PALETTE_LAYER);
+        setLocation(50 + offsetIndex * 30, 70 + offsetIndex * 30);
+        setVisible(true);
+        setSize(width, height);
+        ownerManager.add(key, this);
+    }
+
+    public void close(JFrame desktop) {
+        int result = JOptionPane.showConfirmDialog(this, "Pencereyi kapatmak istediğine emin misin?", "Kapatılıyor", JOptionPane.YES_NO_OPTION);
+        if (result != JOptionPane.YES_OPTION) return;
+        Container parent = getParent();
+        if (parent != null) {
+            parent.remove(this);
+            parent.repaint();
+        }
+        ownerManager.remove(key);
+    }
+
+    public void toFront() {
+        Container p = getParent();
+        if (p != null && p.getComponentZOrder(this) != 0) {
+            p.setComponentZOrder(this, 0);
+            repaint();
+            ownerManager.fireFront(key);
+        }
+    }
+
+    /** İçerik değişti: tamponun bu bölgesi bir sonraki çizimde yeniden üretilir. */
+    synchronized void damage(int x, int y, int w, int h) {
+        Rectangle r = new Rectangle(x, y, w, h);
+        damage = damage == null ? r : damage.union(r);
+    }
+
+    // Sonradan eklenen kaydırma alanları (yeni sekmeler, geri yüklenen içerik) da basit kaydırır.
+    private final ContainerListener scrollWatcher = new ContainerAdapter() {
+        public void componentAdded(ContainerEvent e) {
+            useSimpleScrolling(e.getChild());
+        }
+    };
+
+    // Kaydırma kopyalaması (blit) RepaintManager'dan geçmediği için tamponu bayatlatır.
+    private void useSimpleScrolling(Component c) {
+        if (c instanceof JViewport) ((JViewport) c).setScrollMode(JViewport.SIMPLE_SCROLL_MODE);
+        if (c instanceof Container) {
+            Container k = (Container) c;
+            k.removeContainerListener(scrollWatcher);
+            k.addContainerListener(scrollWatcher);
+            for (Component child : k.getComponents()) useSimpleScrolling(child);
+        }
+    }
+
+    public void paint(Graphics g) {
+        int w = getWidth(), h = getHeight();
+        if (!ownerManager.isCompositing() || w <= 0 || h <= 0) {
+            super.paint(g);
+            return;
+        }
+        if (buffer == null || buffer.getWidth() != w || buffer.getHeight() != h) {
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            buffer = gc != null ? gc.createCompatibleImage(w, h)
+                    : new java.awt.image.BufferedImage(w, h, java.awt.image.BufferedImage.TYPE_INT_RGB);
+            damage(0, 0, w, h);
+        }
+        Rectangle dirty;
+        synchronized (this) {
+            dirty = damage;
+            damage = null;
+        }
+        if (dirty != null) {
+            Graphics2D bg = buffer.createGraphics();
+            bg.setClip(dirty);
+            super.paint(bg);
+            bg.dispose();
+        }
+        g.drawImage(buffer, 0, 0, null);
+    }
+}
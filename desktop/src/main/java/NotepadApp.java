@@ -0,0 +1,1075 @@
+// NotepadApp.java
+import javax.swing.*;
+import java.awt.*;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Not Defteri uygulaması. Metin sanal dosya sisteminde (VFS) açılıp kaydedilir. Belge bir
+ * parça tablosudur: dosya kopyalanmadan eşlenmiş hâliyle açılır, yalnızca görünen satırlar
+ * okunup çizilir; bu yüzden açılış ve yazım dosya boyundan bağımsızdır.
+ */
+final class NotepadApp {
+    static void open(AppContext ctx) {
+        MiniWindow note = new MiniWindow("Not Defteri", 360, 340, ctx.desktop, ctx.windowManager, "notepad");
+        EditorView editor = new EditorView();
+        JLabel status = new JLabel(" ");
+        editor.onChange = () -> status.setText(editor.statusText());
+        editor.setDocument(new PieceTable(ByteBuffer.allocate(0)));
+        // Pencere kapanınca arka plandaki satır dizinleme durur.
+        ctx.process.scope().onClose(() -> editor.doc.originalLines.stop());
+
+        JPanel top = new JPanel(new BorderLayout(5, 5));
+        JTextField pathField = new JTextField("/not.txt");
+        JPanel buttons = new JPanel(new GridLayout(1, 2, 5, 0));
+        JButton openButton = new JButton("Aç");
+        JButton saveButton = new JButton("Kaydet");
+        buttons.add(openButton);
+        buttons.add(saveButton);
+        top.add(pathField, BorderLayout.CENTER);
+        top.add(buttons, BorderLayout.EAST);
+
+        openButton.addActionListener(e -> load(ctx, pathField.getText().trim(), editor));
+        pathField.addActionListener(e -> load(ctx, pathField.getText().trim(), editor));
+        saveButton.addActionListener(e -> save(ctx, pathField.getText().trim(), editor));
+        editor.onSave = () -> save(ctx, pathField.getText().trim(), editor);
+
+        JPanel findBar = new JPanel(new BorderLayout(5, 0));
+        JTextField findField = new JTextField();
+        JCheckBox matchCase = new JCheckBox("Aa");
+        matchCase.setToolTipText("Büyük/küçük harfe duyarlı");
+        JButton findButton = new JButton("Bul");
+        JPanel findButtons = new JPanel(new BorderLayout());
+        findButtons.add(matchCase, BorderLayout.WEST);
+        findButtons.add(findButton, BorderLayout.EAST);
+        findBar.add(new JLabel(" Ara:"), BorderLayout.WEST);
+        findBar.add(findField, BorderLayout.CENTER);
+        findBar.add(findButtons, BorderLayout.EAST);
+        Runnable find = () -> {
+            String text = findField.getText();
+            editor.findNext(text, !matchCase.isSelected(), ctx.process, ctx.kernel.search().pool(),
+                    () -> status.setText(" Bulunamadı: " + text));
+        };
+        findButton.addActionListener(e -> find.run());
+        findField.addActionListener(e -> find.run());
+        editor.onFind = findField::requestFocusInWindow;
+
+        JPanel bottom = new JPanel(new BorderLayout());
+        bottom.add(findBar, BorderLayout.NORTH);
+        bottom.add(status, BorderLayout.SOUTH);
+
+        JPanel body = new JPanel(new BorderLayout());
+        body.add(editor, BorderLayout.CENTER);
+        body.add(editor.vertical, BorderLayout.EAST);
+        body.add(editor.horizontal, BorderLayout.SOUTH);
+
+        note.setPersistence(new SessionStore.Persistent() {
+            // Yol ve imleç her kayıtta; metnin kendisi yalnızca kaydedilmemiş değişiklik varsa.
+            public void save(SessionStore.Sections out) {
+                String path = pathField.getText();
+                long caret = editor.caret, topLine = editor.topLine;
+                boolean modified = editor.modified;
+                out.section("state", SessionStore.ALWAYS, () -> o -> {
+                    o.writeUTF(path);
+                    o.writeLong(caret);
+                    o.writeLong(topLine);
+                    o.writeBoolean(modified);
+                });
+                if (!modified) return;
+                PieceTable doc = editor.doc;
+                // Çok GB'lık belgede metnin tamamı yazılmaz: parça listesi ve ekleme arabelleği yeter.
+                out.section("edits", ((long) editor.generation << 32) | doc.version(), doc::edits);
+            }
+
+            public void restore(SessionStore.SavedWindow saved) {
+                java.io.DataInputStream in = saved.open("state");
+                if (in == null) return;
+                String path;
+                long caret, topLine;
+                boolean modified;
+                try {
+                    path = in.readUTF();
+                    caret = in.readLong();
+                    topLine = in.readLong();
+                    modified = in.readBoolean();
+                } catch (java.io.IOException ex) {
+                    return;
+                }
+                pathField.setText(path);
+                java.io.DataInputStream edits = modified ? saved.open("edits") : null;
+                // Önceki biçim metnin tamamını tutardı.
+                ByteBuffer text = modified && edits == null ? saved.section("text") : null;
+                ctx.process.execute(() -> {
+                    try {
+                        PieceTable doc;
+                        boolean restored = true;
+                        if (edits != null) {
+                            doc = PieceTable.restore(edits, ctx.kernel.vfs());
+                        } else if (text != null) {
+                            doc = new PieceTable(text);
+                        } else if (ctx.kernel.vfs().stat(path) != null) {
+                            doc = PieceTable.open(ctx.kernel.vfs(), path);
+                            restored = false;
+                        } else {
+                            return;
+                        }
+                        boolean unsaved = restored;
+                        SwingUtilities.invokeLater(() -> {
+                            editor.setDocument(doc);
+                            editor.modified = unsaved;
+                            editor.restorePosition(caret, topLine);
+                            indexInBackground(ctx, editor, doc);
+                        });
+                    } catch (Exception ex) {
+                        showError(ctx, "Açılamadı: " + Kernel.errorMessage(ex));
+                    }
+                });
+            }
+        });
+
+        note.setContent(new BorderLayout());
+        note.addContent(top, BorderLayout.NORTH);
+        note.addContent(body, BorderLayout.CENTER);
+        note.addContent(bottom, BorderLayout.SOUTH);
+        note.showOn(ctx.desktop, ctx.windowManager.count());
+        editor.requestFocusInWindow();
+    }
+
+    // Açmak sadece eşlenmiş görünümü almaktır; satır indeksi arka planda kurulur.
+    private static void load(AppContext ctx, String path, EditorView editor) {
+        ctx.process.execute(() -> {
+            try {
+                PieceTable doc = PieceTable.open(ctx.kernel.vfs(), path);
+                SwingUtilities.invokeLater(() -> {
+                    editor.setDocument(doc);
+                    indexInBackground(ctx, editor, doc);
+                });
+            } catch (Exception ex) {
+                showError(ctx, "Açılamadı: " + Kernel.errorMessage(ex));
+            }
+        });
+    }
+
+    private static void indexInBackground(AppContext ctx, EditorView editor, PieceTable doc) {
+        ctx.process.execute(Kernel.ProcessTable.Priority.BACKGROUND, () -> doc.originalLines.indexAll(
+                () -> SwingUtilities.invokeLater(editor::documentChanged)));
+    }
+
+    // Kayıt sırasında düzenleme kilitlenir: yeni içerik yazılınca eski bloklar serbest kalır
+    // ve belge yeni dosyanın görünümüne taşınır.
+    private static void save(AppContext ctx, String path, EditorView editor) {
+        if (editor.saving) return;
+        editor.saving = true;
+        editor.documentChanged();
+        ByteBuffer[] parts = editor.doc.buffers();
+        ctx.process.execute(() -> {
+            try {
+                ctx.kernel.vfs().write(path, parts);
+                PieceTable doc = PieceTable.open(ctx.kernel.vfs(), path);
+                SwingUtilities.invokeLater(() -> {
+                    editor.doc.originalLines.stop();
+                    editor.replaceDocument(doc);
+                    editor.saving = false;
+                    editor.documentChanged();
+                    indexInBackground(ctx, editor, doc);
+                });
+            } catch (Exception ex) {
+                SwingUtilities.invokeLater(() -> {
+                    editor.saving = false;
+                    editor.documentChanged();
+                });
+                showError(ctx, "Kaydedilemedi: " + Kernel.errorMessage(ex));
+            }
+        });
+    }
+
+    private static void showError(AppContext ctx, String message) {
+        SwingUtilities.invokeLater(() ->
+                JOptionPane.showMessageDialog(ctx.desktop, message, "Not Defteri", JOptionPane.ERROR_MESSAGE));
+    }
+
+    /**
+     * Parça tablosu: belge, değişmeyen özgün arabellekteki (eşlenmiş VFS dosyası) ve yalnızca
+     * sona yazılan ekleme arabelleğindeki aralıkların sırasıdır. Düzenleme parça listesini
+     * böler, baytları taşımaz. Konumlar UTF-8 bayt ofsetidir.
+     */
+    static final class PieceTable {
+        private final ByteBuffer original;
+        final LineIndex originalLines;
+        private byte[] added = new byte[4096];
+        private int addedLength;
+        private List<Piece> pieces = new ArrayList<>();
+        private long[] starts = new long[0];
+        private long length;
+        private long version;
+
+        private static final class Piece {
+            final boolean added;
+            final long start;
+            long length;
+            long newlines = -1;     // bilinmiyorsa -1
+
+            Piece(boolean added, long start, long length) {
+                this.added = added;
+                this.start = start;
+                this.length = length;
+            }
+        }
+
+        // Özgün metnin geldiği VFS dosyası ve o anki boyutu/zamanı; oturum kaydı parçaları
+        // ancak dosya değişmemişse yeniden ona uygular. Dosyasız belgede source null.
+        private String source;
+        private long sourceSize, sourceModified;
+
+        PieceTable(ByteBuffer original) {
+            this.original = original;
+            this.originalLines = new LineIndex(original);
+            if (original.limit() > 0) pieces.add(new Piece(false, 0, original.limit()));
+            reindex();
+        }
+
+        /** VFS dosyasını açar ve kimliğini (boyut, değişme zamanı) hatırlar. */
+        static PieceTable open(Kernel.VirtualFileSystem vfs, String path) throws java.io.IOException {
+            Kernel.VirtualFileSystem.Entry stat = vfs.stat(path);
+            PieceTable doc = new PieceTable(vfs.read(path));
+            if (stat != null) {
+                doc.source = path;
+                doc.sourceSize = stat.size;
+                doc.sourceModified = stat.modified;
+            }
+            return doc;
+        }
+
+        /**
+         * Oturum kaydı için düzenlemeler (EDT'de yakalanır): kaynak dosyanın kimliği, parça
+         * listesi ve ekleme arabelleği. Arabelleğe yalnızca sona eklendiğinden yakalanan dizi
+         * yazıcı iş parçacığında değişmeden okunur.
+         */
+        SessionStore.Encoder edits() {
+            String src = source;
+            long size = sourceSize, modified = sourceModified;
+            Piece[] list = pieces.toArray(new Piece[0]);
+            long[] spans = new long[list.length * 2];
+            for (int i = 0; i < list.length; i++) {
+                spans[2 * i] = list[i].start;
+                spans[2 * i + 1] = list[i].length;
+            }
+            byte[] buffer = added;
+            int used = addedLength;
+            return o -> {
+                o.writeUTF(src == null ? "" : src);
+                o.writeLong(size);
+                o.writeLong(modified);
+                o.writeInt(list.length);
+                for (int i = 0; i < list.length; i++) {
+                    o.writeBoolean(list[i].added);
+                    o.writeLong(spans[2 * i]);
+                    o.writeLong(spans[2 * i + 1]);
+                }
+                o.writeInt(used);
+                o.write(buffer, 0, used);
+            };
+        }
+
+        /** edits() kaydını yeniden kurar; kaynak dosya o günden beri değiştiyse hata verir. */
+        static PieceTable restore(java.io.DataInputStream in, Kernel.VirtualFileSystem vfs) throws java.io.IOException {
+            try (in) {
+                String src = in.readUTF();
+                long size = in.readLong(), modified = in.readLong();
+                ByteBuffer original = ByteBuffer.allocate(0);
+                if (!src.isEmpty()) {
+                    Kernel.VirtualFileSystem.Entry stat = vfs.stat(src);
+                    if (stat == null || stat.size != size || stat.modified != modified) {
+                        throw new java.io.IOException("kaydedilmemiş değişiklikler geri yüklenemedi, dosya değişmiş: " + src);
+                    }
+                    original = vfs.read(src);
+                }
+                int n = in.readInt();
+                if (n < 0) throw new java.io.IOException("bozuk düzenleme kaydı");
+                List<Piece> list = new ArrayList<>(n);
+                boolean[] kinds = new boolean[n];
+                long[] spans = new long[2 * n];
+                for (int i = 0; i < n; i++) {
+                    kinds[i] = in.readBoolean();
+                    spans[2 * i] = in.readLong();
+                    spans[2 * i + 1] = in.readLong();
+                }
+                int used = in.readInt();
+                if (used < 0) throw new java.io.IOException("bozuk düzenleme kaydı");
+                byte[] buffer = new byte[Math.max(4096, used)];
+                in.readFully(buffer, 0, used);
+                for (int i = 0; i < n; i++) {
+                    long start = spans[2 * i], length = spans[2 * i + 1];
+                    long limit = kinds[i] ? used : original.limit();
+                    if (start < 0 || length < 0 || start + length > limit) throw new java.io.IOException("bozuk düzenleme kaydı");
+                    list.add(new Piece(kinds[i], start, length));
+                }
+                PieceTable doc = new PieceTable(original);
+                doc.pieces = list;
+                doc.added = buffer;
+                doc.addedLength = used;
+                if (!src.isEmpty()) {
+                    doc.source = src;
+                    doc.sourceSize = size;
+                    doc.sourceModified = modified;
+                }
+                doc.reindex();
+                return doc;
+            }
+        }
+
+        long length() {
+            return length;
+        }
+
+        /** Her düzenlemede artar. */
+        long version() {
+            return version;
+        }
+
+        private void reindex() {
+            starts = new long[pieces.size()];
+            long pos = 0;
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = pos;
+                pos += pieces.get(i).length;
+            }
+            length = pos;
+            version++;
+        }
+
+        // pos'u içeren parça; pos == length ise son parça.
+        private int pieceAt(long pos) {
+            int i = java.util.Arrays.binarySearch(starts, pos);
+            return i >= 0 ? i : -i - 2;
+        }
+
+        void insert(long pos, byte[] bytes) {
+            if (bytes.length == 0) return;
+            if (addedLength + bytes.length > added.length) {
+                added = java.util.Arrays.copyOf(added, Math.max(addedLength + bytes.length, added.length * 2));
+            }
+            int addStart = addedLength;
+            System.arraycopy(bytes, 0, added, addStart, bytes.length);
+            addedLength += bytes.length;
+
+            int i = pos == length ? pieces.size() : pieceAt(pos);
+            // Art arda yazım: önceki parça ekleme arabelleğinin sonuysa sadece uzatılır.
+            if (i > 0 && (i == pieces.size() || starts[i] == pos)) {
+                Piece prev = pieces.get(i - 1);
+                if (prev.added && prev.start + prev.length == addStart) {
+                    prev.length += bytes.length;
+                    if (prev.newlines >= 0) prev.newlines += countNewlines(bytes, 0, bytes.length);
+                    reindex();
+                    return;
+                }
+            }
+            Piece piece = new Piece(true, addStart, bytes.length);
+            if (i == pieces.size() || starts[i] == pos) {
+                pieces.add(i, piece);
+            } else {
+                Piece p = pieces.get(i);
+                long at = pos - starts[i];
+                pieces.set(i, new Piece(p.added, p.start, at));
+                pieces.add(i + 1, piece);
+                pieces.add(i + 2, new Piece(p.added, p.start + at, p.length - at));
+            }
+            reindex();
+        }
+
+        void delete(long pos, long count) {
+            long end = Math.min(length, pos + count);
+            if (end <= pos) return;
+            List<Piece> out = new ArrayList<>(pieces.size() + 1);
+            for (int i = 0; i < pieces.size(); i++) {
+                Piece p = pieces.get(i);
+                long ps = starts[i], pe = ps + p.length;
+                if (pe <= pos || ps >= end) {
+                    out.add(p);
+                    continue;
+                }
+                if (ps < pos) out.add(new Piece(p.added, p.start, pos - ps));
+                if (pe > end) out.add(new Piece(p.added, p.start + (end - ps), pe - end));
+            }
+            pieces = out;
+            reindex();
+        }
+
+        /** pos'tan itibaren en fazla len baytı kopyalar; kopyalanan bayt sayısını döndürür. */
+        int read(long pos, byte[] dst, int off, int len) {
+            int n = 0;
+            for (int i = pieceAt(pos); n < len && i < pieces.size() && pos < length; i++) {
+                Piece p = pieces.get(i);
+                long inPiece = pos - starts[i];
+                int k = (int) Math.min(len - n, p.length - inPiece);
+                if (p.added) System.arraycopy(added, (int) (p.start + inPiece), dst, off + n, k);
+                else original.get((int) (p.start + inPiece), dst, off + n, k);
+                n += k;
+                pos += k;
+            }
+            return n;
+        }
+
+        int byteAt(long pos) {
+            int i = pieceAt(pos);
+            Piece p = pieces.get(i);
+            long at = p.start + pos - starts[i];
+            return (p.added ? added[(int) at] : original.get((int) at)) & 0xFF;
+        }
+
+        /** Belgeyi kaydetmek için parçaların görünümleri (kopya yok). */
+        ByteBuffer[] buffers() {
+            ByteBuffer[] out = new ByteBuffer[pieces.size()];
+            for (int i = 0; i < out.length; i++) {
+                Piece p = pieces.get(i);
+                out[i] = p.added ? ByteBuffer.wrap(added, (int) p.start, (int) p.length)
+                        : original.duplicate().position((int) p.start).limit((int) (p.start + p.length)).slice();
+            }
+            return out;
+        }
+
+        /** Belgenin o anki hâlinin EDT dışında okunabilen kopyası (parça listesi kopyalanır, metin değil). */
+        Snapshot snapshot() {
+            return new Snapshot(this);
+        }
+
+        /**
+         * Parça tablosunun değişmez görünümü. Ekleme arabelleğine yalnızca sona yazıldığından
+         * ve özgün metin salt okunduğundan, belge EDT'de düzenlenirken de güvenle taranır.
+         */
+        static final class Snapshot {
+            private final ByteBuffer original;
+            private final byte[] added;
+            private final boolean[] kinds;
+            private final long[] offsets, lengths, starts;
+            final long length;
+            final long version;
+
+            private Snapshot(PieceTable doc) {
+                int n = doc.pieces.size();
+                original = doc.original;
+                added = doc.added;
+                kinds = new boolean[n];
+                offsets = new long[n];
+                lengths = new long[n];
+                starts = doc.starts.clone();
+                for (int i = 0; i < n; i++) {
+                    Piece p = doc.pieces.get(i);
+                    kinds[i] = p.added;
+                    offsets[i] = p.start;
+                    lengths[i] = p.length;
+                }
+                length = doc.length;
+                version = doc.version;
+            }
+
+            int read(long pos, byte[] dst, int off, int len) {
+                int n = 0;
+                int i = java.util.Arrays.binarySearch(starts, pos);
+                for (i = i >= 0 ? i : -i - 2; n < len && i < kinds.length && pos < length; i++) {
+                    long inPiece = pos - starts[i];
+                    int k = (int) Math.min(len - n, lengths[i] - inPiece);
+                    if (kinds[i]) System.arraycopy(added, (int) (offsets[i] + inPiece), dst, off + n, k);
+                    else original.get((int) (offsets[i] + inPiece), dst, off + n, k);
+                    n += k;
+                    pos += k;
+                }
+                return n;
+            }
+
+            /**
+             * [from, limit) aralığında başlayan ilk eşleşmenin konumu; yoksa ya da iptal edildiyse -1.
+             * Aralık, desen boyu kadar örtüşen 4 MB'lık pencerelere bölünür; pencereler havuzun
+             * paralelliği kadarlık gruplar halinde aynı anda taranır ve sıradaki ilk eşleşme alınır.
+             * İptal her gruptan önce yoklanır.
+             */
+            long find(Kernel.TextSearch.Query q, long from, long limit, java.util.concurrent.ForkJoinPool pool,
+                      java.util.function.BooleanSupplier cancelled) {
+                final int window = 4 << 20;
+                int m = q.length();
+                if (m == 0) return -1;
+                long end = Math.min(limit, length);
+                int batch = pool.getParallelism();
+                for (long base = from; base < end; base += (long) window * batch) {
+                    if (cancelled.getAsBoolean()) return -1;
+                    List<java.util.concurrent.Callable<Long>> tasks = new ArrayList<>();
+                    for (int k = 0; k < batch && base + (long) k * window < end; k++) {
+                        long start = base + (long) k * window;
+                        int span = (int) Math.min(window, end - start);
+                        tasks.add(() -> {
+                            byte[] buf = new byte[span + m - 1];
+                            int n = read(start, buf, 0, buf.length);
+                            int hit = q.indexOf(ByteBuffer.wrap(buf), 0, n);
+                            return hit >= 0 && hit < span ? start + hit : -1L;
+                        });
+                    }
+                    try {
+                        for (java.util.concurrent.Future<Long> f : pool.invokeAll(tasks)) {
+                            if (f.get() >= 0) return f.get();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return -1;
+                    } catch (java.util.concurrent.ExecutionException e) {
+                        throw new IllegalStateException(e.getCause());
+                    }
+                }
+                return -1;
+            }
+        }
+
+        // Parçadaki satır sonu sayısı; özgün dosya o kadar indekslenmediyse ve force yoksa -1.
+        private long newlines(Piece p, boolean force) {
+            if (p.newlines < 0) {
+                if (p.added) {
+                    p.newlines = countNewlines(added, (int) p.start, (int) (p.start + p.length));
+                } else if (force || originalLines.indexedTo() >= p.start + p.length) {
+                    p.newlines = originalLines.lineOf(p.start + p.length) - originalLines.lineOf(p.start);
+                }
+            }
+            return p.newlines;
+        }
+
+        /** Satır sayısı; özgün dosya indekslenirken kalanı ortalama satır uzunluğundan tahmin edilir. */
+        long lineCount() {
+            long lines = 1, unknown = 0;
+            for (Piece p : pieces) {
+                long n = newlines(p, false);
+                if (n >= 0) lines += n;
+                else unknown += p.length;
+            }
+            return lines + unknown / originalLines.averageLineLength();
+        }
+
+        boolean lineCountExact() {
+            for (Piece p : pieces) {
+                if (newlines(p, false) < 0) return false;
+            }
+            return true;
+        }
+
+        /** line numaralı satırın (0'dan) başladığı ofset; belgede o kadar satır yoksa -1. */
+        long lineStart(long line) {
+            if (line <= 0) return 0;
+            long seen = 0;
+            for (int i = 0; i < pieces.size(); i++) {
+                Piece p = pieces.get(i);
+                long need = line - seen;
+                if (p.added) {
+                    long n = newlines(p, false);
+                    if (n >= need) {
+                        long at = p.start;
+                        for (long k = 0; k < need; at++) {
+                            if (added[(int) at] == '\n') k++;
+                        }
+                        return starts[i] + at - p.start;
+                    }
+                    seen += n;
+                } else {
+                    long target = originalLines.lineStart(originalLines.lineOf(p.start) + need);
+                    if (target >= 0 && target <= p.start + p.length) return starts[i] + target - p.start;
+                    seen += newlines(p, true);
+                }
+            }
+            return -1;
+        }
+
+        /** pos'tan önceki satır sonu sayısı, yani pos'un satır numarası. */
+        long lineOf(long pos) {
+            if (pieces.isEmpty()) return 0;
+            int i = pieceAt(Math.min(pos, length));
+            long n = 0;
+            for (int j = 0; j < i; j++) n += newlines(pieces.get(j), true);
+            Piece p = pieces.get(i);
+            long at = p.start + Math.min(pos, length) - starts[i];
+            if (p.added) return n + countNewlines(added, (int) p.start, (int) at);
+            return n + originalLines.lineOf(at) - originalLines.lineOf(p.start);
+        }
+
+        private static long countNewlines(byte[] b, int from, int to) {
+            long n = 0;
+            for (int i = from; i < to; i++) {
+                if (b[i] == '\n') n++;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Özgün dosyanın seyrek satır indeksi: her 64. satırın başlangıcı tutulur, aradakiler
+     * gerektiğinde taranır. İndeks istenen yere kadar hemen, kalanı arka planda 1 MB'lık
+     * parçalar halinde kurulur.
+     */
+    static final class LineIndex {
+        private static final int STEP = 64;
+        private static final int CHUNK = 1 << 20;
+
+        private final ByteBuffer text;
+        private final int size;
+        private int[] checkpoints = new int[256];   // checkpoints[k]: k*STEP. satırın başı
+        private int checkpointCount = 1;
+        private int scanned;        // [0, scanned) tarandı
+        private long newlines;      // taranan kısımdaki satır sonu sayısı
+        private volatile boolean stopped;
+
+        LineIndex(ByteBuffer text) {
+            this.text = text;
+            this.size = text.limit();
+        }
+
+        /** Kalan kısmı indeksler; her 32 MB'de ve sonda onProgress çağrılır. */
+        void indexAll(Runnable onProgress) {
+            int chunks = 0;
+            while (!stopped) {
+                synchronized (this) {
+                    if (scanned >= size) break;
+                    scanTo((long) scanned + CHUNK);
+                }
+                if (++chunks % 32 == 0) onProgress.run();
+            }
+            onProgress.run();
+        }
+
+        void stop() {
+            stopped = true;
+        }
+
+        synchronized int indexedTo() {
+            return scanned;
+        }
+
+        synchronized boolean complete() {
+            return scanned >= size;
+        }
+
+        synchronized long averageLineLength() {
+            return newlines == 0 ? Math.max(80, scanned) : Math.max(1, scanned / newlines);
+        }
+
+        private void scanTo(long limit) {
+            int end = (int) Math.min(limit, size);
+            int pos = scanned;
+            long n = newlines;
+            while (pos < end) {
+                if (text.get(pos++) == '\n' && ++n % STEP == 0) {
+                    if (checkpointCount == checkpoints.length) {
+                        checkpoints = java.util.Arrays.copyOf(checkpoints, checkpointCount * 2);
+                    }
+                    checkpoints[checkpointCount++] = pos;
+                }
+            }
+            scanned = Math.max(scanned, end);
+            newlines = n;
+        }
+
+        /** [0, off) içindeki satır sonu sayısı. */
+        synchronized long lineOf(long off) {
+            if (off > scanned) scanTo(off);
+            int lo = 0, hi = checkpointCount - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (checkpoints[mid] <= off) lo = mid;
+                else hi = mid - 1;
+            }
+            long n = (long) lo * STEP;
+            for (int p = checkpoints[lo]; p < off; p++) {
+                if (text.get(p) == '\n') n++;
+            }
+            return n;
+        }
+
+        /** line numaralı satırın başı; dosyada o kadar satır yoksa -1. */
+        synchronized long lineStart(long line) {
+            if (line <= 0) return 0;
+            while (newlines < line && scanned < size) scanTo((long) scanned + CHUNK);
+            if (newlines < line) return -1;
+            int k = (int) (line / STEP);
+            int p = checkpoints[k];
+            for (long n = (long) k * STEP; n < line; p++) {
+                if (text.get(p) == '\n') n++;
+            }
+            return p;
+        }
+    }
+
+    /**
+     * Düzenleyici görünümü: yalnızca ekrana sığan satırlar parça tablosundan okunup çizilir.
+     * Dikey kaydırma satır cinsindendir, böylece belge boyu piksel sınırına takılmaz.
+     */
+    private static final class EditorView extends JComponent {
+        private static final int MAX_LINE_BYTES = 64 << 10;   // bir satırın çizilen en fazla kısmı
+        private static final int LEFT = 4;
+
+        final JScrollBar vertical = new JScrollBar(JScrollBar.VERTICAL);
+        final JScrollBar horizontal = new JScrollBar(JScrollBar.HORIZONTAL);
+        PieceTable doc;
+        Runnable onChange = () -> { };
+        Runnable onSave = () -> { };
+        Runnable onFind = () -> { };
+        boolean saving;
+        private boolean modified;
+        private int generation;     // belge her değiştirildiğinde artar (oturum kaydı sürümü)
+        private long caret;
+        private long topLine;
+        private int leftPixel;
+        private int preferredColumn = -1;
+        private long markStart = -1, markEnd = -1;   // son bulunan eşleşme
+        private volatile long searches;              // her arama ve düzenlemede artar; eski aramayı iptal eder
+        private int widest;
+        private boolean adjusting;
+        private byte[] lineBytes = new byte[4096];
+        private long lineEnd;   // son readLine'ın bittiği ofset (satır sonu ya da belge sonu)
+
+        EditorView() {
+            setFont(new Font(Font.MONOSPACED, Font.PLAIN, 13));
+            setBackground(Color.WHITE);
+            setForeground(Color.BLACK);
+            setOpaque(true);
+            setFocusable(true);
+            setFocusTraversalKeysEnabled(false);
+            vertical.addAdjustmentListener(e -> {
+                if (adjusting) return;
+                topLine = e.getValue();
+                repaint();
+            });
+            horizontal.addAdjustmentListener(e -> {
+                if (adjusting) return;
+                leftPixel = e.getValue();
+                repaint();
+            });
+            addMouseWheelListener(e -> scrollTo(topLine + e.getWheelRotation() * 3L));
+            addComponentListener(new java.awt.event.ComponentAdapter() {
+                public void componentResized(java.awt.event.ComponentEvent e) {
+                    if (EditorView.this.doc != null) documentChanged();
+                }
+            });
+            addMouseListener(new MouseAdapter() {
+                public void mousePressed(MouseEvent e) {
+                    requestFocusInWindow();
+                    long start = doc.lineStart(topLine + e.getY() / rowHeight());
+                    caret = start < 0 ? doc.length() : offsetOfColumn(start, Math.round((e.getX() - LEFT + leftPixel) / (float) charWidth()));
+                    preferredColumn = -1;
+                    documentChanged();
+                }
+            });
+            addKeyListener(new KeyAdapter() {
+                public void keyPressed(KeyEvent e) {
+                    handleKey(e);
+                }
+
+                public void keyTyped(KeyEvent e) {
+                    char c = e.getKeyChar();
+                    if (e.isControlDown() || e.isAltDown() || (c < 32 && c != '\t') || c == 127) return;
+                    insert(String.valueOf(c));
+                }
+            });
+        }
+
+        void setDocument(PieceTable doc) {
+            if (this.doc != null) this.doc.originalLines.stop();
+            this.doc = doc;
+            generation++;
+            caret = 0;
+            topLine = 0;
+            leftPixel = 0;
+            widest = 0;
+            markStart = markEnd = -1;
+            modified = false;
+            documentChanged();
+        }
+
+        // Kayıttan sonra içerik aynıdır; imleç ve kaydırma korunur.
+        void replaceDocument(PieceTable doc) {
+            this.doc = doc;
+            generation++;
+            caret = Math.min(caret, doc.length());
+            modified = false;
+        }
+
+        /** Oturumdan geri yüklerken imleç ve kaydırma. */
+        void restorePosition(long caret, long topLine) {
+            this.caret = Math.max(0, Math.min(caret, doc.length()));
+            this.topLine = Math.max(0, Math.min(topLine, doc.lineCount() - 1));
+            documentChanged();
+        }
+
+        String statusText() {
+            long lines = doc.lineCount();
+            String total = doc.lineCountExact() ? String.valueOf(lines) : "~" + lines;
+            return " Satır " + (doc.lineOf(caret) + 1) + " / " + total
+                    + (modified ? " — değiştirildi" : "") + (saving ? " — kaydediliyor…" : "");
+        }
+
+        /** Belge, imleç ya da indeks değişti: kaydırma çubukları ve durum güncellenir. */
+        void documentChanged() {
+            int rows = visibleRows();
+            long lines = doc.lineCount();
+            adjusting = true;
+            int max = (int) Math.min(Integer.MAX_VALUE - 1, Math.max(lines, topLine + rows));
+            vertical.setValues((int) topLine, rows, 0, max);
+            vertical.setBlockIncrement(Math.max(1, rows - 1));
+            horizontal.setValues(leftPixel, Math.max(1, getWidth()), 0, Math.max(widest + LEFT * 2, getWidth()));
+            horizontal.setUnitIncrement(charWidth());
+            adjusting = false;
+            onChange.run();
+            repaint();
+        }
+
+        private void scrollTo(long line) {
+            topLine = Math.max(0, Math.min(line, doc.lineCount() - 1));
+            documentChanged();
+        }
+
+        private int rowHeight() {
+            return getFontMetrics(getFont()).getHeight();
+        }
+
+        private int charWidth() {
+            return getFontMetrics(getFont()).charWidth('m');
+        }
+
+        private int visibleRows() {
+            return Math.max(1, getHeight() / rowHeight());
+        }
+
+        // start'taki satırı lineBytes'a okur (satır sonu hariç); uzunluğu döndürür, lineEnd'i ayarlar.
+        private int readLine(long start) {
+            int n = 0;
+            while (n < MAX_LINE_BYTES) {
+                if (n == lineBytes.length) lineBytes = java.util.Arrays.copyOf(lineBytes, n * 2);
+                int got = doc.read(start + n, lineBytes, n, Math.min(lineBytes.length, MAX_LINE_BYTES) - n);
+                if (got == 0) {
+                    lineEnd = start + n;
+                    return trimCr(n);
+                }
+                for (int i = n; i < n + got; i++) {
+                    if (lineBytes[i] == '\n') {
+                        lineEnd = start + i;
+                        return trimCr(i);
+                    }
+                }
+                n += got;
+            }
+            // Çok uzun satır: kalanı çizilmez, sonu indeksten bulunur.
+            long next = doc.lineStart(doc.lineOf(start) + 1);
+            lineEnd = next < 0 ? doc.length() : next - 1;
+            return n;
+        }
+
+        private int trimCr(int n) {
+            return n > 0 && lineBytes[n - 1] == '\r' ? n - 1 : n;
+        }
+
+        private String lineText(long start) {
+            int n = readLine(start);
+            return new String(lineBytes, 0, n, StandardCharsets.UTF_8).replace('\t', ' ');
+        }
+
+        private int columnOf(long start, long pos) {
+            int n = readLine(start);
+            int len = (int) Math.min(n, pos - start);
+            return new String(lineBytes, 0, Math.max(0, len), StandardCharsets.UTF_8).length();
+        }
+
+        private long offsetOfColumn(long start, int column) {
+            String s = lineText(start);
+            int col = Math.max(0, Math.min(column, s.length()));
+            return start + s.substring(0, col).getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        protected void paintComponent(Graphics g) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+            if (doc == null) return;
+            g.setFont(getFont());
+            FontMetrics fm = g.getFontMetrics();
+            int h = fm.getHeight(), cw = fm.charWidth('m');
+            int rows = getHeight() / h + 1;
+            long start = doc.lineStart(topLine);
+            for (int r = 0; r < rows && start >= 0; r++) {
+                String s = lineText(start);
+                long end = lineEnd;
+                int y = r * h;
+                if (markStart >= start && markStart <= end) {
+                    int x0 = columnOf(start, markStart) * cw, x1 = columnOf(start, Math.min(markEnd, end)) * cw;
+                    g.setColor(new Color(255, 230, 120));
+                    g.fillRect(LEFT - leftPixel + x0, y, Math.max(2, x1 - x0), h);
+                }
+                g.setColor(getForeground());
+                g.drawString(s, LEFT - leftPixel, y + fm.getAscent());
+                if (s.length() * cw > widest) widest = s.length() * cw;
+                if (caret >= start && caret <= end && isFocusOwner() && !saving) {
+                    int x = LEFT - leftPixel + columnOf(start, caret) * cw;
+                    g.fillRect(x, y, 2, h);
+                }
+                start = end < doc.length() ? end + 1 : -1;
+            }
+        }
+
+        private void handleKey(KeyEvent e) {
+            boolean ctrl = e.isControlDown();
+            int rows = visibleRows();
+            switch (e.getKeyCode()) {
+                case KeyEvent.VK_ENTER:
+                    insert("\n");
+                    break;
+                case KeyEvent.VK_BACK_SPACE:
+                    if (caret > 0 && !saving) remove(previousBoundary(caret), caret);
+                    break;
+                case KeyEvent.VK_DELETE:
+                    if (caret < doc.length() && !saving) remove(caret, nextBoundary(caret));
+                    break;
+                case KeyEvent.VK_LEFT:
+                    moveTo(caret > 0 ? previousBoundary(caret) : 0);
+                    break;
+                case KeyEvent.VK_RIGHT:
+                    moveTo(caret < doc.length() ? nextBoundary(caret) : caret);
+                    break;
+                case KeyEvent.VK_UP:
+                    moveLines(-1);
+                    break;
+                case KeyEvent.VK_DOWN:
+                    moveLines(1);
+                    break;
+                case KeyEvent.VK_PAGE_UP:
+                    moveLines(-rows);
+                    break;
+                case KeyEvent.VK_PAGE_DOWN:
+                    moveLines(rows);
+                    break;
+                case KeyEvent.VK_HOME:
+                    moveTo(ctrl ? 0 : doc.lineStart(doc.lineOf(caret)));
+                    break;
+                case KeyEvent.VK_END:
+                    moveTo(ctrl ? doc.length() : offsetOfColumn(doc.lineStart(doc.lineOf(caret)), Integer.MAX_VALUE));
+                    break;
+                case KeyEvent.VK_S:
+                    if (!ctrl) return;
+                    onSave.run();
+                    break;
+                case KeyEvent.VK_V:
+                    if (!ctrl) return;
+                    paste();
+                    break;
+                case KeyEvent.VK_F:
+                    if (!ctrl) return;
+                    onFind.run();
+                    break;
+                default:
+                    return;
+            }
+            e.consume();
+        }
+
+        private void paste() {
+            try {
+                Object data = Toolkit.getDefaultToolkit().getSystemClipboard().getData(DataFlavor.stringFlavor);
+                if (data instanceof String) insert((String) data);
+            } catch (Exception ignored) {
+            }
+        }
+
+        private long previousBoundary(long pos) {
+            long p = pos - 1;
+            while (p > 0 && (doc.byteAt(p) & 0xC0) == 0x80) p--;
+            return p;
+        }
+
+        private long nextBoundary(long pos) {
+            long p = pos + 1;
+            while (p < doc.length() && (doc.byteAt(p) & 0xC0) == 0x80) p++;
+            return p;
+        }
+
+        private void insert(String text) {
+            if (saving) return;
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            doc.insert(caret, bytes);
+            caret += bytes.length;
+            edited();
+        }
+
+        private void remove(long from, long to) {
+            doc.delete(from, to - from);
+            caret = from;
+            edited();
+        }
+
+        /**
+         * İmleçten sonraki eşleşmeyi sürecin işi olarak arar ve bulunca işaretler; sonda baştan
+         * yalnızca imlece kadar devam eder. Yeni arama, düzenleme ya da pencerenin kapanması süren
+         * aramayı iptal eder; belge o arada değiştiyse sonuç atılır. Bulunamazsa notFound EDT'de çağrılır.
+         */
+        void findNext(String text, boolean ignoreCase, Kernel.ProcessTable.Process process,
+                      java.util.concurrent.ForkJoinPool pool, Runnable notFound) {
+            if (text.isEmpty()) return;
+            Kernel.TextSearch.Query q = Kernel.TextSearch.Query.literal(text, ignoreCase);
+            long ticket = ++searches;
+            PieceTable target = doc;
+            PieceTable.Snapshot snapshot = doc.snapshot();
+            long from = caret;
+            java.util.function.BooleanSupplier cancelled = () -> searches != ticket || process.scope().cancelled();
+            process.execute(() -> {
+                long hit = snapshot.find(q, from, snapshot.length, pool, cancelled);
+                if (hit < 0 && from > 0) hit = snapshot.find(q, 0, from, pool, cancelled);
+                long found = hit;
+                SwingUtilities.invokeLater(() -> {
+                    if (searches != ticket || doc != target || doc.version() != snapshot.version) return;
+                    if (found < 0) {
+                        notFound.run();
+                        return;
+                    }
+                    caret = found + q.length();
+                    preferredColumn = -1;
+                    revealCaret();
+                    markStart = found;
+                    markEnd = caret;
+                    repaint();
+                });
+            });
+        }
+
+        private void edited() {
+            searches++;
+            markStart = markEnd = -1;
+            modified = true;
+            preferredColumn = -1;
+            revealCaret();
+        }
+
+        private void moveTo(long pos) {
+            caret = Math.max(0, Math.min(pos, doc.length()));
+            preferredColumn = -1;
+            revealCaret();
+        }
+
+        // Yukarı/aşağı giderken sütun korunur (kısa satırlardan geçerken de).
+        private void moveLines(int delta) {
+            long line = doc.lineOf(caret);
+            long start = doc.lineStart(line);
+            if (preferredColumn < 0) preferredColumn = columnOf(start, caret);
+            long target = Math.max(0, line + delta);
+            long targetStart = doc.lineStart(target);
+            caret = targetStart < 0 ? doc.length() : offsetOfColumn(targetStart, preferredColumn);
+            revealCaret();
+        }
+
+        private void revealCaret() {
+            int rows = visibleRows();
+            long line = doc.lineOf(caret);
+            if (line < topLine) topLine = line;
+            else if (line >= topLine + rows) topLine = line - rows + 1;
+            int x = columnOf(doc.lineStart(line), caret) * charWidth();
+            if (x < leftPixel) leftPixel = Math.max(0, x - getWidth() / 3);
+            else if (x > leftPixel + getWidth() - LEFT * 4) leftPixel = x - getWidth() * 2 / 3;
+            documentChanged();
+        }
+    }
+}
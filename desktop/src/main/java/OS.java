@@ -0,0 +1,174 @@
+// OS.java
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+
+public class OS {
+    // Açılış ölçümü: OS sınıfı yüklendiği an ile masaüstünün ilk çizimi arası.
+    private static final long START_NANOS = System.nanoTime();
+    private static volatile long startupMillis = -1;
+
+    private static JFrame desktop;
+    private static Kernel kernel;
+    private static WindowManager windows;
+    private static SessionStore session;
+    // Geri yükleme bitmeden çıkılırsa boş masaüstü önceki oturumun üstüne yazılmaz.
+    private static boolean sessionRestored;
+
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(() -> {
+            kernel = new Kernel();
+            windows = new WindowManager(kernel.metrics, kernel.leaks);
+            // Pencere olayları süreç tablosuna iletilir: öndeki pencerenin süreci
+            // etkileşimli önceliğe çıkar, kapanan pencerenin süreci sonlanır.
+            windows.addListener(new WindowManager.Listener() {
+                public void windowFront(String key) {
+                    kernel.processes.windowFront(key);
+                }
+
+                public void windowClosed(String key) {
+                    kernel.processes.windowClosed(key);
+                }
+            });
+            createAndShowGUI();
+        });
+    }
+
+
+    private static void createAndShowGUI() {
+        desktop = new JFrame("JavaOS Desktop");
+        desktop.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        desktop.addWindowListener(new java.awt.event.WindowAdapter() {
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                exit();
+            }
+        });
+        desktop.setSize(1000, 650);
+        desktop.setLayout(null);
+        desktop.getContentPane().setBackground(new Color(30, 30, 30));
+
+        // Menü çubuğu
+        JMenuBar menuBar = new JMenuBar();
+        JMenu startMenu = new JMenu("Start");
+
+        JMenuItem aboutItem      = new JMenuItem("About JavaOS");
+        JCheckBoxMenuItem frameItem = new JCheckBoxMenuItem("Kare Süresi Göstergesi");
+
+        startMenu.addSeparator();
+        startMenu.add(frameItem);
+        startMenu.add(aboutItem);
+
+        menuBar.add(startMenu);
+        desktop.setJMenuBar(menuBar);
+
+        aboutItem.addActionListener(e -> openAbout());
+        frameItem.addActionListener(e -> windows.setOverlayVisible(frameItem.isSelected()));
+
+        // Uygulama sağlayıcıları pencere açılırken arka planda bulunur; böylece ilk kareye
+        // kadar geçen süre kurulu uygulama sayısına bağlı değildir. Önceki oturumun kaydı da
+        // burada eşlenip doğrulanır.
+        if (!"off".equals(System.getProperty("javaos.session"))) {
+            session = new SessionStore(java.nio.file.Paths.get(System.getProperty("javaos.session.dir",
+                    java.nio.file.Paths.get(System.getProperty("user.home"), ".javaos", "session").toString())), kernel.metrics);
+        }
+        kernel.processes.kernel.execute(() -> {
+            List<AppProvider> apps = AppProvider.load();
+            SessionStore.Saved saved = session == null ? null : session.load();
+            SwingUtilities.invokeLater(() -> {
+                addAppItems(startMenu, apps);
+                if (session == null) return;
+                if (saved != null) restoreSession(apps, saved);
+                sessionRestored = true;
+                windows.startAutosave(session, Integer.getInteger("javaos.session.autosaveSeconds", 30));
+            });
+        });
+
+        // Düz metin etiket: HTML etiketi açılışta tüm HTML metin altyapısını yüklerdi.
+        JLabel label = new JLabel("JavaOS v0.5 — Başlat menüsünden uygulama aç.") {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                if (startupMillis < 0) {
+                    // main → ilk kare; Hakkında penceresinde ve "metrics startup" ile görülür.
+                    long elapsed = System.nanoTime() - START_NANOS;
+                    startupMillis = elapsed / 1_000_000;
+                    kernel.metrics.histogram("startup").record(elapsed);
+                }
+            }
+        };
+        label.setForeground(new Color(0xDD, 0xDD, 0xDD));
+        label.setBounds(10, 35, 600, 25);
+        desktop.add(label);
+
+        windows.install(desktop);
+        desktop.setVisible(true);
+        // EDT bu süreden uzun bloklanırsa yığını kaydedilir (Sistem İzleyici / "metrics edt").
+        kernel.metrics.startEdtMonitor(EventQueue::invokeLater, Long.getLong("javaos.edt.stallMs", 100));
+    }
+
+    private static void addAppItems(JMenu startMenu, List<AppProvider> apps) {
+        int index = 0;
+        for (AppProvider app : apps) {
+            JMenuItem item = new JMenuItem(app.title());
+            item.addActionListener(e -> openApp(app));
+            startMenu.insert(item, index++);
+        }
+    }
+
+    // Pencereler kayıttaki yerlerinde açılır; içerikleri uygulamalar arka planda doldurur.
+    private static void restoreSession(List<AppProvider> apps, SessionStore.Saved saved) {
+        long start = System.nanoTime();
+        windows.restoreSession(saved, key -> {
+            for (AppProvider app : apps) {
+                if (app.id().equalsIgnoreCase(key)) {
+                    openApp(app);
+                    return windows.get(key);
+                }
+            }
+            return null;
+        });
+        kernel.metrics.histogram("session.restore").record(System.nanoTime() - start);
+    }
+
+    // Oturum kaydedilir (en fazla birkaç saniye beklenir), sonra çıkılır.
+    private static void exit() {
+        if (sessionRestored) {
+            java.util.concurrent.Future<?> saving = windows.saveSession(session, true);
+            try {
+                saving.get(5, java.util.concurrent.TimeUnit.SECONDS);
+            } catch (Exception ex) {
+                System.err.println("Oturum kaydı tamamlanamadı: " + Kernel.errorMessage(ex));
+            }
+        }
+        System.exit(0);
+    }
+
+    // Uygulama zaten açıksa penceresini öne alır; değilse kendi süreciyle sağlayıcıdan açtırır.
+    private static void openApp(AppProvider app) {
+        MiniWindow open = windows.get(app.id());
+        if (open != null) {
+            open.toFront();
+            return;
+        }
+        Kernel.ProcessTable.Process process = kernel.processes.spawn(app.title(), Kernel.ProcessTable.Priority.INTERACTIVE, app.id());
+        try {
+            app.open(new AppContext(kernel, windows, desktop, process));
+        } catch (RuntimeException | LinkageError ex) {
+            process.exit();
+            JOptionPane.showMessageDialog(desktop, app.title() + " açılamadı: " + Kernel.errorMessage(ex),
+                    "Hata", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private static void openAbout() {
+        JOptionPane.showMessageDialog(desktop,
+                "JavaOS v0.5\n" +
+                "Basit Java ile masaüstü ve pencere sistemi\n" +
+                "Yapan: Deniz Asaf\n" +
+                "Tarih: 2025\n" +
+                "https://github.com/denizasaf\n\n" +
+                "Açılış süresi: " + (startupMillis < 0 ? "-" : startupMillis + " ms"),
+                "Hakkında",
+                JOptionPane.INFORMATION_MESSAGE);
+    }
+}
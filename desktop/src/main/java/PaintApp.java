@@ -0,0 +1,1162 @@
+// PaintApp.java
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Paint uygulaması: karolu tuval, geri al / yinele, PNG/JPEG açma/kaydetme (VFS) ve süzgeçler.
+ * Kodlama, çözme ve süzgeçler EDT dışında çalışır; EDT yalnızca düz kopyayı alır ve hazır
+ * karoları takar.
+ */
+final class PaintApp {
+    static void open(AppContext ctx) {
+        MiniWindow paint = new MiniWindow("Paint", 400, 300, ctx.desktop, ctx.windowManager, "paint");
+
+        // Tuval boyutu: -Djavaos.paint.size=3840x2160 (varsayılan 400x260)
+        String[] size = System.getProperty("javaos.paint.size", "400x260").split("x");
+        PaintCanvas canvas = new PaintCanvas(Integer.parseInt(size[0]), Integer.parseInt(size[1]),
+                Boolean.getBoolean("javaos.paint.volatile"), ctx.kernel.metrics.histogram("paint.repaint"));
+        // Çizim sürerken pencere kapanırsa kare zamanlayıcısı tuvali canlı tutmasın.
+        ctx.process.scope().own(canvas.frame::stop);
+        JScrollPane scroll = new JScrollPane(canvas);
+        scroll.setBorder(null);
+
+        JPanel tools = new JPanel(new FlowLayout(FlowLayout.LEFT, 2, 0));
+        JButton undo = new JButton("Geri Al");
+        JButton redo = new JButton("Yinele");
+        undo.setFocusable(false);
+        redo.setFocusable(false);
+        undo.addActionListener(e -> canvas.undo());
+        redo.addActionListener(e -> canvas.redo());
+        tools.add(undo);
+        tools.add(redo);
+
+        // Süzgeçler tuvalin düz bir kopyasında, çekirdeğin fork-join havuzunda çalışır.
+        java.util.concurrent.ForkJoinPool pool = ctx.kernel.search().pool();
+        JButton filters = new JButton("Süzgeç");
+        filters.setFocusable(false);
+        JPopupMenu filterMenu = new JPopupMenu();
+        addFilter(ctx, canvas, filterMenu, "Bulanıklaştır", (src, dst, w, h) -> Filters.blur(pool, src, dst, w, h, 2));
+        addFilter(ctx, canvas, filterMenu, "Keskinleştir", (src, dst, w, h) -> Filters.sharpen(pool, src, dst, w, h));
+        addFilter(ctx, canvas, filterMenu, "Renkleri Ters Çevir", (src, dst, w, h) -> Filters.invert(pool, src, dst, w, h));
+        addFilter(ctx, canvas, filterMenu, "Gri Tonlama", (src, dst, w, h) -> Filters.grayscale(pool, src, dst, w, h));
+        JMenuItem resizeItem = new JMenuItem("Yeniden Boyutlandır...");
+        resizeItem.addActionListener(e -> resize(ctx, canvas, pool));
+        filterMenu.add(resizeItem);
+        filters.addActionListener(e -> filterMenu.show(filters, 0, filters.getHeight()));
+        tools.add(filters);
+
+        JPanel fileBar = new JPanel(new BorderLayout(5, 0));
+        JTextField pathField = new JTextField("/resim.png");
+        JPanel fileButtons = new JPanel(new GridLayout(1, 2, 5, 0));
+        JButton openButton = new JButton("Aç");
+        JButton saveButton = new JButton("Kaydet");
+        fileButtons.add(openButton);
+        fileButtons.add(saveButton);
+        fileBar.add(pathField, BorderLayout.CENTER);
+        fileBar.add(fileButtons, BorderLayout.EAST);
+        openButton.addActionListener(e -> load(ctx, pathField.getText().trim(), canvas));
+        saveButton.addActionListener(e -> save(ctx, pathField.getText().trim(), canvas));
+
+        JPanel top = new JPanel(new BorderLayout());
+        top.add(tools, BorderLayout.NORTH);
+        top.add(fileBar, BorderLayout.SOUTH);
+        canvas.progress.setStringPainted(true);
+        canvas.progress.setVisible(false);
+
+        paint.setPersistence(new SessionStore.Persistent() {
+            // Yalnızca çizilmiş karolar, her biri kendi sürümüyle ve sıkıştırılmış olarak. Tuval
+            // değiştirildiğinde (açma, boyutlandırma) nesil artar; eski karo kayıtları kullanılmaz.
+            public void save(SessionStore.Sections out) {
+                TiledImage image = canvas.image;
+                long generation = canvas.generation;
+                out.section("canvas", generation, () -> o -> {
+                    o.writeInt(image.width);
+                    o.writeInt(image.height);
+                });
+                for (int i = 0; i < image.cols * image.rows; i++) {
+                    if (image.tile(i) == null) continue;
+                    int index = i;
+                    out.section("tile/" + i, generation << 32 | image.version(i), () -> {
+                        int[] px = image.pixels(index);
+                        return o -> o.write(TiledImage.deflate(px));
+                    });
+                }
+            }
+
+            // Karolar arka planda açılır ve hazır oldukça tuvale konur.
+            public void restore(SessionStore.SavedWindow saved) {
+                java.io.DataInputStream in = saved.open("canvas");
+                if (in == null) return;
+                int savedCols;
+                try {
+                    int width = in.readInt(), height = in.readInt();
+                    if (width != canvas.image.width || height != canvas.image.height) {
+                        canvas.replace(new TiledImage(width, height, Color.WHITE));
+                    }
+                    savedCols = (width + TiledImage.TILE - 1) / TiledImage.TILE;
+                } catch (java.io.IOException ex) {
+                    return;
+                }
+                // Sıkıştırılmış karolar kayıt dosyası yeniden yazılmadan önce okunur; açılmaları arka planda.
+                Map<String, java.nio.ByteBuffer> tiles = new java.util.LinkedHashMap<>();
+                for (String name : saved.names()) if (name.startsWith("tile/")) tiles.put(name, saved.section(name));
+                ctx.process.execute(() -> {
+                    TiledImage image = canvas.image;
+                    for (Map.Entry<String, java.nio.ByteBuffer> e : tiles.entrySet()) {
+                        int at = Integer.parseInt(e.getKey().substring(5));
+                        int tx = at % savedCols, ty = at / savedCols;
+                        if (tx >= image.cols || ty >= image.rows) continue;
+                        java.nio.ByteBuffer b = e.getValue();
+                        byte[] data = new byte[b.remaining()];
+                        b.get(data);
+                        int[] px = TiledImage.inflate(data);
+                        int index = ty * image.cols + tx;
+                        SwingUtilities.invokeLater(() -> canvas.restoreTile(index, px));
+                    }
+                });
+            }
+        });
+
+        paint.setContent(new BorderLayout());
+        paint.addContent(top, BorderLayout.NORTH);
+        paint.addContent(scroll, BorderLayout.CENTER);
+        paint.addContent(canvas.progress, BorderLayout.SOUTH);
+        paint.showOn(ctx.desktop, ctx.windowManager.count());
+    }
+
+    /** Boyutu değiştirmeyen süzgeç: src'den dst'ye yazar (nokta işlemlerinde ikisi aynı olabilir). */
+    interface FilterOp {
+        void apply(int[] src, int[] dst, int width, int height);
+    }
+
+    // Tuvalin düz kopyası EDT'de alınır; süzgeç ve geri alma yaması arka planda hesaplanır, yeni
+    // karolar EDT'de tek seferde takılır.
+    private static void addFilter(AppContext ctx, PaintCanvas canvas, JPopupMenu menu, String name, FilterOp op) {
+        JMenuItem item = new JMenuItem(name);
+        item.addActionListener(e -> {
+            if (!canvas.begin(name)) return;
+            TiledImage image = canvas.image;
+            int[] before = TiledImage.data(image.flatten());
+            java.util.concurrent.ForkJoinPool pool = ctx.kernel.search().pool();
+            ctx.process.execute(() -> {
+                Kernel.Metrics.Span span = ctx.kernel.metrics.span("paint.filter", Kernel.Metrics.Kind.RENDER, name);
+                try {
+                    int[] after = new int[before.length];
+                    op.apply(before, after, image.width, image.height);
+                    if (ctx.process.scope().cancelled()) return;
+                    TiledImage.Edit edit = image.diff(pool, before, after);
+                    TiledImage next = TiledImage.of(after, image.width, image.height, Color.WHITE);
+                    span.bytes(4L * after.length);
+                    SwingUtilities.invokeLater(() -> canvas.adopt(next, edit));
+                } catch (RuntimeException | OutOfMemoryError ex) {
+                    span.failed();
+                    canvas.fail(name + " uygulanamadı: " + Kernel.errorMessage(ex));
+                } finally {
+                    span.close();
+                }
+            });
+        });
+        menu.add(item);
+    }
+
+    // Boyutlandırma tuvalin yerine yenisini koyar; geri alma geçmişi sıfırlanır.
+    private static void resize(AppContext ctx, PaintCanvas canvas, java.util.concurrent.ForkJoinPool pool) {
+        TiledImage image = canvas.image;
+        String answer = JOptionPane.showInputDialog(ctx.desktop, "Yeni boyut (GxY ya da %):", image.width + "x" + image.height);
+        if (answer == null) return;
+        int width, height;
+        try {
+            answer = answer.trim();
+            if (answer.endsWith("%")) {
+                double scale = Double.parseDouble(answer.substring(0, answer.length() - 1).trim()) / 100;
+                width = (int) Math.round(image.width * scale);
+                height = (int) Math.round(image.height * scale);
+            } else {
+                String[] wh = answer.toLowerCase().split("x");
+                width = Integer.parseInt(wh[0].trim());
+                height = Integer.parseInt(wh[1].trim());
+            }
+        } catch (RuntimeException ex) {
+            showError(ctx, "Geçersiz boyut: " + answer);
+            return;
+        }
+        if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE / 2) {
+            showError(ctx, "Geçersiz boyut: " + answer);
+            return;
+        }
+        if (!canvas.begin("Boyutlandırılıyor")) return;
+        int[] src = TiledImage.data(image.flatten());
+        int w = width, h = height;
+        ctx.process.execute(() -> {
+            Kernel.Metrics.Span span = ctx.kernel.metrics.span("paint.filter", Kernel.Metrics.Kind.RENDER, "resize");
+            try {
+                int[] dst = new int[w * h];
+                Filters.resize(pool, src, image.width, image.height, dst, w, h);
+                if (ctx.process.scope().cancelled()) return;
+                TiledImage next = TiledImage.of(dst, w, h, Color.WHITE);
+                span.bytes(4L * dst.length);
+                SwingUtilities.invokeLater(() -> canvas.replaceAndEnd(next));
+            } catch (RuntimeException | OutOfMemoryError ex) {
+                span.failed();
+                canvas.fail("Boyutlandırılamadı: " + Kernel.errorMessage(ex));
+            } finally {
+                span.close();
+            }
+        });
+    }
+
+    // PNG/JPEG VFS'ten okunur; çözme, TYPE_INT_RGB'ye çevirme ve karolara bölme arka planda yapılır.
+    private static void load(AppContext ctx, String path, PaintCanvas canvas) {
+        if (!canvas.begin("Açılıyor")) return;
+        ctx.process.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                java.nio.ByteBuffer data = ctx.kernel.vfs().read(path);
+                BufferedImage flat = ImageFiles.read(data, canvas::progress);
+                TiledImage next = TiledImage.of(TiledImage.data(flat), flat.getWidth(), flat.getHeight(), Color.WHITE);
+                ctx.kernel.metrics.histogram("paint.decode").record(System.nanoTime() - start);
+                SwingUtilities.invokeLater(() -> canvas.replaceAndEnd(next));
+            } catch (Exception | OutOfMemoryError ex) {
+                canvas.fail("Açılamadı: " + Kernel.errorMessage(ex));
+            }
+        });
+    }
+
+    // Biçim dosya uzantısından seçilir (.jpg/.jpeg ya da PNG); kodlama arka planda yapılır.
+    private static void save(AppContext ctx, String path, PaintCanvas canvas) {
+        if (!canvas.begin("Kaydediliyor")) return;
+        BufferedImage flat = canvas.image.flatten();
+        String lower = path.toLowerCase();
+        String format = lower.endsWith(".jpg") || lower.endsWith(".jpeg") ? "jpeg" : "png";
+        ctx.process.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                byte[] encoded = ImageFiles.write(flat, format, canvas::progress);
+                ctx.kernel.vfs().write(path, java.nio.ByteBuffer.wrap(encoded));
+                ctx.kernel.metrics.histogram("paint.encode").record(System.nanoTime() - start);
+                SwingUtilities.invokeLater(canvas::end);
+            } catch (Exception | OutOfMemoryError ex) {
+                canvas.fail("Kaydedilemedi: " + Kernel.errorMessage(ex));
+            }
+        });
+    }
+
+    private static void showError(AppContext ctx, String message) {
+        SwingUtilities.invokeLater(() ->
+                JOptionPane.showMessageDialog(ctx.desktop, message, "Paint", JOptionPane.ERROR_MESSAGE));
+    }
+
+    /**
+     * Karolara bölünmüş görüntü: her karo 256x256'lık ayrı bir BufferedImage'dir ve ilk
+     * çizimde oluşturulur. Büyük tuvaller tek dev bir dizi ayırmadan tutulabilir.
+     */
+    static class TiledImage {
+        static final int TILE = 256;
+
+        final int width, height, cols, rows;
+        private final BufferedImage[] tiles;
+        private final Graphics2D[] graphics;
+        private final int[] version;
+        private final Color background;
+        // Kayıt sırasında ilk değişiklikten önceki karo pikselleri
+        private Map<Integer, int[]> editBefore;
+
+        TiledImage(int width, int height, Color background) {
+            this.width = width;
+            this.height = height;
+            this.cols = (width + TILE - 1) / TILE;
+            this.rows = (height + TILE - 1) / TILE;
+            this.tiles = new BufferedImage[cols * rows];
+            this.graphics = new Graphics2D[cols * rows];
+            this.version = new int[cols * rows];
+            this.background = background;
+        }
+
+        /** Karo henüz çizilmediyse null. */
+        BufferedImage tile(int index) {
+            return tiles[index];
+        }
+
+        int version(int index) {
+            return version[index];
+        }
+
+        private Graphics2D graphics(int index) {
+            if (graphics[index] == null) {
+                BufferedImage img = tiles[index];
+                Graphics2D g;
+                if (img == null) {
+                    img = new BufferedImage(TILE, TILE, BufferedImage.TYPE_INT_RGB);
+                    g = img.createGraphics();
+                    g.setColor(background);
+                    g.fillRect(0, 0, TILE, TILE);
+                } else {
+                    g = img.createGraphics();
+                }
+                g.translate(-(index % cols) * TILE, -(index / cols) * TILE);
+                tiles[index] = img;
+                graphics[index] = g;
+            }
+            return graphics[index];
+        }
+
+        /**
+         * Çoklu çizgiyi yalnızca değdiği karolara çizer; değişen alanı döndürür.
+         */
+        Rectangle drawPolyline(int[] xs, int[] ys, int n, Color color, float strokeWidth) {
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+            for (int i = 0; i < n; i++) {
+                minX = Math.min(minX, xs[i]);
+                maxX = Math.max(maxX, xs[i]);
+                minY = Math.min(minY, ys[i]);
+                maxY = Math.max(maxY, ys[i]);
+            }
+            int pad = (int) Math.ceil(strokeWidth / 2) + 1;
+            Rectangle dirty = new Rectangle(minX - pad, minY - pad, maxX - minX + 2 * pad, maxY - minY + 2 * pad)
+                    .intersection(new Rectangle(0, 0, width, height));
+            if (dirty.isEmpty()) return dirty;
+            BasicStroke stroke = new BasicStroke(strokeWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+            forEachTile(dirty, index -> {
+                Graphics2D g = graphics(index);
+                if (editBefore != null && !editBefore.containsKey(index)) editBefore.put(index, pixels(index));
+                g.setColor(color);
+                g.setStroke(stroke);
+                g.drawPolyline(xs, ys, n);
+                version[index]++;
+            });
+            return dirty;
+        }
+
+        private int[] pixels(int index) {
+            return (int[]) tiles[index].getRaster().getDataElements(0, 0, TILE, TILE, null);
+        }
+
+        /** TYPE_INT_RGB görüntünün piksel dizisi (0x00RRGGBB, satır satır). */
+        static int[] data(BufferedImage flat) {
+            return ((java.awt.image.DataBufferInt) flat.getRaster().getDataBuffer()).getData();
+        }
+
+        /** EDT'de: görüntünün düz TYPE_INT_RGB kopyası; çizilmemiş karolar arka plan rengidir. */
+        BufferedImage flatten() {
+            BufferedImage flat = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            int[] dst = data(flat);
+            int[] buf = new int[TILE * TILE];
+            int fill = background.getRGB() & 0xFFFFFF;
+            for (int index = 0; index < tiles.length; index++) {
+                int x0 = (index % cols) * TILE, y0 = (index / cols) * TILE;
+                int w = Math.min(TILE, width - x0), h = Math.min(TILE, height - y0);
+                if (tiles[index] == null) {
+                    for (int y = 0; y < h; y++) java.util.Arrays.fill(dst, (y0 + y) * width + x0, (y0 + y) * width + x0 + w, fill);
+                    continue;
+                }
+                tiles[index].getRaster().getDataElements(0, 0, w, h, buf);
+                for (int y = 0; y < h; y++) System.arraycopy(buf, y * w, dst, (y0 + y) * width + x0, w);
+            }
+            return flat;
+        }
+
+        /** Düz piksellerden bütün karoları dolu yeni bir görüntü kurar; henüz paylaşılmadığından herhangi bir iş parçacığında. */
+        static TiledImage of(int[] px, int width, int height, Color background) {
+            TiledImage image = new TiledImage(width, height, background);
+            int[] buf = new int[TILE * TILE];
+            for (int index = 0; index < image.tiles.length; index++) {
+                int x0 = (index % image.cols) * TILE, y0 = (index / image.cols) * TILE;
+                int w = Math.min(TILE, width - x0), h = Math.min(TILE, height - y0);
+                BufferedImage tile = new BufferedImage(TILE, TILE, BufferedImage.TYPE_INT_RGB);
+                if (w < TILE || h < TILE) {
+                    Graphics2D g = tile.createGraphics();
+                    g.setColor(background);
+                    g.fillRect(0, 0, TILE, TILE);
+                    g.dispose();
+                }
+                for (int y = 0; y < h; y++) System.arraycopy(px, (y0 + y) * width + x0, buf, y * w, w);
+                tile.getRaster().setDataElements(0, 0, w, h, buf);
+                image.tiles[index] = tile;
+            }
+            return image;
+        }
+
+        /**
+         * Aynı boyutlu iki düz piksel dizisi arasındaki geri alma kaydı: değişen her karo için
+         * XOR farkı, karolar havuzda paralel sıkıştırılarak. Hiçbir karo değişmediyse null.
+         */
+        Edit diff(java.util.concurrent.ForkJoinPool pool, int[] before, int[] after) {
+            byte[][] patches = new byte[tiles.length][];
+            Filters.forEachTile(pool, width, height, (x0, y0, x1, y1) -> {
+                int[] d = new int[TILE * TILE];
+                int changed = 0;
+                for (int y = y0; y < y1; y++) {
+                    for (int x = x0, o = (y - y0) * TILE, i = y * width + x0; x < x1; x++, o++, i++) {
+                        changed |= d[o] = before[i] ^ after[i];
+                    }
+                }
+                if (changed != 0) patches[(y0 / TILE) * cols + x0 / TILE] = deflate(d);
+            });
+            int n = 0;
+            for (byte[] p : patches) if (p != null) n++;
+            if (n == 0) return null;
+            int[] indices = new int[n];
+            byte[][] kept = new byte[n][];
+            for (int i = 0, k = 0; i < patches.length; i++) {
+                if (patches[i] == null) continue;
+                indices[k] = i;
+                kept[k++] = patches[i];
+            }
+            return new Edit(indices, kept);
+        }
+
+        /** EDT'de: aynı boyutlu görüntünün karolarını devralır (kopyalamadan); değişen alanı döndürür. */
+        Rectangle adopt(TiledImage other) {
+            for (int i = 0; i < tiles.length; i++) {
+                if (graphics[i] != null) graphics[i].dispose();
+                graphics[i] = null;
+                tiles[i] = other.tiles[i];
+                version[i]++;
+            }
+            return new Rectangle(0, 0, width, height);
+        }
+
+        /** Karoyu kaydedilmiş piksellerle değiştirir (geri alma geçmişine girmez); değişen alanı döndürür. */
+        Rectangle restoreTile(int index, int[] px) {
+            graphics(index);
+            tiles[index].getRaster().setDataElements(0, 0, TILE, TILE, px);
+            version[index]++;
+            return new Rectangle((index % cols) * TILE, (index / cols) * TILE, TILE, TILE)
+                    .intersection(new Rectangle(0, 0, width, height));
+        }
+
+        /** Bir düzenlemeyi (ör. tek fırça darbesi) kaydetmeye başlar. */
+        void beginEdit() {
+            editBefore = new HashMap<>();
+        }
+
+        /**
+         * Kaydı bitirir. Her değişen karo için önce/sonra piksellerinin XOR farkı
+         * sıkıştırılarak saklanır; aynı yama hem geri almada hem yinelemede kullanılır.
+         * Hiçbir karo değişmediyse null döner.
+         */
+        Edit endEdit() {
+            Map<Integer, int[]> before = editBefore;
+            editBefore = null;
+            if (before == null || before.isEmpty()) return null;
+            int[] indices = new int[before.size()];
+            byte[][] patches = new byte[before.size()][];
+            int i = 0;
+            for (Map.Entry<Integer, int[]> e : before.entrySet()) {
+                int[] diff = e.getValue();
+                int[] after = pixels(e.getKey());
+                for (int k = 0; k < diff.length; k++) diff[k] ^= after[k];
+                indices[i] = e.getKey();
+                patches[i] = deflate(diff);
+                i++;
+            }
+            return new Edit(indices, patches);
+        }
+
+        /** Yamayı uygular (XOR simetrik olduğundan geri alma ve yineleme aynıdır); değişen alanı döndürür. */
+        Rectangle apply(Edit edit) {
+            Rectangle dirty = null;
+            for (int i = 0; i < edit.indices.length; i++) {
+                int index = edit.indices[i];
+                graphics(index);
+                int[] px = pixels(index);
+                int[] diff = inflate(edit.patches[i]);
+                for (int k = 0; k < px.length; k++) px[k] ^= diff[k];
+                tiles[index].getRaster().setDataElements(0, 0, TILE, TILE, px);
+                version[index]++;
+                Rectangle r = new Rectangle((index % cols) * TILE, (index / cols) * TILE, TILE, TILE);
+                dirty = dirty == null ? r : dirty.union(r);
+            }
+            return dirty.intersection(new Rectangle(0, 0, width, height));
+        }
+
+        private static byte[] deflate(int[] px) {
+            java.nio.ByteBuffer buf = java.nio.ByteBuffer.allocate(px.length * 4);
+            buf.asIntBuffer().put(px);
+            java.util.zip.Deflater d = new java.util.zip.Deflater(java.util.zip.Deflater.BEST_SPEED);
+            d.setInput(buf.array());
+            d.finish();
+            java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream(1024);
+            byte[] chunk = new byte[8192];
+            while (!d.finished()) out.write(chunk, 0, d.deflate(chunk));
+            d.end();
+            return out.toByteArray();
+        }
+
+        private static int[] inflate(byte[] data) {
+            byte[] raw = new byte[TILE * TILE * 4];
+            java.util.zip.Inflater inf = new java.util.zip.Inflater();
+            inf.setInput(data);
+            try {
+                int n = 0;
+                while (n < raw.length && !inf.finished()) n += inf.inflate(raw, n, raw.length - n);
+            } catch (java.util.zip.DataFormatException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                inf.end();
+            }
+            int[] px = new int[TILE * TILE];
+            java.nio.ByteBuffer.wrap(raw).asIntBuffer().get(px);
+            return px;
+        }
+
+        /** Sıkıştırılmış karo yamaları. */
+        static final class Edit {
+            final int[] indices;
+            final byte[][] patches;
+            final long bytes;
+
+            Edit(int[] indices, byte[][] patches) {
+                this.indices = indices;
+                this.patches = patches;
+                long b = 0;
+                for (byte[] p : patches) b += p.length + 16;
+                this.bytes = b;
+            }
+        }
+
+        void forEachTile(Rectangle r, java.util.function.IntConsumer action) {
+            int c0 = Math.max(0, r.x / TILE), c1 = Math.min(cols - 1, (r.x + r.width - 1) / TILE);
+            int r0 = Math.max(0, r.y / TILE), r1 = Math.min(rows - 1, (r.y + r.height - 1) / TILE);
+            for (int ty = r0; ty <= r1; ty++) {
+                for (int tx = c0; tx <= c1; tx++) action.accept(ty * cols + tx);
+            }
+        }
+    }
+
+    /**
+     * Görüntü süzgeçleri. TYPE_INT_RGB raster'ının düz int[] dizisi (0x00RRGGBB) üzerinde
+     * çalışır; hedef TILE x TILE karolara bölünür ve karolar fork-join havuzunda paralel
+     * işlenir. Her karo yalnızca kendi hedef piksellerini yazar, komşuları kaynaktan okur;
+     * kenarlarda en yakın piksel tekrarlanır.
+     */
+    static final class Filters {
+        private static final int TILE = TiledImage.TILE;
+        // Bulanıklaştırmanın karo başına ara tamponu; fork-join işçileri arasında paylaşılmaz.
+        private static final ThreadLocal<int[][]> SCRATCH = new ThreadLocal<>();
+
+        private Filters() {
+        }
+
+        interface TileOp {
+            void apply(int x0, int y0, int x1, int y1);
+        }
+
+        /** Karoları havuzda işler ve hepsi bitene kadar bekler. */
+        static void forEachTile(java.util.concurrent.ForkJoinPool pool, int width, int height, TileOp op) {
+            int cols = (width + TILE - 1) / TILE, rows = (height + TILE - 1) / TILE;
+            if (cols * rows == 0) return;
+            pool.invoke(new TileTask(op, width, height, cols, 0, cols * rows));
+        }
+
+        private static final class TileTask extends java.util.concurrent.RecursiveAction {
+            private final TileOp op;
+            private final int width, height, cols, lo, hi;
+
+            TileTask(TileOp op, int width, int height, int cols, int lo, int hi) {
+                this.op = op;
+                this.width = width;
+                this.height = height;
+                this.cols = cols;
+                this.lo = lo;
+                this.hi = hi;
+            }
+
+            protected void compute() {
+                if (hi - lo > 1) {
+                    int mid = (lo + hi) >>> 1;
+                    invokeAll(new TileTask(op, width, height, cols, lo, mid), new TileTask(op, width, height, cols, mid, hi));
+                    return;
+                }
+                int x0 = (lo % cols) * TILE, y0 = (lo / cols) * TILE;
+                op.apply(x0, y0, Math.min(x0 + TILE, width), Math.min(y0 + TILE, height));
+            }
+        }
+
+        static void invert(java.util.concurrent.ForkJoinPool pool, int[] src, int[] dst, int width, int height) {
+            forEachTile(pool, width, height, (x0, y0, x1, y1) -> {
+                for (int y = y0; y < y1; y++) {
+                    for (int i = y * width + x0, end = y * width + x1; i < end; i++) dst[i] = ~src[i] & 0xFFFFFF;
+                }
+            });
+        }
+
+        /** Rec. 601 parlaklığı, 8 bit sabit noktalı. */
+        static void grayscale(java.util.concurrent.ForkJoinPool pool, int[] src, int[] dst, int width, int height) {
+            forEachTile(pool, width, height, (x0, y0, x1, y1) -> {
+                for (int y = y0; y < y1; y++) {
+                    for (int i = y * width + x0, end = y * width + x1; i < end; i++) {
+                        int p = src[i];
+                        int l = (77 * (p >> 16 & 0xFF) + 150 * (p >> 8 & 0xFF) + 29 * (p & 0xFF) + 128) >> 8;
+                        dst[i] = l << 16 | l << 8 | l;
+                    }
+                }
+            });
+        }
+
+        /**
+         * (2r+1)x(2r+1) kutu bulanıklığı, ayrık iki geçişte. Karo, üstünde ve altında r satırlık
+         * payla önce yatay kayan toplamla ara tampona, sonra sütun toplamları satır satır
+         * kaydırılarak hedefe yazılır; böylece iki geçiş de bellekte ardışık ilerler.
+         */
+        static void blur(java.util.concurrent.ForkJoinPool pool, int[] src, int[] dst, int width, int height, int radius) {
+            if (radius < 1 || radius > 64) throw new IllegalArgumentException("yarıçap 1..64 olmalı: " + radius);
+            int d = 2 * radius + 1;
+            int mul = ((1 << 16) + d / 2) / d;
+            forEachTile(pool, width, height, (x0, y0, x1, y1) -> {
+                int tw = x1 - x0;
+                int ya = Math.max(0, y0 - radius), yb = Math.min(height, y1 + radius + 1);
+                int[][] scratch = SCRATCH.get();
+                if (scratch == null) {
+                    scratch = new int[][]{new int[(TILE + 2 * 64 + 1) * TILE], new int[TILE], new int[TILE], new int[TILE]};
+                    SCRATCH.set(scratch);
+                }
+                int[] rowsBuf = scratch[0], sr = scratch[1], sg = scratch[2], sb = scratch[3];
+
+                for (int y = ya; y < yb; y++) {
+                    int base = y * width, o = (y - ya) * tw;
+                    int r = 0, g = 0, b = 0;
+                    for (int k = x0 - radius; k <= x0 + radius; k++) {
+                        int p = src[base + Math.max(0, Math.min(width - 1, k))];
+                        r += p >> 16 & 0xFF;
+                        g += p >> 8 & 0xFF;
+                        b += p & 0xFF;
+                    }
+                    for (int x = x0; x < x1; x++) {
+                        rowsBuf[o++] = Math.min(255, (r * mul + 0x8000) >>> 16) << 16
+                                | Math.min(255, (g * mul + 0x8000) >>> 16) << 8
+                                | Math.min(255, (b * mul + 0x8000) >>> 16);
+                        int in = src[base + Math.min(width - 1, x + radius + 1)], out = src[base + Math.max(0, x - radius)];
+                        r += (in >> 16 & 0xFF) - (out >> 16 & 0xFF);
+                        g += (in >> 8 & 0xFF) - (out >> 8 & 0xFF);
+                        b += (in & 0xFF) - (out & 0xFF);
+                    }
+                }
+
+                java.util.Arrays.fill(sr, 0, tw, 0);
+                java.util.Arrays.fill(sg, 0, tw, 0);
+                java.util.Arrays.fill(sb, 0, tw, 0);
+                for (int k = y0 - radius; k <= y0 + radius; k++) {
+                    int o = (Math.max(0, Math.min(height - 1, k)) - ya) * tw;
+                    for (int c = 0; c < tw; c++) {
+                        int p = rowsBuf[o + c];
+                        sr[c] += p >> 16 & 0xFF;
+                        sg[c] += p >> 8 & 0xFF;
+                        sb[c] += p & 0xFF;
+                    }
+                }
+                for (int y = y0; y < y1; y++) {
+                    int base = y * width + x0;
+                    int in = (Math.min(height - 1, y + radius + 1) - ya) * tw, out = (Math.max(0, y - radius) - ya) * tw;
+                    for (int c = 0; c < tw; c++) {
+                        dst[base + c] = Math.min(255, (sr[c] * mul + 0x8000) >>> 16) << 16
+                                | Math.min(255, (sg[c] * mul + 0x8000) >>> 16) << 8
+                                | Math.min(255, (sb[c] * mul + 0x8000) >>> 16);
+                        int pi = rowsBuf[in + c], po = rowsBuf[out + c];
+                        sr[c] += (pi >> 16 & 0xFF) - (po >> 16 & 0xFF);
+                        sg[c] += (pi >> 8 & 0xFF) - (po >> 8 & 0xFF);
+                        sb[c] += (pi & 0xFF) - (po & 0xFF);
+                    }
+                }
+            });
+        }
+
+        /** 3x3 keskinleştirme çekirdeği: merkez 5, dört komşu -1. */
+        static void sharpen(java.util.concurrent.ForkJoinPool pool, int[] src, int[] dst, int width, int height) {
+            forEachTile(pool, width, height, (x0, y0, x1, y1) -> {
+                for (int y = y0; y < y1; y++) {
+                    int row = y * width, up = Math.max(0, y - 1) * width, down = Math.min(height - 1, y + 1) * width;
+                    for (int x = x0; x < x1; x++) {
+                        int left = Math.max(0, x - 1), right = Math.min(width - 1, x + 1);
+                        int c = src[row + x], n = src[up + x], s = src[down + x], w = src[row + left], e = src[row + right];
+                        int r = 5 * (c >> 16 & 0xFF) - (n >> 16 & 0xFF) - (s >> 16 & 0xFF) - (w >> 16 & 0xFF) - (e >> 16 & 0xFF);
+                        int g = 5 * (c >> 8 & 0xFF) - (n >> 8 & 0xFF) - (s >> 8 & 0xFF) - (w >> 8 & 0xFF) - (e >> 8 & 0xFF);
+                        int b = 5 * (c & 0xFF) - (n & 0xFF) - (s & 0xFF) - (w & 0xFF) - (e & 0xFF);
+                        dst[row + x] = Math.max(0, Math.min(255, r)) << 16 | Math.max(0, Math.min(255, g)) << 8 | Math.max(0, Math.min(255, b));
+                    }
+                }
+            });
+        }
+
+        /**
+         * Yeniden örnekleme. Bir eksende yarıdan fazla küçültmede alan ortalaması (kaynak
+         * kutusunun ortalaması, örtüşme olmadan), aksi hâlde 16.16 sabit noktalı çift doğrusal
+         * ara değer kullanılır. Karolar hedef görüntü üzerindedir.
+         */
+        static void resize(java.util.concurrent.ForkJoinPool pool, int[] src, int width, int height, int[] dst, int newWidth, int newHeight) {
+            if (newWidth * 2 <= width || newHeight * 2 <= height) {
+                forEachTile(pool, newWidth, newHeight, (x0, y0, x1, y1) -> {
+                    for (int y = y0; y < y1; y++) {
+                        int sy0 = (int) ((long) y * height / newHeight), sy1 = Math.max(sy0 + 1, (int) ((long) (y + 1) * height / newHeight));
+                        for (int x = x0; x < x1; x++) {
+                            int sx0 = (int) ((long) x * width / newWidth), sx1 = Math.max(sx0 + 1, (int) ((long) (x + 1) * width / newWidth));
+                            int r = 0, g = 0, b = 0;
+                            for (int sy = sy0; sy < sy1; sy++) {
+                                for (int i = sy * width + sx0, end = sy * width + sx1; i < end; i++) {
+                                    int p = src[i];
+                                    r += p >> 16 & 0xFF;
+                                    g += p >> 8 & 0xFF;
+                                    b += p & 0xFF;
+                                }
+                            }
+                            int n = (sy1 - sy0) * (sx1 - sx0), half = n >> 1;
+                            dst[y * newWidth + x] = (r + half) / n << 16 | (g + half) / n << 8 | (b + half) / n;
+                        }
+                    }
+                });
+                return;
+            }
+            forEachTile(pool, newWidth, newHeight, (x0, y0, x1, y1) -> {
+                int tw = x1 - x0;
+                int[] sx = new int[tw], fx = new int[tw];
+                for (int c = 0; c < tw; c++) {
+                    long v = Math.max(0, ((2L * (x0 + c) + 1) * width << 16) / (2L * newWidth) - (1 << 15));
+                    sx[c] = (int) Math.min(width - 1, v >> 16);
+                    fx[c] = sx[c] == width - 1 ? 0 : (int) (v & 0xFFFF);
+                }
+                for (int y = y0; y < y1; y++) {
+                    long v = Math.max(0, ((2L * y + 1) * height << 16) / (2L * newHeight) - (1 << 15));
+                    int syi = (int) Math.min(height - 1, v >> 16);
+                    int fy = syi == height - 1 ? 0 : (int) (v & 0xFFFF);
+                    int top = syi * width, bottom = Math.min(height - 1, syi + 1) * width;
+                    for (int c = 0; c < tw; c++) {
+                        int a = sx[c], bx = Math.min(width - 1, a + 1), f = fx[c];
+                        int p00 = src[top + a], p01 = src[top + bx], p10 = src[bottom + a], p11 = src[bottom + bx];
+                        dst[y * newWidth + x0 + c] = lerp2(p00, p01, p10, p11, f, fy, 16)
+                                | lerp2(p00, p01, p10, p11, f, fy, 8)
+                                | lerp2(p00, p01, p10, p11, f, fy, 0);
+                    }
+                }
+            });
+        }
+
+        // Tek kanalın çift doğrusal ara değeri, kanalın yerine kaydırılmış olarak.
+        private static int lerp2(int p00, int p01, int p10, int p11, int fx, int fy, int shift) {
+            long top = ((p00 >> shift & 0xFF) << 16) + (long) ((p01 >> shift & 0xFF) - (p00 >> shift & 0xFF)) * fx;
+            long bottom = ((p10 >> shift & 0xFF) << 16) + (long) ((p11 >> shift & 0xFF) - (p10 >> shift & 0xFF)) * fx;
+            long v = (top << 16) + (bottom - top) * fy;
+            return (int) ((v + (1L << 31)) >>> 32) << shift;
+        }
+    }
+
+    /**
+     * PNG/JPEG okuma ve yazma, ilerleme bildirimiyle. Okuma VFS dosyasının eşlenmiş
+     * görünümünden yapılır (ImageIO'nun geçici dosya önbelleği kullanılmaz); sonuç her zaman
+     * TYPE_INT_RGB'dir.
+     */
+    static final class ImageFiles {
+        private ImageFiles() {
+        }
+
+        static BufferedImage read(java.nio.ByteBuffer data, java.util.function.IntConsumer progress) throws java.io.IOException {
+            try (javax.imageio.stream.ImageInputStream in = new BufferImageInput(data)) {
+                java.util.Iterator<javax.imageio.ImageReader> readers = javax.imageio.ImageIO.getImageReaders(in);
+                if (!readers.hasNext()) throw new java.io.IOException("tanınmayan görüntü biçimi");
+                javax.imageio.ImageReader reader = readers.next();
+                try {
+                    reader.setInput(in, true, true);
+                    int width = reader.getWidth(0), height = reader.getHeight(0);
+                    // Çözülen görüntü, düz kopya ve karolar aynı anda bellekte bulunur.
+                    if ((long) width * height * 12 > Runtime.getRuntime().maxMemory()) {
+                        throw new java.io.IOException("görüntü bellek için çok büyük: " + width + "x" + height);
+                    }
+                    javax.imageio.ImageReadParam param = reader.getDefaultReadParam();
+                    java.util.Iterator<javax.imageio.ImageTypeSpecifier> types = reader.getImageTypes(0);
+                    while (types.hasNext()) {
+                        javax.imageio.ImageTypeSpecifier t = types.next();
+                        if (t.getBufferedImageType() == BufferedImage.TYPE_INT_RGB) {
+                            param.setDestinationType(t);
+                            break;
+                        }
+                    }
+                    reader.addIIOReadProgressListener(new javax.imageio.event.IIOReadProgressListener() {
+                        public void imageProgress(javax.imageio.ImageReader source, float percentageDone) {
+                            progress.accept((int) percentageDone);
+                        }
+
+                        public void imageComplete(javax.imageio.ImageReader source) {
+                            progress.accept(100);
+                        }
+
+                        public void sequenceStarted(javax.imageio.ImageReader source, int minIndex) {
+                        }
+
+                        public void sequenceComplete(javax.imageio.ImageReader source) {
+                        }
+
+                        public void imageStarted(javax.imageio.ImageReader source, int imageIndex) {
+                        }
+
+                        public void thumbnailStarted(javax.imageio.ImageReader source, int imageIndex, int thumbnailIndex) {
+                        }
+
+                        public void thumbnailProgress(javax.imageio.ImageReader source, float percentageDone) {
+                        }
+
+                        public void thumbnailComplete(javax.imageio.ImageReader source) {
+                        }
+
+                        public void readAborted(javax.imageio.ImageReader source) {
+                        }
+                    });
+                    BufferedImage img = reader.read(0, param);
+                    if (img.getType() == BufferedImage.TYPE_INT_RGB) return img;
+                    // Saydam ya da paletli görüntü: beyaz zemine çizilerek çevrilir.
+                    BufferedImage rgb = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                    Graphics2D g = rgb.createGraphics();
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, width, height);
+                    g.drawImage(img, 0, 0, null);
+                    g.dispose();
+                    return rgb;
+                } finally {
+                    reader.dispose();
+                }
+            }
+        }
+
+        /** @param format "png" ya da "jpeg" (kalite 0.9) */
+        static byte[] write(BufferedImage image, String format, java.util.function.IntConsumer progress) throws java.io.IOException {
+            java.util.Iterator<javax.imageio.ImageWriter> writers = javax.imageio.ImageIO.getImageWritersByFormatName(format);
+            if (!writers.hasNext()) throw new java.io.IOException("yazıcı yok: " + format);
+            javax.imageio.ImageWriter writer = writers.next();
+            java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream(Math.max(1024, image.getWidth() * image.getHeight()));
+            try (javax.imageio.stream.ImageOutputStream out = new javax.imageio.stream.MemoryCacheImageOutputStream(bytes)) {
+                writer.setOutput(out);
+                javax.imageio.ImageWriteParam param = writer.getDefaultWriteParam();
+                if (format.equals("jpeg")) {
+                    param.setCompressionMode(javax.imageio.ImageWriteParam.MODE_EXPLICIT);
+                    param.setCompressionQuality(0.9f);
+                }
+                writer.addIIOWriteProgressListener(new javax.imageio.event.IIOWriteProgressListener() {
+                    public void imageProgress(javax.imageio.ImageWriter source, float percentageDone) {
+                        progress.accept((int) percentageDone);
+                    }
+
+                    public void imageComplete(javax.imageio.ImageWriter source) {
+                        progress.accept(100);
+                    }
+
+                    public void imageStarted(javax.imageio.ImageWriter source, int imageIndex) {
+                    }
+
+                    public void thumbnailStarted(javax.imageio.ImageWriter source, int imageIndex, int thumbnailIndex) {
+                    }
+
+                    public void thumbnailProgress(javax.imageio.ImageWriter source, float percentageDone) {
+                    }
+
+                    public void thumbnailComplete(javax.imageio.ImageWriter source) {
+                    }
+
+                    public void writeAborted(javax.imageio.ImageWriter source) {
+                    }
+                });
+                writer.write(null, new javax.imageio.IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            return bytes.toByteArray();
+        }
+
+        // Eşlenmiş tampon üzerinde rastgele erişimli giriş; kopyalamaz, konum tamponun kendi konumudur.
+        private static final class BufferImageInput extends javax.imageio.stream.ImageInputStreamImpl {
+            private final java.nio.ByteBuffer b;
+
+            BufferImageInput(java.nio.ByteBuffer b) {
+                this.b = b.duplicate();
+                this.b.position(0);
+            }
+
+            public int read() {
+                bitOffset = 0;
+                if (!b.hasRemaining()) return -1;
+                streamPos++;
+                return b.get() & 0xFF;
+            }
+
+            public int read(byte[] dst, int off, int len) {
+                bitOffset = 0;
+                if (len == 0) return 0;
+                if (!b.hasRemaining()) return -1;
+                int n = Math.min(len, b.remaining());
+                b.get(dst, off, n);
+                streamPos += n;
+                return n;
+            }
+
+            public long length() {
+                return b.limit();
+            }
+
+            public void seek(long pos) throws java.io.IOException {
+                super.seek(pos);
+                b.position((int) Math.min(pos, b.limit()));
+            }
+        }
+    }
+
+    /**
+     * Geri al / yinele geçmişi. Toplam yama boyutu bütçeyi aşarsa en eski adımlar atılır.
+     */
+    private static class PaintHistory {
+        private final java.util.ArrayDeque<TiledImage.Edit> undo = new java.util.ArrayDeque<>();
+        private final java.util.ArrayDeque<TiledImage.Edit> redo = new java.util.ArrayDeque<>();
+        private final long budget;
+        private long used;
+
+        PaintHistory(long budget) {
+            this.budget = budget;
+        }
+
+        void push(TiledImage.Edit edit) {
+            for (TiledImage.Edit e : redo) used -= e.bytes;
+            redo.clear();
+            undo.push(edit);
+            used += edit.bytes;
+            while (used > budget && undo.size() > 1) used -= undo.removeLast().bytes;
+        }
+
+        TiledImage.Edit undo() {
+            TiledImage.Edit e = undo.poll();
+            if (e != null) redo.push(e);
+            return e;
+        }
+
+        void clear() {
+            undo.clear();
+            redo.clear();
+            used = 0;
+        }
+
+        TiledImage.Edit redo() {
+            TiledImage.Edit e = redo.poll();
+            if (e != null) undo.push(e);
+            return e;
+        }
+    }
+
+    /**
+     * Paint tuvali: sürükleme olaylarını biriktirip her karede tek bir çoklu çizgi olarak
+     * işler ve sadece değişen dikdörtgeni yeniden çizer. İstenirse karolar ekrana
+     * VolatileImage önbelleği üzerinden aktarılır.
+     */
+    private static class PaintCanvas extends JComponent {
+        // Açma ve boyutlandırmada EDT'de değiştirilir; arka plan işleri başladıkları görüntüyü tutar.
+        private volatile TiledImage image;
+        private long generation;
+        private final boolean accelerated;
+        private VolatileImage[] accel;
+        private int[] accelVersion;
+        // Dosya ya da süzgeç işi sürerken çizim ve geri alma kapalıdır.
+        private boolean busy;
+        final JProgressBar progress = new JProgressBar(0, 100);
+        private final java.util.concurrent.atomic.AtomicInteger reported = new java.util.concurrent.atomic.AtomicInteger(-1);
+        private final PaintHistory history = new PaintHistory(Long.getLong("javaos.paint.historyBytes", 16L << 20));
+        private Color color = Color.BLACK;
+        private float strokeWidth = 1f;
+
+        // Bu karede biriken noktalar; ilk nokta bir önceki karenin son noktasıdır.
+        private int[] xs = new int[64], ys = new int[64];
+        private int count;
+        private final Timer frame = new Timer(16, e -> flushStroke());
+        private final Kernel.Metrics.Histogram repaints;
+
+        PaintCanvas(int width, int height, boolean accelerated, Kernel.Metrics.Histogram repaints) {
+            this.image = new TiledImage(width, height, Color.WHITE);
+            this.repaints = repaints;
+            this.accelerated = accelerated;
+            this.accel = new VolatileImage[image.cols * image.rows];
+            this.accelVersion = new int[image.cols * image.rows];
+            setOpaque(true);
+            setPreferredSize(new Dimension(width, height));
+            frame.setCoalesce(true);
+
+            addMouseListener(new java.awt.event.MouseAdapter() {
+                public void mousePressed(java.awt.event.MouseEvent e) {
+                    if (busy) return;
+                    requestFocusInWindow();
+                    count = 0;
+                    addPoint(e.getX(), e.getY());
+                    image.beginEdit();
+                    frame.start();
+                }
+                public void mouseReleased(java.awt.event.MouseEvent e) {
+                    if (count == 0) return;
+                    addPoint(e.getX(), e.getY());
+                    flushStroke();
+                    frame.stop();
+                    count = 0;
+                    TiledImage.Edit edit = image.endEdit();
+                    if (edit != null) history.push(edit);
+                }
+            });
+            addMouseMotionListener(new java.awt.event.MouseMotionAdapter() {
+                public void mouseDragged(java.awt.event.MouseEvent e) {
+                    if (count == 0) return;
+                    addPoint(e.getX(), e.getY());
+                }
+            });
+
+            setFocusable(true);
+            getInputMap(WHEN_ANCESTOR_OF_FOCUSED_COMPONENT).put(KeyStroke.getKeyStroke("ctrl Z"), "undo");
+            getInputMap(WHEN_ANCESTOR_OF_FOCUSED_COMPONENT).put(KeyStroke.getKeyStroke("ctrl Y"), "redo");
+            getActionMap().put("undo", new AbstractAction() {
+                public void actionPerformed(java.awt.event.ActionEvent e) {
+                    undo();
+                }
+            });
+            getActionMap().put("redo", new AbstractAction() {
+                public void actionPerformed(java.awt.event.ActionEvent e) {
+                    redo();
+                }
+            });
+        }
+
+        void restoreTile(int index, int[] px) {
+            repaint(image.restoreTile(index, px));
+        }
+
+        void undo() {
+            if (count > 0 || busy) return; // darbe ya da iş sürerken değil
+            TiledImage.Edit e = history.undo();
+            if (e != null) repaint(image.apply(e));
+        }
+
+        void redo() {
+            if (count > 0 || busy) return;
+            TiledImage.Edit e = history.redo();
+            if (e != null) repaint(image.apply(e));
+        }
+
+        /** EDT'de: uzun bir işi başlatır; başka bir iş sürüyorsa false. */
+        boolean begin(String what) {
+            if (busy || count > 0) return false;
+            busy = true;
+            reported.set(-1);
+            progress.setIndeterminate(true);
+            progress.setString(what + "...");
+            progress.setVisible(true);
+            revalidate();
+            return true;
+        }
+
+        /** Herhangi bir iş parçacığından: yüzde ilerleme. EDT'ye yalnızca değer değişince gider. */
+        void progress(int percent) {
+            if (reported.getAndSet(percent) == percent) return;
+            SwingUtilities.invokeLater(() -> {
+                if (!busy) return;
+                progress.setIndeterminate(false);
+                progress.setValue(reported.get());
+            });
+        }
+
+        void end() {
+            busy = false;
+            progress.setVisible(false);
+            revalidate();
+        }
+
+        /** Herhangi bir iş parçacığından: işi hatayla bitirir. */
+        void fail(String message) {
+            SwingUtilities.invokeLater(() -> {
+                end();
+                JOptionPane.showMessageDialog(this, message, "Paint", JOptionPane.ERROR_MESSAGE);
+            });
+        }
+
+        /** Süzgeç sonucunu takar; geri alma kaydı geçmişe eklenir. */
+        void adopt(TiledImage next, TiledImage.Edit edit) {
+            if (edit != null) {
+                history.push(edit);
+                repaint(image.adopt(next));
+            }
+            end();
+        }
+
+        void replaceAndEnd(TiledImage next) {
+            replace(next);
+            end();
+        }
+
+        /** Tuvali başka boyutta bir görüntüyle değiştirir; geri alma geçmişi silinir. */
+        void replace(TiledImage next) {
+            image = next;
+            generation++;
+            history.clear();
+            accel = new VolatileImage[next.cols * next.rows];
+            accelVersion = new int[next.cols * next.rows];
+            setPreferredSize(new Dimension(next.width, next.height));
+            revalidate();
+            repaint();
+        }
+
+        private void addPoint(int x, int y) {
+            if (count > 0 && xs[count - 1] == x && ys[count - 1] == y) return;
+            if (count == xs.length) {
+                xs = java.util.Arrays.copyOf(xs, count * 2);
+                ys = java.util.Arrays.copyOf(ys, count * 2);
+            }
+            xs[count] = x;
+            ys[count] = y;
+            count++;
+        }
+
+        private void flushStroke() {
+            if (count < 2) return;
+            Rectangle dirty = image.drawPolyline(xs, ys, count, color, strokeWidth);
+            xs[0] = xs[count - 1];
+            ys[0] = ys[count - 1];
+            count = 1;
+            if (!dirty.isEmpty()) repaint(dirty);
+        }
+
+        protected void paintComponent(Graphics g) {
+            long start = System.nanoTime();
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+            g.setColor(getParent() != null ? getParent().getBackground() : Color.GRAY);
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+            Graphics2D g2 = (Graphics2D) g;
+            image.forEachTile(clip, index -> {
+                int x = (index % image.cols) * TiledImage.TILE, y = (index / image.cols) * TiledImage.TILE;
+                int w = Math.min(TiledImage.TILE, image.width - x), h = Math.min(TiledImage.TILE, image.height - y);
+                BufferedImage tile = image.tile(index);
+                if (tile == null) {
+                    g2.setColor(Color.WHITE);
+                    g2.fillRect(x, y, w, h);
+                } else if (accelerated) {
+                    drawAccelerated(g2, index, tile, x, y, w, h);
+                } else {
+                    g2.drawImage(tile, x, y, x + w, y + h, 0, 0, w, h, null);
+                }
+            });
+            repaints.record(System.nanoTime() - start);
+        }
+
+        private void drawAccelerated(Graphics2D g, int index, BufferedImage tile, int x, int y, int w, int h) {
+            GraphicsConfiguration gc = g.getDeviceConfiguration();
+            for (int attempt = 0; attempt < 2; attempt++) {
+                VolatileImage vi = accel[index];
+                int status = vi == null ? VolatileImage.IMAGE_INCOMPATIBLE : vi.validate(gc);
+                if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    vi = gc.createCompatibleVolatileImage(TiledImage.TILE, TiledImage.TILE);
+                    accel[index] = vi;
+                }
+                if (status != VolatileImage.IMAGE_OK) accelVersion[index] = image.version(index) - 1;
+                if (accelVersion[index] != image.version(index)) {
+                    Graphics2D vg = vi.createGraphics();
+                    vg.drawImage(tile, 0, 0, null);
+                    vg.dispose();
+                    accelVersion[index] = image.version(index);
+                }
+                g.drawImage(vi, x, y, x + w, y + h, 0, 0, w, h, null);
+                if (!vi.contentsLost()) return;
+            }
+        }
+    }
+}
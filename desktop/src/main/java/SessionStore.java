@@ -0,0 +1,551 @@
+// SessionStore.java
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Masaüstü oturumunun kaydı: açık pencerelerin çerçeveleri (konum, boyut, Z sırası) ve
+ * içerikleri. Dosya biçimi (büyük-endian):
+ * <pre>
+ *   int "JOSS", short biçim sürümü, long sıra no, long zaman, int pencere sayısı
+ *   her pencere: UTF anahtar, int x y gen yük, int bölüm sayısı
+ *     her bölüm: UTF ad, long sürüm, long uzunluk (1. sürümde int), uzunluk bayt içerik
+ *   int CRC32 (öncesindeki her şeyin)
+ * </pre>
+ * Bölümleri pencerenin {@link Persistent}'ı verir; uzunluk önekli olduğundan okuyucu
+ * tanımadığı bölümleri atlar. İki dosyaya sırayla yazılır: yarıda kalan kayıt CRC'den
+ * geçemez ve bir önceki kayıt geçerli kalır. Bölümler bellekte biriktirilmeden doğrudan
+ * dosyaya akar, uzunlukları sonradan yerine yazılır; kayıt ve bölümler 2 GB ile sınırlı değildir.
+ * <p>
+ * Kayıt artımlıdır: sürümü bir önceki kayıttakiyle aynı olan bölüm ne yeniden yakalanır
+ * ne de yeniden kodlanır, önceki baytları yazılır. Yakalama EDT'de (kısa kopya), kodlama
+ * ve yazma "session-writer" iş parçacığında yapılır.
+ */
+public class SessionStore {
+    public static final int MAGIC = 0x4A4F5353;
+    public static final short FORMAT = 2;
+    /** Her kayıtta yeniden yakalanan küçük bölümlerin sürümü; tek başına kayıt tetiklemez. */
+    public static final long ALWAYS = -1;
+    // Bundan büyük bölümler (ör. uzun metin) bellekte tutulmaz, her kayıtta yeniden kodlanır.
+    private static final int MAX_CACHED = 4 << 20;
+
+    /** Pencere içeriğinin kaydı ve geri yüklenmesi; ikisi de EDT'de çağrılır. */
+    public interface Persistent {
+        void save(Sections out);
+
+        /** Pencere yeniden açılıp yerine konduktan hemen sonra; ağır içerik arka planda çözülmeli. */
+        void restore(SavedWindow saved);
+    }
+
+    /** EDT'de: içeriğin o anki hâlinin kısa bir kopyasını alır. */
+    public interface Capture {
+        Encoder capture();
+    }
+
+    /** Yazıcı iş parçacığında: yakalanan kopyayı kodlar. */
+    public interface Encoder {
+        void write(java.io.DataOutputStream out) throws IOException;
+    }
+
+    private final java.nio.file.Path[] slots;
+    private final Kernel.Metrics metrics;
+    private final Map<String, Cached> cache = new java.util.concurrent.ConcurrentHashMap<>();
+    private final java.util.concurrent.atomic.AtomicInteger pending = new java.util.concurrent.atomic.AtomicInteger();
+    private java.util.concurrent.ExecutorService writer;
+    private volatile String lastFrames = "";
+    private volatile long sequence;
+
+    public SessionStore(java.nio.file.Path dir, Kernel.Metrics metrics) {
+        this.slots = new java.nio.file.Path[] { dir.resolve("session-0.bin"), dir.resolve("session-1.bin") };
+        this.metrics = metrics;
+    }
+
+    private static final class Cached {
+        final long version;
+        final byte[] data;
+
+        Cached(long version, byte[] data) {
+            this.version = version;
+            this.data = data;
+        }
+    }
+
+    private static final class Entry {
+        final String name;
+        final long version;
+        final Cached reused;
+        final Encoder encoder;
+
+        Entry(String name, long version, Cached reused, Encoder encoder) {
+            this.name = name;
+            this.version = version;
+            this.reused = reused;
+            this.encoder = encoder;
+        }
+    }
+
+    /** EDT'de doldurulan kayıt: pencereler arkadan öne. */
+    public final class Snapshot {
+        private final java.util.List<Sections> windows = new java.util.ArrayList<>();
+        private boolean changed;
+
+        /**
+         * @param id pencerenin bu çalışmadaki kimliği; aynı anahtarla yeniden açılan pencerenin
+         *           sürümleri öncekininkiyle karışmasın diye önbellek anahtarına girer
+         */
+        public Sections window(String key, long id, Rectangle bounds) {
+            Sections s = new Sections(this, key, id, bounds);
+            windows.add(s);
+            return s;
+        }
+
+        String frames() {
+            StringBuilder sb = new StringBuilder();
+            for (Sections s : windows) sb.append(s.key).append(s.bounds).append(';');
+            return sb.toString();
+        }
+    }
+
+    /** Bir pencerenin bölümleri. */
+    public final class Sections {
+        private final Snapshot owner;
+        final String key;
+        final long id;
+        final Rectangle bounds;
+        final java.util.List<Entry> entries = new java.util.ArrayList<>();
+
+        Sections(Snapshot owner, String key, long id, Rectangle bounds) {
+            this.owner = owner;
+            this.key = key;
+            this.id = id;
+            this.bounds = bounds;
+        }
+
+        /**
+         * Bölüm ekler. Sürüm bir önceki kayıttakiyle aynıysa capture çağrılmaz.
+         * @param version içerik değiştikçe artan sayı ya da {@link #ALWAYS}
+         */
+        public void section(String name, long version, Capture capture) {
+            Cached c = version == ALWAYS ? null : cache.get(id + "/" + name);
+            if (c != null && c.version == version) {
+                entries.add(new Entry(name, version, c, null));
+                return;
+            }
+            entries.add(new Entry(name, version, null, capture.capture()));
+            if (version != ALWAYS) owner.changed = true;
+        }
+    }
+
+    /** Yeni bir kayıt başlatır (EDT). */
+    public Snapshot begin() {
+        return new Snapshot();
+    }
+
+    /**
+     * Kaydı arka planda yazar. force false ise değişen bir şey yoksa ya da önceki kayıt
+     * hâlâ yazılıyorsa hiçbir şey yapmaz.
+     * @return yazma işi ya da null
+     */
+    public synchronized java.util.concurrent.Future<?> write(Snapshot s, boolean force) {
+        String frames = s.frames();
+        if (!force && (!s.changed && frames.equals(lastFrames) || pending.get() > 0)) return null;
+        if (writer == null) {
+            writer = java.util.concurrent.Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "session-writer");
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            });
+        }
+        pending.incrementAndGet();
+        return writer.submit(() -> {
+            try {
+                writeNow(s, frames);
+            } catch (IOException | RuntimeException | OutOfMemoryError ex) {
+                // Gelecek yutmasın: her başarısız kayıt görünür, sonraki kayıtlar yine denenir.
+                metrics.counter("session.failures").increment();
+                System.err.println("Oturum kaydedilemedi: " + Kernel.errorMessage(ex));
+            } finally {
+                pending.decrementAndGet();
+            }
+            return null;
+        });
+    }
+
+    // Yazıcı iş parçacığında.
+    private void writeNow(Snapshot s, String frames) throws IOException {
+        long start = System.nanoTime();
+        long seq = sequence + 1;
+        java.nio.file.Path file = slots[(int) (seq % 2)];
+        Files.createDirectories(file.getParent());
+        Map<String, Cached> next = new HashMap<>();
+        java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+        long size;
+        try (java.nio.channels.FileChannel ch = java.nio.channels.FileChannel.open(file,
+                java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.READ,
+                java.nio.file.StandardOpenOption.WRITE, java.nio.file.StandardOpenOption.TRUNCATE_EXISTING)) {
+            SectionOutput counted = new SectionOutput(new java.io.BufferedOutputStream(
+                    java.nio.channels.Channels.newOutputStream(ch), 1 << 16));
+            java.io.DataOutputStream out = new java.io.DataOutputStream(counted);
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT);
+            out.writeLong(seq);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(s.windows.size());
+            java.nio.ByteBuffer lengthField = java.nio.ByteBuffer.allocate(8);
+            for (Sections w : s.windows) {
+                out.writeUTF(w.key);
+                out.writeInt(w.bounds.x);
+                out.writeInt(w.bounds.y);
+                out.writeInt(w.bounds.width);
+                out.writeInt(w.bounds.height);
+                out.writeInt(w.entries.size());
+                for (Entry e : w.entries) {
+                    out.writeUTF(e.name);
+                    out.writeLong(e.version);
+                    if (e.reused != null) {
+                        out.writeLong(e.reused.data.length);
+                        out.write(e.reused.data);
+                        next.put(w.id + "/" + e.name, e.reused);
+                        continue;
+                    }
+                    // Uzunluk alanı yer tutucu olarak yazılır, içerik aktıktan sonra yerine konur.
+                    long at = counted.count();
+                    out.writeLong(0);
+                    counted.capture(e.version != ALWAYS ? MAX_CACHED : 0);
+                    e.encoder.write(out);
+                    byte[] data = counted.captured();
+                    out.flush();
+                    ch.write(lengthField.putLong(0, counted.count() - at - 8).clear(), at);
+                    if (data != null) next.put(w.id + "/" + e.name, new Cached(e.version, data));
+                }
+            }
+            out.flush();
+            size = counted.count();
+            // Yerine yazılan uzunluklar akış sırasında hesaplanamaz; sağlama toplamı yazılanı okuyarak alınır.
+            java.nio.ByteBuffer buf = java.nio.ByteBuffer.allocate(1 << 20);
+            for (long pos = 0; pos < size; ) {
+                buf.clear().limit((int) Math.min(buf.capacity(), size - pos));
+                int n = ch.read(buf, pos);
+                if (n < 0) throw new IOException("kayıt dosyası kısaldı");
+                crc.update(buf.flip());
+                pos += n;
+            }
+            ch.write(java.nio.ByteBuffer.allocate(4).putInt(0, (int) crc.getValue()), size);
+            ch.force(true);
+            size += 4;
+        }
+        sequence = seq;
+        // Kapanan pencerelerin bölümleri önbellekten düşer.
+        cache.keySet().retainAll(next.keySet());
+        cache.putAll(next);
+        lastFrames = frames;
+        metrics.histogram("session.save").record(System.nanoTime() - start);
+        metrics.counter("session.bytes").add(size);
+    }
+
+    // Yazılan baytları sayar; istenirse bir bölümün ilk baytlarını önbellek için kopyalar.
+    private static final class SectionOutput extends java.io.FilterOutputStream {
+        private long count;
+        private java.io.ByteArrayOutputStream copy;
+        private int limit;
+
+        SectionOutput(java.io.OutputStream out) {
+            super(out);
+        }
+
+        long count() {
+            return count;
+        }
+
+        /** Bundan sonra yazılanların en fazla limit baytı kopyalanır; 0 ise kopyalanmaz. */
+        void capture(int limit) {
+            this.limit = limit;
+            this.copy = limit > 0 ? new java.io.ByteArrayOutputStream(Math.min(limit, 1 << 16)) : null;
+        }
+
+        /** Kopya; sınır aşıldıysa ya da kopyalanmadıysa null. */
+        byte[] captured() {
+            byte[] data = copy == null ? null : copy.toByteArray();
+            copy = null;
+            return data;
+        }
+
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+            if (copy != null) {
+                if (copy.size() < limit) copy.write(b);
+                else copy = null;
+            }
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+            if (copy != null) {
+                if (copy.size() + len <= limit) copy.write(b, off, len);
+                else copy = null;
+            }
+        }
+    }
+
+    /** Son geçerli kayıt; yoksa null. Bölümler istenene kadar okunmaz. */
+    public Saved load() {
+        Saved best = null;
+        for (java.nio.file.Path p : slots) {
+            if (!Files.isRegularFile(p)) continue;
+            try {
+                Saved s = read(p);
+                if (best == null || s.sequence > best.sequence) best = s;
+            } catch (IOException | RuntimeException ex) {
+                System.err.println("Oturum kaydı okunamadı: " + p + " (" + Kernel.errorMessage(ex) + ")");
+            }
+        }
+        if (best != null) sequence = best.sequence;
+        return best;
+    }
+
+    // Sağlama toplamı parça parça okunarak denetlenir. Dosya eşlenmez: ikinci kayıtta aynı dosya
+    // kesilip yeniden yazılır ve eşlenmiş bir dilim o an SIGBUS verirdi. Bölümler istendiğinde okunur.
+    private static Saved read(java.nio.file.Path file) throws IOException {
+        ChannelInput input;
+        long end;
+        try (java.nio.channels.FileChannel ch = java.nio.channels.FileChannel.open(file, java.nio.file.StandardOpenOption.READ)) {
+            end = ch.size() - 4;
+            if (end < 26) throw new IOException("dosya çok kısa");
+            java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+            java.nio.ByteBuffer buf = java.nio.ByteBuffer.allocate(1 << 20);
+            for (long pos = 0; pos < end; ) {
+                buf.clear().limit((int) Math.min(buf.capacity(), end - pos));
+                int n = ch.read(buf, pos);
+                if (n < 0) throw new IOException("dosya kısaldı");
+                crc.update(buf.flip());
+                pos += n;
+            }
+            buf.clear().limit(4);
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, end + buf.position()) < 0) throw new IOException("dosya kısaldı");
+            }
+            if ((int) crc.getValue() != buf.getInt(0)) throw new IOException("sağlama toplamı tutmuyor");
+            input = new ChannelInput(ch);
+            java.io.DataInputStream in = new java.io.DataInputStream(input);
+            if (in.readInt() != MAGIC) throw new IOException("oturum dosyası değil");
+            short format = in.readShort();
+            if (format > FORMAT) throw new IOException("desteklenmeyen biçim sürümü " + format);
+            long seq = in.readLong();
+            long savedAt = in.readLong();
+            int count = in.readInt();
+            java.util.List<SavedWindow> windows = new java.util.ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                Rectangle bounds = new Rectangle(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+                int n = in.readInt();
+                Map<String, long[]> sections = new java.util.LinkedHashMap<>();
+                Map<String, Long> versions = new HashMap<>();
+                for (int k = 0; k < n; k++) {
+                    String name = in.readUTF();
+                    long version = in.readLong();
+                    long length = format < 2 ? in.readInt() : in.readLong();
+                    long at = input.position();
+                    if (length < 0 || length > end - at) throw new IOException("bozuk bölüm: " + key + "/" + name);
+                    sections.put(name, new long[] {at, length});
+                    versions.put(name, version);
+                    input.seek(at + length);
+                }
+                windows.add(new SavedWindow(file, key, bounds, sections, versions));
+            }
+            return new Saved(seq, savedAt, windows);
+        }
+    }
+
+    /** Okunan kayıt. */
+    public static final class Saved {
+        public final long sequence;
+        public final long savedAt;
+        /** Arkadan öne. */
+        public final java.util.List<SavedWindow> windows;
+
+        Saved(long sequence, long savedAt, java.util.List<SavedWindow> windows) {
+            this.sequence = sequence;
+            this.savedAt = savedAt;
+            this.windows = windows;
+        }
+    }
+
+    /**
+     * Kayıttaki bir pencere. Bölümler istendiği an dosyadan öbeğe kopyalanır: kayıt dosyası
+     * sonraki kayıtlarda yeniden yazılacağından {@link Persistent#restore} gereken bölümleri
+     * dönmeden önce almalıdır.
+     */
+    public static final class SavedWindow {
+        public final String key;
+        public final Rectangle bounds;
+        private final java.nio.file.Path file;
+        private final Map<String, long[]> sections;   // ad -> {konum, uzunluk}
+        private final Map<String, Long> versions;
+
+        SavedWindow(java.nio.file.Path file, String key, Rectangle bounds,
+                    Map<String, long[]> sections, Map<String, Long> versions) {
+            this.file = file;
+            this.key = key;
+            this.bounds = bounds;
+            this.sections = sections;
+            this.versions = versions;
+        }
+
+        public java.util.Set<String> names() {
+            return sections.keySet();
+        }
+
+        /** Bölümün uzunluğu; yoksa -1. */
+        public long length(String name) {
+            long[] s = sections.get(name);
+            return s == null ? -1 : s[1];
+        }
+
+        /**
+         * Bölümün öbekteki salt okunur kopyası; yoksa null. 2 GB'tan büyük bölüm tampona
+         * sığmaz, onun için {@link #open} kullanılır.
+         */
+        public java.nio.ByteBuffer section(String name) {
+            long[] s = sections.get(name);
+            if (s == null) return null;
+            if (s[1] > Integer.MAX_VALUE) throw new IllegalStateException("bölüm tampona sığmıyor: " + key + "/" + name);
+            java.nio.ByteBuffer b = java.nio.ByteBuffer.allocate((int) s[1]);
+            try (java.nio.channels.FileChannel ch = java.nio.channels.FileChannel.open(file, java.nio.file.StandardOpenOption.READ)) {
+                while (b.hasRemaining()) {
+                    if (ch.read(b, s[0] + b.position()) < 0) throw new IOException("kayıt dosyası kısaldı");
+                }
+            } catch (IOException ex) {
+                throw new java.io.UncheckedIOException(ex);
+            }
+            return b.flip().asReadOnlyBuffer();
+        }
+
+        public long version(String name) {
+            Long v = versions.get(name);
+            return v == null ? ALWAYS : v;
+        }
+
+        /** Bölümü okumak için; yoksa null. Büyük bölümler dosyadan akış olarak okunur. */
+        public java.io.DataInputStream open(String name) {
+            long[] s = sections.get(name);
+            if (s == null) return null;
+            if (s[1] <= Integer.MAX_VALUE) return new java.io.DataInputStream(new ByteBufferInput(section(name)));
+            try {
+                java.nio.channels.FileChannel ch = java.nio.channels.FileChannel.open(file, java.nio.file.StandardOpenOption.READ);
+                java.io.InputStream in = java.nio.channels.Channels.newInputStream(ch.position(s[0]));
+                return new java.io.DataInputStream(new java.io.BufferedInputStream(new BoundedInput(in, s[1]), 1 << 16));
+            } catch (IOException ex) {
+                throw new java.io.UncheckedIOException(ex);
+            }
+        }
+    }
+
+    // Kanaldan konumlu okur; başlıklar arasında bölümler seek ile atlanır.
+    private static final class ChannelInput extends java.io.InputStream {
+        private final java.nio.channels.FileChannel ch;
+        private final java.nio.ByteBuffer buf = java.nio.ByteBuffer.allocate(1 << 16).limit(0);
+        private long bufferAt;
+
+        ChannelInput(java.nio.channels.FileChannel ch) {
+            this.ch = ch;
+        }
+
+        long position() {
+            return bufferAt + buf.position();
+        }
+
+        void seek(long pos) {
+            if (pos >= bufferAt && pos <= bufferAt + buf.limit()) {
+                buf.position((int) (pos - bufferAt));
+            } else {
+                bufferAt = pos;
+                buf.limit(0);
+            }
+        }
+
+        private boolean fill() throws IOException {
+            if (buf.hasRemaining()) return true;
+            bufferAt += buf.position();
+            buf.clear();
+            int n = ch.read(buf, bufferAt);
+            buf.flip();
+            return n > 0;
+        }
+
+        public int read() throws IOException {
+            return fill() ? buf.get() & 0xFF : -1;
+        }
+
+        public int read(byte[] dst, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (!fill()) return -1;
+            int n = Math.min(len, buf.remaining());
+            buf.get(dst, off, n);
+            return n;
+        }
+    }
+
+    // Bölümün sonunda durur; kapanınca alttaki kanalı kapatır.
+    private static final class BoundedInput extends java.io.FilterInputStream {
+        private long remaining;
+
+        BoundedInput(java.io.InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = in.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        public int read(byte[] dst, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = in.read(dst, off, (int) Math.min(len, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+
+        public long skip(long n) throws IOException {
+            long k = in.skip(Math.min(n, remaining));
+            remaining -= k;
+            return k;
+        }
+
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+    }
+
+    // Okudukça tamponun konumunu ilerletir; başlıklar okunduktan sonra konum bölümün başıdır.
+    private static final class ByteBufferInput extends java.io.InputStream {
+        private final java.nio.ByteBuffer b;
+
+        ByteBufferInput(java.nio.ByteBuffer b) {
+            this.b = b;
+        }
+
+        public int read() {
+            return b.hasRemaining() ? b.get() & 0xFF : -1;
+        }
+
+        public int read(byte[] dst, int off, int len) {
+            if (len == 0) return 0;
+            if (!b.hasRemaining()) return -1;
+            int n = Math.min(len, b.remaining());
+            b.get(dst, off, n);
+            return n;
+        }
+
+        public int available() {
+            return b.remaining();
+        }
+    }
+}
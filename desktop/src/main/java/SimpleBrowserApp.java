@@ -0,0 +1,92 @@
+// SimpleBrowserApp.java
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Simple Browser: sayfayı akıştan okuyup düz metin ve bağlantılar olarak gösterir.
+ */
+final class SimpleBrowserApp {
+    static void open(AppContext ctx) {
+        MiniWindow browser = new MiniWindow("Simple Browser", 650, 450, ctx.desktop, ctx.windowManager, "simplebrowser");
+
+        JPanel top = new JPanel(new BorderLayout(5,5));
+        JTextField urlField = new JTextField("example.com");
+        JButton go = new JButton("Git");
+        top.add(urlField, BorderLayout.CENTER);
+        top.add(go, BorderLayout.EAST);
+
+        JTextArea display = new JTextArea();
+        display.setEditable(false);
+        display.setLineWrap(true);
+        display.setWrapStyleWord(true);
+        JScrollPane scroll = new JScrollPane(display);
+
+        go.addActionListener(e -> fetchAndRender(ctx, urlField.getText().trim(), display));
+        urlField.addActionListener(e -> fetchAndRender(ctx, urlField.getText().trim(), display));
+
+        fetchAndRender(ctx, urlField.getText().trim(), display);
+
+        JPanel container = new JPanel(new BorderLayout());
+        container.add(top, BorderLayout.NORTH);
+        container.add(scroll, BorderLayout.CENTER);
+
+        browser.setContent(new BorderLayout());
+        browser.addContent(container, BorderLayout.CENTER);
+        browser.showOn(ctx.desktop, ctx.windowManager.count());
+    }
+
+    private static final int LIMIT = 5000;
+
+    // Gövde akıştan okunurken ayrıştırılır; metin geldikçe gösterilir, sınır dolunca indirme kesilir.
+    private static void fetchAndRender(AppContext ctx, String rawUrl, JTextArea display) {
+        display.setText("Yükleniyor: " + rawUrl + "...\n");
+        // Önceki yükleme hâlâ sürüyorsa iptal edilir.
+        Object previous = display.getClientProperty("load");
+        if (previous != null) ((java.util.concurrent.atomic.AtomicBoolean) previous).set(false);
+        java.util.concurrent.atomic.AtomicBoolean active = new java.util.concurrent.atomic.AtomicBoolean(true);
+        display.putClientProperty("load", active);
+        String urlText = rawUrl.startsWith("http://") || rawUrl.startsWith("https://") ? rawUrl : "http://" + rawUrl;
+        Kernel.ProcessTable.Scope scope = ctx.process.scope();
+        // Akış okuması bloklar; zamanlayıcı havuzu beklerken yedek işçiyle devam eder.
+        ctx.process.executeBlocking(() -> {
+            // Akış kapsama bağlanır: pencere kapanırsa bağlantı kapanır ve okuma kesilir.
+            try (Kernel.HttpService.Stream res = scope.own(ctx.kernel.http().open(urlText));
+                 Kernel.Metrics.Span span = ctx.kernel.metrics.span("browser.parse", Kernel.Metrics.Kind.RENDER, urlText)) {
+                try {
+                    span.status(res.status);
+                    StringBuilder links = new StringBuilder();
+                    SwingUtilities.invokeLater(() -> {
+                        if (active.get()) {
+                            display.setText("HTTP " + res.status + (res.fromCache ? " (önbellek)" : "") + "\n\n");
+                        }
+                    });
+                    boolean truncated = new Kernel.HtmlTokenizer(res.reader(), new Kernel.HtmlTokenizer.Handler() {
+                        public boolean text(String chunk) {
+                            SwingUtilities.invokeLater(() -> {
+                                if (active.get()) display.append(chunk);
+                            });
+                            return active.get() && !scope.cancelled();
+                        }
+
+                        public void link(String href) {
+                            links.append(href).append("\n");
+                        }
+                    }).run(LIMIT);
+                    SwingUtilities.invokeLater(() -> {
+                        if (!active.get()) return;
+                        display.append(truncated ? "...(truncated)\n\n" : "\n\n");
+                        if (links.length() > 0) {
+                            display.append("Bulunan linkler:\n" + links);
+                        }
+                    });
+                } finally {
+                    scope.release(res);
+                }
+            } catch (Exception ex) {
+                SwingUtilities.invokeLater(() -> {
+                    if (active.get()) display.setText("Hata: " + Kernel.errorMessage(ex));
+                });
+            }
+        });
+    }
+}
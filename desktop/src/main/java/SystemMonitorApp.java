@@ -0,0 +1,69 @@
+// SystemMonitorApp.java
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Sistem İzleyici: gecikme yüzdelikleri, sayaçlar, EDT takılmaları ve süreçler, canlı.
+ */
+final class SystemMonitorApp {
+    static void open(AppContext ctx) {
+        MiniWindow win = new MiniWindow("Sistem İzleyici", 680, 440, ctx.desktop, ctx.windowManager, "sysmon");
+
+        JPanel top = new JPanel(new BorderLayout(5, 5));
+        JTextField filter = new JTextField();
+        top.add(new JLabel(" Önek:"), BorderLayout.WEST);
+        top.add(filter, BorderLayout.CENTER);
+
+        JTextArea view = new JTextArea();
+        view.setEditable(false);
+        view.setFont(new Font("Monospaced", Font.PLAIN, 11));
+        // Yenilemede kaydırma konumu korunur.
+        ((javax.swing.text.DefaultCaret) view.getCaret()).setUpdatePolicy(javax.swing.text.DefaultCaret.NEVER_UPDATE);
+
+        // Anlık görüntü EDT dışında hazırlanır; önceki hazırlanırken yeni tur başlatılmaz.
+        java.util.concurrent.atomic.AtomicBoolean busy = new java.util.concurrent.atomic.AtomicBoolean();
+        Timer timer = new Timer(500, e -> {
+            if (!busy.compareAndSet(false, true)) return;
+            String prefix = filter.getText().trim();
+            ctx.process.execute(() -> {
+                String text;
+                try {
+                    text = snapshot(ctx.kernel, ctx.windowManager, prefix);
+                } finally {
+                    busy.set(false);
+                }
+                SwingUtilities.invokeLater(() -> view.setText(text));
+            });
+        });
+        timer.setInitialDelay(0);
+        ctx.process.scope().onClose(timer::stop);
+        view.addHierarchyListener(e -> {
+            if (view.isShowing()) timer.start();
+            else timer.stop();
+        });
+
+        win.setContent(new BorderLayout());
+        win.addContent(top, BorderLayout.NORTH);
+        win.addContent(new JScrollPane(view), BorderLayout.CENTER);
+        win.showOn(ctx.desktop, ctx.windowManager.count());
+    }
+
+    private static String snapshot(Kernel kernel, WindowManager windows, String prefix) {
+        StringBuilder sb = new StringBuilder();
+        Runtime rt = Runtime.getRuntime();
+        double[] frames = windows.frameStats();
+        sb.append(String.format("yığın %d / %d MB   kare/sn %.0f   kare ort %.1f ms   en çok %.1f ms%n%n",
+                (rt.totalMemory() - rt.freeMemory()) >> 20, rt.maxMemory() >> 20, frames[0], frames[1], frames[2]));
+        sb.append(kernel.metrics.snapshot(prefix));
+        sb.append(String.format("%n%5s  %-11s  %-9s  %9s  %s%n", "PID", "ÖNCELİK", "DURUM", "CPU ms", "AD"));
+        for (Kernel.ProcessTable.Process p : kernel.processes.list()) {
+            sb.append(String.format("%5d  %-11s  %-9s  %9d  %s%n", p.pid, p.priority(), p.state(), p.cpuNanos() / 1_000_000, p.name));
+        }
+        java.util.List<Kernel.LeakDetector.Suspect> leaks = kernel.leaks.suspects();
+        if (!leaks.isEmpty()) {
+            sb.append(String.format("%nSızıntı şüphelileri:%n"));
+            for (Kernel.LeakDetector.Suspect l : leaks) sb.append("  ").append(l).append(String.format("%n"));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,379 @@
+// TerminalApp.java
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Terminal uygulaması. Komutlar çekirdek işleri olarak EDT dışında çalışır.
+ */
+final class TerminalApp {
+    static void open(AppContext ctx) {
+        MiniWindow term = new MiniWindow("Terminal", 450, 300, ctx.desktop, ctx.windowManager, "terminal");
+
+        TerminalView view = new TerminalView(Integer.getInteger("javaos.terminal.maxLines", 10000), 128);
+        view.setBackground(Color.BLACK);
+        view.setForeground(Color.GREEN);
+        view.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        JScrollPane scroll = new JScrollPane(view);
+        JTextField input = new JTextField();
+
+        Kernel.JobManager.Job[] foreground = new Kernel.JobManager.Job[1];
+        // Bu pencereden başlatılıp süren işler; pencere kapanınca sonlandırılır.
+        java.util.Set<Kernel.JobManager.Job> started = java.util.concurrent.ConcurrentHashMap.newKeySet();
+        ctx.process.scope().onClose(() -> {
+            for (Kernel.JobManager.Job j : started) j.cancel();
+        });
+
+        input.addActionListener(e -> {
+            String line = input.getText().trim();
+            input.setText("");
+            view.println("JavaOS> " + line);
+            if (line.isEmpty()) return;
+            if (foreground[0] != null) {
+                view.println("Önplanda iş çalışıyor: " + foreground[0].commandLine + " (Ctrl-C ile durdurun)");
+                return;
+            }
+            boolean background = line.endsWith("&");
+            String cmdLine = background ? line.substring(0, line.length() - 1).trim() : line;
+            if (cmdLine.isEmpty()) return;
+
+            // İş denetimi yerleşikleri
+            String[] parts = cmdLine.split("\\s+");
+            switch (parts[0]) {
+                case "clear":
+                    view.clear();
+                    return;
+                case "jobs":
+                    // Bitmiş işler bir kez gerçek durumlarıyla gösterilip tablodan çıkar.
+                    for (Kernel.JobManager.Job j : ctx.kernel.jobs.report()) {
+                        view.println("[" + j.id + "] " + j.state() + "  pid " + j.process.pid + "  " + j.commandLine);
+                    }
+                    return;
+                case "kill":
+                case "fg":
+                    Kernel.JobManager.Job target = null;
+                    if (parts.length > 1) {
+                        try {
+                            target = ctx.kernel.jobs.get(Integer.parseInt(parts[1].replace("%", "")));
+                        } catch (NumberFormatException ex) {
+                            target = null;
+                        }
+                    } else if (parts[0].equals("fg")) {
+                        java.util.List<Kernel.JobManager.Job> all = ctx.kernel.jobs.list();
+                        if (!all.isEmpty()) target = all.get(all.size() - 1);
+                    }
+                    if (target == null) {
+                        view.println(parts[0] + ": böyle bir iş yok");
+                    } else if (target.state() != Kernel.JobManager.State.RUNNING) {
+                        // Bitmiş iş önplana alınmaz (bitiş bildirimi çoktan geldi); durumu gösterilir.
+                        view.println("[" + target.id + "] " + target.state() + "  " + target.commandLine);
+                        ctx.kernel.jobs.reported(target);
+                    } else if (parts[0].equals("kill")) {
+                        target.cancel();
+                    } else {
+                        foreground[0] = target;
+                        view.println(target.commandLine);
+                    }
+                    return;
+            }
+
+            Kernel.JobManager.Job job = ctx.kernel.jobs.submit(cmdLine, () -> {
+                ctx.kernel.shell.execute(cmdLine, view);
+                return null;
+            }, j -> {
+                started.remove(j);
+                SwingUtilities.invokeLater(() -> {
+                    if (j.state() == Kernel.JobManager.State.FAILED) {
+                        view.println("Komut hatası: " + j.failure().getMessage());
+                    }
+                    if (foreground[0] == j) {
+                        foreground[0] = null;
+                    } else if (j.state() == Kernel.JobManager.State.KILLED) {
+                        view.println("[" + j.id + "] Sonlandırıldı  " + j.commandLine);
+                    } else {
+                        view.println("[" + j.id + "] Bitti  " + j.commandLine);
+                    }
+                });
+            });
+            started.add(job);
+            if (job.state() != Kernel.JobManager.State.RUNNING) started.remove(job);
+            if (background) {
+                view.println("[" + job.id + "] arka planda");
+            } else {
+                foreground[0] = job;
+            }
+        });
+
+        // Tab: komut adını tamamla; birden çok aday varsa ortak öneke kadar ilerle ve adayları listele.
+        input.setFocusTraversalKeysEnabled(false);
+        input.getInputMap().put(KeyStroke.getKeyStroke("TAB"), "complete");
+        input.getActionMap().put("complete", new AbstractAction() {
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                String text = input.getText().substring(0, input.getCaretPosition());
+                int start = Math.max(text.lastIndexOf('|'), text.lastIndexOf('&')) + 1;
+                String stage = text.substring(start);
+                String word = stage.stripLeading();
+                if (word.isEmpty() || word.chars().anyMatch(Character::isWhitespace)) return;
+                java.util.List<String> matches = ctx.kernel.commandRegistry.complete(word, 50);
+                if (matches.isEmpty()) return;
+                String common = matches.get(0);
+                for (String m : matches) {
+                    int i = 0;
+                    while (i < common.length() && i < m.length() && common.charAt(i) == m.charAt(i)) i++;
+                    common = common.substring(0, i);
+                }
+                String insert = common.substring(Math.min(word.length(), common.length())) + (matches.size() == 1 ? " " : "");
+                input.replaceSelection(insert);
+                if (matches.size() > 1 && insert.isEmpty()) view.println(String.join("  ", matches));
+            }
+        });
+
+        // Ctrl-C: önplandaki işi iptal et; iş yoksa normal kopyala.
+        input.getInputMap().put(KeyStroke.getKeyStroke("ctrl C"), "interrupt");
+        input.getActionMap().put("interrupt", new AbstractAction() {
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                if (foreground[0] != null) {
+                    foreground[0].cancel();
+                    view.println("^C");
+                } else {
+                    input.copy();
+                }
+            }
+        });
+
+        // Ekrandaki satırlar oturumla birlikte kaydedilir; geri yüklemede önce onlar basılır.
+        term.setPersistence(new SessionStore.Persistent() {
+            public void save(SessionStore.Sections out) {
+                out.section("lines", view.modifications(), () -> {
+                    String[] lines = view.lines();
+                    return o -> {
+                        o.writeInt(lines.length);
+                        for (String l : lines) {
+                            byte[] b = l.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+                            o.writeInt(b.length);
+                            o.write(b);
+                        }
+                    };
+                });
+            }
+
+            public void restore(SessionStore.SavedWindow saved) {
+                java.io.DataInputStream in = saved.open("lines");
+                if (in == null) return;
+                ctx.process.execute(() -> {
+                    try {
+                        int n = in.readInt();
+                        String[] lines = new String[n];
+                        for (int i = 0; i < n; i++) {
+                            byte[] b = new byte[in.readInt()];
+                            in.readFully(b);
+                            lines[i] = new String(b, java.nio.charset.StandardCharsets.UTF_8);
+                        }
+                        view.prepend(lines);
+                    } catch (java.io.IOException ex) {
+                        view.println("Önceki oturumun satırları okunamadı: " + Kernel.errorMessage(ex));
+                    }
+                });
+            }
+        });
+
+        term.setContent(new BorderLayout());
+        term.addContent(scroll, BorderLayout.CENTER);
+        term.addContent(input, BorderLayout.SOUTH);
+        term.showOn(ctx.desktop, ctx.windowManager.count());
+    }
+
+    /**
+     * Terminal görünümü: satırlar sabit kapasiteli halka tamponlarda (char[] + ofset dizileri)
+     * tutulur, sadece görünür satırlar çizilir. Eklemeler herhangi bir iş parçacığından
+     * yapılabilir ve tek bir yeniden çizime toplanır.
+     */
+    private static class TerminalView extends JComponent implements Scrollable, Kernel.LineWriter {
+        private final int maxLines;
+        private final char[] chars;
+        private final long[] lineStart;
+        private final int[] lineLength;
+        private long firstLine, nextLine;   // mutlak satır numaraları
+        private long charHead;              // şimdiye kadar yazılan karakter sayısı
+        private int widest;
+        private int evicted;
+        private long modifications;
+        private boolean scheduled;
+
+        /**
+         * @param maxLines  tutulacak en fazla satır
+         * @param avgColumns satır başına ayrılan ortalama karakter (toplam karakter bütçesi için)
+         */
+        TerminalView(int maxLines, int avgColumns) {
+            this.maxLines = maxLines;
+            this.chars = new char[maxLines * avgColumns];
+            this.lineStart = new long[maxLines];
+            this.lineLength = new int[maxLines];
+            setOpaque(true);
+        }
+
+        public synchronized void println(String text) {
+            int from = 0;
+            while (true) {
+                int nl = text.indexOf('\n', from);
+                appendLine(text, from, nl < 0 ? text.length() : nl);
+                if (nl < 0) break;
+                from = nl + 1;
+            }
+            repaintLater();
+        }
+
+        synchronized void clear() {
+            firstLine = nextLine;
+            widest = 0;
+            evicted = 0;
+            modifications++;
+            repaintLater();
+        }
+
+        /** Her eklemede ve temizlemede artar (oturum kaydı sürümü). */
+        synchronized long modifications() {
+            return modifications;
+        }
+
+        /** Tutulan satırların kopyası. */
+        synchronized String[] lines() {
+            String[] out = new String[(int) (nextLine - firstLine)];
+            for (long line = firstLine; line < nextLine; line++) {
+                int s = slot(line);
+                int pos = (int) (lineStart[s] % chars.length);
+                int len = lineLength[s];
+                int first = Math.min(len, chars.length - pos);
+                StringBuilder sb = new StringBuilder(len);
+                sb.append(chars, pos, first).append(chars, 0, len - first);
+                out[(int) (line - firstLine)] = sb.toString();
+            }
+            return out;
+        }
+
+        /**
+         * Satırları mevcut olanların önüne ekler (geri yüklenen geçmiş, o arada yazılanların
+         * üstünde kalsın diye). Kapasite aşılırsa en eskiler düşer.
+         */
+        synchronized void prepend(String[] restored) {
+            String[] current = lines();
+            firstLine = nextLine;
+            widest = 0;
+            for (String l : restored) appendLine(l, 0, l.length());
+            for (String l : current) appendLine(l, 0, l.length());
+            repaintLater();
+        }
+
+        private void repaintLater() {
+            if (!scheduled) {
+                scheduled = true;
+                SwingUtilities.invokeLater(this::flush);
+            }
+        }
+
+        private void appendLine(String text, int from, int to) {
+            int len = Math.min(to - from, chars.length);
+            while (nextLine - firstLine >= maxLines
+                    || (nextLine > firstLine && charHead + len - lineStart[slot(firstLine)] > chars.length)) {
+                firstLine++;
+                evicted++;
+            }
+            int pos = (int) (charHead % chars.length);
+            int first = Math.min(len, chars.length - pos);
+            text.getChars(from, from + first, chars, pos);
+            if (first < len) text.getChars(from + first, from + len, chars, 0);
+            int s = slot(nextLine);
+            lineStart[s] = charHead;
+            lineLength[s] = len;
+            charHead += len;
+            nextLine++;
+            modifications++;
+            if (len > widest) widest = len;
+        }
+
+        private int slot(long line) {
+            return (int) (line % maxLines);
+        }
+
+        private void flush() {
+            int dropped;
+            synchronized (this) {
+                scheduled = false;
+                dropped = evicted;
+                evicted = 0;
+            }
+            Dimension size = getPreferredSize();
+            if (!(getParent() instanceof JViewport)) {
+                repaint();
+                return;
+            }
+            JViewport vp = (JViewport) getParent();
+            Point pos = vp.getViewPosition();
+            boolean follow = pos.y + vp.getHeight() >= getHeight() - rowHeight();
+            setSize(Math.max(size.width, vp.getWidth()), Math.max(size.height, vp.getHeight()));
+            revalidate();
+            if (follow) {
+                pos.y = Math.max(0, getHeight() - vp.getHeight());
+            } else {
+                // Kullanıcı yukarıdaysa aynı satırlar görünür kalsın.
+                pos.y = Math.max(0, pos.y - dropped * rowHeight());
+            }
+            vp.setViewPosition(pos);
+            repaint(vp.getViewRect());
+        }
+
+        private int rowHeight() {
+            return getFontMetrics(getFont()).getHeight();
+        }
+
+        public synchronized Dimension getPreferredSize() {
+            FontMetrics fm = getFontMetrics(getFont());
+            return new Dimension(widest * fm.charWidth('m') + 8, (int) (nextLine - firstLine) * fm.getHeight());
+        }
+
+        protected void paintComponent(Graphics g) {
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+            g.setColor(getBackground());
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+            g.setColor(getForeground());
+            g.setFont(getFont());
+            FontMetrics fm = g.getFontMetrics();
+            int h = fm.getHeight();
+            synchronized (this) {
+                long from = firstLine + clip.y / h;
+                long to = Math.min(nextLine, firstLine + (clip.y + clip.height) / h + 1);
+                char[] row = new char[Math.min(widest, chars.length)];
+                for (long line = from; line < to; line++) {
+                    int s = slot(line);
+                    int len = lineLength[s];
+                    int pos = (int) (lineStart[s] % chars.length);
+                    int first = Math.min(len, chars.length - pos);
+                    System.arraycopy(chars, pos, row, 0, first);
+                    System.arraycopy(chars, 0, row, first, len - first);
+                    g.drawChars(row, 0, len, 4, (int) (line - firstLine) * h + fm.getAscent());
+                }
+            }
+        }
+
+        public Dimension getPreferredScrollableViewportSize() {
+            FontMetrics fm = getFontMetrics(getFont());
+            return new Dimension(80 * fm.charWidth('m'), 24 * fm.getHeight());
+        }
+
+        public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction) {
+            return orientation == SwingConstants.VERTICAL ? rowHeight() : getFontMetrics(getFont()).charWidth('m');
+        }
+
+        public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction) {
+            return orientation == SwingConstants.VERTICAL ? visible.height - rowHeight() : visible.width;
+        }
+
+        public boolean getScrollableTracksViewportWidth() {
+            return getParent() instanceof JViewport && getParent().getWidth() > getPreferredSize().width;
+        }
+
+        public boolean getScrollableTracksViewportHeight() {
+            return getParent() instanceof JViewport && getParent().getHeight() > getPreferredSize().height;
+        }
+    }
+}
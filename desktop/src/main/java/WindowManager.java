@@ -0,0 +1,234 @@
+// WindowManager.java
+import javax.swing.*;
+import javax.swing.border.LineBorder;
+import java.awt.*;
+import java.awt.event.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pencere yöneticisi: MiniWindow'ları kaydeder. Birleştirici (compositor) açıkken her
+ * pencere kendi arka tamponundan çizilir; tampon yalnızca içerik değişince (hasar
+ * bölgesi kadar) yeniden üretilir, taşıma ve öne alma ucuz kopyalamaya dönüşür.
+ */
+public class WindowManager {
+    private final Map<String, MiniWindow> openWindows = new HashMap<>();
+    private final boolean compositing = !"off".equals(System.getProperty("javaos.compositor"));
+    private final long[] frameNanos = new long[256];
+    private final long[] frameEnds = new long[256];
+    private int frameCount;
+    private FrameOverlay overlay;
+    private final java.util.List<Listener> listeners = new java.util.concurrent.CopyOnWriteArrayList<>();
+    final Kernel.Metrics metrics;
+    private final Kernel.LeakDetector leaks;
+
+    public WindowManager(Kernel.Metrics metrics) {
+        this(metrics, null);
+    }
+
+    /**
+     * @param leaks kapanan pencerelerin geri alınıp alınmadığını izler (yoksa null)
+     */
+    public WindowManager(Kernel.Metrics metrics, Kernel.LeakDetector leaks) {
+        this.metrics = metrics;
+        this.leaks = leaks;
+    }
+
+    /** Pencere olayları; EDT üzerinde çağrılır. */
+    public interface Listener {
+        default void windowFront(String key) {
+        }
+
+        default void windowClosed(String key) {
+        }
+    }
+
+    public void addListener(Listener l) {
+        listeners.add(l);
+    }
+
+    public void add(String key, MiniWindow w) {
+        openWindows.put(key.toLowerCase(), w);
+        fireFront(key);
+    }
+
+    public MiniWindow get(String key) {
+        return openWindows.get(key.toLowerCase());
+    }
+
+    public boolean contains(String key) {
+        return openWindows.containsKey(key.toLowerCase());
+    }
+
+    public void remove(String key) {
+        MiniWindow w = openWindows.remove(key.toLowerCase());
+        if (w == null) return;
+        for (Listener l : listeners) l.windowClosed(key);
+        if (leaks != null) leaks.watch("pencere " + key, w);
+    }
+
+    void fireFront(String key) {
+        for (Listener l : listeners) l.windowFront(key);
+    }
+
+    public java.util.Collection<MiniWindow> all() {
+        return openWindows.values();
+    }
+
+    public int count() {
+        return openWindows.size();
+    }
+
+    /**
+     * Oturumu kaydeder (EDT): çerçeveler ve değişen bölümler burada yakalanır, kodlanıp
+     * yazılması arka planda yapılır.
+     * @param force false ise hiçbir şey değişmediğinde ya da önceki kayıt sürerken yazmaz
+     * @return yazma işi ya da null
+     */
+    public java.util.concurrent.Future<?> saveSession(SessionStore store, boolean force) {
+        java.util.List<MiniWindow> windows = new java.util.ArrayList<>(openWindows.values());
+        // Arkadan öne: Z sırası büyük olan arkadadır.
+        windows.sort((a, b) -> Integer.compare(zOrder(b), zOrder(a)));
+        SessionStore.Snapshot snapshot = store.begin();
+        for (MiniWindow w : windows) {
+            SessionStore.Sections sections = snapshot.window(w.key, w.serial, w.getBounds());
+            if (w.persistence != null) w.persistence.save(sections);
+        }
+        return store.write(snapshot, force);
+    }
+
+    private static int zOrder(MiniWindow w) {
+        Container p = w.getParent();
+        return p == null ? Integer.MAX_VALUE : p.getComponentZOrder(w);
+    }
+
+    /** Belirli aralıklarla (yalnızca değişiklik varsa) kaydeder. */
+    public Timer startAutosave(SessionStore store, int seconds) {
+        Timer timer = new Timer(seconds * 1000, e -> saveSession(store, false));
+        timer.start();
+        return timer;
+    }
+
+    /**
+     * Kayıttaki pencereleri arkadan öne yeniden açar (EDT). opener anahtara göre uygulamayı
+     * başlatıp penceresini döndürür (açılamazsa null). Çerçeveler hemen yerine konur;
+     * içerikleri pencerelerin Persistent'ı arka planda doldurur.
+     */
+    public void restoreSession(SessionStore.Saved saved, java.util.function.Function<String, MiniWindow> opener) {
+        MiniWindow front = null;
+        for (SessionStore.SavedWindow sw : saved.windows) {
+            MiniWindow w = get(sw.key);
+            if (w == null) w = opener.apply(sw.key);
+            if (w == null) continue;
+            w.setBounds(sw.bounds);
+            Container p = w.getParent();
+            if (p != null) p.setComponentZOrder(w, 0);
+            if (w.persistence != null) w.persistence.restore(sw);
+            front = w;
+        }
+        if (front != null) fireFront(front.key);
+    }
+
+    public boolean isCompositing() {
+        return compositing;
+    }
+
+    /** Masaüstüne bağlanır: hasar izleyen RepaintManager'ı ve kare süresi göstergesini kurar. */
+    public void install(JFrame desktop) {
+        RepaintManager.setCurrentManager(new CompositingRepaintManager());
+        overlay = new FrameOverlay();
+        overlay.setVisible(false);
+        desktop.getLayeredPane().add(overlay, JLayeredPane.DRAG_LAYER);
+        desktop.getLayeredPane().addComponentListener(new ComponentAdapter() {
+            public void componentResized(ComponentEvent e) {
+                overlay.place();
+            }
+        });
+    }
+
+    public void setOverlayVisible(boolean visible) {
+        if (overlay == null) return;
+        overlay.place();
+        overlay.setVisible(visible);
+    }
+
+    /** Son bir saniyedeki kareler: {kare sayısı, ortalama ms, en uzun ms}. */
+    public synchronized double[] frameStats() {
+        long now = System.nanoTime();
+        int n = 0;
+        long total = 0, max = 0;
+        for (int i = 0; i < Math.min(frameCount, frameNanos.length); i++) {
+            int slot = (frameCount - 1 - i) % frameNanos.length;
+            if (now - frameEnds[slot] > 1_000_000_000L) break;
+            n++;
+            total += frameNanos[slot];
+            max = Math.max(max, frameNanos[slot]);
+        }
+        return new double[] { n, n == 0 ? 0 : total / 1e6 / n, max / 1e6 };
+    }
+
+    private synchronized void recordFrame(long nanos) {
+        int slot = frameCount++ % frameNanos.length;
+        frameNanos[slot] = nanos;
+        frameEnds[slot] = System.nanoTime();
+    }
+
+    /**
+     * Her kirli bölge isteğini, bileşenin içinde bulunduğu pencerenin tamponuna hasar
+     * olarak yansıtır; pencerenin kendisinin (taşıma/öne alma) isteklerini saymaz.
+     * Ayrıca her boyama turunun süresini ölçer.
+     */
+    private class CompositingRepaintManager extends RepaintManager {
+        public void addDirtyRegion(JComponent c, int x, int y, int w, int h) {
+            super.addDirtyRegion(c, x, y, w, h);
+            if (!compositing) return;
+            Component comp = c;
+            while (comp != null && !(comp instanceof MiniWindow)) {
+                x += comp.getX();
+                y += comp.getY();
+                comp = comp.getParent();
+            }
+            if (comp != null && comp != c) ((MiniWindow) comp).damage(x, y, w, h);
+        }
+
+        public void paintDirtyRegions() {
+            long start = System.nanoTime();
+            Kernel.Metrics.Span span = metrics.span("wm.frame", Kernel.Metrics.Kind.COMPOSITE, null);
+            try {
+                super.paintDirtyRegions();
+            } finally {
+                span.close();
+            }
+            recordFrame(System.nanoTime() - start);
+        }
+    }
+
+    /** Sağ üst köşede kare süresi göstergesi. */
+    private class FrameOverlay extends JComponent {
+        private final Timer timer = new Timer(250, e -> repaint());
+        private String text = "";
+
+        FrameOverlay() {
+            setSize(230, 20);
+            addHierarchyListener(e -> {
+                if (isShowing()) timer.start();
+                else timer.stop();
+            });
+        }
+
+        void place() {
+            Container p = getParent();
+            if (p != null) setLocation(p.getWidth() - getWidth() - 8, 30);
+        }
+
+        protected void paintComponent(Graphics g) {
+            double[] st = frameStats();
+            text = String.format("%.0f kare/sn  ort %.1f ms  en çok %.1f ms", st[0], st[1], st[2]);
+            g.setColor(new Color(0, 0, 0, 170));
+            g.fillRect(0, 0, getWidth(), getHeight());
+            g.setColor(st[2] > 16.7 ? Color.ORANGE : Color.GREEN);
+            g.setFont(new Font("Monospaced", Font.PLAIN, 11));
+            g.drawString(text, 6, 14);
+        }
+    }
+}
@@ -0,0 +1,7214 @@
+// Kernel.java
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kernel: ekransız çekirdek servisleri (komut kaydı, kabuk, süreçler, VFS, HTTP, ölçümler).
+ * Swing'e bağımlı değildir; pencere yöneticisi ve oturum kaydı masaüstü modülündedir.
+ */
+public class Kernel {
+    public final Metrics metrics = new Metrics();
+    public final CommandRegistry commandRegistry = new CommandRegistry();
+    public final LeakDetector leaks = new LeakDetector(metrics);
+    public final ProcessTable processes = new ProcessTable(leaks);
+    public final JobManager jobs = new JobManager(processes);
+    public final Shell shell = new Shell(commandRegistry, jobs.executor(), this::vfs, metrics);
+    public final ExpressionEngine expressions = new ExpressionEngine();
+    // Ağır servisler (VFS imajının eşlenmesi ve kilidi, arama havuzu, HTTP, terminal sunucusu)
+    // ilk kullanımda kurulur: "Kernel -c 'echo hi'" bunların hiçbirini açmaz.
+    private VirtualFileSystem vfs;
+    private TextSearch search;
+    private DataTools data;
+    private HttpService http;
+    private TerminalServer terminals;
+
+    public Kernel() {
+        registerDefaultCommands();
+    }
+
+    /** VFS ilk çağrıda açılır; kapanışta kapatılır. */
+    public synchronized VirtualFileSystem vfs() {
+        if (vfs == null) {
+            VirtualFileSystem v = VirtualFileSystem.openDefault();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    v.close();
+                } catch (IOException ignored) {
+                }
+            }, "vfs-close"));
+            vfs = v;
+        }
+        return vfs;
+    }
+
+    public synchronized TextSearch search() {
+        if (search == null) search = new TextSearch(this::vfs, processes);
+        return search;
+    }
+
+    public synchronized DataTools data() {
+        if (data == null) data = new DataTools(this::vfs, search().pool(), metrics);
+        return data;
+    }
+
+    public synchronized HttpService http() {
+        if (http == null) {
+            http = new HttpService(Paths.get(System.getProperty("user.home"), ".javaos", "http-cache"),
+                    Long.getLong("javaos.http.memoryBytes", 16L << 20), jobs.executor(), metrics);
+        }
+        return http;
+    }
+
+    public synchronized TerminalServer terminals() {
+        if (terminals == null) terminals = new TerminalServer(shell, processes, metrics);
+        return terminals;
+    }
+
+    /**
+     * Masaüstü olmadan çekirdek: komutları bir betikten, -c ile verilen metinden ya da
+     * standart girişten okuyup çalıştırır (bkz. {@link ScriptRunner}).
+     * <pre>
+     *   java -cp javaos.jar Kernel [-e] betik.jsh [argüman...]
+     *   java -cp javaos.jar Kernel [-e] -c "komut; komut"      (standart giriş komutlara verilir)
+     *   komutlar | java -cp javaos.jar Kernel [-e]
+     *   java -cp javaos.jar Kernel -l port        yalnızca terminal sunucusu (bkz. TerminalServer)
+     * </pre>
+     * -e ilk başarısız komutta durur. Çıktı tamponlanır; yalnızca etkileşimli kullanımda her
+     * satırda boşaltılır. Süreç çıkış kodu betiğinkidir.
+     */
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        boolean failFast = false;
+        String inline = null;
+        int i = 0;
+        for (; i < args.length && args[i].startsWith("-") && args[i].length() > 1; i++) {
+            if (args[i].equals("-e")) {
+                failFast = true;
+            } else if (args[i].equals("-c") && i + 1 < args.length) {
+                inline = args[++i];
+            } else if (args[i].equals("-l") && i + 1 < args.length) {
+                Kernel kernel = new Kernel();
+                System.out.println("Dinleniyor: " + kernel.terminals().start(new java.net.InetSocketAddress(
+                        java.net.InetAddress.getLoopbackAddress(), Integer.parseInt(args[i + 1]))));
+                kernel.terminals().join();
+                return;
+            } else {
+                System.err.println("Kullanım: Kernel [-e] [-c komutlar | betik [argüman...]] | Kernel -l port");
+                System.exit(2);
+            }
+        }
+
+        java.io.BufferedReader in;
+        String source;
+        String[] scriptArgs;
+        if (inline != null) {
+            in = new java.io.BufferedReader(new java.io.StringReader(Shell.splitStatements(inline)));
+            source = "-c";
+            scriptArgs = java.util.Arrays.copyOfRange(args, i, args.length);
+        } else if (i < args.length && !args[i].equals("-")) {
+            try {
+                in = Files.newBufferedReader(Paths.get(args[i]), StandardCharsets.UTF_8);
+            } catch (IOException ex) {
+                System.err.println(args[i] + ": " + errorMessage(ex));
+                System.exit(2);
+                return;
+            }
+            source = args[i];
+            scriptArgs = java.util.Arrays.copyOfRange(args, i + 1, args.length);
+        } else {
+            in = new java.io.BufferedReader(new java.io.InputStreamReader(System.in, StandardCharsets.UTF_8));
+            source = "-";
+            scriptArgs = java.util.Arrays.copyOfRange(args, Math.min(i + 1, args.length), args.length);
+        }
+
+        // System.out satır başına boşaltır; binlerce satırlık çıktıda bunun yerine 64 KB tampon.
+        boolean interactive = source.equals("-") && System.console() != null;
+        java.io.Writer stdout = new java.io.BufferedWriter(new java.io.OutputStreamWriter(
+                new java.io.FileOutputStream(java.io.FileDescriptor.out), StandardCharsets.UTF_8), 1 << 16);
+        LineWriter out = line -> {
+            stdout.write(line);
+            stdout.write('\n');
+            if (interactive) stdout.flush();
+        };
+        java.util.function.Consumer<String> err = message -> {
+            try {
+                stdout.flush();
+            } catch (IOException ignored) {
+            }
+            System.err.println(message);
+        };
+
+        Kernel kernel = new Kernel();
+        ScriptRunner runner = new ScriptRunner(kernel.shell, kernel.expressions, out, err);
+        runner.setArgs(source, scriptArgs);
+        runner.setFailFast(failFast);
+        if (!source.equals("-")) {
+            // Betik -c'den ya da dosyadan geliyorsa standart giriş komutlara kalır: veri | Kernel -c "sort -n"
+            java.io.BufferedReader stdin = new java.io.BufferedReader(new java.io.InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16);
+            runner.setInput(stdin::readLine);
+        }
+        int status;
+        try (java.io.BufferedReader r = in) {
+            status = runner.run(r);
+        }
+        stdout.flush();
+        System.exit(status);
+    }
+
+    private void registerDefaultCommands() {
+        commandRegistry.register("help", (args, in, out) -> {
+            java.util.List<String> names = new java.util.ArrayList<>(commandRegistry.list());
+            java.util.Collections.sort(names);
+            out.println("Kullanılabilir komutlar: " + String.join(", ", names));
+        });
+
+        commandRegistry.register("echo", (args, in, out) -> {
+            out.println(String.join(" ", args));
+        });
+
+        commandRegistry.register("time", (args, in, out) -> {
+            out.println("Şu an: " + ZonedDateTime.now());
+        });
+
+        // Argüman yoksa sayıları girişten (boru) okur. Tam sayıların toplamı taşmaz.
+        commandRegistry.register("sum", (args, in, out) -> {
+            DataTools.Summary s = args.length > 0 ? DataTools.summarize(args) : data().summarize(in);
+            if (s.invalid > 0) {
+                out.println("Geçersiz sayı: " + s.firstInvalid);
+                return;
+            }
+            out.println("Toplam: " + s.total());
+        });
+
+        // VFS dosya(lar)ını ya da girişi satır satır aktarır.
+        commandRegistry.register("cat", (args, in, out) -> {
+            if (args.length == 0) {
+                copy(in, out);
+                return;
+            }
+            try (FileLineReader r = new FileLineReader(vfs(), args)) {
+                copy(r, out);
+            }
+        });
+
+        // ls [yol...]  — dizin içeriği: tür, boyut, ad.
+        commandRegistry.register("ls", (args, in, out) -> {
+            for (String path : args.length == 0 ? new String[] {"/"} : args) {
+                if (args.length > 1) out.println(path + ":");
+                for (VirtualFileSystem.Entry e : vfs().list(path)) {
+                    out.println(String.format("%s %10d  %s%s", e.directory ? "d" : "-", e.size, e.name, e.directory ? "/" : ""));
+                }
+            }
+        });
+
+        commandRegistry.register("mkdir", (args, in, out) -> {
+            if (args.length == 0) throw new IllegalArgumentException("Kullanım: mkdir yol...");
+            for (String path : args) vfs().mkdir(path);
+        });
+
+        // write yol [metin...]  — metin yoksa giriş satırlarını dosyaya yazar.
+        commandRegistry.register("write", (args, in, out) -> {
+            if (args.length == 0) throw new IllegalArgumentException("Kullanım: write yol [metin...]");
+            try (VirtualFileSystem.FileLineWriter w = vfs().writer(args[0])) {
+                if (args.length > 1) w.println(String.join(" ", java.util.Arrays.copyOfRange(args, 1, args.length)));
+                else copy(in, w);
+            }
+        });
+
+        commandRegistry.register("rm", (args, in, out) -> {
+            if (args.length == 0) throw new IllegalArgumentException("Kullanım: rm yol...");
+            for (String path : args) vfs().delete(path);
+        });
+
+        commandRegistry.register("cp", (args, in, out) -> {
+            if (args.length != 2) throw new IllegalArgumentException("Kullanım: cp kaynak hedef");
+            vfs().copy(args[0], args[1]);
+        });
+
+        // grep [-i] [-v] [-E] [-n] [-c] [-r] desen [yol...]  — yol yoksa girişi süzer.
+        commandRegistry.register("grep", (args, in, out) -> {
+            boolean ignoreCase = false, invert = false, regex = false, numbers = false, countOnly = false, recursive = false, quiet = false;
+            int i = 0;
+            for (; i < args.length && args[i].startsWith("-") && args[i].length() > 1; i++) {
+                for (char c : args[i].substring(1).toCharArray()) {
+                    switch (c) {
+                        case 'i': ignoreCase = true; break;
+                        case 'v': invert = true; break;
+                        case 'E': regex = true; break;
+                        case 'n': numbers = true; break;
+                        case 'c': countOnly = true; break;
+                        case 'r': recursive = true; break;
+                        case 'q': quiet = true; break;
+                        default: throw new IllegalArgumentException("Bilinmeyen seçenek: -" + c);
+                    }
+                }
+            }
+            if (i >= args.length) throw new IllegalArgumentException("Kullanım: grep [-i] [-v] [-E] [-n] [-c] [-r] [-q] desen [yol...]");
+            TextSearch.Query query = TextSearch.Query.compile(args[i], ignoreCase, regex);
+
+            if (i + 1 == args.length) {
+                long number = 0, count = 0;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    number++;
+                    if (query.matches(line) == invert) continue;
+                    count++;
+                    if (quiet) break;
+                    if (!countOnly) out.println(numbers ? number + ":" + line : line);
+                }
+                if (countOnly && !quiet) out.println(String.valueOf(count));
+                if (count == 0) throw new ExitStatus(1);
+                return;
+            }
+
+            java.util.List<String> files = new java.util.ArrayList<>();
+            for (int k = i + 1; k < args.length; k++) {
+                VirtualFileSystem.Entry e = vfs().stat(args[k]);
+                if (e != null && e.directory) {
+                    if (!recursive) throw new IOException("Bir dizin: " + args[k] + " (-r ile arayın)");
+                    files.addAll(walk(args[k], true, false));
+                } else {
+                    files.add(args[k]);
+                }
+            }
+            boolean prefix = files.size() > 1 || recursive;
+            java.util.List<TextSearch.Line> hits = search().grep(files, query, invert, numbers);
+            if (quiet) {
+                if (hits.isEmpty()) throw new ExitStatus(1);
+                return;
+            }
+            if (countOnly) {
+                Map<String, Integer> counts = new java.util.LinkedHashMap<>();
+                for (String f : files) counts.put(f, 0);
+                for (TextSearch.Line l : hits) counts.merge(l.path, 1, Integer::sum);
+                for (Map.Entry<String, Integer> c : counts.entrySet()) {
+                    out.println(prefix ? c.getKey() + ":" + c.getValue() : String.valueOf(c.getValue()));
+                }
+            } else {
+                for (TextSearch.Line l : hits) {
+                    out.println((prefix ? l.path + ":" : "") + (numbers ? l.number + ":" : "") + l.text);
+                }
+            }
+            // Unix'teki gibi: eşleşme yoksa çıkış kodu 1.
+            if (hits.isEmpty()) throw new ExitStatus(1);
+        });
+
+        // find [yol] [-name desen] [-type f|d]  — desende * ve ? kullanılabilir.
+        commandRegistry.register("find", (args, in, out) -> {
+            String root = "/", type = null;
+            java.util.regex.Pattern name = null;
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-name") && i + 1 < args.length) name = glob(args[++i]);
+                else if (args[i].equals("-type") && i + 1 < args.length) type = args[++i];
+                else if (!args[i].startsWith("-")) root = args[i];
+                else throw new IllegalArgumentException("Kullanım: find [yol] [-name desen] [-type f|d]");
+            }
+            for (String path : walk(root, !"d".equals(type), !"f".equals(type))) {
+                if (name == null || name.matcher(path.substring(path.lastIndexOf('/') + 1)).matches()) out.println(path);
+            }
+        });
+
+        // sort [-n] [-r] [-u] [-k alan] [-t ayraç] [-S bellek] [dosya...]  — bellek aşılırsa diske dökerek sıralar.
+        commandRegistry.register("sort", (args, in, out) -> {
+            DataTools.Options o = data().options(args, "nruktS", "Kullanım: sort [-n] [-r] [-u] [-k alan] [-t ayraç] [-S bellek] [dosya...]");
+            data().sort(o, in, out);
+        });
+
+        // uniq [-c] [-d] [-u] [dosya...]  — art arda tekrarlanan satırları birleştirir (genelde sort'tan sonra).
+        commandRegistry.register("uniq", (args, in, out) -> {
+            DataTools.Options o = data().options(args, "cdu", "Kullanım: uniq [-c] [-d] [-u] [dosya...]");
+            try (FileLineReader files = o.operands.length > 0 ? new FileLineReader(vfs(), o.operands) : null) {
+                LineReader src = files != null ? files : in;
+                String prev = src.readLine();
+                long n = 1;
+                while (prev != null) {
+                    String line = src.readLine();
+                    if (line != null && line.equals(prev)) {
+                        n++;
+                        continue;
+                    }
+                    if (!(o.repeated && n == 1) && !(o.unique && n > 1)) out.println(o.count ? String.format("%7d %s", n, prev) : prev);
+                    prev = line;
+                    n = 1;
+                }
+            }
+        });
+
+        // stats [-k alan] [-t ayraç] [-p 50,90,99|none] [-S bellek] [dosya...]
+        commandRegistry.register("stats", (args, in, out) -> {
+            DataTools.Options o = data().options(args, "ktpS", "Kullanım: stats [-k alan] [-t ayraç] [-p 50,90,99|none] [-S bellek] [dosya...]");
+            DataTools.Summary s = data().stats(o, in);
+            out.println(String.format("%-10s %d", "sayı", s.count));
+            if (s.invalid > 0) out.println(String.format("%-10s %d  (ilk: %s)", "geçersiz", s.invalid, s.firstInvalid));
+            if (s.count == 0) return;
+            out.println(String.format("%-10s %s", "toplam", s.total()));
+            out.println(String.format("%-10s %s", "en küçük", ExpressionEngine.format(s.min)));
+            out.println(String.format("%-10s %s", "en büyük", ExpressionEngine.format(s.max)));
+            out.println(String.format("%-10s %s", "ortalama", ExpressionEngine.format(s.mean())));
+            out.println(String.format("%-10s %s", "std sapma", ExpressionEngine.format(s.stddev())));
+            for (int i = 0; i < s.percentiles.length; i++) {
+                out.println(String.format("%-10s %s", "p" + ExpressionEngine.format(o.percentiles[i]), ExpressionEngine.format(s.percentiles[i])));
+            }
+        });
+
+        // topk [-n] [-r] [-k alan] [-t ayraç] [-S bellek] k [dosya...]  — en sık k değer; -n ile alanı en büyük k satır.
+        commandRegistry.register("topk", (args, in, out) -> {
+            String usage = "Kullanım: topk [-n] [-r] [-k alan] [-t ayraç] [-S bellek] k [dosya...]";
+            DataTools.Options o = data().options(args, "nrktS", usage);
+            int k;
+            try {
+                k = Integer.parseInt(o.operands[0]);
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                throw new IllegalArgumentException(usage);
+            }
+            o.operands = java.util.Arrays.copyOfRange(o.operands, 1, o.operands.length);
+            data().topk(o, k, in, out);
+        });
+
+        // Satır, kelime ve karakter sayısı.
+        commandRegistry.register("wc", (args, in, out) -> {
+            long lines = 0, words = 0, chars = 0;
+            try (FileLineReader files = args.length > 0 ? new FileLineReader(vfs(), args) : null) {
+                LineReader src = files != null ? files : in;
+                String line;
+                while ((line = src.readLine()) != null) {
+                    lines++;
+                    chars += line.length() + 1;
+                    boolean inWord = false;
+                    for (int k = 0; k < line.length(); k++) {
+                        boolean ws = Character.isWhitespace(line.charAt(k));
+                        if (!ws && !inWord) words++;
+                        inWord = !ws;
+                    }
+                }
+            }
+            out.println(lines + " " + words + " " + chars);
+        });
+
+        // calc [-p basamak] ifade  — ifade yoksa her giriş satırı ayrı ifadedir.
+        commandRegistry.register("calc", (args, in, out) -> {
+            java.math.MathContext mc = null;
+            int i = 0;
+            if (args.length > 1 && args[0].equals("-p")) {
+                mc = new java.math.MathContext(Integer.parseInt(args[1]));
+                i = 2;
+            }
+            if (i < args.length) {
+                String expr = String.join(" ", java.util.Arrays.copyOfRange(args, i, args.length));
+                ExpressionEngine engine = currentExpressions();
+                out.println(mc == null ? ExpressionEngine.format(engine.eval(expr))
+                        : engine.evalExact(expr, mc).toPlainString());
+                return;
+            }
+            ExpressionEngine engine = currentExpressions();
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) continue;
+                out.println(mc == null ? ExpressionEngine.format(engine.eval(line))
+                        : engine.evalExact(line, mc).toPlainString());
+            }
+        });
+
+        // Betiklerde koşul olarak kullanılır: çıkış kodu dışında bir şey yazmazlar.
+        commandRegistry.register("true", (args, in, out) -> { });
+        commandRegistry.register("false", (args, in, out) -> {
+            throw new ExitStatus(1);
+        });
+
+        // test [!] ifade  — -z/-n metin, -e/-f/-d yol, a = b, a != b, sayısal -eq -ne -lt -le -gt -ge.
+        commandRegistry.register("test", (args, in, out) -> {
+            if (!test(args)) throw new ExitStatus(1);
+        });
+
+        // Süreç tablosu: toplam CPU, ayrılan bellek ve yaşam süresi.
+        commandRegistry.register("ps", (args, in, out) -> {
+            out.println(String.format("%5s  %-11s  %-9s  %9s  %8s  %7s  %s", "PID", "ÖNCELİK", "DURUM", "CPU ms", "AYIRMA", "SÜRE", "AD"));
+            for (ProcessTable.Process p : processes.list()) {
+                out.println(String.format("%5d  %-11s  %-9s  %9d  %8s  %7s  %s", p.pid, p.priority(), p.state(),
+                        p.cpuNanos() / 1_000_000, formatBytes(p.allocatedBytes()), formatSeconds(p.wallMillis()), p.name));
+            }
+        });
+
+        // leaks [-gc]  — kapandığı halde geri alınmamış pencereler ve bitmemiş kapsam iş parçacıkları;
+        // -gc süreyi beklemeden GC ile denetler.
+        commandRegistry.register("leaks", (args, in, out) -> {
+            boolean force = args.length > 0 && args[0].equals("-gc");
+            if (args.length > (force ? 1 : 0)) throw new IllegalArgumentException("Kullanım: leaks [-gc]");
+            java.util.List<LeakDetector.Suspect> suspects = leaks.check(force);
+            Runtime rt = Runtime.getRuntime();
+            out.println(String.format("iş parçacığı: %d  yığın: %s  izlenen: %d",
+                    java.lang.management.ManagementFactory.getThreadMXBean().getThreadCount(), formatBytes(rt.totalMemory() - rt.freeMemory()), leaks.watching()));
+            if (suspects.isEmpty()) out.println("Sızıntı şüphesi yok.");
+            for (LeakDetector.Suspect l : suspects) out.println(l.toString());
+        });
+
+        // top [-n kez] [-d saniye]  — aralıktaki CPU kullanımına göre sıralı anlık görüntüler.
+        commandRegistry.register("top", (args, in, out) -> {
+            int rounds = 1;
+            long delay = 1000;
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-n") && i + 1 < args.length) rounds = Integer.parseInt(args[++i]);
+                else if (args[i].equals("-d") && i + 1 < args.length) delay = (long) (Double.parseDouble(args[++i]) * 1000);
+                else throw new IllegalArgumentException("Kullanım: top [-n kez] [-d saniye]");
+            }
+            for (int r = 0; r < rounds; r++) {
+                Map<ProcessTable.Process, long[]> before = new HashMap<>();
+                for (ProcessTable.Process p : processes.list()) before.put(p, new long[] {p.cpuNanos(), p.allocatedBytes()});
+                long t0 = System.nanoTime();
+                Thread.sleep(delay);
+                double elapsed = Math.max(1, System.nanoTime() - t0);
+                java.util.List<Object[]> rows = new java.util.ArrayList<>();
+                for (Map.Entry<ProcessTable.Process, long[]> e : before.entrySet()) {
+                    ProcessTable.Process p = e.getKey();
+                    long cpu = Math.max(0, p.cpuNanos() - e.getValue()[0]);
+                    long alloc = Math.max(0, p.allocatedBytes() - e.getValue()[1]);
+                    rows.add(new Object[] {p, cpu * 100.0 / elapsed, alloc * 1e9 / elapsed});
+                }
+                rows.sort((x, y) -> Double.compare((Double) y[1], (Double) x[1]));
+                Runtime rt = Runtime.getRuntime();
+                out.println(String.format("süreç: %d  çekirdek: %d  yığın: %s / %s", rows.size(), rt.availableProcessors(),
+                        formatBytes(rt.totalMemory() - rt.freeMemory()), formatBytes(rt.maxMemory())));
+                out.println(String.format("%5s  %-11s  %-9s  %6s  %9s  %3s  %s", "PID", "ÖNCELİK", "DURUM", "CPU%", "AYIRMA/sn", "İP", "AD"));
+                for (Object[] row : rows) {
+                    ProcessTable.Process p = (ProcessTable.Process) row[0];
+                    out.println(String.format("%5d  %-11s  %-9s  %6.1f  %9s  %3d  %s", p.pid, p.priority(), p.state(),
+                            (Double) row[1], formatBytes((long) (double) (Double) row[2]), p.threads(), p.name));
+                }
+                if (r + 1 < rounds) out.println("");
+            }
+        });
+
+        // renice pid interactive|normal|background
+        commandRegistry.register("renice", (args, in, out) -> {
+            if (args.length != 2) throw new IllegalArgumentException("Kullanım: renice pid interactive|normal|background");
+            ProcessTable.Process p = processes.get(Integer.parseInt(args[0]));
+            if (p == null) throw new IllegalArgumentException("Böyle bir süreç yok: " + args[0]);
+            p.setPriority(ProcessTable.Priority.valueOf(args[1].toUpperCase(java.util.Locale.ROOT)));
+            out.println(p.pid + " " + p.name + ": " + p.priority());
+        });
+
+        // metrics [önek]  — sayaç ve histogramların metin anlık görüntüsü ("> dosya" ile dışa aktarılır).
+        commandRegistry.register("metrics", (args, in, out) -> {
+            for (String line : metrics.snapshot(args.length > 0 ? args[0] : "").split("\n")) {
+                if (!line.isEmpty()) out.println(line);
+            }
+        });
+
+        // jfr start | jfr stop [dosya]  — kayıt ana makine diskine yazılır.
+        commandRegistry.register("jfr", (args, in, out) -> {
+            if (args.length == 1 && args[0].equals("start")) {
+                metrics.startRecording();
+                out.println("JFR kaydı başladı");
+            } else if (args.length >= 1 && args.length <= 2 && args[0].equals("stop")) {
+                java.nio.file.Path file = metrics.stopRecording(Paths.get(args.length == 2 ? args[1] : "javaos.jfr"));
+                out.println("JFR kaydı yazıldı: " + file);
+            } else {
+                throw new IllegalArgumentException("Kullanım: jfr start | jfr stop [dosya]");
+            }
+        });
+
+        // Yerel terminal sunucusu: ttyd start [port] ile başlar, telnet localhost port ile bağlanılır.
+        commandRegistry.register("ttyd", (args, in, out) -> {
+            if (args.length == 0) {
+                java.net.InetSocketAddress a = terminals().address();
+                out.println(a == null ? "Terminal sunucusu çalışmıyor" : "Dinleniyor: " + a + "  oturum: " + terminals().sessions());
+            } else if (args.length <= 2 && args[0].equals("start")) {
+                int port = args.length == 2 ? Integer.parseInt(args[1]) : 2323;
+                out.println("Dinleniyor: " + terminals().start(new java.net.InetSocketAddress(java.net.InetAddress.getLoopbackAddress(), port)));
+            } else if (args.length == 1 && args[0].equals("stop")) {
+                terminals().close();
+                out.println("Terminal sunucusu durdu");
+            } else {
+                throw new IllegalArgumentException("Kullanım: ttyd [start [port] | stop]");
+            }
+        });
+    }
+
+    private boolean test(String[] a) throws IOException {
+        if (a.length > 0 && a[0].equals("!")) return !test(java.util.Arrays.copyOfRange(a, 1, a.length));
+        switch (a.length) {
+            case 0:
+                return false;
+            case 1:
+                return !a[0].isEmpty();
+            case 2: {
+                VirtualFileSystem.Entry e;
+                switch (a[0]) {
+                    case "-z": return a[1].isEmpty();
+                    case "-n": return !a[1].isEmpty();
+                    case "-e": return vfs().stat(a[1]) != null;
+                    case "-f": return (e = vfs().stat(a[1])) != null && !e.directory;
+                    case "-d": return (e = vfs().stat(a[1])) != null && e.directory;
+                    default: throw new IllegalArgumentException("test: bilinmeyen işleç: " + a[0]);
+                }
+            }
+            case 3:
+                switch (a[1]) {
+                    case "=": return a[0].equals(a[2]);
+                    case "!=": return !a[0].equals(a[2]);
+                    default: break;
+                }
+                int c;
+                try {
+                    c = Long.compare(Long.parseLong(a[0]), Long.parseLong(a[2]));
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("test: tam sayı bekleniyordu: " + a[0] + " " + a[2]);
+                }
+                switch (a[1]) {
+                    case "-eq": return c == 0;
+                    case "-ne": return c != 0;
+                    case "-lt": return c < 0;
+                    case "-le": return c <= 0;
+                    case "-gt": return c > 0;
+                    case "-ge": return c >= 0;
+                    default: throw new IllegalArgumentException("test: bilinmeyen işleç: " + a[1]);
+                }
+            default:
+                throw new IllegalArgumentException("Kullanım: test [!] ifade");
+        }
+    }
+
+    // calc değişkenleri oturuma özeldir: komutu çalıştıran sürecin motoru, yoksa çekirdeğinki.
+    private ExpressionEngine currentExpressions() {
+        ProcessTable.Process p = ProcessTable.current();
+        ExpressionEngine e = p != null ? p.expressions() : null;
+        return e != null ? e : expressions;
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) return bytes + "B";
+        if (bytes < 1024 * 1024) return String.format("%.1fK", bytes / 1024.0);
+        if (bytes < 1024L * 1024 * 1024) return String.format("%.1fM", bytes / (1024.0 * 1024));
+        return String.format("%.1fG", bytes / (1024.0 * 1024 * 1024));
+    }
+
+    private static String formatSeconds(long millis) {
+        long s = millis / 1000;
+        return s < 3600 ? String.format("%d:%02d", s / 60, s % 60) : String.format("%d:%02d:%02d", s / 3600, s / 60 % 60, s % 60);
+    }
+
+    // VFS ağacını ada göre sıralı, önce-derinlik gezer; istenen türdeki yolları döndürür.
+    private java.util.List<String> walk(String root, boolean files, boolean dirs) throws IOException {
+        VirtualFileSystem.Entry e = vfs().stat(root);
+        if (e == null) throw new java.nio.file.NoSuchFileException(root, null, "Böyle bir dosya ya da dizin yok");
+        java.util.List<String> out = new java.util.ArrayList<>();
+        walk(root, e.directory, files, dirs, out);
+        return out;
+    }
+
+    private void walk(String path, boolean directory, boolean files, boolean dirs, java.util.List<String> out) throws IOException {
+        if (directory ? dirs : files) out.add(path);
+        if (!directory) return;
+        for (VirtualFileSystem.Entry c : vfs().list(path)) {
+            walk(path.endsWith("/") ? path + c.name : path + "/" + c.name, c.directory, files, dirs, out);
+        }
+    }
+
+    // Kabuk deseni (*, ?) -> düzenli ifade.
+    private static java.util.regex.Pattern glob(String glob) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c == '*') sb.append(".*");
+            else if (c == '?') sb.append('.');
+            else sb.append(java.util.regex.Pattern.quote(String.valueOf(c)));
+        }
+        return java.util.regex.Pattern.compile(sb.toString());
+    }
+
+    private static void copy(LineReader in, LineWriter out) throws Exception {
+        String line;
+        while ((line = in.readLine()) != null) out.println(line);
+    }
+
+    /**
+     * Verilen VFS dosyalarını sırayla satır satır okuyan giriş. İçerik eşlenmiş imajdan
+     * kopyalanmadan taranır; yalnızca dönen satır String'e çevrilir.
+     */
+    public static class FileLineReader implements LineReader, AutoCloseable {
+        private final VirtualFileSystem vfs;
+        private final String[] files;
+        private int next;
+        private java.nio.ByteBuffer current;
+        private byte[] scratch = new byte[256];
+
+        public FileLineReader(VirtualFileSystem vfs, String... files) {
+            this.vfs = vfs;
+            this.files = files;
+        }
+
+        public String readLine() throws IOException {
+            while (true) {
+                if (current == null) {
+                    if (next >= files.length) return null;
+                    current = vfs.read(files[next++]);
+                }
+                if (!current.hasRemaining()) {
+                    current = null;
+                    continue;
+                }
+                int start = current.position(), end = start, limit = current.limit();
+                while (end < limit && current.get(end) != '\n') end++;
+                current.position(end < limit ? end + 1 : end);
+                int len = end - start;
+                if (len > 0 && current.get(end - 1) == '\r') len--;
+                if (scratch.length < len) scratch = new byte[Math.max(len, scratch.length * 2)];
+                current.get(start, scratch, 0, len);
+                return new String(scratch, 0, len, StandardCharsets.UTF_8);
+            }
+        }
+
+        public void close() {
+            current = null;
+        }
+    }
+
+    /**
+     * Sanal dosya sistemi: dizinler, dosyalar ve üst veriler tek bir imaj dosyasında durur.
+     * İmaj FileChannel.map ile 1 MB'lık bölümler halinde eşlenir; eşlenen bölümler sınırlı
+     * bir LRU sayfa önbelleğinde tutulur, daha büyük aralıklar doğrudan eşlenir.
+     *
+     * Üst veri (bit eşlemi, i-düğümler, dizinler) değişiklikleri önce günlüğe (WAL) sayfa
+     * görüntüsü olarak yazılıp kalıcılaştırılır, sonra imaja uygulanır. Dosya verisi ise boş
+     * bloklara doğrudan yazılır ve ancak diske indikten sonra i-düğüme bağlanır; çökme olursa
+     * yarım işlem görünmez. Açılış yalnızca üst bloğu okur ve (varsa) kısa günlüğü yeniden
+     * oynatır, imajın geri kalanı ihtiyaç oldukça eşlenir.
+     *
+     * İmaj düzeni (4 KB blok): üst blok | boş blok bit eşlemi | i-düğüm tablosu | veri.
+     * Her dosya tek bir ardışık blok aralığında tutulur.
+     */
+    public static class VirtualFileSystem implements java.io.Closeable {
+        public static final int BLOCK = 4096;
+        private static final int SEGMENT = 1 << 20;
+        private static final int INODE = 64;
+        private static final int MAGIC = 0x4A564653;      // "JVFS"
+        private static final int TX_MAGIC = 0x57414C31;   // "WAL1"
+        private static final long CHECKPOINT_BYTES = 4L << 20;
+        private static final int TYPE_FREE = 0, TYPE_FILE = 1, TYPE_DIR = 2;
+        private static final int ROOT = 0;
+
+        private final java.nio.channels.FileChannel image;
+        private final java.nio.channels.FileChannel journal;
+        private final java.nio.channels.FileLock lock;
+        private final int maxBlocks, maxInodes, bitmapStart, inodeStart, dataStart;
+        private final Map<Long, java.nio.MappedByteBuffer> segments;
+        private final java.util.Set<Long> dirtySegments = new java.util.HashSet<>();
+        // Son checkpoint'ten beri günlüğe sayfası giren veri blokları; replay bunları yeniden yazar.
+        private final java.util.BitSet journaled = new java.util.BitSet();
+        private final Map<Integer, java.util.TreeMap<String, Integer>> dirCache = new HashMap<>();
+        private int blockHint, inodeHint = 1;
+        private boolean closed;
+
+        /**
+         * Varsayılan imajı açar (javaos.vfs.image, yoksa ~/.javaos/vfs.img). İmaj başka bir
+         * süreçte açıksa geçici bir imaja düşülür.
+         */
+        public static VirtualFileSystem openDefault() {
+            java.nio.file.Path image = Paths.get(System.getProperty("javaos.vfs.image",
+                    Paths.get(System.getProperty("user.home"), ".javaos", "vfs.img").toString()));
+            int maxBlocks = Integer.getInteger("javaos.vfs.maxBlocks", 1 << 20);
+            int maxInodes = Integer.getInteger("javaos.vfs.maxInodes", 1 << 16);
+            int cache = Integer.getInteger("javaos.vfs.cacheSegments", 64);
+            try {
+                return new VirtualFileSystem(image, maxBlocks, maxInodes, cache);
+            } catch (IOException e) {
+                System.err.println("VFS açılamadı (" + e.getMessage() + "), geçici imaj kullanılıyor.");
+                try {
+                    java.nio.file.Path tmp = Files.createTempFile("javaos-vfs", ".img");
+                    tmp.toFile().deleteOnExit();
+                    tmp.resolveSibling(tmp.getFileName() + ".wal").toFile().deleteOnExit();
+                    return new VirtualFileSystem(tmp, maxBlocks, maxInodes, cache);
+                } catch (IOException ex) {
+                    throw new java.io.UncheckedIOException(ex);
+                }
+            }
+        }
+
+        /**
+         * @param imagePath     imaj dosyası; yoksa ya da boşsa biçimlendirilir
+         * @param maxBlocks     imajın en fazla blok sayısı (yeni imajlar için)
+         * @param maxInodes     en fazla dosya + dizin sayısı (yeni imajlar için)
+         * @param cacheSegments önbellekte eşli tutulacak 1 MB'lık bölüm sayısı
+         */
+        public VirtualFileSystem(java.nio.file.Path imagePath, int maxBlocks, int maxInodes, int cacheSegments) throws IOException {
+            java.nio.file.Path parent = imagePath.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            image = java.nio.channels.FileChannel.open(imagePath, java.nio.file.StandardOpenOption.CREATE,
+                    java.nio.file.StandardOpenOption.READ, java.nio.file.StandardOpenOption.WRITE);
+            journal = java.nio.channels.FileChannel.open(imagePath.resolveSibling(imagePath.getFileName() + ".wal"),
+                    java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.READ,
+                    java.nio.file.StandardOpenOption.WRITE);
+            java.nio.channels.FileLock l;
+            try {
+                l = journal.tryLock();
+            } catch (java.nio.channels.OverlappingFileLockException e) {
+                l = null;
+            }
+            if (l == null) {
+                journal.close();
+                image.close();
+                throw new IOException("İmaj başka bir süreç tarafından kullanılıyor: " + imagePath);
+            }
+            lock = l;
+            segments = new java.util.LinkedHashMap<Long, java.nio.MappedByteBuffer>(16, 0.75f, true) {
+                protected boolean removeEldestEntry(Map.Entry<Long, java.nio.MappedByteBuffer> eldest) {
+                    if (size() <= cacheSegments) return false;
+                    if (dirtySegments.remove(eldest.getKey())) eldest.getValue().force();
+                    return true;
+                }
+            };
+
+            java.nio.ByteBuffer sb = java.nio.ByteBuffer.allocate(32);
+            if (readFully(image, sb, 0) < 32 || sb.getInt(0) != MAGIC) {
+                // Blok sayısı bölüm sınırına yuvarlanır ki eşlemeler imajın dışına taşmasın.
+                int blocksPerSegment = SEGMENT / BLOCK;
+                format((maxBlocks + blocksPerSegment - 1) / blocksPerSegment * blocksPerSegment, maxInodes);
+                sb.clear();
+                readFully(image, sb, 0);
+            } else {
+                replay();
+            }
+            this.maxBlocks = sb.getInt(12);
+            this.maxInodes = sb.getInt(16);
+            this.bitmapStart = sb.getInt(20);
+            this.inodeStart = sb.getInt(24);
+            this.dataStart = sb.getInt(28);
+            this.blockHint = dataStart;
+        }
+
+        /** Dosya ya da dizin bilgisi. */
+        public static final class Entry {
+            public final String name;
+            public final boolean directory;
+            public final long size;
+            public final long modified;
+
+            Entry(String name, boolean directory, long size, long modified) {
+                this.name = name;
+                this.directory = directory;
+                this.size = size;
+                this.modified = modified;
+            }
+        }
+
+        /** Yol yoksa null. */
+        public synchronized Entry stat(String path) throws IOException {
+            ensureOpen();
+            java.util.List<String> parts = split(path);
+            int ino = lookup(parts, parts.size());
+            if (ino < 0) return null;
+            Inode in = inode(ino);
+            return new Entry(parts.isEmpty() ? "/" : parts.get(parts.size() - 1), in.type == TYPE_DIR, in.size, in.modified);
+        }
+
+        /** Dizin içeriği (ada göre sıralı); yol bir dosyaysa yalnızca kendisi. */
+        public synchronized java.util.List<Entry> list(String path) throws IOException {
+            ensureOpen();
+            java.util.List<String> parts = split(path);
+            int ino = lookup(parts, parts.size());
+            if (ino < 0) throw new java.nio.file.NoSuchFileException(path, null, "Böyle bir dosya ya da dizin yok");
+            java.util.List<Entry> out = new java.util.ArrayList<>();
+            Inode in = inode(ino);
+            if (in.type != TYPE_DIR) {
+                out.add(new Entry(parts.get(parts.size() - 1), false, in.size, in.modified));
+                return out;
+            }
+            for (Map.Entry<String, Integer> e : dir(ino).entrySet()) {
+                Inode child = inode(e.getValue());
+                out.add(new Entry(e.getKey(), child.type == TYPE_DIR, child.size, child.modified));
+            }
+            return out;
+        }
+
+        public synchronized void mkdir(String path) throws IOException {
+            ensureOpen();
+            java.util.List<String> parts = split(path);
+            int parent = parentOf(parts, path);
+            String name = parts.get(parts.size() - 1);
+            if (dir(parent).containsKey(name)) throw new java.nio.file.FileAlreadyExistsException(path, null, "Zaten var");
+            Tx tx = new Tx();
+            int ino = allocInode(tx);
+            putInode(tx, ino, TYPE_DIR, 0, 0, 0);
+            java.util.TreeMap<String, Integer> d = new java.util.TreeMap<>(dir(parent));
+            d.put(name, ino);
+            writeDir(tx, parent, d);
+            commit(tx);
+            dirCache.put(parent, d);
+            dirCache.put(ino, new java.util.TreeMap<>());
+        }
+
+        /**
+         * Dosya içeriğinin salt okunur görünümü; imajdan kopyalanmaz. Görünüm, dosya yeniden
+         * yazılana ya da silinene kadar geçerlidir.
+         */
+        public synchronized java.nio.ByteBuffer read(String path) throws IOException {
+            ensureOpen();
+            Inode f = file(path);
+            return view(f.start * BLOCK, (int) f.size).asReadOnlyBuffer();
+        }
+
+        /**
+         * Dosyayı verilen parçaların art arda eklenmesiyle değiştirir (yoksa oluşturur). Yeni
+         * içerik ayrı bloklara yazılıp tek işlemde bağlanır; parçalar eski içeriğin görünümü
+         * olabilir.
+         */
+        public synchronized void write(String path, java.nio.ByteBuffer... data) throws IOException {
+            ensureOpen();
+            java.util.List<String> parts = split(path);
+            int parent = parentOf(parts, path);
+            String name = parts.get(parts.size() - 1);
+            Integer existing = dir(parent).get(name);
+            Inode old = existing == null ? null : inode(existing);
+            if (old != null && old.type == TYPE_DIR) throw new IOException("Bir dizin: " + path);
+
+            long total = 0;
+            for (java.nio.ByteBuffer part : data) total += part.remaining();
+            if (total > Integer.MAX_VALUE) throw new IOException("Dosya çok büyük: " + path);
+            Tx tx = new Tx();
+            int len = (int) total;
+            int blocks = blocksFor(len);
+            int start = allocate(tx, blocks);
+            long off = (long) start * BLOCK;
+            for (java.nio.ByteBuffer part : data) {
+                writeData(off, part.duplicate());
+                off += part.remaining();
+            }
+            int ino = existing != null ? existing : allocInode(tx);
+            if (old != null) mark(tx, old.start, old.capacity, false);
+            putInode(tx, ino, TYPE_FILE, len, start, blocks);
+            java.util.TreeMap<String, Integer> d = null;
+            if (existing == null) {
+                d = new java.util.TreeMap<>(dir(parent));
+                d.put(name, ino);
+                writeDir(tx, parent, d);
+            }
+            commit(tx);
+            if (d != null) dirCache.put(parent, d);
+        }
+
+        /** Dosyanın sonuna ekler; yer yetmezse dosya iki katı kapasiteli bir aralığa taşınır. */
+        public synchronized void append(String path, java.nio.ByteBuffer data) throws IOException {
+            ensureOpen();
+            java.util.List<String> parts = split(path);
+            int ino = lookup(parts, parts.size());
+            if (ino < 0) {
+                write(path, data);
+                return;
+            }
+            Inode f = inode(ino);
+            if (f.type == TYPE_DIR) throw new IOException("Bir dizin: " + path);
+            long size = f.size + data.remaining();
+            if (size > Integer.MAX_VALUE) throw new IOException("Dosya çok büyük: " + path);
+
+            Tx tx = new Tx();
+            long start = f.start, capacity = f.capacity;
+            int need = blocksFor(size);
+            if (need > capacity) {
+                int grown = (int) Math.min(Math.max(need, capacity * 2), maxBlocks);
+                int s;
+                try {
+                    s = allocate(tx, grown);
+                } catch (IOException e) {
+                    s = allocate(tx, grown = need);
+                }
+                if (f.size > 0) writeData((long) s * BLOCK, view(f.start * BLOCK, (int) f.size));
+                mark(tx, f.start, f.capacity, false);
+                start = s;
+                capacity = grown;
+            }
+            writeData(start * BLOCK + f.size, data.duplicate());
+            putInode(tx, ino, TYPE_FILE, size, start, capacity);
+            commit(tx);
+        }
+
+        /** Dosyayı ya da boş dizini siler. */
+        public synchronized void delete(String path) throws IOException {
+            ensureOpen();
+            java.util.List<String> parts = split(path);
+            if (parts.isEmpty()) throw new IOException("Kök dizin silinemez");
+            int parent = parentOf(parts, path);
+            String name = parts.get(parts.size() - 1);
+            Integer ino = dir(parent).get(name);
+            if (ino == null) throw new java.nio.file.NoSuchFileException(path, null, "Böyle bir dosya ya da dizin yok");
+            Inode in = inode(ino);
+            if (in.type == TYPE_DIR && !dir(ino).isEmpty()) throw new IOException("Dizin boş değil: " + path);
+
+            Tx tx = new Tx();
+            mark(tx, in.start, in.capacity, false);
+            tx.putByte(inodeOffset(ino), TYPE_FREE);
+            java.util.TreeMap<String, Integer> d = new java.util.TreeMap<>(dir(parent));
+            d.remove(name);
+            writeDir(tx, parent, d);
+            commit(tx);
+            dirCache.put(parent, d);
+            dirCache.remove(ino);
+            inodeHint = Math.min(inodeHint, ino);
+        }
+
+        /** Dosyayı kopyalar; hedef bir dizinse aynı adla içine kopyalar. */
+        public synchronized void copy(String from, String to) throws IOException {
+            java.nio.ByteBuffer src = read(from);
+            Entry target = stat(to);
+            if (target != null && target.directory) {
+                java.util.List<String> parts = split(from);
+                to = to + "/" + parts.get(parts.size() - 1);
+            }
+            write(to, src);
+        }
+
+        /** Dosyayı boşaltır ve satırları sonuna ekleyen bir yazıcı döndürür. */
+        public FileLineWriter writer(String path) throws IOException {
+            write(path, java.nio.ByteBuffer.allocate(0));
+            return new FileLineWriter(path);
+        }
+
+        /**
+         * Satırları tamponlayıp büyük parçalar halinde append eder.
+         */
+        public final class FileLineWriter implements LineWriter, AutoCloseable {
+            private final String path;
+            private final java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocate(256 << 10);
+
+            private FileLineWriter(String path) {
+                this.path = path;
+            }
+
+            public void println(String line) throws IOException {
+                byte[] b = (line + "\n").getBytes(StandardCharsets.UTF_8);
+                if (b.length > buffer.remaining()) flush();
+                if (b.length > buffer.capacity()) append(path, java.nio.ByteBuffer.wrap(b));
+                else buffer.put(b);
+            }
+
+            public void flush() throws IOException {
+                buffer.flip();
+                if (buffer.hasRemaining()) append(path, buffer);
+                buffer.clear();
+            }
+
+            public void close() throws IOException {
+                flush();
+            }
+        }
+
+        /** Eşli bölümleri ve imajı diske indirip günlüğü boşaltır. */
+        public synchronized void checkpoint() throws IOException {
+            ensureOpen();
+            for (Long s : dirtySegments) {
+                java.nio.MappedByteBuffer m = segments.get(s);
+                if (m != null) m.force();
+            }
+            dirtySegments.clear();
+            image.force(true);
+            journal.truncate(0);
+            journal.force(true);
+            journaled.clear();
+        }
+
+        public synchronized void close() throws IOException {
+            if (closed) return;
+            checkpoint();
+            closed = true;
+            segments.clear();
+            lock.release();
+            journal.close();
+            image.close();
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) throw new IOException("VFS kapalı");
+        }
+
+        // ---- i-düğümler ve dizinler ----
+
+        private static final class Inode {
+            final int type;
+            final long size, modified, start, capacity;
+
+            Inode(java.nio.ByteBuffer b) {
+                type = b.get(0);
+                size = b.getLong(8);
+                modified = b.getLong(16);
+                start = b.getLong(24);
+                capacity = b.getLong(32);
+            }
+        }
+
+        private long inodeOffset(int ino) {
+            return (long) inodeStart * BLOCK + (long) ino * INODE;
+        }
+
+        private Inode inode(int ino) throws IOException {
+            return new Inode(view(inodeOffset(ino), INODE));
+        }
+
+        private void putInode(Tx tx, int ino, int type, long size, long start, long capacity) throws IOException {
+            long off = inodeOffset(ino);
+            tx.putByte(off, type);
+            tx.putLong(off + 8, size);
+            tx.putLong(off + 16, System.currentTimeMillis());
+            tx.putLong(off + 24, start);
+            tx.putLong(off + 32, capacity);
+        }
+
+        private int allocInode(Tx tx) throws IOException {
+            for (int pass = 0; pass < 2; pass++) {
+                int from = pass == 0 ? inodeHint : 1, to = pass == 0 ? maxInodes : inodeHint;
+                for (int i = from; i < to; i++) {
+                    if (tx.getByte(inodeOffset(i)) == TYPE_FREE) {
+                        inodeHint = i + 1;
+                        return i;
+                    }
+                }
+            }
+            throw new IOException("VFS dolu: boş i-düğüm yok");
+        }
+
+        private Inode file(String path) throws IOException {
+            java.util.List<String> parts = split(path);
+            int ino = lookup(parts, parts.size());
+            if (ino < 0) throw new java.nio.file.NoSuchFileException(path, null, "Böyle bir dosya ya da dizin yok");
+            Inode f = inode(ino);
+            if (f.type == TYPE_DIR) throw new IOException("Bir dizin: " + path);
+            return f;
+        }
+
+        private static java.util.List<String> split(String path) {
+            java.util.List<String> parts = new java.util.ArrayList<>();
+            for (String p : path.split("/")) {
+                if (p.isEmpty() || p.equals(".")) continue;
+                if (p.equals("..")) {
+                    if (!parts.isEmpty()) parts.remove(parts.size() - 1);
+                } else {
+                    parts.add(p);
+                }
+            }
+            return parts;
+        }
+
+        // İlk count parçayı kökten izler; yoksa -1.
+        private int lookup(java.util.List<String> parts, int count) throws IOException {
+            int ino = ROOT;
+            for (int i = 0; i < count; i++) {
+                if (inode(ino).type != TYPE_DIR) return -1;
+                Integer next = dir(ino).get(parts.get(i));
+                if (next == null) return -1;
+                ino = next;
+            }
+            return ino;
+        }
+
+        private int parentOf(java.util.List<String> parts, String path) throws IOException {
+            if (parts.isEmpty()) throw new IOException("Geçersiz yol: " + path);
+            if (parts.get(parts.size() - 1).getBytes(StandardCharsets.UTF_8).length > 255) {
+                throw new IOException("Ad çok uzun: " + path);
+            }
+            int parent = lookup(parts, parts.size() - 1);
+            if (parent < 0) throw new java.nio.file.NoSuchFileException(path, null, "Böyle bir dosya ya da dizin yok");
+            if (inode(parent).type != TYPE_DIR) throw new IOException("Dizin değil: " + path);
+            return parent;
+        }
+
+        // Dizin içeriği: [adet] ve her giriş için [i-düğüm][ad uzunluğu][UTF-8 ad].
+        private java.util.TreeMap<String, Integer> dir(int ino) throws IOException {
+            java.util.TreeMap<String, Integer> d = dirCache.get(ino);
+            if (d == null) {
+                Inode in = inode(ino);
+                d = new java.util.TreeMap<>();
+                if (in.size > 0) {
+                    java.nio.ByteBuffer b = view(in.start * BLOCK, (int) in.size);
+                    for (int n = b.getInt(); n > 0; n--) {
+                        int child = b.getInt();
+                        byte[] name = new byte[b.getShort() & 0xFFFF];
+                        b.get(name);
+                        d.put(new String(name, StandardCharsets.UTF_8), child);
+                    }
+                }
+                dirCache.put(ino, d);
+            }
+            return d;
+        }
+
+        private void writeDir(Tx tx, int ino, java.util.TreeMap<String, Integer> d) throws IOException {
+            java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+            java.io.DataOutputStream out = new java.io.DataOutputStream(bytes);
+            out.writeInt(d.size());
+            for (Map.Entry<String, Integer> e : d.entrySet()) {
+                byte[] name = e.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(e.getValue());
+                out.writeShort(name.length);
+                out.write(name);
+            }
+            byte[] content = bytes.toByteArray();
+            Inode in = inode(ino);
+            long start = in.start, capacity = in.capacity;
+            int need = blocksFor(content.length);
+            if (need > capacity) {
+                int grown = (int) Math.max(need, capacity * 2);
+                int s = allocate(tx, grown);
+                mark(tx, start, capacity, false);
+                start = s;
+                capacity = grown;
+            }
+            tx.write(start * BLOCK, content);
+            putInode(tx, ino, TYPE_DIR, content.length, start, capacity);
+        }
+
+        // ---- blok ayırma ----
+
+        private static int blocksFor(long bytes) {
+            return (int) ((bytes + BLOCK - 1) / BLOCK);
+        }
+
+        // İpucundan başlayıp sarmalayarak n ardışık boş blok arar (ilk uyan).
+        private int allocate(Tx tx, int n) throws IOException {
+            if (n == 0) return 0;
+            for (int pass = 0; pass < 2; pass++) {
+                int from = pass == 0 ? blockHint : dataStart, to = pass == 0 ? maxBlocks : blockHint;
+                int run = 0, start = 0;
+                for (int b = from; b < to; ) {
+                    int pageIndex = b >>> 15;   // bir bit eşlemi sayfası 32768 blok tutar
+                    java.nio.ByteBuffer page = tx.page(bitmapStart + pageIndex, false);
+                    int limit = Math.min(to, (pageIndex + 1) << 15);
+                    for (; b < limit; b++) {
+                        int bit = b & 32767;
+                        int bits = page.get(bit >>> 3);
+                        if (bits == -1 && (bit & 7) == 0 && b + 8 <= limit) {
+                            run = 0;
+                            b += 7;
+                        } else if ((bits & (1 << (bit & 7))) != 0) {
+                            run = 0;
+                        } else {
+                            if (run++ == 0) start = b;
+                            if (run == n) {
+                                mark(tx, start, n, true);
+                                blockHint = start + n;
+                                return start;
+                            }
+                        }
+                    }
+                }
+            }
+            throw new IOException("VFS dolu: " + n + " blok ayrılamadı");
+        }
+
+        private void mark(Tx tx, long start, long count, boolean used) throws IOException {
+            long base = (long) bitmapStart * BLOCK;
+            for (long b = start; b < start + count; b++) {
+                long off = base + (b >>> 3);
+                int bits = tx.getByte(off);
+                tx.putByte(off, used ? bits | (1 << (b & 7)) : bits & ~(1 << (b & 7)));
+            }
+        }
+
+        // ---- eşleme ve günlük ----
+
+        private java.nio.MappedByteBuffer segment(long index) throws IOException {
+            java.nio.MappedByteBuffer m = segments.get(index);
+            if (m == null) {
+                m = image.map(java.nio.channels.FileChannel.MapMode.READ_WRITE, index * SEGMENT, SEGMENT);
+                segments.put(index, m);
+            }
+            return m;
+        }
+
+        // Tek bölüme sığan aralık önbellekteki bölümden dilimlenir, daha büyüğü doğrudan eşlenir.
+        private java.nio.ByteBuffer view(long off, int len) throws IOException {
+            if (len == 0) return java.nio.ByteBuffer.allocate(0);
+            long seg = off / SEGMENT;
+            if ((off + len - 1) / SEGMENT != seg) {
+                return image.map(java.nio.channels.FileChannel.MapMode.READ_WRITE, off, len);
+            }
+            java.nio.ByteBuffer b = segment(seg).duplicate();
+            int p = (int) (off - seg * SEGMENT);
+            b.position(p).limit(p + len);
+            return b.slice();
+        }
+
+        // Dosya verisi günlüğe girmez: doğrudan yazılır ve i-düğüm bağlanmadan önce diske indirilir.
+        // Hedef bloklardan birinin eski (ör. dizin) sayfası günlükte duruyorsa replay onu verinin
+        // üstüne yazardı; önce checkpoint alınıp günlük boşaltılır.
+        private void writeData(long off, java.nio.ByteBuffer src) throws IOException {
+            int len = src.remaining();
+            if (len == 0) return;
+            int hit = journaled.nextSetBit((int) (off / BLOCK));
+            if (hit >= 0 && hit <= (off + len - 1) / BLOCK) checkpoint();
+            long seg = off / SEGMENT;
+            if ((off + len - 1) / SEGMENT != seg) {
+                java.nio.MappedByteBuffer m = image.map(java.nio.channels.FileChannel.MapMode.READ_WRITE, off, len);
+                m.put(src);
+                m.force();
+                return;
+            }
+            java.nio.MappedByteBuffer m = segment(seg);
+            int p = (int) (off - seg * SEGMENT);
+            m.put(p, src, src.position(), len);
+            m.force(p, len);
+        }
+
+        private void commit(Tx tx) throws IOException {
+            if (tx.pages.isEmpty()) return;
+            java.nio.ByteBuffer rec = java.nio.ByteBuffer.allocate(8 + tx.pages.size() * (8 + BLOCK) + 4);
+            rec.putInt(TX_MAGIC).putInt(tx.pages.size());
+            for (Map.Entry<Long, byte[]> e : tx.pages.entrySet()) rec.putLong(e.getKey()).put(e.getValue());
+            java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+            crc.update(rec.array(), 0, rec.position());
+            rec.putInt((int) crc.getValue());
+            rec.flip();
+            long pos = journal.size();
+            while (rec.hasRemaining()) pos += journal.write(rec, pos);
+            journal.force(false);
+
+            for (Map.Entry<Long, byte[]> e : tx.pages.entrySet()) {
+                long off = e.getKey() * BLOCK;
+                view(off, BLOCK).put(e.getValue());
+                dirtySegments.add(off / SEGMENT);
+                if (e.getKey() >= dataStart) journaled.set((int) (long) e.getKey());
+            }
+            if (journal.size() > CHECKPOINT_BYTES) checkpoint();
+        }
+
+        // Günlükteki tamamlanmış (CRC'si tutan) işlemleri imaja uygular; yarım kalan kuyruk atılır.
+        private void replay() throws IOException {
+            long pos = 0, end = journal.size();
+            java.nio.ByteBuffer head = java.nio.ByteBuffer.allocate(8);
+            while (pos + 8 <= end) {
+                head.clear();
+                readFully(journal, head, pos);
+                int count = head.getInt(4);
+                long len = 8 + count * (8L + BLOCK) + 4;
+                if (head.getInt(0) != TX_MAGIC || count <= 0 || pos + len > end) break;
+                java.nio.ByteBuffer rec = java.nio.ByteBuffer.allocate((int) len);
+                readFully(journal, rec, pos);
+                java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+                crc.update(rec.array(), 0, (int) len - 4);
+                if (rec.getInt((int) len - 4) != (int) crc.getValue()) break;
+                for (int i = 0, p = 8; i < count; i++, p += 8 + BLOCK) {
+                    long off = rec.getLong(p) * BLOCK;
+                    java.nio.ByteBuffer page = java.nio.ByteBuffer.wrap(rec.array(), p + 8, BLOCK);
+                    while (page.hasRemaining()) off += image.write(page, off);
+                }
+                pos += len;
+            }
+            if (end > 0) {
+                image.force(true);
+                journal.truncate(0);
+                journal.force(true);
+            }
+        }
+
+        private void format(int maxBlocks, int maxInodes) throws IOException {
+            int bitmapBlocks = (maxBlocks + BLOCK * 8 - 1) / (BLOCK * 8);
+            int inodeBlocks = (int) (((long) maxInodes * INODE + BLOCK - 1) / BLOCK);
+            int bitmapStart = 1, inodeStart = bitmapStart + bitmapBlocks, dataStart = inodeStart + inodeBlocks;
+            image.truncate(0);
+            journal.truncate(0);
+
+            // Üst veri blokları dolu işaretlenir, kök dizin i-düğüm 0'dır.
+            byte[] bits = new byte[(dataStart + 7) / 8];
+            for (int b = 0; b < dataStart; b++) bits[b >>> 3] |= 1 << (b & 7);
+            writeFully(image, java.nio.ByteBuffer.wrap(bits), (long) bitmapStart * BLOCK);
+            java.nio.ByteBuffer root = java.nio.ByteBuffer.allocate(INODE);
+            root.put(0, (byte) TYPE_DIR).putLong(16, System.currentTimeMillis());
+            writeFully(image, root, (long) inodeStart * BLOCK);
+            image.force(true);
+
+            // Sihirli sayı en son yazılır: yarım biçimlendirme bir sonraki açılışta tekrarlanır.
+            java.nio.ByteBuffer sb = java.nio.ByteBuffer.allocate(32);
+            sb.putInt(MAGIC).putInt(1).putInt(BLOCK).putInt(maxBlocks).putInt(maxInodes)
+                    .putInt(bitmapStart).putInt(inodeStart).putInt(dataStart).flip();
+            writeFully(image, sb, 0);
+            image.force(true);
+        }
+
+        private static int readFully(java.nio.channels.FileChannel ch, java.nio.ByteBuffer dst, long pos) throws IOException {
+            int total = 0;
+            while (dst.hasRemaining()) {
+                int n = ch.read(dst, pos + total);
+                if (n < 0) break;
+                total += n;
+            }
+            return total;
+        }
+
+        private static void writeFully(java.nio.channels.FileChannel ch, java.nio.ByteBuffer src, long pos) throws IOException {
+            while (src.hasRemaining()) pos += ch.write(src, pos);
+        }
+
+        /**
+         * Bir işlemin değiştirdiği sayfalar. Okumalar önce bu kopyalara bakar; commit'te
+         * sayfalar günlüğe yazılır, sonra imaja uygulanır.
+         */
+        private final class Tx {
+            final Map<Long, byte[]> pages = new java.util.LinkedHashMap<>();
+
+            java.nio.ByteBuffer page(long no, boolean write) throws IOException {
+                byte[] p = pages.get(no);
+                if (p == null) {
+                    if (!write) return view(no * BLOCK, BLOCK);
+                    p = new byte[BLOCK];
+                    view(no * BLOCK, BLOCK).get(p);
+                    pages.put(no, p);
+                }
+                return java.nio.ByteBuffer.wrap(p);
+            }
+
+            int getByte(long off) throws IOException {
+                return page(off / BLOCK, false).get((int) (off % BLOCK)) & 0xFF;
+            }
+
+            void putByte(long off, int v) throws IOException {
+                page(off / BLOCK, true).put((int) (off % BLOCK), (byte) v);
+            }
+
+            void putLong(long off, long v) throws IOException {
+                page(off / BLOCK, true).putLong((int) (off % BLOCK), v);
+            }
+
+            void write(long off, byte[] b) throws IOException {
+                for (int done = 0; done < b.length; ) {
+                    int inPage = (int) ((off + done) % BLOCK);
+                    int n = Math.min(b.length - done, BLOCK - inPage);
+                    page((off + done) / BLOCK, true).put(inPage, b, done, n);
+                    done += n;
+                }
+            }
+        }
+    }
+
+    /**
+     * Metin arama: büyük girişler satır sınırlarında parçalara bölünüp fork-join havuzunda
+     * paralel taranır. Düz metin sorgular Boyer-Moore-Horspool ile bayt düzeyinde aranır;
+     * düzenli ifadeye yalnızca desen gerçekten gerektirdiğinde düşülür.
+     *
+     * İsteğe bağlı trigram indeksi her VFS dosyasının (ASCII küçük harfe katlanmış) trigram
+     * kümesini tutar; desenin trigramlarından biri bile olmayan dosyalar hiç taranmaz.
+     * İndeks artımlıdır: taranan ama indekslenmemiş ya da değişmiş dosyalar aramadan sonra
+     * arka planda indekslenir.
+     */
+    public static class TextSearch {
+        private static final int CHUNK = 4 << 20;
+        private static final int INDEX_MAX_BYTES = 64 << 20;
+
+        private final java.util.function.Supplier<VirtualFileSystem> vfs;
+        private final java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(
+                Integer.getInteger("javaos.search.threads", Runtime.getRuntime().availableProcessors()));
+        private final boolean indexing = !"off".equals(System.getProperty("javaos.search.index"));
+        private final Map<String, Trigrams> trigrams = new java.util.concurrent.ConcurrentHashMap<>();
+        private final ProcessTable processes;
+
+        public TextSearch(java.util.function.Supplier<VirtualFileSystem> vfs, ProcessTable processes) {
+            this.vfs = vfs;
+            this.processes = processes;
+        }
+
+        public java.util.concurrent.ForkJoinPool pool() {
+            return pool;
+        }
+
+        /**
+         * Derlenmiş sorgu. Düz metinde büyük/küçük harf katlaması yalnızca ASCII harfler içindir;
+         * ASCII dışı bir desen -i ile arandığında düzenli ifadeye geçilir.
+         */
+        public static final class Query {
+            private static final byte[] FOLD = new byte[256];
+            static {
+                for (int i = 0; i < 256; i++) FOLD[i] = (byte) (i >= 'A' && i <= 'Z' ? i + 32 : i);
+            }
+
+            final String text;
+            final boolean ignoreCase;
+            final byte[] literal;                    // düzenli ifadeyse null
+            final java.util.regex.Pattern regex;     // düz metinse null
+            private final int[] shift = new int[256];
+
+            private Query(String text, boolean ignoreCase, java.util.regex.Pattern regex) {
+                this.text = text;
+                this.ignoreCase = ignoreCase;
+                this.regex = regex;
+                if (regex != null) {
+                    literal = null;
+                    return;
+                }
+                byte[] b = text.getBytes(StandardCharsets.UTF_8);
+                if (ignoreCase) {
+                    for (int i = 0; i < b.length; i++) b[i] = FOLD[b[i] & 0xFF];
+                }
+                literal = b;
+                java.util.Arrays.fill(shift, Math.max(1, b.length));
+                for (int i = 0; i < b.length - 1; i++) shift[b[i] & 0xFF] = b.length - 1 - i;
+            }
+
+            /** Düz metin sorgu (ASCII katlamalı). */
+            public static Query literal(String text, boolean ignoreCase) {
+                return new Query(text, ignoreCase, null);
+            }
+
+            /**
+             * regex true olsa da desende özel karakter yoksa düz metin aranır.
+             */
+            public static Query compile(String text, boolean ignoreCase, boolean regex) {
+                boolean ascii = text.chars().allMatch(c -> c < 128);
+                if (regex && text.chars().anyMatch(c -> "\\^$.|?*+()[]{}".indexOf(c) >= 0)) {
+                    return new Query(text, ignoreCase, java.util.regex.Pattern.compile(text,
+                            ignoreCase ? java.util.regex.Pattern.CASE_INSENSITIVE | java.util.regex.Pattern.UNICODE_CASE : 0));
+                }
+                if (ignoreCase && !ascii) {
+                    return new Query(text, true, java.util.regex.Pattern.compile(java.util.regex.Pattern.quote(text),
+                            java.util.regex.Pattern.CASE_INSENSITIVE | java.util.regex.Pattern.UNICODE_CASE));
+                }
+                return literal(text, ignoreCase);
+            }
+
+            public boolean isLiteral() {
+                return literal != null;
+            }
+
+            public int length() {
+                return literal != null ? literal.length : 0;
+            }
+
+            /** Düz metin sorgunun [from, to) içindeki ilk konumu; yoksa -1. */
+            public int indexOf(java.nio.ByteBuffer b, int from, int to) {
+                byte[] p = literal;
+                int m = p.length;
+                if (m == 0) return from <= to ? from : -1;
+                int last = m - 1;
+                for (int i = from; i <= to - m; ) {
+                    int j = last;
+                    if (ignoreCase) {
+                        while (j >= 0 && FOLD[b.get(i + j) & 0xFF] == p[j]) j--;
+                        if (j < 0) return i;
+                        i += shift[FOLD[b.get(i + last) & 0xFF] & 0xFF];
+                    } else {
+                        while (j >= 0 && b.get(i + j) == p[j]) j--;
+                        if (j < 0) return i;
+                        i += shift[b.get(i + last) & 0xFF];
+                    }
+                }
+                return -1;
+            }
+
+            /** Satır içinde eşleşme var mı (boru girişi ve düzenli ifade yolu için). */
+            public boolean matches(String line) {
+                if (regex != null) return regex.matcher(line).find();
+                if (!ignoreCase) return line.contains(text);
+                for (int i = 0, n = line.length() - text.length(); i <= n; i++) {
+                    if (line.regionMatches(true, i, text, 0, text.length())) return true;
+                }
+                return false;
+            }
+        }
+
+        /** Eşleşen satır; satır numarası istenmediyse -1. */
+        public static final class Line {
+            public final String path;
+            public final long number;
+            public final String text;
+
+            Line(String path, long number, String text) {
+                this.path = path;
+                this.number = number;
+                this.text = text;
+            }
+        }
+
+        /**
+         * Dosyaları paralel tarar; sonuç dosya sırasına ve dosya içi konuma göre sıralıdır.
+         */
+        public java.util.List<Line> grep(java.util.List<String> paths, Query q, boolean invert, boolean numbers)
+                throws IOException, InterruptedException {
+            java.util.List<java.util.concurrent.ForkJoinTask<Result>> tasks = new java.util.ArrayList<>();
+            java.util.List<String> unindexed = new java.util.ArrayList<>();
+            for (String path : paths) {
+                VirtualFileSystem.Entry e = vfs.get().stat(path);
+                if (e == null) throw new java.nio.file.NoSuchFileException(path, null, "Böyle bir dosya ya da dizin yok");
+                if (e.directory) throw new IOException("Bir dizin: " + path);
+                if (!invert && q.length() >= 3 && indexing) {
+                    Trigrams t = trigrams.get(path);
+                    if (t != null && t.modified == e.modified && t.size == e.size) {
+                        if (!t.mayContain(q.literal)) continue;
+                    } else if (e.size <= INDEX_MAX_BYTES) {
+                        unindexed.add(path);
+                    }
+                }
+                java.nio.ByteBuffer data = vfs.get().read(path);
+                tasks.add(pool.submit(new ScanTask(path, data, 0, data.limit(), q, invert, numbers)));
+            }
+            java.util.List<Line> out = new java.util.ArrayList<>();
+            try {
+                for (java.util.concurrent.ForkJoinTask<Result> t : tasks) out.addAll(t.get().lines);
+            } catch (java.util.concurrent.ExecutionException ex) {
+                Throwable c = ex.getCause();
+                if (c instanceof RuntimeException) throw (RuntimeException) c;
+                throw new IOException(c);
+            } catch (InterruptedException ex) {
+                for (java.util.concurrent.ForkJoinTask<Result> t : tasks) t.cancel(true);
+                throw ex;
+            }
+            for (String path : unindexed) {
+                processes.kernel.execute(ProcessTable.Priority.BACKGROUND, () -> index(path));
+            }
+            return out;
+        }
+
+        /** Bir dosyanın trigram kümesini (yeniden) kurar. */
+        public void index(String path) {
+            try {
+                VirtualFileSystem.Entry e = vfs.get().stat(path);
+                if (e == null || e.directory || e.size > INDEX_MAX_BYTES) return;
+                Trigrams t = trigrams.get(path);
+                if (t != null && t.modified == e.modified && t.size == e.size) return;
+                trigrams.put(path, new Trigrams(e.modified, e.size, vfs.get().read(path)));
+            } catch (IOException ignored) {
+                // Dosya bu arada silindiyse indekslenmez.
+            }
+        }
+
+        public int indexedFiles() {
+            return trigrams.size();
+        }
+
+        private static final class Trigrams {
+            final long modified, size;
+            final int[] grams;   // sıralı, katlanmış 24 bitlik trigramlar
+
+            Trigrams(long modified, long size, java.nio.ByteBuffer data) {
+                this.modified = modified;
+                this.size = size;
+                java.util.BitSet seen = new java.util.BitSet(1 << 24);
+                int g = 0;
+                for (int i = 0, n = data.limit(); i < n; i++) {
+                    g = ((g << 8) | (Query.FOLD[data.get(i) & 0xFF] & 0xFF)) & 0xFFFFFF;
+                    if (i >= 2) seen.set(g);
+                }
+                grams = seen.stream().toArray();
+            }
+
+            boolean mayContain(byte[] p) {
+                for (int i = 0; i + 2 < p.length; i++) {
+                    int g = (Query.FOLD[p[i] & 0xFF] & 0xFF) << 16 | (Query.FOLD[p[i + 1] & 0xFF] & 0xFF) << 8
+                            | (Query.FOLD[p[i + 2] & 0xFF] & 0xFF);
+                    if (java.util.Arrays.binarySearch(grams, g) < 0) return false;
+                }
+                return true;
+            }
+        }
+
+        private static final class Result {
+            final java.util.List<Line> lines;
+            final long newlines;
+
+            Result(java.util.List<Line> lines, long newlines) {
+                this.lines = lines;
+                this.newlines = newlines;
+            }
+        }
+
+        // Aralığı satır sınırından ikiye böler; yapraklar kendi parçasını tarar.
+        private static final class ScanTask extends java.util.concurrent.RecursiveTask<Result> {
+            private final String path;
+            private final java.nio.ByteBuffer data;
+            private final int from, to;
+            private final Query q;
+            private final boolean invert, numbers;
+
+            ScanTask(String path, java.nio.ByteBuffer data, int from, int to, Query q, boolean invert, boolean numbers) {
+                this.path = path;
+                this.data = data;
+                this.from = from;
+                this.to = to;
+                this.q = q;
+                this.invert = invert;
+                this.numbers = numbers;
+            }
+
+            protected Result compute() {
+                if (to - from > CHUNK) {
+                    int mid = from + (to - from) / 2;
+                    while (mid < to && data.get(mid - 1) != '\n') mid++;
+                    if (mid < to) {
+                        ScanTask left = new ScanTask(path, data, from, mid, q, invert, numbers);
+                        ScanTask right = new ScanTask(path, data, mid, to, q, invert, numbers);
+                        left.fork();
+                        Result r = right.compute();
+                        Result l = left.join();
+                        java.util.List<Line> lines = new java.util.ArrayList<>(l.lines.size() + r.lines.size());
+                        lines.addAll(l.lines);
+                        for (Line line : r.lines) {
+                            lines.add(numbers ? new Line(path, line.number + l.newlines, line.text) : line);
+                        }
+                        return new Result(lines, l.newlines + r.newlines);
+                    }
+                }
+                return q.isLiteral() && !invert ? scanLiteral() : scanLines();
+            }
+
+            // Eşleşmeden eşleşmeye atlar; satır sonu yalnızca satır numarası istendiyse sayılır.
+            private Result scanLiteral() {
+                java.util.List<Line> lines = new java.util.ArrayList<>();
+                long newlines = 0;
+                int counted = from;
+                for (int pos = from; pos < to; ) {
+                    int hit = q.indexOf(data, pos, to);
+                    if (hit < 0) break;
+                    int start = hit, end = hit;
+                    while (start > from && data.get(start - 1) != '\n') start--;
+                    while (end < to && data.get(end) != '\n') end++;
+                    if (numbers) {
+                        newlines += count(counted, start);
+                        counted = start;
+                    }
+                    lines.add(new Line(path, numbers ? newlines + 1 : -1, decode(start, end)));
+                    pos = end + 1;
+                }
+                if (numbers) newlines += count(counted, to);
+                return new Result(lines, newlines);
+            }
+
+            private Result scanLines() {
+                java.util.List<Line> lines = new java.util.ArrayList<>();
+                long number = 0;
+                for (int start = from; start < to; ) {
+                    int end = start;
+                    while (end < to && data.get(end) != '\n') end++;
+                    number++;
+                    boolean hit;
+                    String text = null;
+                    if (q.isLiteral()) {
+                        hit = q.indexOf(data, start, end) >= 0;
+                    } else {
+                        text = decode(start, end);
+                        hit = q.matches(text);
+                    }
+                    if (hit != invert) lines.add(new Line(path, numbers ? number : -1, text != null ? text : decode(start, end)));
+                    start = end + 1;
+                }
+                return new Result(lines, number);
+            }
+
+            private long count(int a, int b) {
+                long n = 0;
+                for (int i = a; i < b; i++) {
+                    if (data.get(i) == '\n') n++;
+                }
+                return n;
+            }
+
+            private String decode(int start, int end) {
+                if (end > start && data.get(end - 1) == '\r') end--;
+                byte[] b = new byte[end - start];
+                data.get(start, b);
+                return new String(b, StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    /**
+     * Veri komutlarının (sort, uniq, stats, topk, sum) motoru. VFS dosyaları eşlenmiş imajdan
+     * kopyalanmadan satır sınırında ~4 MB'lık parçalara bölünür; boru girişi aynı boyda bayt
+     * bloklarında toplanır. Parçalar havuzda paralel işlenir, sonuçlar giriş sırasıyla birleşir;
+     * sayılar String'e çevrilmeden doğrudan baytlardan okunur.
+     *
+     * Bellek bütçesi (-S, javaos.data.memory; varsayılan yığının dörtte biri) dolunca sort sıralı
+     * koşuları, stats yüzdelik için tuttuğu değerleri, topk sayaçlarını geçici dosyalara döker
+     * (javaos.data.tmp, yoksa java.io.tmpdir) ve sonunda bunları akış halinde birleştirir; girişin
+     * boyutu yığınla sınırlı değildir.
+     */
+    public static class DataTools {
+        private static final int CHUNK = 4 << 20;
+        private static final int FAN_IN = 64;
+        private static final int PARTITIONS = 32;
+        private static final int IO_BUFFER = 1 << 16;
+
+        private final java.util.function.Supplier<VirtualFileSystem> vfs;
+        private final java.util.concurrent.ForkJoinPool pool;
+        private final Metrics metrics;
+        private final java.nio.file.Path tmp = Paths.get(System.getProperty("javaos.data.tmp", System.getProperty("java.io.tmpdir")));
+        private final long defaultMemory = Long.getLong("javaos.data.memory",
+                Math.max(16L << 20, Runtime.getRuntime().maxMemory() / 4));
+
+        public DataTools(java.util.function.Supplier<VirtualFileSystem> vfs, java.util.concurrent.ForkJoinPool pool, Metrics metrics) {
+            this.vfs = vfs;
+            this.pool = pool;
+            this.metrics = metrics;
+        }
+
+        /**
+         * Ortak seçenekler. -k alan (1'den başlar, 0 bütün satır), -t ayraç (tek ASCII karakter;
+         * yoksa boşluk dizileri), -S bellek (512K, 64M, 1G), -p yüzdelikler (50,90,99 ya da none).
+         */
+        public static final class Options {
+            public boolean numeric, reverse, unique, count, repeated;
+            public int field;
+            public byte separator;
+            public long memory;
+            public double[] percentiles = {50, 90, 99};
+            public String[] operands = new String[0];
+
+            /** flags: komutun kabul ettiği seçenek harfleri. Seçenekler işlenenlerle karışık olabilir; -- sonrası işlenendir. */
+            public static Options parse(String[] args, String flags, long memory, String usage) {
+                Options o = new Options();
+                o.memory = memory;
+                java.util.List<String> operands = new java.util.ArrayList<>();
+                for (int i = 0; i < args.length; i++) {
+                    String a = args[i];
+                    if (a.equals("--")) {
+                        operands.addAll(java.util.Arrays.asList(args).subList(i + 1, args.length));
+                        break;
+                    }
+                    if (!a.startsWith("-") || a.length() == 1) {
+                        operands.add(a);
+                        continue;
+                    }
+                    for (int j = 1; j < a.length(); j++) {
+                        char c = a.charAt(j);
+                        if (flags.indexOf(c) < 0) throw new IllegalArgumentException("Bilinmeyen seçenek: -" + c + "\n" + usage);
+                        if ("ktSp".indexOf(c) >= 0) {
+                            String v = j + 1 < a.length() ? a.substring(j + 1) : ++i < args.length ? args[i] : null;
+                            if (v == null) throw new IllegalArgumentException(usage);
+                            o.value(c, v, usage);
+                            break;
+                        }
+                        switch (c) {
+                            case 'n': o.numeric = true; break;
+                            case 'r': o.reverse = true; break;
+                            case 'u': o.unique = true; break;
+                            case 'c': o.count = true; break;
+                            case 'd': o.repeated = true; break;
+                            default: throw new IllegalArgumentException(usage);
+                        }
+                    }
+                }
+                o.operands = operands.toArray(new String[0]);
+                return o;
+            }
+
+            private void value(char c, String v, String usage) {
+                try {
+                    switch (c) {
+                        case 'k':
+                            field = Integer.parseInt(v);
+                            if (field < 0) throw new NumberFormatException();
+                            break;
+                        case 't':
+                            if (v.length() != 1 || v.charAt(0) > 127) throw new IllegalArgumentException("Ayraç tek bir ASCII karakter olmalı: " + v);
+                            separator = (byte) v.charAt(0);
+                            break;
+                        case 'S':
+                            memory = parseSize(v);
+                            break;
+                        default:
+                            if (v.equals("none")) {
+                                percentiles = new double[0];
+                                break;
+                            }
+                            String[] parts = v.split(",");
+                            percentiles = new double[parts.length];
+                            for (int k = 0; k < parts.length; k++) {
+                                percentiles[k] = Double.parseDouble(parts[k]);
+                                if (!(percentiles[k] >= 0 && percentiles[k] <= 100)) throw new NumberFormatException();
+                            }
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Geçersiz değer: -" + c + " " + v + "\n" + usage);
+                }
+            }
+
+            private static long parseSize(String v) {
+                char unit = Character.toUpperCase(v.charAt(v.length() - 1));
+                int shift = unit == 'K' ? 10 : unit == 'M' ? 20 : unit == 'G' ? 30 : 0;
+                long n = Long.parseLong(shift == 0 ? v : v.substring(0, v.length() - 1)) << shift;
+                if (n < 1 << 20) throw new NumberFormatException();
+                return n;
+            }
+        }
+
+        public Options options(String[] args, String flags, String usage) {
+            return Options.parse(args, flags, defaultMemory, usage);
+        }
+
+        // ---- sort ----
+
+        /**
+         * Satırları sıralar: -n sayısal (alanın ilk kelimesi; üslü ve ondalıklı, sayı olmayanlar
+         * başa), -r ters, -u eşitlerden yalnızca ilki. Sıralama kararlıdır; metin karşılaştırması
+         * UTF-8 baytları üzerinden (kod noktası sırası) yapılır.
+         */
+        public void sort(Options o, LineReader in, LineWriter out) throws Exception {
+            java.util.List<java.nio.file.Path> runs = new java.util.ArrayList<>();
+            java.util.List<Block> held = new java.util.ArrayList<>();
+            long[] heldBytes = {0};
+            try {
+                process(o.operands, in, (chunk, index) -> sortBlock(chunk, o), block -> {
+                    held.add(block);
+                    heldBytes[0] += block.bytes();
+                    if (heldBytes[0] >= o.memory) {
+                        runs.add(spill(blockCursors(held), o));
+                        held.clear();
+                        heldBytes[0] = 0;
+                    }
+                });
+                // Açık dosya sayısı sınırlı: en eski koşular bir üst koşuda birleşir (sıra korunur).
+                while (runs.size() > FAN_IN) {
+                    java.util.List<java.nio.file.Path> first = new java.util.ArrayList<>(runs.subList(0, FAN_IN));
+                    java.nio.file.Path merged = spill(fileCursors(first), o);
+                    runs.subList(0, FAN_IN).clear();
+                    runs.add(0, merged);
+                    for (java.nio.file.Path p : first) Files.deleteIfExists(p);
+                }
+                java.util.List<Cursor> cursors = fileCursors(runs);
+                cursors.addAll(blockCursors(held));
+                try {
+                    merge(cursors, o, c -> out.println(c.line()));
+                } finally {
+                    for (Cursor c : cursors) c.close();
+                }
+            } finally {
+                for (java.nio.file.Path p : runs) Files.deleteIfExists(p);
+            }
+        }
+
+        // Bir parçanın kayıtları: satır ve alan sınırları, 64 bitlik anahtarlar ve sıralı dizin.
+        private static final class Block {
+            final java.nio.ByteBuffer data;
+            final long[] keys;        // order sırasında
+            final int[] order, starts, ends, fieldStarts, fieldEnds;
+
+            Block(java.nio.ByteBuffer data, long[] keys, int[] order, int[] starts, int[] ends, int[] fieldStarts, int[] fieldEnds) {
+                this.data = data;
+                this.keys = keys;
+                this.order = order;
+                this.starts = starts;
+                this.ends = ends;
+                this.fieldStarts = fieldStarts;
+                this.fieldEnds = fieldEnds;
+            }
+
+            long bytes() {
+                long perRecord = fieldStarts == starts ? 20 : 28;
+                return (data.hasArray() ? data.array().length : 0) + perRecord * keys.length;
+            }
+        }
+
+        /**
+         * Anahtar: metinde alanın ilk 8 baytı (büyük uçlu), sayısalda işaretsiz sıraya çevrilmiş
+         * double bitleri; -r'de tersi. Anahtarlar taban sıralamasıyla dizilir, metinde eşit
+         * anahtarlı aralıklar tam bayt karşılaştırmasıyla düzeltilir.
+         */
+        private static Block sortBlock(java.nio.ByteBuffer data, Options o) {
+            int limit = data.limit(), n = 0;
+            for (int i = 0; i < limit; i++) {
+                if (data.get(i) == '\n') n++;
+            }
+            if (limit > 0 && data.get(limit - 1) != '\n') n++;
+            long[] keys = new long[n];
+            int[] order = new int[n], starts = new int[n], ends = new int[n];
+            int[] fieldStarts = o.field == 0 ? starts : new int[n], fieldEnds = o.field == 0 ? ends : new int[n];
+            int[] bounds = new int[2];
+            NumberScanner scanner = new NumberScanner();
+            for (int r = 0, start = 0; r < n; r++) {
+                int end = start;
+                while (end < limit && data.get(end) != '\n') end++;
+                int next = end + 1;
+                if (end > start && data.get(end - 1) == '\r') end--;
+                starts[r] = start;
+                ends[r] = end;
+                field(data, start, end, o.field, o.separator, bounds);
+                fieldStarts[r] = bounds[0];
+                fieldEnds[r] = bounds[1];
+                long key;
+                if (o.numeric) {
+                    key = firstWord(data, bounds) && scanner.scan(data, bounds[0], bounds[1])
+                            ? sortable(scanner.value) ^ Long.MIN_VALUE : 0;
+                } else {
+                    key = 0;
+                    for (int k = 0; k < 8; k++) key = key << 8 | (bounds[0] + k < bounds[1] ? data.get(bounds[0] + k) & 0xFF : 0);
+                }
+                keys[r] = o.reverse ? ~key : key;
+                order[r] = r;
+                start = next;
+            }
+            radixSort(keys, order, n);
+            if (!o.numeric) {
+                int[] tmp = new int[n];
+                int sign = o.reverse ? -1 : 1;
+                IntComparator byField = (a, b) -> sign * compare(data, fieldStarts[a], fieldEnds[a], data, fieldStarts[b], fieldEnds[b]);
+                for (int i = 0; i < n; ) {
+                    int j = i + 1;
+                    while (j < n && keys[j] == keys[i]) j++;
+                    if (j - i > 1) mergeSort(order, i, j, tmp, byField);
+                    i = j;
+                }
+            }
+            return new Block(data, keys, order, starts, ends, fieldStarts, fieldEnds);
+        }
+
+        // double -> işaretli long; long sırası sayı sırasıyla aynıdır (-0.0 < 0.0).
+        private static long sortable(double v) {
+            long bits = Double.doubleToLongBits(v);
+            return bits ^ (bits >> 63 & Long.MAX_VALUE);
+        }
+
+        // İşaretsiz 64 bitlik anahtarlar üzerinde kararlı LSD taban sıralaması; tek değerli baytlar atlanır.
+        private static void radixSort(long[] keys, int[] order, int n) {
+            if (n < 2) return;
+            long[] k2 = new long[n];
+            int[] o2 = new int[n];
+            int[] counts = new int[257];
+            long[] srcK = keys, dstK = k2;
+            int[] srcO = order, dstO = o2;
+            for (int shift = 0; shift < 64; shift += 8) {
+                java.util.Arrays.fill(counts, 0);
+                for (int i = 0; i < n; i++) counts[(int) (srcK[i] >>> shift & 0xFF) + 1]++;
+                if (counts[(int) (srcK[0] >>> shift & 0xFF) + 1] == n) continue;
+                for (int b = 1; b < 257; b++) counts[b] += counts[b - 1];
+                for (int i = 0; i < n; i++) {
+                    int slot = counts[(int) (srcK[i] >>> shift & 0xFF)]++;
+                    dstK[slot] = srcK[i];
+                    dstO[slot] = srcO[i];
+                }
+                long[] tk = srcK;
+                srcK = dstK;
+                dstK = tk;
+                int[] to = srcO;
+                srcO = dstO;
+                dstO = to;
+            }
+            if (srcK != keys) {
+                System.arraycopy(srcK, 0, keys, 0, n);
+                System.arraycopy(srcO, 0, order, 0, n);
+            }
+        }
+
+        private interface IntComparator {
+            int compare(int a, int b);
+        }
+
+        // Kararlı birleştirmeli sıralama; kısa aralıklarda araya ekleme.
+        private static void mergeSort(int[] a, int from, int to, int[] tmp, IntComparator c) {
+            if (to - from <= 16) {
+                for (int i = from + 1; i < to; i++) {
+                    int v = a[i], j = i - 1;
+                    while (j >= from && c.compare(a[j], v) > 0) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = v;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            mergeSort(a, from, mid, tmp, c);
+            mergeSort(a, mid, to, tmp, c);
+            if (c.compare(a[mid - 1], a[mid]) <= 0) return;
+            System.arraycopy(a, from, tmp, from, to - from);
+            for (int i = from, l = from, r = mid; i < to; i++) {
+                a[i] = r >= to || l < mid && c.compare(tmp[l], tmp[r]) <= 0 ? tmp[l++] : tmp[r++];
+            }
+        }
+
+        // İşaretsiz bayt karşılaştırması; iki taraf da yığın dizisiyse vektörleşmiş yol.
+        private static int compare(java.nio.ByteBuffer a, int as, int ae, java.nio.ByteBuffer b, int bs, int be) {
+            if (a.hasArray() && b.hasArray()) {
+                return java.util.Arrays.compareUnsigned(a.array(), a.arrayOffset() + as, a.arrayOffset() + ae,
+                        b.array(), b.arrayOffset() + bs, b.arrayOffset() + be);
+            }
+            int n = Math.min(ae - as, be - bs);
+            for (int i = 0; i < n; i++) {
+                int x = a.get(as + i) & 0xFF, y = b.get(bs + i) & 0xFF;
+                if (x != y) return x - y;
+            }
+            return (ae - as) - (be - bs);
+        }
+
+        /** Birleştirme girdisi: bellekteki sıralı parça ya da diske dökülmüş koşu. */
+        private abstract static class Cursor {
+            int rank;
+            long key;
+            java.nio.ByteBuffer data;
+            int start, end, fieldStart, fieldEnd;
+
+            abstract boolean next() throws IOException;
+
+            void close() throws IOException {
+            }
+
+            String line() {
+                if (data.hasArray()) return new String(data.array(), data.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+                byte[] b = new byte[end - start];
+                data.get(start, b);
+                return new String(b, StandardCharsets.UTF_8);
+            }
+        }
+
+        private static final class BlockCursor extends Cursor {
+            private final Block block;
+            private int pos;
+
+            BlockCursor(Block block) {
+                this.block = block;
+                this.data = block.data;
+            }
+
+            boolean next() {
+                if (pos == block.keys.length) return false;
+                int r = block.order[pos];
+                key = block.keys[pos++];
+                start = block.starts[r];
+                end = block.ends[r];
+                fieldStart = block.fieldStarts[r];
+                fieldEnd = block.fieldEnds[r];
+                return true;
+            }
+        }
+
+        // Koşu kaydı: [anahtar][satır uzunluğu][alan başı][alan sonu][UTF-8 satır]. Satır okuma
+        // tamponunun içinden gösterilir, kopyalanmaz.
+        private static final class FileCursor extends Cursor {
+            private final RunReader in;
+
+            FileCursor(java.nio.file.Path path) throws IOException {
+                in = new RunReader(path);
+            }
+
+            boolean next() throws IOException {
+                if (!in.require(20)) return false;
+                java.nio.ByteBuffer b = in.buffer;
+                int p = in.pos, len = b.getInt(p + 8);
+                key = b.getLong(p);
+                fieldStart = b.getInt(p + 12);
+                fieldEnd = b.getInt(p + 16);
+                in.pos += 20;
+                if (!in.require(len)) throw new java.io.EOFException();
+                data = in.buffer;
+                start = in.pos;
+                end = start + len;
+                fieldStart += start;
+                fieldEnd += start;
+                in.pos = end;
+                return true;
+            }
+
+            void close() throws IOException {
+                in.close();
+            }
+        }
+
+        private java.util.List<Cursor> blockCursors(java.util.List<Block> blocks) {
+            java.util.List<Cursor> out = new java.util.ArrayList<>();
+            for (Block b : blocks) out.add(new BlockCursor(b));
+            return out;
+        }
+
+        private java.util.List<Cursor> fileCursors(java.util.List<java.nio.file.Path> runs) throws IOException {
+            java.util.List<Cursor> out = new java.util.ArrayList<>();
+            try {
+                for (java.nio.file.Path p : runs) out.add(new FileCursor(p));
+            } catch (IOException e) {
+                for (Cursor c : out) c.close();
+                throw e;
+            }
+            return out;
+        }
+
+        private java.nio.file.Path spill(java.util.List<Cursor> cursors, Options o) throws Exception {
+            java.nio.file.Path path = Files.createTempFile(tmp, "javaos-sort", ".run");
+            boolean done = false;
+            try (RunWriter w = new RunWriter(path, IO_BUFFER)) {
+                merge(cursors, o, c -> {
+                    w.putLong(c.key);
+                    w.putInt(c.end - c.start);
+                    w.putInt(c.fieldStart - c.start);
+                    w.putInt(c.fieldEnd - c.start);
+                    w.put(c.data, c.start, c.end - c.start);
+                });
+                done = true;
+            } finally {
+                for (Cursor c : cursors) c.close();
+                if (!done) Files.deleteIfExists(path);
+            }
+            metrics.counter("data.spills").increment();
+            metrics.counter("data.spillBytes").add(Files.size(path));
+            return path;
+        }
+
+        private interface RecordSink {
+            void accept(Cursor c) throws Exception;
+        }
+
+        // k yollu birleştirme (ikili yığın); eşitlikte önceki koşu önce gelir, -u tekrarları atar.
+        private static void merge(java.util.List<Cursor> cursors, Options o, RecordSink sink) throws Exception {
+            Cursor[] heap = new Cursor[cursors.size()];
+            int n = 0;
+            for (int i = 0; i < cursors.size(); i++) {
+                Cursor c = cursors.get(i);
+                c.rank = i;
+                if (c.next()) heap[n++] = c;
+            }
+            for (int i = n / 2 - 1; i >= 0; i--) siftDown(heap, i, n, o);
+            byte[] prev = new byte[256];
+            int prevLen = -1;
+            long prevKey = 0, polled = 0;
+            while (n > 0) {
+                Cursor top = heap[0];
+                int len = top.fieldEnd - top.fieldStart;
+                if (!o.unique || prevLen < 0 || top.key != prevKey || !o.numeric && !sameField(top, prev, prevLen)) {
+                    sink.accept(top);
+                    if (o.unique) {
+                        if (prev.length < len) prev = new byte[Math.max(len, prev.length * 2)];
+                        top.data.get(top.fieldStart, prev, 0, len);
+                        prevLen = len;
+                        prevKey = top.key;
+                    }
+                }
+                if ((++polled & 0xFFFF) == 0 && Thread.interrupted()) throw new InterruptedException();
+                if (!top.next()) heap[0] = heap[--n];
+                siftDown(heap, 0, n, o);
+            }
+        }
+
+        private static boolean sameField(Cursor c, byte[] prev, int prevLen) {
+            if (c.fieldEnd - c.fieldStart != prevLen) return false;
+            return compare(c.data, c.fieldStart, c.fieldEnd, java.nio.ByteBuffer.wrap(prev), 0, prevLen) == 0;
+        }
+
+        private static void siftDown(Cursor[] heap, int i, int n, Options o) {
+            Cursor c = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= n) break;
+                if (child + 1 < n && before(heap[child + 1], heap[child], o)) child++;
+                if (!before(heap[child], c, o)) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = c;
+        }
+
+        private static boolean before(Cursor a, Cursor b, Options o) {
+            int c = Long.compareUnsigned(a.key, b.key);
+            if (c == 0 && !o.numeric) {
+                c = compare(a.data, a.fieldStart, a.fieldEnd, b.data, b.fieldStart, b.fieldEnd);
+                if (o.reverse) c = -c;
+            }
+            return c < 0 || c == 0 && a.rank < b.rank;
+        }
+
+        // ---- stats ve sum ----
+
+        /**
+         * Sayı, toplam, en küçük/büyük, ortalama ve standart sapma; parça sonuçları merge ile
+         * birleşir. Tam sayıların toplamı kesindir (long taşarsa BigInteger), ondalıklı girişte
+         * telafili (Neumaier) double toplamı kullanılır.
+         */
+        public static final class Summary {
+            public long count, invalid;
+            public double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            public String firstInvalid;
+            public double[] percentiles = new double[0];
+            private boolean integral = true;
+            private long exact;
+            private java.math.BigInteger overflow;
+            private double sum, compensation, mean, m2;
+
+            void add(NumberScanner n) {
+                double v = n.value;
+                count++;
+                if (integral && n.integral) {
+                    long s = exact + n.integer;
+                    if (((exact ^ s) & (n.integer ^ s)) < 0) {
+                        overflow = (overflow == null ? java.math.BigInteger.ZERO : overflow).add(java.math.BigInteger.valueOf(exact));
+                        s = n.integer;
+                    }
+                    exact = s;
+                } else {
+                    integral = false;
+                }
+                double t = sum + v;
+                if (Double.isFinite(t)) compensation += Math.abs(sum) >= Math.abs(v) ? (sum - t) + v : (v - t) + sum;
+                sum = t;
+                if (v < min) min = v;
+                if (v > max) max = v;
+                double d = v - mean;
+                mean += d / count;
+                m2 += d * (v - mean);
+            }
+
+            void invalid(java.nio.ByteBuffer b, int from, int to) {
+                if (invalid++ == 0) {
+                    byte[] text = new byte[to - from];
+                    b.get(from, text);
+                    firstInvalid = new String(text, StandardCharsets.UTF_8);
+                }
+            }
+
+            /** Sonraki (girişte daha sonra gelen) parçanın özetini ekler. */
+            void merge(Summary o) {
+                if (firstInvalid == null) firstInvalid = o.firstInvalid;
+                invalid += o.invalid;
+                if (o.count == 0) return;
+                if (integral && o.integral) {
+                    java.math.BigInteger big = overflow;
+                    if (o.overflow != null) big = big == null ? o.overflow : big.add(o.overflow);
+                    long s = exact + o.exact;
+                    if (((exact ^ s) & (o.exact ^ s)) < 0) {
+                        big = (big == null ? java.math.BigInteger.ZERO : big).add(java.math.BigInteger.valueOf(exact));
+                        s = o.exact;
+                    }
+                    exact = s;
+                    overflow = big;
+                } else {
+                    integral = false;
+                }
+                double t = sum + o.sum;
+                if (Double.isFinite(t)) compensation += (Math.abs(sum) >= Math.abs(o.sum) ? (sum - t) + o.sum : (o.sum - t) + sum) + o.compensation;
+                sum = t;
+                min = Math.min(min, o.min);
+                max = Math.max(max, o.max);
+                long n = count + o.count;
+                double d = o.mean - mean;
+                mean += d * o.count / n;
+                m2 += o.m2 + d * d * ((double) count * o.count / n);
+                count = n;
+            }
+
+            /** Toplam: tüm değerler tam sayıysa kesin, değilse ondalıklı. */
+            public String total() {
+                if (!integral) return ExpressionEngine.format(Double.isFinite(sum) ? sum + compensation : sum);
+                return overflow == null ? Long.toString(exact) : overflow.add(java.math.BigInteger.valueOf(exact)).toString();
+            }
+
+            public double mean() {
+                return count == 0 ? Double.NaN : mean;
+            }
+
+            /** Örneklem standart sapması (n - 1). */
+            public double stddev() {
+                return count < 2 ? 0 : Math.sqrt(m2 / (count - 1));
+            }
+        }
+
+        // Parça sonucu: özet ve (yüzdelik istendiyse) sıralı değerler.
+        private static final class Values {
+            final Summary summary = new Summary();
+            double[] values;
+            int size;
+        }
+
+        /**
+         * Girişteki (ya da -k alanındaki) sayıları özetler. Boş alanlar atlanır, sayı olmayanlar
+         * invalid'e sayılır. Yüzdelikler ardışık iki sıranın doğrusal ara değeridir; değerler
+         * bütçeyi aşarsa sıralı koşular halinde diske dökülüp akışla birleştirilir.
+         */
+        public Summary stats(Options o, LineReader in) throws Exception {
+            boolean keep = o.percentiles.length > 0;
+            Summary total = new Summary();
+            java.util.List<double[]> held = new java.util.ArrayList<>();
+            java.util.List<java.nio.file.Path> runs = new java.util.ArrayList<>();
+            long[] heldBytes = {0};
+            try {
+                process(o.operands, in, (chunk, index) -> numbers(chunk, o, keep), v -> {
+                    total.merge(v.summary);
+                    if (!keep || v.size == 0) return;
+                    held.add(v.size == v.values.length ? v.values : java.util.Arrays.copyOf(v.values, v.size));
+                    heldBytes[0] += 8L * v.size;
+                    if (heldBytes[0] >= o.memory) {
+                        runs.add(spillValues(arrayCursors(held)));
+                        held.clear();
+                        heldBytes[0] = 0;
+                    }
+                });
+                if (keep && total.count > 0) {
+                    while (runs.size() > FAN_IN) {
+                        java.util.List<java.nio.file.Path> first = new java.util.ArrayList<>(runs.subList(0, FAN_IN));
+                        java.nio.file.Path merged = spillValues(valueFileCursors(first));
+                        runs.subList(0, FAN_IN).clear();
+                        runs.add(merged);
+                        for (java.nio.file.Path p : first) Files.deleteIfExists(p);
+                    }
+                    java.util.List<ValueCursor> cursors = valueFileCursors(runs);
+                    cursors.addAll(arrayCursors(held));
+                    total.percentiles = percentiles(cursors, total.count, o.percentiles);
+                }
+            } finally {
+                for (java.nio.file.Path p : runs) Files.deleteIfExists(p);
+            }
+            return total;
+        }
+
+        private static Values numbers(java.nio.ByteBuffer data, Options o, boolean keep) {
+            Values v = new Values();
+            if (keep) v.values = new double[Math.max(16, data.limit() / 8)];
+            NumberScanner scanner = new NumberScanner();
+            int[] bounds = new int[2];
+            for (int start = 0, limit = data.limit(); start < limit; ) {
+                int end = start;
+                while (end < limit && data.get(end) != '\n') end++;
+                int next = end + 1;
+                if (end > start && data.get(end - 1) == '\r') end--;
+                field(data, start, end, o.field, o.separator, bounds);
+                start = next;
+                if (!trim(data, bounds)) continue;
+                if (!scanner.scan(data, bounds[0], bounds[1])) {
+                    v.summary.invalid(data, bounds[0], bounds[1]);
+                    continue;
+                }
+                v.summary.add(scanner);
+                if (keep) {
+                    if (v.size == v.values.length) v.values = java.util.Arrays.copyOf(v.values, v.size * 2);
+                    v.values[v.size++] = scanner.value;
+                }
+            }
+            if (keep) java.util.Arrays.sort(v.values, 0, v.size);
+            return v;
+        }
+
+        private abstract static class ValueCursor {
+            double value;
+
+            abstract boolean next() throws IOException;
+
+            void close() throws IOException {
+            }
+        }
+
+        private java.util.List<ValueCursor> arrayCursors(java.util.List<double[]> arrays) {
+            java.util.List<ValueCursor> out = new java.util.ArrayList<>();
+            for (double[] a : arrays) {
+                out.add(new ValueCursor() {
+                    int pos;
+
+                    boolean next() {
+                        if (pos == a.length) return false;
+                        value = a[pos++];
+                        return true;
+                    }
+                });
+            }
+            return out;
+        }
+
+        private java.util.List<ValueCursor> valueFileCursors(java.util.List<java.nio.file.Path> runs) throws IOException {
+            java.util.List<ValueCursor> out = new java.util.ArrayList<>();
+            try {
+                for (java.nio.file.Path p : runs) {
+                    RunReader in = new RunReader(p);
+                    out.add(new ValueCursor() {
+                        boolean next() throws IOException {
+                            if (!in.require(8)) return false;
+                            value = in.buffer.getDouble(in.pos);
+                            in.pos += 8;
+                            return true;
+                        }
+
+                        void close() throws IOException {
+                            in.close();
+                        }
+                    });
+                }
+            } catch (IOException e) {
+                for (ValueCursor c : out) c.close();
+                throw e;
+            }
+            return out;
+        }
+
+        private java.nio.file.Path spillValues(java.util.List<ValueCursor> cursors) throws Exception {
+            java.nio.file.Path path = Files.createTempFile(tmp, "javaos-stats", ".run");
+            boolean done = false;
+            try (RunWriter w = new RunWriter(path, IO_BUFFER)) {
+                mergeValues(cursors, w::putDouble);
+                done = true;
+            } finally {
+                for (ValueCursor c : cursors) c.close();
+                if (!done) Files.deleteIfExists(path);
+            }
+            metrics.counter("data.spills").increment();
+            metrics.counter("data.spillBytes").add(Files.size(path));
+            return path;
+        }
+
+        private interface ValueSink {
+            void accept(double v) throws Exception;
+        }
+
+        private static void mergeValues(java.util.List<ValueCursor> cursors, ValueSink sink) throws Exception {
+            ValueCursor[] heap = new ValueCursor[cursors.size()];
+            int n = 0;
+            for (ValueCursor c : cursors) {
+                if (c.next()) heap[n++] = c;
+            }
+            for (int i = n / 2 - 1; i >= 0; i--) siftDown(heap, i, n);
+            long polled = 0;
+            while (n > 0) {
+                ValueCursor top = heap[0];
+                sink.accept(top.value);
+                if ((++polled & 0xFFFF) == 0 && Thread.interrupted()) throw new InterruptedException();
+                if (!top.next()) heap[0] = heap[--n];
+                siftDown(heap, 0, n);
+            }
+        }
+
+        private static void siftDown(ValueCursor[] heap, int i, int n) {
+            ValueCursor c = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= n) break;
+                if (child + 1 < n && heap[child + 1].value < heap[child].value) child++;
+                if (heap[child].value >= c.value) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = c;
+        }
+
+        // Sıralı akışta gereken sıralardaki değerleri toplar, yüzdelikleri ara değerler.
+        private static double[] percentiles(java.util.List<ValueCursor> cursors, long count, double[] ps) throws Exception {
+            long[] ranks = new long[ps.length * 2];
+            for (int i = 0; i < ps.length; i++) {
+                double pos = ps[i] / 100 * (count - 1);
+                ranks[2 * i] = (long) Math.floor(pos);
+                ranks[2 * i + 1] = (long) Math.ceil(pos);
+            }
+            long[] wanted = java.util.Arrays.stream(ranks).distinct().sorted().toArray();
+            double[] found = new double[wanted.length];
+            long[] rank = {0};
+            int[] next = {0};
+            try {
+                mergeValues(cursors, v -> {
+                    while (next[0] < wanted.length && wanted[next[0]] == rank[0]) found[next[0]++] = v;
+                    rank[0]++;
+                    if (next[0] == wanted.length) throw new StopMerge();
+                });
+            } catch (StopMerge ignored) {
+                // gereken son sıraya ulaşıldı
+            } finally {
+                for (ValueCursor c : cursors) c.close();
+            }
+            double[] out = new double[ps.length];
+            for (int i = 0; i < ps.length; i++) {
+                double pos = ps[i] / 100 * (count - 1);
+                double lo = found[java.util.Arrays.binarySearch(wanted, ranks[2 * i])];
+                double hi = found[java.util.Arrays.binarySearch(wanted, ranks[2 * i + 1])];
+                out[i] = lo + (hi - lo) * (pos - Math.floor(pos));
+            }
+            return out;
+        }
+
+        private static final class StopMerge extends RuntimeException {
+            StopMerge() {
+                super(null, null, false, false);
+            }
+        }
+
+        /** sum için: giriş satırlarındaki sayılar, yüzdeliksiz. */
+        public Summary summarize(LineReader in) throws Exception {
+            Options o = new Options();
+            o.memory = defaultMemory;
+            o.percentiles = new double[0];
+            return stats(o, in);
+        }
+
+        /** sum için: bağımsız değişkenlerdeki sayılar. */
+        public static Summary summarize(String[] numbers) {
+            Summary s = new Summary();
+            NumberScanner scanner = new NumberScanner();
+            for (String a : numbers) {
+                java.nio.ByteBuffer b = java.nio.ByteBuffer.wrap(a.getBytes(StandardCharsets.UTF_8));
+                if (scanner.scan(b, 0, b.limit())) s.add(scanner);
+                else s.invalid(b, 0, b.limit());
+            }
+            return s;
+        }
+
+        // ---- topk ----
+
+        /**
+         * En sık k değer (sayımları, çoktan aza; eşitlikte bayt sırasıyla) ya da -n ile alan değeri
+         * en büyük k satır (-r: en küçük; eşitlikte girişteki sıra). Sayaçlar bütçeyi aşarsa
+         * anahtarın özetine göre PARTITIONS dosyaya bölünür, her bölüm ayrı sayılır.
+         */
+        public void topk(Options o, int k, LineReader in, LineWriter out) throws Exception {
+            if (k <= 0) return;
+            TopK top = new TopK(k);
+            if (o.numeric) {
+                process(o.operands, in, (chunk, index) -> topLines(chunk, index, o, k), part -> {
+                    for (int i = 0; i < part.size; i++) {
+                        if (top.accepts(part.primary[i], part.secondary[i], null, 0, 0)) {
+                            top.add(part.primary[i], part.secondary[i], part.payload[i]);
+                        }
+                    }
+                });
+                for (int i : top.ranked()) out.println((String) top.payload[i]);
+                return;
+            }
+
+            KeyCounts counts = new KeyCounts(1 << 12);
+            java.nio.file.Path[] parts = new java.nio.file.Path[PARTITIONS];
+            RunWriter[] writers = new RunWriter[PARTITIONS];
+            try {
+                process(o.operands, in, (chunk, index) -> countKeys(chunk, o), local -> {
+                    counts.addAll(local);
+                    if (counts.bytes() >= o.memory) {
+                        spillCounts(counts, parts, writers);
+                        counts.clear();
+                    }
+                });
+                if (writers[0] == null) {
+                    counts.offerAll(top);
+                } else {
+                    spillCounts(counts, parts, writers);
+                    counts.clear();
+                    for (int p = 0; p < PARTITIONS; p++) {
+                        writers[p].close();
+                        writers[p] = null;
+                        KeyCounts partition = new KeyCounts(1 << 12);
+                        try (RunReader r = new RunReader(parts[p])) {
+                            while (r.require(4)) {
+                                int len = r.buffer.getInt(r.pos);
+                                r.pos += 4;
+                                if (!r.require(len + 8)) throw new java.io.EOFException();
+                                partition.add(r.buffer, r.pos, r.pos + len, r.buffer.getLong(r.pos + len));
+                                r.pos += len + 8;
+                            }
+                        }
+                        Files.delete(parts[p]);
+                        partition.offerAll(top);
+                        if (Thread.interrupted()) throw new InterruptedException();
+                    }
+                }
+            } finally {
+                for (int p = 0; p < PARTITIONS; p++) {
+                    if (writers[p] != null) writers[p].close();
+                    if (parts[p] != null) Files.deleteIfExists(parts[p]);
+                }
+            }
+            for (int i : top.ranked()) {
+                out.println(String.format("%7d %s", top.primary[i], new String((byte[]) top.payload[i], StandardCharsets.UTF_8)));
+            }
+        }
+
+        private void spillCounts(KeyCounts counts, java.nio.file.Path[] parts, RunWriter[] writers) throws IOException {
+            if (writers[0] == null) {
+                for (int p = 0; p < PARTITIONS; p++) {
+                    parts[p] = Files.createTempFile(tmp, "javaos-topk", ".part");
+                    writers[p] = new RunWriter(parts[p], 1 << 15);
+                }
+            }
+            long bytes = 0;
+            for (int e = 0; e < counts.size; e++) {
+                int from = counts.offsets[e], len = counts.offsets[e + 1] - from;
+                // Tablo konumu alt bitlerden, bölüm üst bitlerden: bölüm içinde dağılım bozulmaz.
+                RunWriter w = writers[counts.hashes[e] >>> 27];
+                w.putInt(len);
+                w.put(counts.view, from, len);
+                w.putLong(counts.counts[e]);
+                bytes += 12 + len;
+            }
+            metrics.counter("data.spills").increment();
+            metrics.counter("data.spillBytes").add(bytes);
+        }
+
+        private static KeyCounts countKeys(java.nio.ByteBuffer data, Options o) {
+            KeyCounts counts = new KeyCounts(1 << 10);
+            int[] bounds = new int[2];
+            for (int start = 0, limit = data.limit(); start < limit; ) {
+                int end = start;
+                while (end < limit && data.get(end) != '\n') end++;
+                int next = end + 1;
+                if (end > start && data.get(end - 1) == '\r') end--;
+                field(data, start, end, o.field, o.separator, bounds);
+                counts.add(data, bounds[0], bounds[1], 1);
+                start = next;
+            }
+            return counts;
+        }
+
+        private static TopK topLines(java.nio.ByteBuffer data, int chunk, Options o, int k) {
+            TopK top = new TopK(k);
+            NumberScanner scanner = new NumberScanner();
+            int[] bounds = new int[2];
+            for (int start = 0, limit = data.limit(); start < limit; ) {
+                int end = start;
+                while (end < limit && data.get(end) != '\n') end++;
+                int next = end + 1;
+                if (end > start && data.get(end - 1) == '\r') end--;
+                field(data, start, end, o.field, o.separator, bounds);
+                if (firstWord(data, bounds) && scanner.scan(data, bounds[0], bounds[1])) {
+                    long primary = sortable(o.reverse ? -scanner.value : scanner.value);
+                    long secondary = -((long) chunk << 32 | start);
+                    if (top.accepts(primary, secondary, null, 0, 0)) {
+                        byte[] line = new byte[end - start];
+                        data.get(start, line);
+                        top.add(primary, secondary, new String(line, StandardCharsets.UTF_8));
+                    }
+                }
+                start = next;
+            }
+            return top;
+        }
+
+        /**
+         * Bayt dizisi -> sayaç, açık adresli; anahtarlar tek bir byte[] içinde art arda durur,
+         * girdi başına nesne ayrılmaz.
+         */
+        private static final class KeyCounts {
+            long[] table;             // özet << 32 | girdi + 1; 0 boş (yoklamada tek önbellek erişimi)
+            int[] hashes = new int[16], offsets = new int[17];
+            long[] counts = new long[16];
+            byte[] keys = new byte[256];
+            java.nio.ByteBuffer view = java.nio.ByteBuffer.wrap(keys);
+            int size;
+
+            KeyCounts(int capacity) {
+                table = new long[capacity];
+            }
+
+            void add(java.nio.ByteBuffer b, int from, int to, long n) {
+                int h = 0;
+                for (int i = from; i < to; i++) h = 31 * h + b.get(i);
+                h *= 0x9E3779B9;
+                add(b, from, to, h ^ h >>> 16, n);
+            }
+
+            private void add(java.nio.ByteBuffer b, int from, int to, int h, long n) {
+                int mask = table.length - 1;
+                for (int slot = h & mask; ; slot = (slot + 1) & mask) {
+                    long t = table[slot];
+                    if (t == 0) {
+                        insert(slot, h, b, from, to, n);
+                        return;
+                    }
+                    int e = (int) t - 1;
+                    if ((int) (t >>> 32) == h && compare(b, from, to, view, offsets[e], offsets[e + 1]) == 0) {
+                        counts[e] += n;
+                        return;
+                    }
+                }
+            }
+
+            private void insert(int slot, int h, java.nio.ByteBuffer b, int from, int to, long n) {
+                int len = to - from, at = offsets[size];
+                if (size == counts.length) {
+                    hashes = java.util.Arrays.copyOf(hashes, size * 2);
+                    counts = java.util.Arrays.copyOf(counts, size * 2);
+                    offsets = java.util.Arrays.copyOf(offsets, size * 2 + 1);
+                }
+                if (at + len > keys.length) {
+                    keys = java.util.Arrays.copyOf(keys, Math.max(at + len, keys.length * 2));
+                    view = java.nio.ByteBuffer.wrap(keys);
+                }
+                b.get(from, keys, at, len);
+                hashes[size] = h;
+                counts[size] = n;
+                offsets[size + 1] = at + len;
+                table[slot] = (long) h << 32 | ++size;
+                if (size * 2 > table.length) rehash();
+            }
+
+            private void rehash() {
+                table = new long[table.length * 2];
+                int mask = table.length - 1;
+                for (int e = 0; e < size; e++) {
+                    int slot = hashes[e] & mask;
+                    while (table[slot] != 0) slot = (slot + 1) & mask;
+                    table[slot] = (long) hashes[e] << 32 | (e + 1);
+                }
+            }
+
+            void addAll(KeyCounts o) {
+                java.nio.ByteBuffer k = java.nio.ByteBuffer.wrap(o.keys);
+                for (int e = 0; e < o.size; e++) add(k, o.offsets[e], o.offsets[e + 1], o.hashes[e], o.counts[e]);
+            }
+
+            void offerAll(TopK top) {
+                java.nio.ByteBuffer k = view;
+                for (int e = 0; e < size; e++) {
+                    int from = offsets[e], to = offsets[e + 1];
+                    if (top.accepts(counts[e], 0, k, from, to)) top.add(counts[e], 0, java.util.Arrays.copyOfRange(keys, from, to));
+                }
+            }
+
+            long bytes() {
+                return keys.length + 8L * table.length + 16L * counts.length;
+            }
+
+            void clear() {
+                table = new long[1 << 12];
+                hashes = new int[16];
+                offsets = new int[17];
+                counts = new long[16];
+                keys = new byte[256];
+                view = java.nio.ByteBuffer.wrap(keys);
+                size = 0;
+            }
+        }
+
+        /**
+         * En iyi k girdiyi tutan küçük-yığın: önce primary, sonra secondary büyük olan iyidir;
+         * ikisi de eşitse bayt anahtarı küçük olan. Kök her zaman en kötüsüdür.
+         */
+        private static final class TopK {
+            final long[] primary, secondary;
+            final Object[] payload;
+            int size;
+
+            TopK(int k) {
+                primary = new long[k];
+                secondary = new long[k];
+                payload = new Object[k];
+            }
+
+            /** Girdi yığına girer mi; key null değilse eşitlik bayt sırasıyla bozulur. */
+            boolean accepts(long p, long s, java.nio.ByteBuffer key, int from, int to) {
+                if (size < primary.length) return true;
+                if (p != primary[0]) return p > primary[0];
+                if (s != secondary[0]) return s > secondary[0];
+                if (key == null) return false;
+                byte[] root = (byte[]) payload[0];
+                return compare(key, from, to, java.nio.ByteBuffer.wrap(root), 0, root.length) < 0;
+            }
+
+            void add(long p, long s, Object value) {
+                int i;
+                if (size < primary.length) {
+                    i = size++;
+                    while (i > 0) {
+                        int parent = (i - 1) / 2;
+                        if (!worse(p, s, value, parent)) break;
+                        move(parent, i);
+                        i = parent;
+                    }
+                } else {
+                    i = 0;
+                    while (true) {
+                        int child = 2 * i + 1;
+                        if (child >= size) break;
+                        if (child + 1 < size && worse(child + 1, child)) child++;
+                        if (!worse(child, p, s, value)) break;
+                        move(child, i);
+                        i = child;
+                    }
+                }
+                primary[i] = p;
+                secondary[i] = s;
+                payload[i] = value;
+            }
+
+            /** Dizinler, en iyiden en kötüye. */
+            int[] ranked() {
+                Integer[] idx = new Integer[size];
+                for (int i = 0; i < size; i++) idx[i] = i;
+                java.util.Arrays.sort(idx, (a, b) -> worse(a, b) ? 1 : worse(b, a) ? -1 : 0);
+                int[] out = new int[size];
+                for (int i = 0; i < size; i++) out[i] = idx[i];
+                return out;
+            }
+
+            private void move(int from, int to) {
+                primary[to] = primary[from];
+                secondary[to] = secondary[from];
+                payload[to] = payload[from];
+            }
+
+            private boolean worse(int a, int b) {
+                return worse(primary[a], secondary[a], payload[a], b);
+            }
+
+            // (p, s, v) girdisi b'den kötü mü?
+            private boolean worse(long p, long s, Object v, int b) {
+                if (p != primary[b]) return p < primary[b];
+                if (s != secondary[b]) return s < secondary[b];
+                if (!(v instanceof byte[])) return false;
+                byte[] x = (byte[]) v, y = (byte[]) payload[b];
+                return java.util.Arrays.compareUnsigned(x, y) > 0;
+            }
+
+            // b girdisi (p, s, v)'den kötü mü?
+            private boolean worse(int b, long p, long s, Object v) {
+                if (primary[b] != p) return primary[b] < p;
+                if (secondary[b] != s) return secondary[b] < s;
+                if (!(v instanceof byte[])) return false;
+                return java.util.Arrays.compareUnsigned((byte[]) payload[b], (byte[]) v) > 0;
+            }
+        }
+
+        // ---- ortak: geçici dosyalar, parçalama, alanlar, sayılar ----
+
+        // Geçici dosya yazıcısı: büyük uçlu alanlar kendi tamponunda kodlanır; DataOutputStream
+        // alan başına kilitli bir çağrı yapar ve dökme süresinin çoğunu o alırdı.
+        private static final class RunWriter implements java.io.Closeable {
+            private final java.io.OutputStream out;
+            private final java.nio.ByteBuffer buffer;
+            private int pos;
+
+            RunWriter(java.nio.file.Path path, int size) throws IOException {
+                out = Files.newOutputStream(path);
+                buffer = java.nio.ByteBuffer.allocate(size);
+            }
+
+            void putLong(long v) throws IOException {
+                if (buffer.capacity() - pos < 8) flush();
+                buffer.putLong(pos, v);
+                pos += 8;
+            }
+
+            void putDouble(double v) throws IOException {
+                putLong(Double.doubleToRawLongBits(v));
+            }
+
+            void putInt(int v) throws IOException {
+                if (buffer.capacity() - pos < 4) flush();
+                buffer.putInt(pos, v);
+                pos += 4;
+            }
+
+            void put(java.nio.ByteBuffer b, int from, int len) throws IOException {
+                while (len > 0) {
+                    if (pos == buffer.capacity()) flush();
+                    int n = Math.min(len, buffer.capacity() - pos);
+                    b.get(from, buffer.array(), pos, n);
+                    pos += n;
+                    from += n;
+                    len -= n;
+                }
+            }
+
+            private void flush() throws IOException {
+                out.write(buffer.array(), 0, pos);
+                pos = 0;
+            }
+
+            public void close() throws IOException {
+                try {
+                    flush();
+                } finally {
+                    out.close();
+                }
+            }
+        }
+
+        // Geçici dosya okuyucusu: require(n) tamponda pos'tan itibaren n bayt bulundurur (gerekirse
+        // kaydırır ya da büyütür); önceki kayıtların konumları bu çağrıyla geçersizleşir.
+        private static final class RunReader implements java.io.Closeable {
+            private final java.io.InputStream in;
+            java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocate(IO_BUFFER);
+            int pos;
+            private int limit;
+
+            RunReader(java.nio.file.Path path) throws IOException {
+                in = Files.newInputStream(path);
+            }
+
+            /** Dosya tam bir kaydın sonunda bittiyse false; yarım kayıtta EOFException. */
+            boolean require(int n) throws IOException {
+                if (limit - pos >= n) return true;
+                byte[] b = buffer.array();
+                if (n > b.length) {
+                    b = java.util.Arrays.copyOfRange(b, pos, pos + Math.max(n, b.length * 2));
+                    buffer = java.nio.ByteBuffer.wrap(b);
+                } else {
+                    System.arraycopy(b, pos, b, 0, limit - pos);
+                }
+                limit -= pos;
+                pos = 0;
+                while (limit < n) {
+                    int r = in.read(b, limit, b.length - limit);
+                    if (r < 0) {
+                        if (limit == 0) return false;
+                        throw new java.io.EOFException();
+                    }
+                    limit += r;
+                }
+                return true;
+            }
+
+            public void close() throws IOException {
+                in.close();
+            }
+        }
+
+        private interface ChunkTask<T> {
+            T apply(java.nio.ByteBuffer chunk, int index) throws Exception;
+        }
+
+        private interface ResultSink<T> {
+            void accept(T result) throws Exception;
+        }
+
+        private interface ChunkSink {
+            void accept(java.nio.ByteBuffer chunk) throws Exception;
+        }
+
+        /**
+         * Parçaları havuzda işler, sonuçları giriş sırasıyla sink'e verir. Aynı anda en fazla
+         * paralellik + 1 parça bekler; okuma işlemeden hızlıysa üretici bekler.
+         */
+        private <T> void process(String[] files, LineReader in, ChunkTask<T> task, ResultSink<T> sink) throws Exception {
+            java.util.ArrayDeque<java.util.concurrent.Future<T>> pending = new java.util.ArrayDeque<>();
+            int window = pool.getParallelism() + 1;
+            int[] index = {0};
+            try {
+                chunks(files, in, chunk -> {
+                    int i = index[0]++;
+                    pending.add(pool.submit(() -> task.apply(chunk, i)));
+                    while (pending.size() > window) sink.accept(join(pending.poll()));
+                });
+                while (!pending.isEmpty()) sink.accept(join(pending.poll()));
+            } finally {
+                for (java.util.concurrent.Future<T> f : pending) f.cancel(true);
+            }
+        }
+
+        private static <T> T join(java.util.concurrent.Future<T> f) throws Exception {
+            try {
+                return f.get();
+            } catch (java.util.concurrent.ExecutionException ex) {
+                Throwable c = ex.getCause();
+                if (c instanceof Exception) throw (Exception) c;
+                if (c instanceof Error) throw (Error) c;
+                throw ex;
+            }
+        }
+
+        // VFS dosyaları: imajın satır sınırında dilimleri. Giriş: UTF-8 satırlarından yığın blokları.
+        private void chunks(String[] files, LineReader in, ChunkSink sink) throws Exception {
+            for (String f : files) {
+                java.nio.ByteBuffer data = vfs.get().read(f);
+                int n = data.limit();
+                for (int from = 0; from < n; ) {
+                    if (Thread.interrupted()) throw new InterruptedException();
+                    int to = Math.min(n, from + CHUNK);
+                    while (to < n && data.get(to - 1) != '\n') to++;
+                    sink.accept(data.slice(from, to - from));
+                    from = to;
+                }
+            }
+            if (files.length > 0) return;
+            byte[] block = new byte[CHUNK];
+            int pos = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                byte[] b = line.getBytes(StandardCharsets.UTF_8);
+                if (pos + b.length + 1 > block.length) {
+                    if (pos > 0) sink.accept(java.nio.ByteBuffer.wrap(block, 0, pos).slice());
+                    block = new byte[Math.max(CHUNK, b.length + 1)];
+                    pos = 0;
+                }
+                System.arraycopy(b, 0, block, pos, b.length);
+                pos += b.length;
+                block[pos++] = '\n';
+            }
+            if (pos > 0) sink.accept(java.nio.ByteBuffer.wrap(block, 0, pos).slice());
+        }
+
+        /** Satırın [start, end) aralığında field. alanın sınırları; alan yoksa satır sonunda boş aralık. */
+        static void field(java.nio.ByteBuffer b, int start, int end, int field, byte separator, int[] bounds) {
+            if (field == 0) {
+                bounds[0] = start;
+                bounds[1] = end;
+                return;
+            }
+            int i = start;
+            if (separator == 0) {
+                for (int f = 1; ; f++) {
+                    while (i < end && isBlank(b.get(i))) i++;
+                    int s = i;
+                    while (i < end && !isBlank(b.get(i))) i++;
+                    if (f == field) {
+                        bounds[0] = s;
+                        bounds[1] = i;
+                        return;
+                    }
+                    if (i >= end) break;
+                }
+            } else {
+                for (int f = 1; ; f++) {
+                    int s = i;
+                    while (i < end && b.get(i) != separator) i++;
+                    if (f == field) {
+                        bounds[0] = s;
+                        bounds[1] = i;
+                        return;
+                    }
+                    if (i >= end) break;
+                    i++;
+                }
+            }
+            bounds[0] = bounds[1] = end;
+        }
+
+        private static boolean isBlank(byte c) {
+            return c == ' ' || c == '\t';
+        }
+
+        // Baştaki ve sondaki boşlukları atar; geriye bir şey kaldıysa true.
+        private static boolean trim(java.nio.ByteBuffer b, int[] bounds) {
+            while (bounds[0] < bounds[1] && isBlank(b.get(bounds[0]))) bounds[0]++;
+            while (bounds[1] > bounds[0] && isBlank(b.get(bounds[1] - 1))) bounds[1]--;
+            return bounds[0] < bounds[1];
+        }
+
+        // Alanı ilk kelimesine daraltır (sort -n, topk -n: "42 istek" 42 sayılır); kelime yoksa false.
+        private static boolean firstWord(java.nio.ByteBuffer b, int[] bounds) {
+            if (!trim(b, bounds)) return false;
+            int i = bounds[0];
+            while (i < bounds[1] && !isBlank(b.get(i))) i++;
+            bounds[1] = i;
+            return true;
+        }
+
+        /**
+         * Bayt aralığından sayı okur; String ayırmaz. En çok 15 anlamlı basamak ve 10^22'ye kadar
+         * ölçek tek bir kesin çarpma/bölmeyle doğru yuvarlanır, geri kalanı (ve Infinity gibi
+         * yazımlar) Double.parseDouble'a düşer. NaN geçersiz sayılır.
+         */
+        static final class NumberScanner {
+            private static final double[] POW10 = new double[23];
+            static {
+                POW10[0] = 1;
+                for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+            }
+
+            long integer;
+            boolean integral;
+            double value;
+
+            boolean scan(java.nio.ByteBuffer b, int from, int to) {
+                while (from < to && isBlank(b.get(from))) from++;
+                while (to > from && isBlank(b.get(to - 1))) to--;
+                if (from >= to) return false;
+                int i = from;
+                byte c = b.get(i);
+                boolean negative = c == '-';
+                if (c == '-' || c == '+') i++;
+                long m = 0;
+                int significant = 0, scale = 0;
+                boolean digits = false, dot = false, exponent = false;
+                for (; i < to; i++) {
+                    c = b.get(i);
+                    if (c >= '0' && c <= '9') {
+                        digits = true;
+                        if (m == 0 && c == '0') {
+                            if (dot) scale--;
+                            continue;
+                        }
+                        if (++significant > 18) return slow(b, from, to);
+                        m = m * 10 + (c - '0');
+                        if (dot) scale--;
+                    } else if (c == '.' && !dot) {
+                        dot = true;
+                    } else {
+                        break;
+                    }
+                }
+                if (!digits) return slow(b, from, to);
+                if (i < to && (c == 'e' || c == 'E')) {
+                    exponent = true;
+                    boolean negativeExp = false;
+                    if (++i < to && (b.get(i) == '-' || b.get(i) == '+')) negativeExp = b.get(i++) == '-';
+                    int e = 0, start = i;
+                    for (; i < to && (c = b.get(i)) >= '0' && c <= '9'; i++) {
+                        if (e < 10000) e = e * 10 + (c - '0');
+                    }
+                    if (i == start) return slow(b, from, to);
+                    scale += negativeExp ? -e : e;
+                }
+                if (i != to) return slow(b, from, to);
+                integral = !dot && !exponent;
+                if (integral) {
+                    integer = negative ? -m : m;
+                    value = integer;
+                    return true;
+                }
+                if (m == 0) {
+                    value = negative ? -0.0 : 0.0;
+                    return true;
+                }
+                if (significant > 15 || scale < -22 || scale > 22) return slow(b, from, to);
+                value = scale < 0 ? m / POW10[-scale] : m * POW10[scale];
+                if (negative) value = -value;
+                return true;
+            }
+
+            // Yalnızca sayı karakterlerinden oluşan metin ayrıştırıcıya gider: geçersiz satır başına
+            // bir istisna büyük dosyada saniyeler tutar.
+            private boolean slow(java.nio.ByteBuffer b, int from, int to) {
+                boolean digitsOnly = true;
+                for (int i = from; i < to; i++) {
+                    byte c = b.get(i);
+                    if (c >= '0' && c <= '9' || (c == '-' || c == '+') && i == from) continue;
+                    digitsOnly = false;
+                    if (c != '.' && c != 'e' && c != 'E' && c != '-' && c != '+') {
+                        int sign = b.get(from) == '-' || b.get(from) == '+' ? 1 : 0;
+                        if (!equals(b, from + sign, to, "Infinity")) return false;
+                        value = b.get(from) == '-' ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+                        integral = false;
+                        return true;
+                    }
+                }
+                byte[] text = new byte[to - from];
+                b.get(from, text);
+                String s = new String(text, StandardCharsets.ISO_8859_1);
+                try {
+                    if (digitsOnly) {
+                        integer = Long.parseLong(s);
+                        integral = true;
+                        value = integer;
+                        return true;
+                    }
+                } catch (NumberFormatException ignored) {
+                    // long'a sığmıyor
+                }
+                try {
+                    value = Double.parseDouble(s);
+                    integral = false;
+                    return true;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+
+            private static boolean equals(java.nio.ByteBuffer b, int from, int to, String ascii) {
+                if (to - from != ascii.length()) return false;
+                for (int i = 0; i < ascii.length(); i++) {
+                    if (b.get(from + i) != ascii.charAt(i)) return false;
+                }
+                return true;
+            }
+        }
+    }
+
+    // Komut arayüzü (eski, tek seferde String döndüren biçim)
+    public interface Command {
+        String execute(String[] args) throws Exception;
+    }
+
+    /**
+     * Akış tabanlı komut: girişten satır okur, çıkışa satır satır yazar.
+     * Çıkış dolu bir boruya yazarken bloklanır (geri basınç).
+     */
+    public interface StreamCommand {
+        void run(String[] args, LineReader in, LineWriter out) throws Exception;
+    }
+
+    public interface LineReader {
+        LineReader EMPTY = () -> null;
+
+        /** Sonraki satır; akış bittiyse null. */
+        String readLine() throws Exception;
+    }
+
+    public interface LineWriter {
+        void println(String line) throws Exception;
+    }
+
+    /**
+     * Komutun hata mesajı olmadan sıfırdan farklı çıkış kodu bildirmesi (test, eşleşmeyen
+     * grep...). Borunun çıkış kodu son aşamanınkidir; ara aşamalardan gelen yok sayılır.
+     */
+    public static class ExitStatus extends RuntimeException {
+        public final int status;
+
+        public ExitStatus(int status) {
+            super("Çıkış kodu " + status, null, false, false);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Okuyan taraf bittiğinde yazana fırlatılır (Unix'teki SIGPIPE karşılığı).
+     */
+    public static class BrokenPipeException extends RuntimeException {
+        public BrokenPipeException() {
+            super("Boru kapandı");
+        }
+    }
+
+    /**
+     * İki komut arasındaki sınırlı satır kuyruğu.
+     */
+    public static class Pipe implements LineReader, LineWriter {
+        public static final int DEFAULT_CAPACITY = 256;
+
+        private final java.util.ArrayDeque<String> buffer = new java.util.ArrayDeque<>();
+        private final int capacity;
+        private boolean closed;
+        private boolean broken;
+
+        public Pipe(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public synchronized void println(String line) throws InterruptedException {
+            while (buffer.size() >= capacity && !broken) wait();
+            if (broken) throw new BrokenPipeException();
+            buffer.add(line);
+            notifyAll();
+        }
+
+        public synchronized String readLine() throws InterruptedException {
+            while (buffer.isEmpty() && !closed) wait();
+            String line = buffer.poll();
+            notifyAll();
+            return line;
+        }
+
+        /** Yazan taraf: akış sonu. */
+        public synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+
+        /** Okuyan taraf: artık okunmayacak, bekleyen yazan serbest kalsın. */
+        public synchronized void breakPipe() {
+            broken = true;
+            buffer.clear();
+            notifyAll();
+        }
+    }
+
+    /**
+     * Komut kaydı: adlar büyük/küçük harf duyarsız bir önek ağacında (trie) tutulur.
+     * Arama bellek ayırmaz; önek tamamlama ve düzenleme uzaklığına göre öneri sunar.
+     */
+    public static class CommandRegistry {
+        private final TrieNode root = new TrieNode();
+        private final java.util.SortedSet<String> names = new java.util.TreeSet<>();
+
+        public synchronized void register(String name, StreamCommand cmd) {
+            String key = name.toLowerCase(java.util.Locale.ROOT);
+            TrieNode n = root;
+            for (int i = 0; i < key.length(); i++) n = n.childOrCreate(key.charAt(i));
+            n.command = cmd;
+            n.name = key;
+            names.add(key);
+        }
+
+        // Eski Command lambdaları için uyarlayıcı: sonucu satırlara bölerek yazar.
+        public void register(String name, Command cmd) {
+            register(name, (args, in, out) -> {
+                String res = cmd.execute(args);
+                if (res == null) return;
+                for (String line : res.split("\n", -1)) out.println(line);
+            });
+        }
+
+        public synchronized StreamCommand get(CharSequence name) {
+            TrieNode n = root;
+            for (int i = 0; i < name.length() && n != null; i++) n = n.child(Character.toLowerCase(name.charAt(i)));
+            return n == null ? null : n.command;
+        }
+
+        public synchronized java.util.Set<String> list() {
+            return java.util.Collections.unmodifiableSet(new java.util.TreeSet<>(names));
+        }
+
+        /** Öneki taşıyan komut adları, alfabetik, en fazla limit adet. */
+        public synchronized java.util.List<String> complete(CharSequence prefix, int limit) {
+            java.util.List<String> out = new java.util.ArrayList<>();
+            TrieNode n = root;
+            for (int i = 0; i < prefix.length() && n != null; i++) n = n.child(Character.toLowerCase(prefix.charAt(i)));
+            if (n != null) collect(n, out, limit);
+            return out;
+        }
+
+        private static void collect(TrieNode n, java.util.List<String> out, int limit) {
+            if (out.size() >= limit) return;
+            if (n.command != null) out.add(n.name);
+            for (int i = 0; i < n.size && out.size() < limit; i++) collect(n.next[i], out, limit);
+        }
+
+        /**
+         * "Bunu mu demek istediniz": düzenleme uzaklığı maxDistance'ı geçmeyen adlar, yakından
+         * uzağa. Levenshtein satırı trie üzerinde taşınır, umutsuz dallar budanır.
+         */
+        public synchronized java.util.List<String> suggest(String name, int maxDistance, int limit) {
+            String word = name.toLowerCase(java.util.Locale.ROOT);
+            int[] first = new int[word.length() + 1];
+            for (int i = 0; i < first.length; i++) first[i] = i;
+            // Uzaklığa göre kovalar
+            java.util.List<java.util.List<String>> hits = new java.util.ArrayList<>();
+            for (int d = 0; d <= maxDistance; d++) hits.add(new java.util.ArrayList<>());
+            for (int i = 0; i < root.size; i++) suggest(root.next[i], root.keys[i], word, first, maxDistance, hits);
+            java.util.List<String> out = new java.util.ArrayList<>();
+            for (java.util.List<String> bucket : hits) {
+                java.util.Collections.sort(bucket);
+                for (String h : bucket) {
+                    if (out.size() == limit) return out;
+                    out.add(h);
+                }
+            }
+            return out;
+        }
+
+        private static void suggest(TrieNode n, char c, String word, int[] prev, int max,
+                                    java.util.List<java.util.List<String>> hits) {
+            int[] row = new int[prev.length];
+            row[0] = prev[0] + 1;
+            int best = row[0];
+            for (int i = 1; i < row.length; i++) {
+                int cost = word.charAt(i - 1) == c ? 0 : 1;
+                row[i] = Math.min(Math.min(row[i - 1] + 1, prev[i] + 1), prev[i - 1] + cost);
+                best = Math.min(best, row[i]);
+            }
+            int d = row[row.length - 1];
+            if (n.command != null && d <= max) hits.get(d).add(n.name);
+            if (best > max) return;
+            for (int i = 0; i < n.size; i++) suggest(n.next[i], n.keys[i], word, row, max, hits);
+        }
+
+        // Çocuklar sıralı char dizisinde tutulur, ikili aramayla bulunur.
+        private static final class TrieNode {
+            char[] keys = new char[0];
+            TrieNode[] next = new TrieNode[0];
+            int size;
+            StreamCommand command;
+            String name;
+
+            TrieNode child(char c) {
+                int i = java.util.Arrays.binarySearch(keys, 0, size, c);
+                return i >= 0 ? next[i] : null;
+            }
+
+            TrieNode childOrCreate(char c) {
+                int i = java.util.Arrays.binarySearch(keys, 0, size, c);
+                if (i >= 0) return next[i];
+                i = -i - 1;
+                if (size == keys.length) {
+                    keys = java.util.Arrays.copyOf(keys, Math.max(2, size * 2));
+                    next = java.util.Arrays.copyOf(next, keys.length);
+                }
+                System.arraycopy(keys, i, keys, i + 1, size - i);
+                System.arraycopy(next, i, next, i + 1, size - i);
+                keys[i] = c;
+                next[i] = new TrieNode();
+                size++;
+                return next[i];
+            }
+        }
+    }
+
+    /**
+     * Komut satırı yorumlayıcı: `a | b | c > dosya` biçimini çözer ve
+     * aşamaları sınırlı borularla birbirine bağlayarak çalıştırır.
+     */
+    public static class Shell {
+        private final CommandRegistry registry;
+        private final java.util.concurrent.ExecutorService executor;
+        private final java.util.function.Supplier<VirtualFileSystem> vfs;
+        private final Metrics metrics;
+
+        public Shell(CommandRegistry registry, java.util.concurrent.ExecutorService executor, java.util.function.Supplier<VirtualFileSystem> vfs,
+                     Metrics metrics) {
+            this.registry = registry;
+            this.executor = executor;
+            this.vfs = vfs;
+            this.metrics = metrics;
+        }
+
+        /**
+         * Komut satırını çalıştırır; süresi "shell.command" histogramına yazılır.
+         * @return çıkış kodu: 0 başarılı, 127 bilinmeyen komut, ya da son aşamanın ExitStatus'u
+         */
+        public int execute(String line, LineWriter out) throws Exception {
+            return execute(line, LineReader.EMPTY, out);
+        }
+
+        /** stdin: ilk aşamanın girişi (toplu kipte sürecin standart girişi). */
+        public int execute(String line, LineReader stdin, LineWriter out) throws Exception {
+            Metrics.Span span = metrics.span("shell.command", Metrics.Kind.COMMAND, line);
+            try {
+                return run(line, stdin, out);
+            } catch (Throwable ex) {
+                span.failed();
+                metrics.counter("shell.failures").increment();
+                throw ex;
+            } finally {
+                span.close();
+            }
+        }
+
+        private int run(String line, LineReader stdin, LineWriter out) throws Exception {
+            java.util.List<String> tokens = tokenize(line);
+            if (tokens.isEmpty()) return 0;
+
+            java.util.List<java.util.List<String>> stages = new java.util.ArrayList<>();
+            java.util.List<String> current = new java.util.ArrayList<>();
+            String redirect = null;
+            for (int i = 0; i < tokens.size(); i++) {
+                String t = tokens.get(i);
+                if (t == PIPE) {
+                    if (current.isEmpty()) throw new IllegalArgumentException("Sözdizimi hatası: '|'");
+                    stages.add(current);
+                    current = new java.util.ArrayList<>();
+                } else if (t == REDIRECT) {
+                    if (i + 2 != tokens.size() || tokens.get(i + 1) == PIPE || tokens.get(i + 1) == REDIRECT) {
+                        throw new IllegalArgumentException("Sözdizimi hatası: '>'");
+                    }
+                    redirect = tokens.get(++i);
+                } else {
+                    current.add(t);
+                }
+            }
+            if (current.isEmpty()) throw new IllegalArgumentException("Sözdizimi hatası: boş komut");
+            stages.add(current);
+
+            StreamCommand[] cmds = new StreamCommand[stages.size()];
+            String[][] argv = new String[stages.size()][];
+            for (int i = 0; i < cmds.length; i++) {
+                java.util.List<String> st = stages.get(i);
+                cmds[i] = registry.get(st.get(0));
+                if (cmds[i] == null) {
+                    java.util.List<String> similar = registry.suggest(st.get(0), 2, 3);
+                    out.println("Bilinmeyen komut: " + st.get(0)
+                            + (similar.isEmpty() ? "" : " (Bunu mu demek istediniz: " + String.join(", ", similar) + "?)"));
+                    return 127;
+                }
+                argv[i] = st.subList(1, st.size()).toArray(new String[0]);
+            }
+
+            if (redirect == null) return runPipeline(stages, cmds, argv, stdin, out);
+            try (VirtualFileSystem.FileLineWriter w = vfs.get().writer(redirect)) {
+                return runPipeline(stages, cmds, argv, stdin, w);
+            }
+        }
+
+        // Son aşama çağıran iş parçacığında, öncekiler kendi iş parçacıklarında çalışır.
+        private int runPipeline(java.util.List<java.util.List<String>> stages, StreamCommand[] cmds,
+                                String[][] argv, LineReader stdin, LineWriter out) throws Exception {
+            int n = cmds.length;
+            Pipe[] pipes = new Pipe[n - 1];
+            java.util.List<java.util.concurrent.Future<Void>> upstream = new java.util.ArrayList<>();
+            for (int i = 0; i < n - 1; i++) {
+                Pipe pipe = new Pipe(Pipe.DEFAULT_CAPACITY);
+                LineReader in = i == 0 ? stdin : pipes[i - 1];
+                Pipe prev = i == 0 ? null : pipes[i - 1];
+                StreamCommand cmd = cmds[i];
+                String[] args = argv[i];
+                pipes[i] = pipe;
+                upstream.add(startStage(stages.get(i).get(0), () -> {
+                    try {
+                        cmd.run(args, in, pipe);
+                    } finally {
+                        pipe.close();
+                        if (prev != null) prev.breakPipe();
+                    }
+                    return null;
+                }));
+            }
+
+            Exception failure = null;
+            int status = 0;
+            try {
+                try {
+                    cmds[n - 1].run(argv[n - 1], n == 1 ? stdin : pipes[n - 2], out);
+                } catch (ExitStatus ex) {
+                    status = ex.status;
+                } finally {
+                    // Son aşama girdisini bitirmeden dönebilir (grep -q, head): yukarıdaki yazar
+                    // dolu boruda beklemesin diye boru beklemeden önce kırılır.
+                    if (n > 1) pipes[n - 2].breakPipe();
+                }
+                for (java.util.concurrent.Future<Void> f : upstream) {
+                    try {
+                        f.get();
+                    } catch (java.util.concurrent.ExecutionException ex) {
+                        Throwable c = ex.getCause();
+                        if (failure == null && !(c instanceof BrokenPipeException) && !(c instanceof ExitStatus)) {
+                            failure = c instanceof Exception ? (Exception) c : new RuntimeException(c);
+                        }
+                    }
+                }
+            } catch (Exception ex) {
+                // İptal ya da hata: önceki aşamaları da durdur.
+                failure = ex;
+                for (java.util.concurrent.Future<Void> f : upstream) f.cancel(true);
+            }
+            if (failure != null) throw failure;
+            return status;
+        }
+
+        /** Bir boru aşamasını iş yürütücüsünde başlatır; aşama, boruyu başlatan işin sürecine sayılır. */
+        private java.util.concurrent.Future<Void> startStage(String name, java.util.concurrent.Callable<Void> body) {
+            ProcessTable.Process owner = ProcessTable.current();
+            return executor.submit(() -> {
+                Thread t = Thread.currentThread();
+                String old = t.getName();
+                t.setName("pipe-" + name);
+                try {
+                    return owner != null ? owner.call(body) : body.call();
+                } finally {
+                    t.setName(old);
+                }
+            });
+        }
+
+        private static final String PIPE = new String("|");
+        private static final String REDIRECT = new String(">");
+
+        // Boşluklara göre böler; tırnak içi tek parça, | ve > ayrı simgedir.
+        static java.util.List<String> tokenize(String line) {
+            java.util.List<String> tokens = new java.util.ArrayList<>();
+            StringBuilder sb = new StringBuilder();
+            boolean inToken = false;
+            char quote = 0;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) quote = 0;
+                    else sb.append(c);
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                    inToken = true;
+                } else if (c == '|' || c == '>') {
+                    if (inToken) tokens.add(sb.toString());
+                    sb.setLength(0);
+                    inToken = false;
+                    tokens.add(c == '|' ? PIPE : REDIRECT);
+                } else if (Character.isWhitespace(c)) {
+                    if (inToken) tokens.add(sb.toString());
+                    sb.setLength(0);
+                    inToken = false;
+                } else {
+                    sb.append(c);
+                    inToken = true;
+                }
+            }
+            if (quote != 0) throw new IllegalArgumentException("Sözdizimi hatası: kapanmamış tırnak");
+            if (inToken) tokens.add(sb.toString());
+            return tokens;
+        }
+
+        // -c metni: tırnak dışındaki ; satır ayırıcıdır (tırnak kuralları tokenize ile aynı).
+        static String splitStatements(String text) {
+            StringBuilder sb = new StringBuilder(text.length());
+            char quote = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) quote = 0;
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == ';') {
+                    c = '\n';
+                }
+                sb.append(c);
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * İfade motoru: ifadeleri bir kez ağaca derler ve önbellekte tutar.
+     * Sayılar, + - * / % ^, parantez, değişkenler (x = 2*pi) ve fonksiyonlar desteklenir.
+     * Hesap double ile yapılır; istenirse BigDecimal ile istenen hassasiyette.
+     */
+    public static class ExpressionEngine {
+        private static final int CACHE_SIZE = 1024;
+
+        private final Map<String, Node> cache = new java.util.LinkedHashMap<String, Node>(CACHE_SIZE, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<String, Node> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+        private final Map<String, Var> variables = new java.util.concurrent.ConcurrentHashMap<>();
+
+        public ExpressionEngine() {
+            set("pi", Math.PI);
+            set("e", Math.E);
+        }
+
+        public double eval(String expr) {
+            return compile(expr).eval();
+        }
+
+        public java.math.BigDecimal evalExact(String expr, java.math.MathContext mc) {
+            return compile(expr).exact(mc);
+        }
+
+        public void set(String name, double value) {
+            variable(name).set(value, Double.isFinite(value) ? new java.math.BigDecimal(value) : null);
+        }
+
+        public Node compile(String expr) {
+            synchronized (cache) {
+                Node n = cache.get(expr);
+                if (n != null) return n;
+            }
+            Node n = new Parser(expr).parse();
+            synchronized (cache) {
+                cache.put(expr, n);
+            }
+            return n;
+        }
+
+        private Var variable(String name) {
+            return variables.computeIfAbsent(name, Var::new);
+        }
+
+        /** Tam sayı sonuçları ondalıksız gösterir. */
+        public static String format(double v) {
+            if (v == Math.rint(v) && Math.abs(v) < 1e15) return Long.toString((long) v);
+            return Double.toString(v);
+        }
+
+        /** Derlenmiş ifade ağacı düğümü. */
+        public abstract static class Node {
+            public abstract double eval();
+
+            public abstract java.math.BigDecimal exact(java.math.MathContext mc);
+        }
+
+        private static final class Num extends Node {
+            final double value;
+            final java.math.BigDecimal exact;
+
+            Num(String text) {
+                this.value = Double.parseDouble(text);
+                this.exact = new java.math.BigDecimal(text);
+            }
+
+            public double eval() {
+                return value;
+            }
+
+            public java.math.BigDecimal exact(java.math.MathContext mc) {
+                return exact;
+            }
+        }
+
+        private static final class Var extends Node {
+            final String name;
+            volatile boolean defined;
+            volatile double value;
+            volatile java.math.BigDecimal exact;
+
+            Var(String name) {
+                this.name = name;
+            }
+
+            void set(double v, java.math.BigDecimal b) {
+                value = v;
+                exact = b;
+                defined = true;
+            }
+
+            public double eval() {
+                if (!defined) throw new IllegalArgumentException("Tanımsız değişken: " + name);
+                return value;
+            }
+
+            public java.math.BigDecimal exact(java.math.MathContext mc) {
+                if (!defined) throw new IllegalArgumentException("Tanımsız değişken: " + name);
+                // Sonsuz ya da NaN değerin tam karşılığı yoktur; yalnızca double ile kullanılabilir.
+                if (exact == null) throw new ArithmeticException(name + " sonlu değil: " + format(value));
+                return exact;
+            }
+        }
+
+        private static final class Assign extends Node {
+            final Var target;
+            final Node value;
+
+            Assign(Var target, Node value) {
+                this.target = target;
+                this.value = value;
+            }
+
+            public double eval() {
+                double v = value.eval();
+                target.set(v, Double.isFinite(v) ? new java.math.BigDecimal(v) : null);
+                return v;
+            }
+
+            public java.math.BigDecimal exact(java.math.MathContext mc) {
+                java.math.BigDecimal v = value.exact(mc);
+                target.set(v.doubleValue(), v);
+                return v;
+            }
+        }
+
+        private static final class Neg extends Node {
+            final Node arg;
+
+            Neg(Node arg) {
+                this.arg = arg;
+            }
+
+            public double eval() {
+                return -arg.eval();
+            }
+
+            public java.math.BigDecimal exact(java.math.MathContext mc) {
+                return arg.exact(mc).negate(mc);
+            }
+        }
+
+        private static final class Binary extends Node {
+            final char op;
+            final Node left, right;
+
+            Binary(char op, Node left, Node right) {
+                this.op = op;
+                this.left = left;
+                this.right = right;
+            }
+
+            public double eval() {
+                double a = left.eval(), b = right.eval();
+                switch (op) {
+                    case '+': return a + b;
+                    case '-': return a - b;
+                    case '*': return a * b;
+                    case '/': return a / b;
+                    case '%': return a % b;
+                    default: return Math.pow(a, b);
+                }
+            }
+
+            public java.math.BigDecimal exact(java.math.MathContext mc) {
+                java.math.BigDecimal a = left.exact(mc), b = right.exact(mc);
+                switch (op) {
+                    case '+': return a.add(b, mc);
+                    case '-': return a.subtract(b, mc);
+                    case '*': return a.multiply(b, mc);
+                    case '/': return a.divide(b, mc);
+                    case '%': return a.remainder(b, mc);
+                    default:
+                        try {
+                            return a.pow(b.intValueExact(), mc);
+                        } catch (ArithmeticException notInt) {
+                            return new java.math.BigDecimal(Math.pow(a.doubleValue(), b.doubleValue()), mc);
+                        }
+                }
+            }
+        }
+
+        private static final class Call extends Node {
+            final String name;
+            final Node[] args;
+
+            Call(String name, Node[] args) {
+                this.name = name;
+                this.args = args;
+                int arity = name.equals("min") || name.equals("max") || name.equals("pow") ? 2 : 1;
+                if (!FUNCTIONS.contains(name)) throw new IllegalArgumentException("Bilinmeyen fonksiyon: " + name);
+                if (args.length != arity) throw new IllegalArgumentException(name + ": " + arity + " argüman bekleniyor");
+            }
+
+            public double eval() {
+                double a = args[0].eval();
+                switch (name) {
+                    case "sqrt": return Math.sqrt(a);
+                    case "abs": return Math.abs(a);
+                    case "sin": return Math.sin(a);
+                    case "cos": return Math.cos(a);
+                    case "tan": return Math.tan(a);
+                    case "ln": return Math.log(a);
+                    case "log": return Math.log10(a);
+                    case "exp": return Math.exp(a);
+                    case "floor": return Math.floor(a);
+                    case "ceil": return Math.ceil(a);
+                    case "round": return Math.rint(a);
+                    case "min": return Math.min(a, args[1].eval());
+                    case "max": return Math.max(a, args[1].eval());
+                    default: return Math.pow(a, args[1].eval());
+                }
+            }
+
+            // Aşkın fonksiyonlar double ile hesaplanıp istenen hassasiyete yuvarlanır.
+            public java.math.BigDecimal exact(java.math.MathContext mc) {
+                java.math.BigDecimal a = args[0].exact(mc);
+                switch (name) {
+                    case "sqrt": return a.sqrt(mc);
+                    case "abs": return a.abs(mc);
+                    case "floor": return a.setScale(0, java.math.RoundingMode.FLOOR);
+                    case "ceil": return a.setScale(0, java.math.RoundingMode.CEILING);
+                    case "round": return a.setScale(0, java.math.RoundingMode.HALF_EVEN);
+                    case "min": return a.min(args[1].exact(mc));
+                    case "max": return a.max(args[1].exact(mc));
+                    case "pow": return new Binary('^', args[0], args[1]).exact(mc);
+                    default: return new java.math.BigDecimal(eval(), mc);
+                }
+            }
+        }
+
+        private static final java.util.Set<String> FUNCTIONS = java.util.Set.of(
+                "sqrt", "abs", "sin", "cos", "tan", "ln", "log", "exp", "floor", "ceil", "round", "min", "max", "pow");
+
+        // Özyinelemeli iniş ayrıştırıcı:
+        //   stmt := ident '=' expr | expr
+        //   expr := term (('+'|'-') term)*      term := unary (('*'|'/'|'%') unary)*
+        //   unary := '-' unary | power          power := atom ('^' unary)?
+        private final class Parser {
+            private final String src;
+            private int pos;
+
+            Parser(String src) {
+                this.src = src;
+            }
+
+            Node parse() {
+                Node n = statement();
+                skipSpace();
+                if (pos < src.length()) throw error("beklenmeyen '" + src.charAt(pos) + "'");
+                return n;
+            }
+
+            private Node statement() {
+                int start = pos;
+                skipSpace();
+                if (pos < src.length() && Character.isLetter(src.charAt(pos))) {
+                    String name = identifier();
+                    skipSpace();
+                    if (pos < src.length() && src.charAt(pos) == '=') {
+                        pos++;
+                        return new Assign(variable(name), expr());
+                    }
+                }
+                pos = start;
+                return expr();
+            }
+
+            private Node expr() {
+                Node n = term();
+                while (true) {
+                    char c = peek();
+                    if (c != '+' && c != '-') return n;
+                    pos++;
+                    n = new Binary(c, n, term());
+                }
+            }
+
+            private Node term() {
+                Node n = unary();
+                while (true) {
+                    char c = peek();
+                    if (c != '*' && c != '/' && c != '%') return n;
+                    pos++;
+                    n = new Binary(c, n, unary());
+                }
+            }
+
+            private Node unary() {
+                char c = peek();
+                if (c == '-') {
+                    pos++;
+                    return new Neg(unary());
+                }
+                if (c == '+') {
+                    pos++;
+                    return unary();
+                }
+                Node n = atom();
+                if (peek() == '^') {
+                    pos++;
+                    n = new Binary('^', n, unary());
+                }
+                return n;
+            }
+
+            private Node atom() {
+                char c = peek();
+                if (c == '(') {
+                    pos++;
+                    Node n = expr();
+                    expect(')');
+                    return n;
+                }
+                if (Character.isDigit(c) || c == '.') return number();
+                if (Character.isLetter(c)) {
+                    String name = identifier();
+                    if (peek() != '(') return variable(name);
+                    pos++;
+                    java.util.List<Node> args = new java.util.ArrayList<>();
+                    if (peek() != ')') {
+                        args.add(expr());
+                        while (peek() == ',') {
+                            pos++;
+                            args.add(expr());
+                        }
+                    }
+                    expect(')');
+                    return new Call(name, args.toArray(new Node[0]));
+                }
+                throw error(pos < src.length() ? "beklenmeyen '" + c + "'" : "ifade eksik");
+            }
+
+            private Node number() {
+                int start = pos;
+                while (pos < src.length() && (Character.isDigit(src.charAt(pos)) || src.charAt(pos) == '.')) pos++;
+                if (pos < src.length() && (src.charAt(pos) == 'e' || src.charAt(pos) == 'E')) {
+                    int mark = pos++;
+                    if (pos < src.length() && (src.charAt(pos) == '+' || src.charAt(pos) == '-')) pos++;
+                    if (pos < src.length() && Character.isDigit(src.charAt(pos))) {
+                        while (pos < src.length() && Character.isDigit(src.charAt(pos))) pos++;
+                    } else {
+                        pos = mark;
+                    }
+                }
+                try {
+                    return new Num(src.substring(start, pos));
+                } catch (NumberFormatException e) {
+                    throw error("geçersiz sayı '" + src.substring(start, pos) + "'");
+                }
+            }
+
+            private String identifier() {
+                int start = pos;
+                while (pos < src.length() && (Character.isLetterOrDigit(src.charAt(pos)) || src.charAt(pos) == '_')) pos++;
+                return src.substring(start, pos);
+            }
+
+            private char peek() {
+                skipSpace();
+                return pos < src.length() ? src.charAt(pos) : '\0';
+            }
+
+            private void expect(char c) {
+                if (peek() != c) throw error("'" + c + "' bekleniyor");
+                pos++;
+            }
+
+            private void skipSpace() {
+                while (pos < src.length() && Character.isWhitespace(src.charAt(pos))) pos++;
+            }
+
+            private IllegalArgumentException error(String msg) {
+                return new IllegalArgumentException("Sözdizimi hatası: " + msg + " (konum " + pos + ")");
+            }
+        }
+    }
+
+    /**
+     * Ortak HTTP servisi: tek bir HttpClient (bağlantı yeniden kullanımı, HTTP/2),
+     * boyutu sınırlı LRU bellek önbelleği ve ETag/Last-Modified ile koşullu istek yapan
+     * disk önbelleği. Aynı anda uçuşta olan aynı istekler tek istekte birleştirilir.
+     * Tazelik süresi Cache-Control: max-age'den, yoksa javaos.http.defaultTtl (sn) değerinden gelir.
+     */
+    public static class HttpService {
+        private static final String USER_AGENT = "JavaOS-HttpService/1.0";
+        private static final long DEFAULT_TTL_MS = Long.getLong("javaos.http.defaultTtl", 300) * 1000;
+
+        private final java.nio.file.Path cacheDir;
+        private final long memoryBudget;
+        private final Map<String, Response> memory = new java.util.LinkedHashMap<>(64, 0.75f, true);
+        private long memoryUsed;
+        private final Map<String, InFlight> inFlight = new HashMap<>();   // guarded by itself
+        private volatile java.net.http.HttpClient client;
+        private final java.util.concurrent.atomic.AtomicLong networkRequests = new java.util.concurrent.atomic.AtomicLong();
+        private final java.util.concurrent.Executor executor;
+
+        private final Metrics metrics;
+
+        /**
+         * @param cacheDir     disk önbelleği klasörü; null ise disk önbelleği kapalı
+         * @param memoryBudget bellek önbelleğinin en fazla gövde baytı
+         * @param executor     getAsync'in disk önbelleği okumaları (çağıran EDT olabilir)
+         */
+        public HttpService(java.nio.file.Path cacheDir, long memoryBudget, java.util.concurrent.Executor executor, Metrics metrics) {
+            this.cacheDir = cacheDir;
+            this.memoryBudget = memoryBudget;
+            this.executor = executor;
+            this.metrics = metrics;
+        }
+
+        /** HttpClient ilk istekte oluşturulur (açılışı yavaşlatmasın). */
+        private java.net.http.HttpClient client() {
+            java.net.http.HttpClient c = client;
+            if (c == null) {
+                synchronized (this) {
+                    if (client == null) {
+                        client = java.net.http.HttpClient.newBuilder()
+                                .version(java.net.http.HttpClient.Version.HTTP_2)
+                                .followRedirects(java.net.http.HttpClient.Redirect.NORMAL)
+                                .connectTimeout(java.time.Duration.ofSeconds(5))
+                                .build();
+                    }
+                    c = client;
+                }
+            }
+            return c;
+        }
+
+        /** Ağa giden (önbellekten karşılanmayan) istek sayısı. */
+        public long networkRequests() {
+            return networkRequests.get();
+        }
+
+        public Response get(String url) throws IOException, InterruptedException {
+            try {
+                return getAsync(url).get();
+            } catch (java.util.concurrent.ExecutionException e) {
+                Throwable c = e.getCause();
+                if (c instanceof IOException) throw (IOException) c;
+                if (c instanceof RuntimeException) throw (RuntimeException) c;
+                throw new IOException(c);
+            }
+        }
+
+        /**
+         * Uçuştaki bir istek. Aynı adresi bekleyenler sonucu paylaşır; kapsamlı bekleyenlerin
+         * hepsi vazgeçerse (ve kapsamsız bekleyen yoksa) ağ isteği de iptal edilir.
+         */
+        private static final class InFlight {
+            final java.util.concurrent.CompletableFuture<Response> result = new java.util.concurrent.CompletableFuture<>();
+            volatile java.util.concurrent.CompletableFuture<?> exchange;
+            int waiters;        // guarded by inFlight
+            boolean pinned;     // kapsamsız bekleyen var; guarded by inFlight
+        }
+
+        public java.util.concurrent.CompletableFuture<Response> getAsync(String url) {
+            return getAsync(url, null);
+        }
+
+        /**
+         * Kapsama bağlı istek: kapsam kapanınca dönen gelecek iptal edilir; aynı adresi
+         * bekleyen başka kimse kalmadıysa süren ağ isteği de kesilir. Çağıran iş parçacığında
+         * yalnızca bellek önbelleğine bakılır; disk önbelleği (özet + dosya okuma) yürütücüdedir.
+         *
+         * @param scope null ise istek kimseye bağlı değildir ve sonuna kadar sürer
+         */
+        public java.util.concurrent.CompletableFuture<Response> getAsync(String url, ProcessTable.Scope scope) {
+            Response hot;
+            synchronized (memory) {
+                hot = memory.get(url);
+            }
+            if (hot != null && hot.isFresh()) {
+                metrics.counter("http.cacheHits").increment();
+                return java.util.concurrent.CompletableFuture.completedFuture(hot.asCached());
+            }
+            java.util.concurrent.CompletableFuture<Response> mine = new java.util.concurrent.CompletableFuture<>();
+            java.util.concurrent.CompletableFuture.supplyAsync(() -> lookup(url), executor).whenComplete((cached, ex) -> {
+                if (ex != null) {
+                    mine.completeExceptionally(ex);
+                    return;
+                }
+                if (mine.isDone()) return;      // disk okunurken vazgeçildi
+                if (cached != null && cached.isFresh()) {
+                    metrics.counter("http.cacheHits").increment();
+                    mine.complete(cached.asCached());
+                    return;
+                }
+                InFlight f = join(url, cached, scope == null);
+                f.result.whenComplete((res, e) -> {
+                    if (e != null) mine.completeExceptionally(e);
+                    else mine.complete(res);
+                });
+                if (scope != null) {
+                    mine.whenComplete((res, e) -> {
+                        if (mine.isCancelled()) abandon(url, f);
+                    });
+                }
+            });
+            return scope == null ? mine : scope.own(mine);
+        }
+
+        /** Adresin uçuştaki isteğine katılır; yoksa başlatır. */
+        private InFlight join(String url, Response cached, boolean pinned) {
+            InFlight flight;
+            boolean created = false;
+            synchronized (inFlight) {
+                flight = inFlight.get(url);
+                if (flight == null) {
+                    flight = new InFlight();
+                    inFlight.put(url, flight);
+                    created = true;
+                }
+                if (pinned) flight.pinned = true;
+                else flight.waiters++;
+            }
+            if (created) {
+                InFlight f = flight;
+                fetch(url, cached, f).whenComplete((res, ex) -> {
+                    synchronized (inFlight) {
+                        inFlight.remove(url, f);
+                    }
+                    if (ex != null) {
+                        f.result.completeExceptionally(ex instanceof java.util.concurrent.CompletionException ? ex.getCause() : ex);
+                    } else {
+                        f.result.complete(res);
+                    }
+                });
+            }
+            return flight;
+        }
+
+        /** Kapsamlı bir bekleyen vazgeçti; son bekleyense ağ isteğini keser. */
+        private void abandon(String url, InFlight f) {
+            synchronized (inFlight) {
+                if (--f.waiters > 0 || f.pinned || f.result.isDone()) return;
+                inFlight.remove(url, f);
+            }
+            java.util.concurrent.CompletableFuture<?> exchange = f.exchange;
+            if (exchange != null) exchange.cancel(true);
+            f.result.cancel(false);
+            metrics.counter("http.cancelled").increment();
+        }
+
+        private java.util.concurrent.CompletableFuture<Response> fetch(String url, Response stale, InFlight flight) {
+            java.net.http.HttpRequest.Builder req = java.net.http.HttpRequest.newBuilder(java.net.URI.create(url))
+                    .timeout(java.time.Duration.ofSeconds(10))
+                    .header("User-Agent", USER_AGENT);
+            if (stale != null && stale.etag != null) req.header("If-None-Match", stale.etag);
+            if (stale != null && stale.lastModified != null) req.header("If-Modified-Since", stale.lastModified);
+            networkRequests.incrementAndGet();
+            Metrics.Span span = metrics.span("http.fetch", Metrics.Kind.FETCH, url);
+            java.util.concurrent.CompletableFuture<java.net.http.HttpResponse<byte[]>> exchange =
+                    client().sendAsync(req.build(), java.net.http.HttpResponse.BodyHandlers.ofByteArray());
+            flight.exchange = exchange;
+            return exchange
+                    .whenComplete((r, ex) -> {
+                        if (ex != null) span.failed();
+                        else span.status(r.statusCode()).bytes(r.body().length);
+                        span.close();
+                    })
+                    .thenApply(r -> {
+                        if (r.statusCode() == 304 && stale != null) {
+                            Response fresh = stale.revalidated(expiry(r.headers()));
+                            store(url, fresh);
+                            return fresh.asCached();
+                        }
+                        Response res = new Response(r.statusCode(), r.uri().toString(),
+                                r.headers().firstValue("Content-Type").orElse(null),
+                                r.headers().firstValue("ETag").orElse(null),
+                                r.headers().firstValue("Last-Modified").orElse(null),
+                                expiry(r.headers()), r.body(), false);
+                        if (r.statusCode() == 200 && res.expires >= 0) store(url, res);
+                        return res;
+                    });
+        }
+
+        /**
+         * Gövdeyi akış olarak açar. Önbellekte taze kopya varsa ağa gidilmez; ağdan okunan
+         * gövde sonuna kadar okunursa önbelleğe yazılır. Erken kapatmak (ör. metin sınırı)
+         * indirmeyi keser.
+         */
+        public Stream open(String url) throws IOException, InterruptedException {
+            Response cached = lookup(url);
+            if (cached != null && cached.isFresh()) {
+                metrics.counter("http.cacheHits").increment();
+                return new Stream(cached.asCached());
+            }
+            java.net.http.HttpRequest.Builder req = java.net.http.HttpRequest.newBuilder(java.net.URI.create(url))
+                    .timeout(java.time.Duration.ofSeconds(10))
+                    .header("User-Agent", USER_AGENT);
+            if (cached != null && cached.etag != null) req.header("If-None-Match", cached.etag);
+            if (cached != null && cached.lastModified != null) req.header("If-Modified-Since", cached.lastModified);
+            networkRequests.incrementAndGet();
+            // Akışta gövde okunurken ölçülmez; "http.open" başlıklar gelene kadarki süredir.
+            Metrics.Span span = metrics.span("http.open", Metrics.Kind.FETCH, url);
+            java.net.http.HttpResponse<java.io.InputStream> r;
+            try {
+                r = client().send(req.build(), java.net.http.HttpResponse.BodyHandlers.ofInputStream());
+                span.status(r.statusCode());
+            } catch (IOException | InterruptedException | RuntimeException ex) {
+                span.failed();
+                throw ex;
+            } finally {
+                span.close();
+            }
+            if (r.statusCode() == 304 && cached != null) {
+                r.body().close();
+                Response fresh = cached.revalidated(expiry(r.headers()));
+                store(url, fresh);
+                return new Stream(fresh.asCached());
+            }
+            Response head = new Response(r.statusCode(), r.uri().toString(),
+                    r.headers().firstValue("Content-Type").orElse(null),
+                    r.headers().firstValue("ETag").orElse(null),
+                    r.headers().firstValue("Last-Modified").orElse(null),
+                    expiry(r.headers()), new byte[0], false);
+            boolean cacheable = r.statusCode() == 200 && head.expires >= 0;
+            return new Stream(head, new java.io.FilterInputStream(r.body()) {
+                private java.io.ByteArrayOutputStream copy = cacheable ? new java.io.ByteArrayOutputStream() : null;
+
+                public int read() throws IOException {
+                    byte[] one = new byte[1];
+                    return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+                }
+
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, len);
+                    if (copy != null) {
+                        if (n > 0) {
+                            copy.write(b, off, n);
+                            if (copy.size() > memoryBudget) copy = null;
+                        } else if (n < 0) {
+                            store(url, new Response(head.status, head.url, head.contentType, head.etag,
+                                    head.lastModified, head.expires, copy.toByteArray(), false));
+                            copy = null;
+                        }
+                    }
+                    return n;
+                }
+
+                // Erken kapatmak bağlantıyı keser; yarım gövde önbelleğe alınmaz.
+                public void close() throws IOException {
+                    copy = null;
+                    super.close();
+                }
+            });
+        }
+
+        // -1: saklama (no-store)
+        private static long expiry(java.net.http.HttpHeaders h) {
+            long ttl = DEFAULT_TTL_MS;
+            for (String cc : h.allValues("Cache-Control")) {
+                for (String d : cc.toLowerCase(java.util.Locale.ROOT).split(",")) {
+                    d = d.trim();
+                    if (d.equals("no-store")) return -1;
+                    if (d.equals("no-cache")) ttl = 0;
+                    if (d.startsWith("max-age=")) {
+                        try {
+                            ttl = Long.parseLong(d.substring(8)) * 1000;
+                        } catch (NumberFormatException ignored) {
+                        }
+                    }
+                }
+            }
+            return System.currentTimeMillis() + ttl;
+        }
+
+        private Response lookup(String url) {
+            synchronized (memory) {
+                Response r = memory.get(url);
+                if (r != null) return r;
+            }
+            Response r = readDisk(url);
+            if (r != null) remember(url, r);
+            return r;
+        }
+
+        private void store(String url, Response r) {
+            remember(url, r);
+            writeDisk(url, r);
+        }
+
+        private void remember(String url, Response r) {
+            if (r.body.length > memoryBudget) return;
+            synchronized (memory) {
+                Response old = memory.put(url, r);
+                if (old != null) memoryUsed -= old.body.length;
+                memoryUsed += r.body.length;
+                java.util.Iterator<Response> it = memory.values().iterator();
+                while (memoryUsed > memoryBudget && it.hasNext()) {
+                    memoryUsed -= it.next().body.length;
+                    it.remove();
+                }
+            }
+        }
+
+        private java.nio.file.Path diskPath(String url, String ext) {
+            try {
+                byte[] h = java.security.MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < 16; i++) sb.append(String.format("%02x", h[i]));
+                return cacheDir.resolve(sb + ext);
+            } catch (java.security.NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private Response readDisk(String url) {
+            if (cacheDir == null) return null;
+            java.nio.file.Path meta = diskPath(url, ".meta");
+            if (!Files.exists(meta)) return null;
+            try (java.io.Reader r = Files.newBufferedReader(meta, StandardCharsets.UTF_8)) {
+                java.util.Properties p = new java.util.Properties();
+                p.load(r);
+                if (!url.equals(p.getProperty("url"))) return null;
+                byte[] body = Files.readAllBytes(diskPath(url, ".body"));
+                // Gövde ile üst veri ayrı dosyalardır; eşleşmiyorlarsa (yarışan yazım) kayıt yok sayılır.
+                java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+                crc.update(body);
+                if (body.length != Long.parseLong(p.getProperty("length", "-1"))
+                        || crc.getValue() != Long.parseLong(p.getProperty("crc", "-1"))) {
+                    return null;
+                }
+                return new Response(200, p.getProperty("finalUrl", url), p.getProperty("contentType"),
+                        p.getProperty("etag"), p.getProperty("lastModified"),
+                        Long.parseLong(p.getProperty("expires", "0")), body, true);
+            } catch (IOException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        private void writeDisk(String url, Response res) {
+            if (cacheDir == null) return;
+            try {
+                Files.createDirectories(cacheDir);
+                writeAtomically(diskPath(url, ".body"), res.body);
+                java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+                crc.update(res.body);
+                java.util.Properties p = new java.util.Properties();
+                p.setProperty("url", url);
+                p.setProperty("finalUrl", res.url);
+                p.setProperty("expires", Long.toString(res.expires));
+                p.setProperty("length", Integer.toString(res.body.length));
+                p.setProperty("crc", Long.toString(crc.getValue()));
+                if (res.contentType != null) p.setProperty("contentType", res.contentType);
+                if (res.etag != null) p.setProperty("etag", res.etag);
+                if (res.lastModified != null) p.setProperty("lastModified", res.lastModified);
+                java.io.StringWriter w = new java.io.StringWriter();
+                p.store(w, null);
+                writeAtomically(diskPath(url, ".meta"), w.toString().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException ignored) {
+                // Disk önbelleği en iyi çaba; yazılamazsa sadece bellekte kalır.
+            }
+        }
+
+        // Geçici dosyaya yazıp yerine taşır: okuyucu yarım yazılmış dosya görmez.
+        private void writeAtomically(java.nio.file.Path target, byte[] data) throws IOException {
+            java.nio.file.Path tmp = Files.createTempFile(cacheDir, target.getFileName().toString(), ".tmp");
+            try {
+                Files.write(tmp, data);
+                Files.move(tmp, target, java.nio.file.StandardCopyOption.ATOMIC_MOVE,
+                        java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tmp);
+                throw e;
+            }
+        }
+
+        public static final class Response {
+            public final int status;
+            public final String url;
+            public final String contentType;
+            public final String etag;
+            public final String lastModified;
+            public final long expires;
+            public final byte[] body;
+            /** Ağa gidilmeden (ya da 304 ile) önbellekten karşılandı mı. */
+            public final boolean fromCache;
+
+            Response(int status, String url, String contentType, String etag, String lastModified,
+                     long expires, byte[] body, boolean fromCache) {
+                this.status = status;
+                this.url = url;
+                this.contentType = contentType;
+                this.etag = etag;
+                this.lastModified = lastModified;
+                this.expires = expires;
+                this.body = body;
+                this.fromCache = fromCache;
+            }
+
+            boolean isFresh() {
+                return System.currentTimeMillis() < expires;
+            }
+
+            Response asCached() {
+                return fromCache ? this : new Response(status, url, contentType, etag, lastModified, expires, body, true);
+            }
+
+            Response revalidated(long newExpires) {
+                return new Response(status, url, contentType, etag, lastModified, Math.max(newExpires, 0), body, true);
+            }
+
+            public java.nio.charset.Charset charset() {
+                if (contentType != null) {
+                    for (String part : contentType.split(";")) {
+                        part = part.trim();
+                        if (part.regionMatches(true, 0, "charset=", 0, 8)) {
+                            try {
+                                return java.nio.charset.Charset.forName(part.substring(8).replace("\"", ""));
+                            } catch (RuntimeException ignored) {
+                            }
+                        }
+                    }
+                }
+                return StandardCharsets.UTF_8;
+            }
+
+            public String text() {
+                return new String(body, charset());
+            }
+
+            public java.io.Reader reader() {
+                return new java.io.InputStreamReader(new java.io.ByteArrayInputStream(body), charset());
+            }
+        }
+
+        /** open() sonucu: başlık bilgisi ve okunmamış gövde. */
+        public static final class Stream implements java.io.Closeable {
+            public final int status;
+            public final String url;
+            public final String contentType;
+            public final boolean fromCache;
+            public final java.io.InputStream body;
+            private final Response head;
+
+            Stream(Response cached) {
+                this(cached, new java.io.ByteArrayInputStream(cached.body));
+            }
+
+            Stream(Response head, java.io.InputStream body) {
+                this.head = head;
+                this.status = head.status;
+                this.url = head.url;
+                this.contentType = head.contentType;
+                this.fromCache = head.fromCache;
+                this.body = body;
+            }
+
+            public java.nio.charset.Charset charset() {
+                return head.charset();
+            }
+
+            public java.io.Reader reader() {
+                return new java.io.InputStreamReader(body, charset());
+            }
+
+            public void close() throws IOException {
+                body.close();
+            }
+        }
+    }
+
+    /**
+     * Tek geçişli, akış tabanlı HTML ayrıştırıcı: etiketleri, script/style içeriğini ve
+     * yorumları atar, varlıkları (&amp;amp; vb.) çözer, href bağlantılarını toplar.
+     * Metin parça parça iletilir; sınır dolunca okumayı bırakır.
+     */
+    public static class HtmlTokenizer {
+        public interface Handler {
+            /** Görünür metin parçası. false dönerse ayrıştırma durur. */
+            boolean text(String chunk);
+
+            void link(String href);
+        }
+
+        private static final int CHUNK = 1024;
+        private static final int MAX_TAG = 64 * 1024;
+
+        private final java.io.Reader in;
+        private final Handler handler;
+        private final char[] buf = new char[8192];
+        private int pos, len;
+        private final StringBuilder text = new StringBuilder(CHUNK * 2);
+        private final StringBuilder tag = new StringBuilder();
+        private int emitted;
+        private boolean pendingSpace, pendingNewline, atStart = true;
+
+        public HtmlTokenizer(java.io.Reader in, Handler handler) {
+            this.in = in;
+            this.handler = handler;
+        }
+
+        /**
+         * Girişi sonuna ya da maxText görünür karaktere kadar işler.
+         * @return metin sınırı yüzünden erken durduysa true
+         */
+        public boolean run(int maxText) throws IOException {
+            int c;
+            while ((c = next()) >= 0) {
+                if (c == '<') {
+                    readTag();
+                } else if (c == '&') {
+                    appendText(readEntity());
+                } else if (Character.isWhitespace(c)) {
+                    if (c == '\n') pendingNewline = true;
+                    else pendingSpace = true;
+                } else {
+                    appendText((char) c);
+                }
+                if (emitted + text.length() >= maxText) {
+                    text.setLength(Math.max(0, maxText - emitted));
+                    flush();
+                    return true;
+                }
+                if (text.length() >= CHUNK && !flush()) return true;
+            }
+            flush();
+            return false;
+        }
+
+        private boolean flush() {
+            if (text.length() == 0) return true;
+            emitted += text.length();
+            String chunk = text.toString();
+            text.setLength(0);
+            return handler.text(chunk);
+        }
+
+        private void appendText(char c) {
+            if (!atStart) {
+                if (pendingNewline) text.append('\n');
+                else if (pendingSpace) text.append(' ');
+            }
+            pendingSpace = pendingNewline = false;
+            atStart = false;
+            text.append(c);
+        }
+
+        private void appendText(String s) {
+            for (int i = 0; i < s.length(); i++) appendText(s.charAt(i));
+        }
+
+        private int next() throws IOException {
+            if (pos == len) {
+                len = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (len <= 0) {
+                    len = 0;
+                    return -1;
+                }
+            }
+            return buf[pos++];
+        }
+
+        private void readTag() throws IOException {
+            tag.setLength(0);
+            int c;
+            char quote = 0;
+            while ((c = next()) >= 0) {
+                if (quote != 0) {
+                    if (c == quote) quote = 0;
+                } else if (c == '"' || c == '\'') {
+                    quote = (char) c;
+                } else if (c == '>') {
+                    break;
+                }
+                if (tag.length() < MAX_TAG) tag.append((char) c);
+                if (tag.length() == 3 && tag.charAt(0) == '!' && tag.charAt(1) == '-' && tag.charAt(2) == '-') {
+                    skipUntil("-->");
+                    return;
+                }
+            }
+            String name = tagName();
+            // Başıboş bir </script> ya da </style> ham metin açmaz; açsaydı belgenin kalanı yutulurdu.
+            if ((name.equals("script") || name.equals("style")) && !tag.toString().trim().startsWith("/")) {
+                skipUntil("</" + name);
+                skipUntil(">");
+                return;
+            }
+            if (name.equals("br") || name.equals("p") || name.equals("div") || name.equals("li") || name.equals("tr")
+                    || (name.length() == 2 && name.charAt(0) == 'h' && Character.isDigit(name.charAt(1)))) {
+                pendingNewline = true;
+            }
+            String href = attribute("href");
+            if (href != null) handler.link(href);
+        }
+
+        private String tagName() {
+            int i = 0;
+            while (i < tag.length() && Character.isWhitespace(tag.charAt(i))) i++;
+            int start = i;
+            while (i < tag.length() && (Character.isLetterOrDigit(tag.charAt(i)) || tag.charAt(i) == '/')) i++;
+            String name = tag.substring(start, i).toLowerCase(java.util.Locale.ROOT);
+            return name.startsWith("/") ? name.substring(1) : name;
+        }
+
+        private String attribute(String attr) {
+            String t = tag.toString();
+            int n = t.length();
+            for (int i = t.indexOf('='); i > 0; i = t.indexOf('=', i + 1)) {
+                int end = i;
+                while (end > 0 && Character.isWhitespace(t.charAt(end - 1))) end--;
+                int start = end - attr.length();
+                if (start <= 0 || !t.regionMatches(true, start, attr, 0, attr.length())
+                        || !Character.isWhitespace(t.charAt(start - 1))) continue;
+                int j = i + 1;
+                while (j < n && Character.isWhitespace(t.charAt(j))) j++;
+                if (j >= n) return null;
+                char q = t.charAt(j);
+                if (q == '"' || q == '\'') {
+                    int close = t.indexOf(q, j + 1);
+                    return close < 0 ? null : t.substring(j + 1, close);
+                }
+                int close = j;
+                while (close < n && !Character.isWhitespace(t.charAt(close))) close++;
+                return t.substring(j, close);
+            }
+            return null;
+        }
+
+        // Büyük/küçük harf duyarsız olarak işaretin sonuna kadar atlar.
+        private void skipUntil(String marker) throws IOException {
+            int matched = 0, c;
+            while (matched < marker.length() && (c = next()) >= 0) {
+                if (Character.toLowerCase(c) == marker.charAt(matched)) {
+                    matched++;
+                } else {
+                    matched = Character.toLowerCase(c) == marker.charAt(0) ? 1 : 0;
+                }
+            }
+        }
+
+        private String readEntity() throws IOException {
+            StringBuilder e = new StringBuilder();
+            int c;
+            while (e.length() < 10 && (c = next()) >= 0) {
+                if (c == ';') return decode(e.toString());
+                if (!Character.isLetterOrDigit(c) && c != '#') {
+                    pos--;
+                    break;
+                }
+                e.append((char) c);
+            }
+            return "&" + e;
+        }
+
+        private static String decode(String e) {
+            switch (e) {
+                case "nbsp": return " ";
+                case "amp": return "&";
+                case "lt": return "<";
+                case "gt": return ">";
+                case "quot": return "\"";
+                case "apos": return "'";
+            }
+            try {
+                if (e.startsWith("#x") || e.startsWith("#X")) return new String(Character.toChars(Integer.parseInt(e.substring(2), 16)));
+                if (e.startsWith("#")) return new String(Character.toChars(Integer.parseInt(e.substring(1))));
+            } catch (IllegalArgumentException ignored) {
+            }
+            return "&" + e + ";";
+        }
+    }
+
+    /**
+     * Çekme (pull) tarzı akış JSON okuyucu. Atlanan değerler için String üretilmez.
+     * {@link #project} istenen yolları tek geçişte toplar ve hepsi bulununca durur.
+     */
+    public static class JsonReader {
+        public enum Token { BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT }
+
+        private final java.io.Reader in;
+        private final char[] buf = new char[8192];
+        private int pos, limit;
+        private char[] text = new char[64];
+        private int textLen;
+        private Token peeked;
+        // Kap yığını: nesne mi, nesnede sırada ad mı var
+        private boolean[] isObject = new boolean[32];
+        private boolean[] expectName = new boolean[32];
+        private int depth;
+
+        public JsonReader(java.io.Reader in) {
+            this.in = in;
+        }
+
+        public Token peek() throws IOException {
+            if (peeked != null) return peeked;
+            int c;
+            do {
+                c = read();
+            } while (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == ',' || c == ':');
+            switch (c) {
+                case -1: peeked = Token.END_DOCUMENT; break;
+                case '{': peeked = Token.BEGIN_OBJECT; break;
+                case '}': peeked = Token.END_OBJECT; break;
+                case '[': peeked = Token.BEGIN_ARRAY; break;
+                case ']': peeked = Token.END_ARRAY; break;
+                case '"': peeked = depth > 0 && isObject[depth - 1] && expectName[depth - 1] ? Token.NAME : Token.STRING; break;
+                case 't': case 'f': pos--; peeked = Token.BOOLEAN; break;
+                case 'n': pos--; peeked = Token.NULL; break;
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) {
+                        pos--;
+                        peeked = Token.NUMBER;
+                    } else {
+                        throw new IOException("Geçersiz JSON karakteri: '" + (char) c + "'");
+                    }
+            }
+            return peeked;
+        }
+
+        public boolean hasNext() throws IOException {
+            Token t = peek();
+            return t != Token.END_OBJECT && t != Token.END_ARRAY && t != Token.END_DOCUMENT;
+        }
+
+        public void beginObject() throws IOException {
+            expect(Token.BEGIN_OBJECT);
+            push(true);
+        }
+
+        public void endObject() throws IOException {
+            expect(Token.END_OBJECT);
+            depth--;
+            valueDone();
+        }
+
+        public void beginArray() throws IOException {
+            expect(Token.BEGIN_ARRAY);
+            push(false);
+        }
+
+        public void endArray() throws IOException {
+            expect(Token.END_ARRAY);
+            depth--;
+            valueDone();
+        }
+
+        public String nextName() throws IOException {
+            expect(Token.NAME);
+            readString();
+            expectName[depth - 1] = false;
+            return new String(text, 0, textLen);
+        }
+
+        /** Sıradaki adı String üretmeden okuyup karşılaştırır. */
+        boolean nextNameEquals(String name) throws IOException {
+            expect(Token.NAME);
+            readString();
+            expectName[depth - 1] = false;
+            if (textLen != name.length()) return false;
+            for (int i = 0; i < textLen; i++) {
+                if (text[i] != name.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        /** Dize, sayı ya da boolean değerini metin olarak döndürür; null için null. */
+        public String nextString() throws IOException {
+            Token t = peek();
+            peeked = null;
+            switch (t) {
+                case STRING: readString(); break;
+                case NUMBER: case BOOLEAN: readBare(); break;
+                case NULL: readBare(); valueDone(); return null;
+                default: throw new IOException("Beklenmeyen JSON öğesi: " + t);
+            }
+            valueDone();
+            return new String(text, 0, textLen);
+        }
+
+        /** Sıradaki değeri (iç içe kaplar dahil) metin biriktirmeden atlar. */
+        public void skipValue() throws IOException {
+            Token t = peek();
+            peeked = null;
+            switch (t) {
+                case NAME:
+                    skipString();
+                    expectName[depth - 1] = false;
+                    return;
+                case STRING:
+                    skipString();
+                    break;
+                case NUMBER: case BOOLEAN: case NULL:
+                    skipBare();
+                    break;
+                case BEGIN_OBJECT: case BEGIN_ARRAY:
+                    int nesting = 1;
+                    while (nesting > 0) {
+                        int c = read();
+                        if (c == -1) throw new java.io.EOFException("JSON erken bitti");
+                        if (c == '"') skipString();
+                        else if (c == '{' || c == '[') nesting++;
+                        else if (c == '}' || c == ']') nesting--;
+                    }
+                    break;
+                default:
+                    throw new IOException("Atlanacak değer yok: " + t);
+            }
+            valueDone();
+        }
+
+        private void expect(Token t) throws IOException {
+            if (peek() != t) throw new IOException(t + " bekleniyordu, " + peeked + " geldi");
+            peeked = null;
+        }
+
+        private void push(boolean object) {
+            if (depth == isObject.length) {
+                isObject = java.util.Arrays.copyOf(isObject, depth * 2);
+                expectName = java.util.Arrays.copyOf(expectName, depth * 2);
+            }
+            isObject[depth] = object;
+            expectName[depth] = true;
+            depth++;
+        }
+
+        private void valueDone() {
+            if (depth > 0 && isObject[depth - 1]) expectName[depth - 1] = true;
+        }
+
+        private int read() throws IOException {
+            if (pos == limit) {
+                limit = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buf[pos++];
+        }
+
+        private void append(char c) {
+            if (textLen == text.length) text = java.util.Arrays.copyOf(text, textLen * 2);
+            text[textLen++] = c;
+        }
+
+        // Açılış tırnağı okunmuş olarak çağrılır.
+        private void readString() throws IOException {
+            textLen = 0;
+            while (true) {
+                int c = read();
+                if (c == -1) throw new java.io.EOFException("Kapanmamış JSON dizesi");
+                if (c == '"') return;
+                if (c != '\\') {
+                    append((char) c);
+                    continue;
+                }
+                c = read();
+                switch (c) {
+                    case 'n': append('\n'); break;
+                    case 't': append('\t'); break;
+                    case 'r': append('\r'); break;
+                    case 'b': append('\b'); break;
+                    case 'f': append('\f'); break;
+                    case 'u':
+                        int v = 0;
+                        for (int i = 0; i < 4; i++) v = (v << 4) | Character.digit(read(), 16);
+                        append((char) v);
+                        break;
+                    default: append((char) c);
+                }
+            }
+        }
+
+        private void skipString() throws IOException {
+            int c;
+            while ((c = read()) != '"') {
+                if (c == -1) throw new java.io.EOFException("Kapanmamış JSON dizesi");
+                if (c == '\\') read();
+            }
+        }
+
+        private void readBare() throws IOException {
+            textLen = 0;
+            int c;
+            while ((c = read()) != -1 && !isDelimiter(c)) append((char) c);
+            if (c != -1) pos--;
+        }
+
+        private void skipBare() throws IOException {
+            int c;
+            while ((c = read()) != -1 && !isDelimiter(c)) {
+            }
+            if (c != -1) pos--;
+        }
+
+        private static boolean isDelimiter(int c) {
+            return c == ',' || c == '}' || c == ']' || c == ':' || c == ' ' || c == '\n' || c == '\r' || c == '\t';
+        }
+
+        /**
+         * İstenen yolları tek geçişte toplar. Yol biçimi: "login", "owner.login",
+         * dizi elemanları için "items[].name" ya da kök dizi için "[].name".
+         * "[]" içermeyen yolların hepsi bulununca okuma durur.
+         */
+        public static Projection project(java.io.Reader in, String... paths) throws IOException {
+            PathNode root = new PathNode(null);
+            int scalars = 0;
+            for (String p : paths) {
+                PathNode n = root;
+                for (String seg : p.split("\\.")) {
+                    if (seg.startsWith("[]")) {
+                        n = n.element();
+                        seg = seg.substring(2);
+                        if (seg.isEmpty()) continue;
+                    }
+                    boolean array = seg.endsWith("[]");
+                    n = n.child(array ? seg.substring(0, seg.length() - 2) : seg);
+                    if (array) n = n.element();
+                }
+                n.path = p;
+                if (!p.contains("[]")) scalars++;
+            }
+            Projection result = new Projection(scalars, scalars == paths.length);
+            JsonReader reader = new JsonReader(in);
+            if (reader.peek() != Token.END_DOCUMENT) reader.walk(root, result);
+            return result;
+        }
+
+        private void walk(PathNode node, Projection out) throws IOException {
+            Token t = peek();
+            if (t == Token.BEGIN_OBJECT && node.children != null) {
+                beginObject();
+                while (hasNext() && !out.complete()) {
+                    PathNode child = null;
+                    expect(Token.NAME);
+                    readString();
+                    expectName[depth - 1] = false;
+                    for (PathNode c : node.children) {
+                        if (c.matches(text, textLen)) {
+                            child = c;
+                            break;
+                        }
+                    }
+                    if (child == null) skipValue();
+                    else walk(child, out);
+                }
+                if (!out.complete()) endObject();
+            } else if (t == Token.BEGIN_ARRAY && node.element != null) {
+                beginArray();
+                while (hasNext() && !out.complete()) walk(node.element, out);
+                if (!out.complete()) endArray();
+            } else if (node.path != null && t != Token.BEGIN_OBJECT && t != Token.BEGIN_ARRAY) {
+                out.add(node.path, nextString());
+            } else {
+                skipValue();
+            }
+        }
+
+        private static final class PathNode {
+            final String name;
+            java.util.List<PathNode> children;
+            PathNode element;
+            String path;
+
+            PathNode(String name) {
+                this.name = name;
+            }
+
+            PathNode child(String n) {
+                if (children == null) children = new java.util.ArrayList<>();
+                for (PathNode c : children) if (c.name.equals(n)) return c;
+                PathNode c = new PathNode(n);
+                children.add(c);
+                return c;
+            }
+
+            PathNode element() {
+                if (element == null) element = new PathNode("[]");
+                return element;
+            }
+
+            boolean matches(char[] s, int len) {
+                if (len != name.length()) return false;
+                for (int i = 0; i < len; i++) if (s[i] != name.charAt(i)) return false;
+                return true;
+            }
+        }
+
+        /** project() sonucu; JSON null değerleri null olarak saklanır. */
+        public static final class Projection {
+            private final Map<String, java.util.List<String>> values = new HashMap<>();
+            private final int scalars;
+            private final boolean stopEarly;
+            private int found;
+
+            Projection(int scalars, boolean stopEarly) {
+                this.scalars = scalars;
+                this.stopEarly = stopEarly;
+            }
+
+            void add(String path, String value) {
+                java.util.List<String> list = values.computeIfAbsent(path, k -> new java.util.ArrayList<>(1));
+                if (list.isEmpty() && !path.contains("[]")) found++;
+                list.add(value);
+            }
+
+            boolean complete() {
+                return stopEarly && found >= scalars;
+            }
+
+            public boolean has(String path) {
+                return values.containsKey(path);
+            }
+
+            /** İlk değer; yol yoksa ya da değer null ise null. */
+            public String get(String path) {
+                java.util.List<String> list = values.get(path);
+                return list == null ? null : list.get(0);
+            }
+
+            public java.util.List<String> getAll(String path) {
+                return values.getOrDefault(path, java.util.Collections.emptyList());
+            }
+        }
+    }
+
+    /**
+     * Ölçüm kaydı: adlandırılmış sayaçlar ve HDR tarzı gecikme histogramları. Kayıt
+     * kilitsizdir (LongAdder / AtomicLongArray), bu yüzden EDT'de ve her karede çağrılabilir.
+     *
+     * Span'ler ayrıca JFR olayı üretir. Olay sınıfları yalnızca JFR başlatılmışsa yüklenir:
+     * jdk.jfr.Event alt sınıfının ilk yüklenmesi yüzlerce ms sürer ve açılışa eklenmemeli.
+     */
+    public static class Metrics {
+        public enum Kind { COMMAND, FETCH, RENDER, COMPOSITE }
+
+        private static final boolean JFR = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+        private final Map<String, Counter> counters = new java.util.concurrent.ConcurrentHashMap<>();
+        private final Map<String, Histogram> histograms = new java.util.concurrent.ConcurrentHashMap<>();
+        private final java.util.ArrayDeque<Stall> stalls = new java.util.ArrayDeque<>();
+        private Thread watchdog;
+        private Object recording;
+
+        public Counter counter(String name) {
+            return counters.computeIfAbsent(name, k -> new Counter());
+        }
+
+        public Histogram histogram(String name) {
+            return histograms.computeIfAbsent(name, k -> new Histogram());
+        }
+
+        /** Süre ölçümü başlatır; close() histograma yazar ve (JFR açıksa) olayı kaydeder. */
+        public Span span(String histogram, Kind kind, String detail) {
+            return new Span(histogram(histogram), recording() ? Events.begin(kind, detail) : null);
+        }
+
+        /** JFR başlatıldı mı (komut satırından, jcmd ile ya da "jfr start" ile). */
+        public static boolean recording() {
+            return JFR && jdk.jfr.FlightRecorder.isInitialized();
+        }
+
+        public static final class Counter {
+            private final java.util.concurrent.atomic.LongAdder value = new java.util.concurrent.atomic.LongAdder();
+
+            public void increment() {
+                value.increment();
+            }
+
+            public void add(long n) {
+                value.add(n);
+            }
+
+            public long get() {
+                return value.sum();
+            }
+        }
+
+        /**
+         * Logaritmik-doğrusal kovalı histogram: her ikinin kuvveti aralığı 16 kovaya bölünür,
+         * göreli hata en fazla %6.25. Değerler nanosaniyedir.
+         */
+        public static final class Histogram {
+            private static final int SUB_BITS = 4;
+            private static final int SUB = 1 << SUB_BITS;
+
+            private final java.util.concurrent.atomic.AtomicLongArray buckets = new java.util.concurrent.atomic.AtomicLongArray((64 - SUB_BITS + 1) * SUB);
+            private final java.util.concurrent.atomic.LongAdder count = new java.util.concurrent.atomic.LongAdder();
+            private final java.util.concurrent.atomic.LongAdder sum = new java.util.concurrent.atomic.LongAdder();
+            private final java.util.concurrent.atomic.LongAccumulator max = new java.util.concurrent.atomic.LongAccumulator(Math::max, 0);
+
+            static int bucket(long v) {
+                if (v < SUB) return (int) v;
+                int exp = 63 - Long.numberOfLeadingZeros(v);
+                return (exp - SUB_BITS + 1) * SUB + (int) ((v >>> (exp - SUB_BITS)) & (SUB - 1));
+            }
+
+            // Kovanın en büyük değeri.
+            static long upper(int bucket) {
+                if (bucket < SUB) return bucket;
+                int exp = bucket / SUB + SUB_BITS - 1;
+                long lower = (long) (SUB + bucket % SUB) << (exp - SUB_BITS);
+                return lower + (1L << (exp - SUB_BITS)) - 1;
+            }
+
+            public void record(long nanos) {
+                if (nanos < 0) nanos = 0;
+                buckets.incrementAndGet(bucket(nanos));
+                count.increment();
+                sum.add(nanos);
+                max.accumulate(nanos);
+            }
+
+            public long count() {
+                return count.sum();
+            }
+
+            public long max() {
+                return max.get();
+            }
+
+            public double mean() {
+                long n = count.sum();
+                return n == 0 ? 0 : (double) sum.sum() / n;
+            }
+
+            /** p yüzdelik dilimi (0-100), ns. */
+            public long percentile(double p) {
+                long n = 0;
+                long[] snap = new long[buckets.length()];
+                for (int i = 0; i < snap.length; i++) n += snap[i] = buckets.get(i);
+                if (n == 0) return 0;
+                long rank = Math.max(1, (long) Math.ceil(p / 100 * n)), seen = 0;
+                for (int i = 0; i < snap.length; i++) {
+                    seen += snap[i];
+                    if (seen >= rank) return Math.min(upper(i), max.get());
+                }
+                return max.get();
+            }
+        }
+
+        public final class Span implements AutoCloseable {
+            private final Histogram histogram;
+            private final Object event;
+            private final long start = System.nanoTime();
+            private int status = -1;
+            private long bytes = -1;
+            private boolean failed;
+
+            private Span(Histogram histogram, Object event) {
+                this.histogram = histogram;
+                this.event = event;
+            }
+
+            public Span status(int status) {
+                this.status = status;
+                return this;
+            }
+
+            public Span bytes(long bytes) {
+                this.bytes = bytes;
+                return this;
+            }
+
+            public Span failed() {
+                failed = true;
+                return this;
+            }
+
+            public void close() {
+                histogram.record(System.nanoTime() - start);
+                if (event != null) Events.end(event, status, bytes, failed);
+            }
+        }
+
+        /** EDT'nin N ms'den uzun bloklandığı bir an ve o sıradaki yığını. */
+        public static final class Stall {
+            public final long at;
+            public final long millis;
+            public final StackTraceElement[] stack;
+
+            Stall(long at, long millis, StackTraceElement[] stack) {
+                this.at = at;
+                this.millis = millis;
+                this.stack = stack;
+            }
+        }
+
+        public synchronized java.util.List<Stall> stalls() {
+            return new java.util.ArrayList<>(stalls);
+        }
+
+        /**
+         * EDT bekçisini başlatır: her periyotta edt yürütücüsüne (masaüstünde
+         * EventQueue::invokeLater) bir yoklama gönderip kuyrukta bekleme
+         * süresini "edt.latency" histogramına yazar. Yoklama stallMillis içinde işlenmezse
+         * EDT'nin o anki yığını alınır (bloklayan kod tam o sırada yığındadır).
+         */
+        public synchronized void startEdtMonitor(java.util.concurrent.Executor edt, long stallMillis) {
+            if (watchdog != null) return;
+            Histogram latency = histogram("edt.latency");
+            Counter stallCount = counter("edt.stalls");
+            watchdog = new Thread(() -> {
+                Thread[] edtThread = new Thread[1];
+                try {
+                    while (true) {
+                        java.util.concurrent.CountDownLatch probe = new java.util.concurrent.CountDownLatch(1);
+                        long sent = System.nanoTime();
+                        edt.execute(() -> {
+                            edtThread[0] = Thread.currentThread();
+                            probe.countDown();
+                        });
+                        if (!probe.await(stallMillis, java.util.concurrent.TimeUnit.MILLISECONDS)) {
+                            StackTraceElement[] stack = edtThread[0] != null ? edtThread[0].getStackTrace() : new StackTraceElement[0];
+                            probe.await();
+                            long millis = (System.nanoTime() - sent) / 1_000_000;
+                            stallCount.increment();
+                            synchronized (this) {
+                                if (stalls.size() == 16) stalls.removeFirst();
+                                stalls.addLast(new Stall(System.currentTimeMillis(), millis, stack));
+                            }
+                            if (recording()) Events.stall(millis, stack);
+                        }
+                        latency.record(System.nanoTime() - sent);
+                        Thread.sleep(Math.max(10, stallMillis / 2));
+                    }
+                } catch (InterruptedException ignored) {
+                }
+            }, "edt-watchdog");
+            watchdog.setDaemon(true);
+            watchdog.setPriority(Thread.MAX_PRIORITY);
+            watchdog.start();
+        }
+
+        /** Metin anlık görüntüsü; prefix boş değilse yalnızca o önekle başlayan ölçümler. */
+        public String snapshot(String prefix) {
+            StringBuilder sb = new StringBuilder();
+            java.util.List<String> names = new java.util.ArrayList<>(counters.keySet());
+            java.util.Collections.sort(names);
+            for (String name : names) {
+                if (name.startsWith(prefix)) sb.append(String.format("%-24s %12d%n", name, counters.get(name).get()));
+            }
+            names = new java.util.ArrayList<>(histograms.keySet());
+            java.util.Collections.sort(names);
+            boolean header = false;
+            for (String name : names) {
+                if (!name.startsWith(prefix)) continue;
+                if (!header) {
+                    sb.append(String.format("%-24s %8s %8s %8s %8s %8s %8s %8s%n",
+                            "histogram (ms)", "adet", "ort", "p50", "p90", "p99", "p99.9", "en çok"));
+                    header = true;
+                }
+                Histogram h = histograms.get(name);
+                sb.append(String.format("%-24s %8d %8.2f %8.2f %8.2f %8.2f %8.2f %8.2f%n", name, h.count(), h.mean() / 1e6,
+                        h.percentile(50) / 1e6, h.percentile(90) / 1e6, h.percentile(99) / 1e6,
+                        h.percentile(99.9) / 1e6, h.max() / 1e6));
+            }
+            boolean edt = "edt".startsWith(prefix) || prefix.startsWith("edt");
+            for (Stall s : edt ? stalls() : java.util.List.<Stall>of()) {
+                sb.append(String.format("EDT takılması %tT  %d ms%n", s.at, s.millis));
+                for (int i = 0; i < Math.min(12, s.stack.length); i++) sb.append("    at ").append(s.stack[i]).append('\n');
+            }
+            return sb.toString();
+        }
+
+        /** Ana makine diskine JFR kaydı başlatır (VFS değil; JFR dosyayı kendisi yazar). */
+        public synchronized void startRecording() throws Exception {
+            if (!JFR) throw new IllegalStateException("Bu çalışma zamanında JFR yok");
+            if (recording != null) throw new IllegalStateException("Kayıt zaten sürüyor");
+            jdk.jfr.Recording r = new jdk.jfr.Recording(jdk.jfr.Configuration.getConfiguration("default"));
+            r.setName("javaos");
+            r.start();
+            recording = r;
+        }
+
+        /** Kaydı durdurur ve dosyaya yazar; yazılan dosyanın yolunu döndürür. */
+        public synchronized java.nio.file.Path stopRecording(java.nio.file.Path file) throws Exception {
+            if (recording == null) throw new IllegalStateException("Süren bir kayıt yok");
+            jdk.jfr.Recording r = (jdk.jfr.Recording) recording;
+            recording = null;
+            try {
+                r.stop();
+                r.dump(file);
+            } finally {
+                r.close();
+            }
+            return file.toAbsolutePath();
+        }
+
+        // Olay sınıflarına yalnızca buradan dokunulur (bkz. sınıf açıklaması).
+        private static final class Events {
+            static Object begin(Kind kind, String detail) {
+                OsEvent e;
+                switch (kind) {
+                    case COMMAND:
+                        e = new CommandEvent();
+                        break;
+                    case FETCH:
+                        e = new FetchEvent();
+                        break;
+                    case RENDER:
+                        e = new RenderEvent();
+                        break;
+                    default:
+                        e = new CompositeEvent();
+                        break;
+                }
+                if (!e.isEnabled()) return null;
+                e.detail = detail;
+                e.begin();
+                return e;
+            }
+
+            static void end(Object event, int status, long bytes, boolean failed) {
+                OsEvent e = (OsEvent) event;
+                e.end();
+                if (!e.shouldCommit()) return;
+                e.status = status;
+                e.bytes = bytes;
+                e.failed = failed;
+                e.commit();
+            }
+
+            static void stall(long millis, StackTraceElement[] stack) {
+                EdtStallEvent e = new EdtStallEvent();
+                if (!e.isEnabled()) return;
+                StringBuilder sb = new StringBuilder();
+                for (StackTraceElement f : stack) sb.append(f).append('\n');
+                e.stallMillis = millis;
+                e.edtStack = sb.toString();
+                e.commit();
+            }
+        }
+
+        @jdk.jfr.Category("JavaOS")
+        private abstract static class OsEvent extends jdk.jfr.Event {
+            @jdk.jfr.Label("Ayrıntı")
+            String detail;
+            @jdk.jfr.Label("Durum kodu")
+            int status;
+            @jdk.jfr.Label("Bayt")
+            @jdk.jfr.DataAmount
+            long bytes;
+            @jdk.jfr.Label("Başarısız")
+            boolean failed;
+        }
+
+        @jdk.jfr.Name("javaos.Command")
+        @jdk.jfr.Label("Komut")
+        private static final class CommandEvent extends OsEvent {
+        }
+
+        @jdk.jfr.Name("javaos.Fetch")
+        @jdk.jfr.Label("HTTP isteği")
+        private static final class FetchEvent extends OsEvent {
+        }
+
+        @jdk.jfr.Name("javaos.Render")
+        @jdk.jfr.Label("Sayfa çizimi")
+        private static final class RenderEvent extends OsEvent {
+        }
+
+        @jdk.jfr.Name("javaos.Composite")
+        @jdk.jfr.Label("Pencere birleştirme")
+        private static final class CompositeEvent extends OsEvent {
+        }
+
+        @jdk.jfr.Name("javaos.EdtStall")
+        @jdk.jfr.Label("EDT takılması")
+        @jdk.jfr.Category("JavaOS")
+        private static final class EdtStallEvent extends jdk.jfr.Event {
+            @jdk.jfr.Label("Süre (ms)")
+            long stallMillis;
+            @jdk.jfr.Label("EDT yığını")
+            String edtStack;
+        }
+    }
+
+    /**
+     * Süreç tablosu ve zamanlayıcı. Her uygulama penceresi, terminal işi ve çekirdek servisi
+     * bir süreçtir (PID, öncelik, CPU / ayırma / duvar saati muhasebesi). Uygulama işleri
+     * öncelik sıralı kuyruklardan iş çalan (work-stealing) bir fork-join havuzunda çalışır:
+     * INTERACTIVE işler önce alınır, BACKGROUND işler aynı anda en fazla çekirdeklerin
+     * dörtte biri kadar çalışır. Öndeki pencerenin süreci INTERACTIVE'e yükseltilir.
+     *
+     * CPU süresi ve ayrılan bellek ThreadMXBean ile, bir iş bir iş parçacığına girip
+     * çıkarken alınan farklardan toplanır; süren işler sorgu anında örneklenir.
+     *
+     * Her sürecin bir kaynak kapsamı ({@link Scope}) vardır; süreç sonlanınca kapanır.
+     */
+    public static class ProcessTable {
+        public enum Priority { INTERACTIVE, NORMAL, BACKGROUND }
+
+        public enum State { RUNNING, READY, SLEEPING, EXITED }
+
+        private static final ThreadLocal<Process> CURRENT = new ThreadLocal<>();
+
+        private final Map<Integer, Process> table = new java.util.TreeMap<>();
+        private final Map<String, Process> windows = new HashMap<>();
+        private int nextPid = 1;
+
+        private java.util.concurrent.ForkJoinPool pool;     // ilk işte kurulur
+        private final java.util.List<java.util.ArrayDeque<Work>> queues = new java.util.ArrayList<>();
+        private final int backgroundLimit;
+        private int backgroundRunning, deferred;
+        private final LeakDetector leaks;
+
+        /** Çekirdek servislerinin süreci (PID 1). */
+        public final Process kernel;
+
+        public ProcessTable() {
+            this(null);
+        }
+
+        /**
+         * @param leaks sonlanan süreçlerin bitmeyen iş parçacıklarını izler (yoksa null)
+         */
+        public ProcessTable(LeakDetector leaks) {
+            this.leaks = leaks;
+            for (int i = 0; i < Priority.values().length; i++) queues.add(new java.util.ArrayDeque<>());
+            backgroundLimit = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+            kernel = spawn("kernel", Priority.NORMAL, null);
+        }
+
+        /** Çağıran iş parçacığının o an çalıştırdığı süreç; yoksa null. */
+        public static Process current() {
+            return CURRENT.get();
+        }
+
+        /**
+         * @param windowKey sürecin penceresi; pencere kapanınca süreç de sonlanır (yoksa null)
+         */
+        public synchronized Process spawn(String name, Priority priority, String windowKey) {
+            Process p = new Process(nextPid++, name, priority, windowKey);
+            table.put(p.pid, p);
+            if (windowKey != null) windows.put(windowKey.toLowerCase(), p);
+            return p;
+        }
+
+        public synchronized Process get(int pid) {
+            return table.get(pid);
+        }
+
+        public synchronized java.util.List<Process> list() {
+            return new java.util.ArrayList<>(table.values());
+        }
+
+        private synchronized void removed(Process p) {
+            table.remove(p.pid);
+            if (p.windowKey != null) windows.remove(p.windowKey.toLowerCase(), p);
+        }
+
+        /** Pencere öne geldi: süreci INTERACTIVE olur, öncekinin önceliği NORMAL'e iner. */
+        public synchronized void windowFront(String key) {
+            Process front = windows.get(key.toLowerCase());
+            if (front == null) return;
+            for (Process p : windows.values()) {
+                if (p != front && p.priority == Priority.INTERACTIVE) p.priority = Priority.NORMAL;
+            }
+            front.priority = Priority.INTERACTIVE;
+        }
+
+        /** Pencere kapandı: süreci sonlanır. */
+        public void windowClosed(String key) {
+            Process p;
+            synchronized (this) {
+                p = windows.get(key.toLowerCase());
+            }
+            if (p != null) p.exit();
+        }
+
+        private synchronized java.util.concurrent.ForkJoinPool pool() {
+            if (pool == null) {
+                int threads = Integer.getInteger("javaos.scheduler.threads", Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+                java.util.concurrent.atomic.AtomicInteger n = new java.util.concurrent.atomic.AtomicInteger();
+                pool = new java.util.concurrent.ForkJoinPool(threads, p -> {
+                    java.util.concurrent.ForkJoinWorkerThread t =
+                            java.util.concurrent.ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                    t.setName("sched-" + n.incrementAndGet());
+                    return t;
+                }, null, true);
+            }
+            return pool;
+        }
+
+        private static final class Work {
+            final Process process;
+            final Runnable body;
+
+            Work(Process process, Runnable body) {
+                this.process = process;
+                this.body = body;
+            }
+        }
+
+        // Her iş bir "jeton" ile havuza girer; jetonu alan işçi o an en öncelikli işi çalıştırır.
+        private void submit(Process p, Priority priority, Runnable body) {
+            synchronized (this) {
+                queues.get(priority.ordinal()).add(new Work(p, body));
+            }
+            p.queued.incrementAndGet();
+            pool().execute(this::dispatch);
+        }
+
+        private void dispatch() {
+            Work w;
+            boolean background = false;
+            synchronized (this) {
+                w = queues.get(Priority.INTERACTIVE.ordinal()).poll();
+                if (w == null) w = queues.get(Priority.NORMAL.ordinal()).poll();
+                if (w == null && !queues.get(Priority.BACKGROUND.ordinal()).isEmpty()) {
+                    if (backgroundRunning >= backgroundLimit) {
+                        // Jeton bekletilir; çalışan bir arka plan işi bitince geri verilir.
+                        deferred++;
+                        return;
+                    }
+                    w = queues.get(Priority.BACKGROUND.ordinal()).poll();
+                    backgroundRunning++;
+                    background = true;
+                }
+            }
+            if (w == null) return;
+            w.process.queued.decrementAndGet();
+            Thread t = Thread.currentThread();
+            t.setPriority(background ? Thread.MIN_PRIORITY : Thread.NORM_PRIORITY);
+            try {
+                if (!w.process.exited) w.process.run(w.body);
+            } catch (Throwable ex) {
+                System.err.println("[" + w.process.pid + " " + w.process.name + "] " + errorMessage(ex));
+            } finally {
+                if (background) {
+                    boolean resume;
+                    synchronized (this) {
+                        backgroundRunning--;
+                        resume = deferred > 0;
+                        if (resume) deferred--;
+                    }
+                    if (resume) pool().execute(this::dispatch);
+                }
+            }
+        }
+
+        public final class Process {
+            public final int pid;
+            public final String name;
+            public final String windowKey;
+            public final long startedAt = System.currentTimeMillis();
+            private volatile Priority priority;
+            private volatile boolean exited;
+            private final java.util.concurrent.atomic.AtomicLong cpuNanos = new java.util.concurrent.atomic.AtomicLong();
+            private final java.util.concurrent.atomic.AtomicLong allocated = new java.util.concurrent.atomic.AtomicLong();
+            private final java.util.concurrent.atomic.AtomicInteger queued = new java.util.concurrent.atomic.AtomicInteger();
+            // Bu sürecin işini şu an çalıştıran iş parçacıkları ve girişteki sayaçları.
+            private final Map<Thread, long[]> running = new java.util.concurrent.ConcurrentHashMap<>();
+            private final Scope scope;
+            private volatile ExpressionEngine expressions;
+
+            private Process(int pid, String name, Priority priority, String windowKey) {
+                this.pid = pid;
+                this.name = name;
+                this.priority = priority;
+                this.windowKey = windowKey;
+                this.scope = new Scope(pid + " " + name);
+            }
+
+            /** Sürecin kaynak kapsamı; süreç sonlanınca kapanır. */
+            public Scope scope() {
+                return scope;
+            }
+
+            /** Sürecin kendi hesap makinesi değişkenleri (terminal oturumu); yoksa null. */
+            public ExpressionEngine expressions() {
+                return expressions;
+            }
+
+            public void setExpressions(ExpressionEngine expressions) {
+                this.expressions = expressions;
+            }
+
+            public Priority priority() {
+                return priority;
+            }
+
+            public void setPriority(Priority priority) {
+                this.priority = priority;
+            }
+
+            /** İşi sürecin önceliğiyle zamanlayıcıya verir. */
+            public void execute(Runnable body) {
+                execute(priority, body);
+            }
+
+            public void execute(Priority priority, Runnable body) {
+                if (!exited) submit(this, priority, body);
+            }
+
+            /**
+             * Ağ ya da disk bekleyen iş: havuza engelleyeceği bildirilir (ForkJoinPool.managedBlock),
+             * beklerken yerine yedek işçi açılır. Yavaş bağlantılar diğer süreçleri aç bırakmaz.
+             */
+            public void executeBlocking(Runnable body) {
+                execute(() -> {
+                    try {
+                        java.util.concurrent.ForkJoinPool.managedBlock(new java.util.concurrent.ForkJoinPool.ManagedBlocker() {
+                            private boolean done;
+
+                            public boolean block() {
+                                body.run();
+                                done = true;
+                                return true;
+                            }
+
+                            public boolean isReleasable() {
+                                return done;
+                            }
+                        });
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            /** Gövdeyi çağıran iş parçacığında, bu sürece sayarak çalıştırır. */
+            public <T> T call(java.util.concurrent.Callable<T> body) throws Exception {
+                Thread t = Thread.currentThread();
+                Process outer = CURRENT.get();
+                boolean entered = running.putIfAbsent(t, Accounting.sample(t)) == null;
+                CURRENT.set(this);
+                try {
+                    return body.call();
+                } finally {
+                    CURRENT.set(outer);
+                    if (entered) charge(t, running.remove(t));
+                }
+            }
+
+            private void run(Runnable body) throws Exception {
+                call(() -> {
+                    body.run();
+                    return null;
+                });
+            }
+
+            private void charge(Thread t, long[] start) {
+                long[] now = Accounting.sample(t);
+                cpuNanos.addAndGet(Math.max(0, now[0] - start[0]));
+                allocated.addAndGet(Math.max(0, now[1] - start[1]));
+            }
+
+            /** Toplam CPU süresi (süren işler dahil), ns. */
+            public long cpuNanos() {
+                long total = cpuNanos.get();
+                for (Map.Entry<Thread, long[]> e : running.entrySet()) {
+                    total += Math.max(0, Accounting.sample(e.getKey())[0] - e.getValue()[0]);
+                }
+                return total;
+            }
+
+            /** Toplam ayrılan bellek (süren işler dahil), bayt. */
+            public long allocatedBytes() {
+                long total = allocated.get();
+                for (Map.Entry<Thread, long[]> e : running.entrySet()) {
+                    total += Math.max(0, Accounting.sample(e.getKey())[1] - e.getValue()[1]);
+                }
+                return total;
+            }
+
+            public long wallMillis() {
+                return System.currentTimeMillis() - startedAt;
+            }
+
+            public int threads() {
+                return running.size();
+            }
+
+            public State state() {
+                if (exited) return State.EXITED;
+                if (!running.isEmpty()) return State.RUNNING;
+                return queued.get() > 0 ? State.READY : State.SLEEPING;
+            }
+
+            /**
+             * Süreci sonlandırır; kuyruktaki işleri artık çalıştırılmaz, kapsamı kapanır.
+             * Kapsamın kesilen iş parçacıkları bitmezse sızıntı dedektörüne bildirilir.
+             */
+            public void exit() {
+                exited = true;
+                removed(this);
+                if (scope.isClosed()) return;
+                scope.close();
+                if (leaks != null) {
+                    for (Thread t : scope.threads()) leaks.watchThread(t.getName(), t);
+                }
+            }
+        }
+
+        /**
+         * Bir sürecin sahip olduğu kaynaklar: iş parçacıkları, yürütücüler, gelecekler
+         * (HTTP istekleri), dinleyiciler ve kapatılacak her şey (ör. zamanlayıcının stop'u).
+         * Kapsam kapanınca kaynaklar kayıt sırasının tersine bırakılır ve kapsamın iş
+         * parçacıkları kesilir; kapalı kapsama eklenen kaynak hemen bırakılır. Böylece hiçbir
+         * kaynak sahibi olan pencereden uzun yaşamaz.
+         *
+         * Kapanış beklemez (pencere kapanırken EDT'de çalışır). Zamanlayıcı havuzundaki işler
+         * kesilmez, çünkü kesme üzerinde çalışılan VFS FileChannel'ını kapatır: kuyruktakiler
+         * düşer, uzun işler {@link #cancelled()}'ı yoklar.
+         */
+        public static final class Scope implements AutoCloseable {
+            private final String name;
+            // Kayıt sırasıyla; kimliğe göre (tamamlanan gelecekler kendini siler).
+            private final java.util.LinkedHashSet<AutoCloseable> resources = new java.util.LinkedHashSet<>();
+            private final java.util.Set<Thread> threads = java.util.concurrent.ConcurrentHashMap.newKeySet();
+            private volatile boolean closed;
+
+            public Scope(String name) {
+                this.name = name;
+            }
+
+            /** Kapsam kapandı mı; uzun işler bunu yoklayıp erken çıkar. */
+            public boolean cancelled() {
+                return closed;
+            }
+
+            public boolean isClosed() {
+                return closed;
+            }
+
+            /** Kaynağı kapsama bağlar ve döndürür; kapsam kapalıysa hemen kapatır. */
+            public <T extends AutoCloseable> T own(T resource) {
+                if (!add(resource)) closeQuietly(resource);
+                return resource;
+            }
+
+            /** Kaynağı kapatmadan kapsamdan çıkarır (sahibi kendisi kapattığında). */
+            public synchronized void release(AutoCloseable resource) {
+                resources.remove(resource);
+            }
+
+            public void onClose(Runnable action) {
+                own(action::run);
+            }
+
+            /** Gelecek kapsam kapanınca iptal edilir; tamamlanınca kapsamdan düşer. */
+            public <T> java.util.concurrent.CompletableFuture<T> own(java.util.concurrent.CompletableFuture<T> future) {
+                AutoCloseable cancel = () -> future.cancel(true);
+                if (!add(cancel)) {
+                    future.cancel(true);
+                    return future;
+                }
+                future.whenComplete((r, ex) -> release(cancel));
+                return future;
+            }
+
+            /** Kapsamın iş parçacığını başlatır; kapsam kapanınca kesilir. */
+            public Thread thread(String threadName, Runnable body) {
+                Thread t = newThread(threadName, body);
+                if (t == null) throw new java.util.concurrent.CancellationException(name + " kapsamı kapalı");
+                t.start();
+                return t;
+            }
+
+            /**
+             * Kapsamın iş parçacıklarıyla çalışan yürütücü; boşta kalan iş parçacıkları ölür,
+             * kapsam kapanınca shutdownNow ile kapatılır.
+             */
+            public java.util.concurrent.ExecutorService executor(String poolName, int size) {
+                java.util.concurrent.atomic.AtomicInteger n = new java.util.concurrent.atomic.AtomicInteger();
+                java.util.concurrent.ThreadPoolExecutor executor = new java.util.concurrent.ThreadPoolExecutor(
+                        size, size, 30, java.util.concurrent.TimeUnit.SECONDS, new java.util.concurrent.LinkedBlockingQueue<>(),
+                        r -> newThread(poolName + "-" + n.incrementAndGet(), r));
+                executor.allowCoreThreadTimeOut(true);
+                own(executor::shutdownNow);
+                return executor;
+            }
+
+            /** Dinleyiciyi ekler; kapsam kapanınca çıkarır. Örn. listen(bus::add, bus::remove, l). */
+            public <L> L listen(java.util.function.Consumer<L> add, java.util.function.Consumer<L> remove, L listener) {
+                add.accept(listener);
+                own(() -> remove.accept(listener));
+                return listener;
+            }
+
+            /** Kapsamın henüz bitmemiş iş parçacıkları. */
+            public java.util.List<Thread> threads() {
+                return new java.util.ArrayList<>(threads);
+            }
+
+            /** Kaynakları ters sırayla bırakır, iş parçacıklarını keser. İkinci çağrı bir şey yapmaz. */
+            public void close() {
+                java.util.List<AutoCloseable> list;
+                synchronized (this) {
+                    if (closed) return;
+                    closed = true;
+                    list = new java.util.ArrayList<>(resources);
+                    resources.clear();
+                }
+                for (int i = list.size() - 1; i >= 0; i--) closeQuietly(list.get(i));
+                for (Thread t : threads) t.interrupt();
+            }
+
+            // Kapsam kapalıysa null.
+            private Thread newThread(String threadName, Runnable body) {
+                Thread t = new Thread(() -> {
+                    try {
+                        body.run();
+                    } finally {
+                        threads.remove(Thread.currentThread());
+                    }
+                }, name + "/" + threadName);
+                t.setDaemon(true);
+                synchronized (this) {
+                    if (closed) return null;
+                    threads.add(t);
+                }
+                return t;
+            }
+
+            private synchronized boolean add(AutoCloseable resource) {
+                if (closed) return false;
+                resources.add(resource);
+                return true;
+            }
+
+            private void closeQuietly(AutoCloseable resource) {
+                try {
+                    resource.close();
+                } catch (Exception ex) {
+                    System.err.println("[" + name + "] kaynak bırakılamadı: " + errorMessage(ex));
+                }
+            }
+        }
+
+        // ThreadMXBean ilk kullanımda yüklenir (açılışı yavaşlatmasın).
+        private static final class Accounting {
+            static final java.lang.management.ThreadMXBean MX = java.lang.management.ManagementFactory.getThreadMXBean();
+            static final com.sun.management.ThreadMXBean EXT =
+                    MX instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) MX : null;
+            static final boolean CPU = MX.isThreadCpuTimeSupported();
+            static final boolean ALLOC = EXT != null && EXT.isThreadAllocatedMemorySupported();
+
+            static {
+                if (CPU && !MX.isThreadCpuTimeEnabled()) MX.setThreadCpuTimeEnabled(true);
+                if (ALLOC && !EXT.isThreadAllocatedMemoryEnabled()) EXT.setThreadAllocatedMemoryEnabled(true);
+            }
+
+            // {CPU ns, ayrılan bayt}; desteklenmiyorsa 0.
+            static long[] sample(Thread t) {
+                long id = t.getId();
+                long cpu = CPU ? MX.getThreadCpuTime(id) : 0;
+                long alloc = ALLOC ? EXT.getThreadAllocatedBytes(id) : 0;
+                return new long[] {Math.max(0, cpu), Math.max(0, alloc)};
+            }
+        }
+    }
+
+    /**
+     * Toplu betik yorumlayıcısı. Her satır bir kabuk komut satırıdır; ayrıca:
+     * <pre>
+     *   AD=değer              değişken ata; $AD, ${AD}, $? (son çıkış kodu), $1.. $# $@ (argümanlar),
+     *                         $(komut) komut çıktısı; tek tırnak içi açılmaz, bilinmeyen ad ortamdan okunur
+     *   let AD = ifade        hesap makinesiyle değerlendir (let N = $N + 1)
+     *   if KOŞUL / elif KOŞUL / else / end
+     *   while KOŞUL / end     for AD in kelimeler / end (1..100 aralık)     repeat N / end
+     *   break  continue  exit [kod]  # yorum
+     * </pre>
+     * KOŞUL bir komut satırıdır (test, grep -q...); çıkış kodu 0 ise doğrudur, başındaki ! olumsuzlar.
+     * Üst düzey deyimler okundukça çalışır; bloklar end'e kadar bir kez ayrıştırılır, döngüde
+     * yalnızca değişken açılımı tekrarlanır.
+     */
+    public static class ScriptRunner {
+        private static final java.util.regex.Pattern ASSIGN = java.util.regex.Pattern.compile("[A-Za-z_][A-Za-z0-9_]*=.*");
+        private static final java.util.regex.Pattern RANGE = java.util.regex.Pattern.compile("(-?\\d+)\\.\\.(-?\\d+)");
+
+        private final Shell shell;
+        private final ExpressionEngine expressions;
+        private final LineWriter out;
+        private final java.util.function.Consumer<String> err;
+        private final Map<String, String> variables = new HashMap<>();
+        private LineReader stdin = LineReader.EMPTY;
+        private String source = "-";
+        private String[] args = new String[0];
+        private boolean failFast;
+        private boolean exited;
+        private int status;
+        private int lineNumber;
+
+        /**
+         * @param err hata mesajları (betik adı ve satır numarasıyla)
+         */
+        public ScriptRunner(Shell shell, ExpressionEngine expressions, LineWriter out, java.util.function.Consumer<String> err) {
+            this.shell = shell;
+            this.expressions = expressions;
+            this.out = out;
+            this.err = err;
+        }
+
+        /** Betik adı ($0) ve konumsal argümanlar ($1...). */
+        public void setArgs(String source, String... args) {
+            this.source = source;
+            this.args = args;
+        }
+
+        /** Komutların girişi; betik standart girişten okunmuyorsa sürecin standart girişi verilir. */
+        public void setInput(LineReader stdin) {
+            this.stdin = stdin;
+        }
+
+        /** true ise başarısız ilk komutta durur (sh -e); koşullardaki komutlar sayılmaz. */
+        public void setFailFast(boolean failFast) {
+            this.failFast = failFast;
+        }
+
+        public void set(String name, String value) {
+            variables.put(name, value);
+        }
+
+        public String get(String name) {
+            String v = variables.get(name);
+            if (v == null) v = System.getenv(name);
+            return v == null ? "" : v;
+        }
+
+        /** Betik exit deyimiyle bittiyse true. */
+        public boolean exited() {
+            return exited;
+        }
+
+        /**
+         * Satırın açık blok sayısına etkisi: if/while/for/repeat +1, end -1. Satır satır gelen
+         * girişte bloğun tamamlandığını anlamak için (bkz. TerminalServer).
+         */
+        public static int depthChange(String line) {
+            String t = line.trim();
+            switch (head(t)) {
+                case "if":
+                case "while":
+                case "for":
+                case "repeat":
+                    return 1;
+                case "end":
+                    return t.equals("end") ? -1 : 0;
+                default:
+                    return 0;
+            }
+        }
+
+        /** Betiği sonuna ya da exit'e kadar çalıştırır; çıkış kodunu döndürür. */
+        public int run(java.io.BufferedReader in) throws IOException {
+            try {
+                String text;
+                while ((text = next(in)) != null) {
+                    Stmt s = statement(text, in);
+                    try {
+                        s.exec(this);
+                    } catch (Jump j) {
+                        throw new IllegalArgumentException("satır " + s.line + ": döngü dışında " + j.word);
+                    }
+                }
+            } catch (Exit e) {
+                status = e.status;
+            } catch (IllegalArgumentException e) {
+                err.accept(source + ": " + e.getMessage());
+                status = 2;
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                // $(...) içindeki komutun hatası
+                err.accept(source + ":" + lineNumber + ": " + errorMessage(e));
+                status = 1;
+            }
+            return status;
+        }
+
+        // --- Ayrıştırma ---
+
+        private String next(java.io.BufferedReader in) throws IOException {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                String t = line.trim();
+                if (!t.isEmpty() && t.charAt(0) != '#') return t;
+            }
+            return null;
+        }
+
+        private static String head(String text) {
+            int sp = indexOfSpace(text);
+            return sp < 0 ? text : text.substring(0, sp);
+        }
+
+        private static String tail(String text) {
+            int sp = indexOfSpace(text);
+            return sp < 0 ? "" : text.substring(sp + 1).trim();
+        }
+
+        private static int indexOfSpace(String s) {
+            for (int i = 0; i < s.length(); i++) if (Character.isWhitespace(s.charAt(i))) return i;
+            return -1;
+        }
+
+        private IllegalArgumentException syntax(String message) {
+            return new IllegalArgumentException("satır " + lineNumber + ": " + message);
+        }
+
+        private Stmt statement(String text, java.io.BufferedReader in) throws IOException {
+            int line = lineNumber;
+            String rest = tail(text);
+            switch (head(text)) {
+                case "if":
+                    if (rest.isEmpty()) throw syntax("if için koşul gerekli");
+                    return ifBlock(line, rest, in);
+                case "while": {
+                    if (rest.isEmpty()) throw syntax("while için koşul gerekli");
+                    java.util.List<Stmt> body = new java.util.ArrayList<>();
+                    block(in, body, "end");
+                    return new While(line, rest, body);
+                }
+                case "for": {
+                    String name = head(rest);
+                    String words = tail(rest);
+                    if (!name.matches("[A-Za-z_][A-Za-z0-9_]*") || !head(words).equals("in")) {
+                        throw syntax("Kullanım: for AD in kelimeler");
+                    }
+                    java.util.List<Stmt> body = new java.util.ArrayList<>();
+                    block(in, body, "end");
+                    return new For(line, name, tail(words), body);
+                }
+                case "repeat": {
+                    if (rest.isEmpty()) throw syntax("repeat için sayı gerekli");
+                    java.util.List<Stmt> body = new java.util.ArrayList<>();
+                    block(in, body, "end");
+                    return new Repeat(line, rest, body);
+                }
+                case "let": {
+                    int eq = rest.indexOf('=');
+                    String name = eq < 0 ? "" : rest.substring(0, eq).trim();
+                    if (!name.matches("[A-Za-z_][A-Za-z0-9_]*")) throw syntax("Kullanım: let AD = ifade");
+                    return new Let(line, name, rest.substring(eq + 1).trim());
+                }
+                case "break":
+                case "continue":
+                    return new JumpStmt(line, text);
+                case "exit":
+                    return new ExitStmt(line, rest);
+                case "elif":
+                case "else":
+                case "end":
+                    throw syntax("beklenmeyen " + head(text));
+                default:
+                    if (ASSIGN.matcher(text).matches()) {
+                        int eq = text.indexOf('=');
+                        return new Assign(line, text.substring(0, eq), text.substring(eq + 1));
+                    }
+                    return new Command(line, text);
+            }
+        }
+
+        // elif, iç içe bir if olarak else dalına konur; iç if kapanış end'ini kendisi tüketir.
+        private Stmt ifBlock(int line, String cond, java.io.BufferedReader in) throws IOException {
+            java.util.List<Stmt> then = new java.util.ArrayList<>();
+            String end = block(in, then, "elif", "else", "end");
+            java.util.List<Stmt> other = null;
+            if (head(end).equals("elif")) {
+                if (tail(end).isEmpty()) throw syntax("elif için koşul gerekli");
+                other = java.util.List.of(ifBlock(lineNumber, tail(end), in));
+            } else if (end.equals("else")) {
+                other = new java.util.ArrayList<>();
+                block(in, other, "end");
+            }
+            return new If(line, cond, then, other);
+        }
+
+        // Bitiriciye kadar deyim okur; bitirici satırını döndürür.
+        private String block(java.io.BufferedReader in, java.util.List<Stmt> body, String... terminators) throws IOException {
+            int start = lineNumber;
+            String text;
+            while ((text = next(in)) != null) {
+                String word = head(text);
+                for (String t : terminators) {
+                    if (word.equals(t) && (t.equals("elif") || text.equals(t))) return text;
+                }
+                body.add(statement(text, in));
+            }
+            throw new IllegalArgumentException("satır " + start + ": bloğu kapatan 'end' yok");
+        }
+
+        // --- Çalıştırma ---
+
+        /** Değişken ve komut açılımı. Tek tırnak içi olduğu gibi bırakılır (tırnaklar kabuğa kalır). */
+        String expand(String text) throws Exception {
+            if (text.indexOf('$') < 0) return text;
+            StringBuilder sb = new StringBuilder(text.length() + 16);
+            boolean single = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '\'') single = !single;
+                if (c != '$' || single || i + 1 == text.length()) {
+                    sb.append(c);
+                    continue;
+                }
+                char d = text.charAt(i + 1);
+                if (d == '?') {
+                    sb.append(status);
+                    i++;
+                } else if (d == '#') {
+                    sb.append(args.length);
+                    i++;
+                } else if (d == '@') {
+                    sb.append(String.join(" ", args));
+                    i++;
+                } else if (d >= '0' && d <= '9') {
+                    int n = d - '0';
+                    sb.append(n == 0 ? source : n <= args.length ? args[n - 1] : "");
+                    i++;
+                } else if (d == '{') {
+                    int close = text.indexOf('}', i + 2);
+                    if (close < 0) throw syntax("kapanmamış ${");
+                    sb.append(get(text.substring(i + 2, close)));
+                    i = close;
+                } else if (d == '(') {
+                    int depth = 0, close = -1;
+                    for (int k = i + 1; k < text.length() && close < 0; k++) {
+                        if (text.charAt(k) == '(') depth++;
+                        else if (text.charAt(k) == ')' && --depth == 0) close = k;
+                    }
+                    if (close < 0) throw syntax("kapanmamış $(");
+                    sb.append(capture(text.substring(i + 2, close)));
+                    i = close;
+                } else if (Character.isLetter(d) || d == '_') {
+                    int k = i + 1;
+                    while (k < text.length() && (Character.isLetterOrDigit(text.charAt(k)) || text.charAt(k) == '_')) k++;
+                    sb.append(get(text.substring(i + 1, k)));
+                    i = k - 1;
+                } else {
+                    sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+
+        // $(komut): çıktı satırları boşlukla birleştirilir.
+        private String capture(String command) throws Exception {
+            StringBuilder sb = new StringBuilder();
+            status = shell.execute(expand(command), stdin, line -> {
+                if (sb.length() > 0) sb.append(' ');
+                sb.append(line);
+            });
+            return sb.toString();
+        }
+
+        // Komutu çalıştırır; hata mesajı yazılır ve çıkış kodu 1 olur.
+        int command(int line, String text, boolean checked) {
+            try {
+                status = shell.execute(expand(text), stdin, out);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new Exit(130);
+            } catch (Exit e) {
+                throw e;
+            } catch (Exception e) {
+                err.accept(source + ":" + line + ": " + errorMessage(e));
+                status = 1;
+            }
+            if (checked && failFast && status != 0) throw new Exit(status);
+            return status;
+        }
+
+        boolean condition(int line, String cond) {
+            boolean negate = cond.startsWith("!") && cond.length() > 1 && Character.isWhitespace(cond.charAt(1));
+            return (command(line, negate ? cond.substring(2) : cond, false) == 0) != negate;
+        }
+
+        void fail(int line, Exception e) {
+            err.accept(source + ":" + line + ": " + errorMessage(e));
+            status = 1;
+            if (failFast) throw new Exit(status);
+        }
+
+        void exec(java.util.List<Stmt> body) throws Exception {
+            for (Stmt s : body) s.exec(this);
+        }
+
+        // break / continue / exit: yığın izi tutmayan denetim akışı sinyalleri.
+        private static class Jump extends RuntimeException {
+            final String word;
+
+            Jump(String word) {
+                super(word, null, false, false);
+                this.word = word;
+            }
+        }
+
+        private static final class Exit extends RuntimeException {
+            final int status;
+
+            Exit(int status) {
+                super(null, null, false, false);
+                this.status = status;
+            }
+        }
+
+        private static final Jump BREAK = new Jump("break");
+        private static final Jump CONTINUE = new Jump("continue");
+
+        private abstract static class Stmt {
+            final int line;
+
+            Stmt(int line) {
+                this.line = line;
+            }
+
+            abstract void exec(ScriptRunner r) throws Exception;
+        }
+
+        private static final class Command extends Stmt {
+            final String text;
+
+            Command(int line, String text) {
+                super(line);
+                this.text = text;
+            }
+
+            void exec(ScriptRunner r) {
+                r.command(line, text, true);
+            }
+        }
+
+        private static final class Assign extends Stmt {
+            final String name, value;
+
+            Assign(int line, String name, String value) {
+                super(line);
+                this.name = name;
+                this.value = value;
+            }
+
+            void exec(ScriptRunner r) throws Exception {
+                String v = r.expand(value).trim();
+                if (v.length() >= 2 && (v.charAt(0) == '"' || v.charAt(0) == '\'') && v.charAt(v.length() - 1) == v.charAt(0)) {
+                    v = v.substring(1, v.length() - 1);
+                }
+                r.variables.put(name, v);
+                r.status = 0;
+            }
+        }
+
+        private static final class Let extends Stmt {
+            final String name, expr;
+
+            Let(int line, String name, String expr) {
+                super(line);
+                this.name = name;
+                this.expr = expr;
+            }
+
+            void exec(ScriptRunner r) throws Exception {
+                try {
+                    r.variables.put(name, ExpressionEngine.format(r.expressions.eval(r.expand(expr))));
+                    r.status = 0;
+                } catch (IllegalArgumentException | ArithmeticException e) {
+                    r.fail(line, e);
+                }
+            }
+        }
+
+        private static final class If extends Stmt {
+            final String cond;
+            final java.util.List<Stmt> then, other;
+
+            If(int line, String cond, java.util.List<Stmt> then, java.util.List<Stmt> other) {
+                super(line);
+                this.cond = cond;
+                this.then = then;
+                this.other = other;
+            }
+
+            void exec(ScriptRunner r) throws Exception {
+                if (r.condition(line, cond)) r.exec(then);
+                else if (other != null) r.exec(other);
+            }
+        }
+
+        private static final class While extends Stmt {
+            final String cond;
+            final java.util.List<Stmt> body;
+
+            While(int line, String cond, java.util.List<Stmt> body) {
+                super(line);
+                this.cond = cond;
+                this.body = body;
+            }
+
+            void exec(ScriptRunner r) throws Exception {
+                while (r.condition(line, cond)) {
+                    if (!r.iterate(body)) break;
+                }
+            }
+        }
+
+        private static final class For extends Stmt {
+            final String name, words;
+            final java.util.List<Stmt> body;
+
+            For(int line, String name, String words, java.util.List<Stmt> body) {
+                super(line);
+                this.name = name;
+                this.words = words;
+                this.body = body;
+            }
+
+            void exec(ScriptRunner r) throws Exception {
+                for (String w : Shell.tokenize(r.expand(words))) {
+                    java.util.regex.Matcher m = RANGE.matcher(w);
+                    if (!m.matches()) {
+                        r.variables.put(name, w);
+                        if (!r.iterate(body)) return;
+                        continue;
+                    }
+                    long from = Long.parseLong(m.group(1)), to = Long.parseLong(m.group(2)), step = from <= to ? 1 : -1;
+                    for (long i = from; ; i += step) {
+                        r.variables.put(name, Long.toString(i));
+                        if (!r.iterate(body) || i == to) break;
+                    }
+                }
+            }
+        }
+
+        private static final class Repeat extends Stmt {
+            final String count;
+            final java.util.List<Stmt> body;
+
+            Repeat(int line, String count, java.util.List<Stmt> body) {
+                super(line);
+                this.count = count;
+                this.body = body;
+            }
+
+            void exec(ScriptRunner r) throws Exception {
+                long n;
+                try {
+                    n = (long) r.expressions.eval(r.expand(count));
+                } catch (IllegalArgumentException | ArithmeticException e) {
+                    r.fail(line, e);
+                    return;
+                }
+                for (long i = 0; i < n; i++) {
+                    if (!r.iterate(body)) break;
+                }
+            }
+        }
+
+        // Döngü gövdesini bir kez çalıştırır; break gelirse false. Kesilen (Ctrl-C) döngü durur.
+        boolean iterate(java.util.List<Stmt> body) throws Exception {
+            if (Thread.currentThread().isInterrupted()) throw new Exit(130);
+            try {
+                exec(body);
+            } catch (Jump j) {
+                return j != BREAK;
+            }
+            return true;
+        }
+
+        private static final class JumpStmt extends Stmt {
+            final Jump jump;
+
+            JumpStmt(int line, String word) {
+                super(line);
+                this.jump = word.equals("break") ? BREAK : CONTINUE;
+            }
+
+            void exec(ScriptRunner r) {
+                throw jump;
+            }
+        }
+
+        private static final class ExitStmt extends Stmt {
+            final String code;
+
+            ExitStmt(int line, String code) {
+                super(line);
+                this.code = code;
+            }
+
+            void exec(ScriptRunner r) throws Exception {
+                String c = r.expand(code);
+                int status;
+                try {
+                    status = c.isEmpty() ? r.status : Integer.parseInt(c);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("satır " + line + ": çıkış kodu sayı değil: " + c);
+                }
+                r.exited = true;
+                throw new Exit(status);
+            }
+        }
+    }
+
+    /**
+     * Yerel TCP üzerinden çok oturumlu terminal (telnet benzeri satır protokolü).
+     * <p>
+     * Tek bir seçici (Selector) iş parçacığı tüm bağlantıları bloklamadan okur ve yazar; okunan
+     * satırlar oturumun {@link ScriptRunner}'ı ile işçi havuzunda çalışır. Her oturumun kendi
+     * süreci, değişkenleri ve $? değeri vardır; bir oturumda aynı anda tek komut çalışır, arada
+     * gelen satırlar sıraya girer. Çıktı havuzdan alınan doğrudan (direct) tamponlara yazılır ve
+     * seçici tarafından boşaltılır; boşta bir oturum hiç tampon tutmaz. İstemci okumazsa komut
+     * yazarken bekler (geri basınç), sıradaki girdi dolarsa oturumdan okuma durur.
+     * Ctrl-C (0x03 ya da telnet IAC IP) çalışan komutu keser; exit oturumu kapatır.
+     */
+    public static class TerminalServer implements AutoCloseable {
+        private static final int BUFFER_SIZE = 8192;
+        // Oturum başına en fazla bekleyen çıktı tamponu (256 KB) ve sıradaki girdi satırı.
+        private static final int MAX_OUTPUT_BUFFERS = 32;
+        private static final int MAX_QUEUED_LINES = 64;
+        private static final int MAX_LINE = 16 * 1024;
+        private static final byte[] PROMPT = "JavaOS> ".getBytes(StandardCharsets.UTF_8);
+        private static final byte[] CONTINUATION = "> ".getBytes(StandardCharsets.UTF_8);
+
+        private final Shell shell;
+        private final ProcessTable processes;
+        private final Metrics metrics;
+        private final int maxSessions = Integer.getInteger("javaos.tty.maxSessions", 10000);
+        private final Metrics.Counter bytesIn, bytesOut;
+
+        // Tampon havuzu: işçiler alır, seçici yazdıktan sonra geri verir.
+        private final java.util.concurrent.ConcurrentLinkedQueue<java.nio.ByteBuffer> pool = new java.util.concurrent.ConcurrentLinkedQueue<>();
+        private final java.util.concurrent.atomic.AtomicInteger pooled = new java.util.concurrent.atomic.AtomicInteger();
+        private final int maxPooled = Integer.getInteger("javaos.tty.pooledBuffers", 1024);
+
+        // Seçici iş parçacığında çalışacak işler (çıktı boşaltma, komut bitişi).
+        private final java.util.concurrent.ConcurrentLinkedQueue<Runnable> tasks = new java.util.concurrent.ConcurrentLinkedQueue<>();
+        private final java.util.concurrent.atomic.AtomicInteger sessions = new java.util.concurrent.atomic.AtomicInteger();
+        private int nextId = 1;
+
+        private java.util.concurrent.ThreadPoolExecutor workers;
+        private java.nio.channels.Selector selector;
+        private java.nio.channels.ServerSocketChannel server;
+        private java.nio.ByteBuffer readBuffer;
+        private Thread loop;
+        private volatile boolean running;
+
+        public TerminalServer(Shell shell, ProcessTable processes, Metrics metrics) {
+            this.shell = shell;
+            this.processes = processes;
+            this.metrics = metrics;
+            this.bytesIn = metrics.counter("tty.bytesIn");
+            this.bytesOut = metrics.counter("tty.bytesOut");
+        }
+
+        /**
+         * Dinlemeye başlar. Port 0 ise boş bir port seçilir.
+         * @return dinlenen adres
+         */
+        public synchronized java.net.InetSocketAddress start(java.net.InetSocketAddress address) throws IOException {
+            if (running) throw new IllegalStateException("Terminal sunucusu zaten çalışıyor: " + address());
+            java.nio.channels.Selector sel = java.nio.channels.Selector.open();
+            java.nio.channels.ServerSocketChannel ch = java.nio.channels.ServerSocketChannel.open();
+            try {
+                ch.bind(address, 1024);
+                ch.configureBlocking(false);
+                ch.register(sel, java.nio.channels.SelectionKey.OP_ACCEPT);
+            } catch (IOException ex) {
+                ch.close();
+                sel.close();
+                throw ex;
+            }
+            int threads = Integer.getInteger("javaos.tty.workers", 64);
+            java.util.concurrent.atomic.AtomicInteger n = new java.util.concurrent.atomic.AtomicInteger();
+            workers = new java.util.concurrent.ThreadPoolExecutor(threads, threads, 30, java.util.concurrent.TimeUnit.SECONDS,
+                    new java.util.concurrent.LinkedBlockingQueue<>(), r -> {
+                        Thread t = new Thread(r, "tty-worker-" + n.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            // Boştaki sunucu iş parçacığı tutmaz.
+            workers.allowCoreThreadTimeOut(true);
+            selector = sel;
+            server = ch;
+            readBuffer = java.nio.ByteBuffer.allocateDirect(BUFFER_SIZE);
+            running = true;
+            loop = new Thread(this::loop, "tty-selector");
+            loop.setDaemon(true);
+            loop.start();
+            return address();
+        }
+
+        /** Dinlenen adres; çalışmıyorsa null. */
+        public synchronized java.net.InetSocketAddress address() {
+            try {
+                return running ? (java.net.InetSocketAddress) server.getLocalAddress() : null;
+            } catch (IOException ex) {
+                return null;
+            }
+        }
+
+        /** Açık oturum sayısı. */
+        public int sessions() {
+            return sessions.get();
+        }
+
+        /** Sunucu kapanana kadar bekler. */
+        public void join() throws InterruptedException {
+            Thread t;
+            synchronized (this) {
+                t = loop;
+            }
+            if (t != null) t.join();
+        }
+
+        /** Dinlemeyi bırakır ve tüm oturumları kapatır. */
+        public void close() throws IOException {
+            Thread t;
+            synchronized (this) {
+                if (!running) return;
+                running = false;
+                t = loop;
+                selector.wakeup();
+            }
+            try {
+                t.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void loop() {
+            try {
+                while (running) {
+                    selector.select();
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) task.run();
+                    java.util.Iterator<java.nio.channels.SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        java.nio.channels.SelectionKey key = it.next();
+                        it.remove();
+                        if (!key.isValid()) continue;
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        Session s = (Session) key.attachment();
+                        try {
+                            if (key.isReadable()) read(s);
+                            if (key.isValid() && key.isWritable()) s.flush();
+                        } catch (IOException ex) {
+                            s.close();
+                        }
+                    }
+                }
+            } catch (IOException ex) {
+                System.err.println("Terminal sunucusu durdu: " + errorMessage(ex));
+            } finally {
+                for (java.nio.channels.SelectionKey key : selector.keys()) {
+                    if (key.attachment() instanceof Session) ((Session) key.attachment()).close();
+                }
+                try {
+                    server.close();
+                    selector.close();
+                } catch (IOException ignored) {
+                }
+                workers.shutdownNow();
+                synchronized (this) {
+                    running = false;
+                }
+            }
+        }
+
+        private void accept() throws IOException {
+            java.nio.channels.SocketChannel ch;
+            while ((ch = server.accept()) != null) {
+                if (sessions.get() >= maxSessions) {
+                    metrics.counter("tty.rejected").increment();
+                    ch.write(java.nio.ByteBuffer.wrap("Sunucu dolu\r\n".getBytes(StandardCharsets.UTF_8)));
+                    ch.close();
+                    continue;
+                }
+                ch.configureBlocking(false);
+                ch.setOption(java.net.StandardSocketOptions.TCP_NODELAY, true);
+                Session s = new Session(nextId++, ch);
+                s.key = ch.register(selector, java.nio.channels.SelectionKey.OP_READ, s);
+                sessions.incrementAndGet();
+                metrics.counter("tty.accepted").increment();
+                s.write(("JavaOS terminali (tty" + s.id + ")\r\n").getBytes(StandardCharsets.UTF_8), false);
+                s.write(PROMPT, false);
+                s.flush();
+            }
+        }
+
+        private void read(Session s) throws IOException {
+            java.nio.ByteBuffer b = readBuffer;
+            b.clear();
+            int n = s.channel.read(b);
+            if (n < 0) {
+                s.close();
+                return;
+            }
+            bytesIn.add(n);
+            b.flip();
+            while (b.hasRemaining() && !s.closed) s.received(b.get());
+        }
+
+        private java.nio.ByteBuffer acquire() {
+            java.nio.ByteBuffer b = pool.poll();
+            if (b == null) return java.nio.ByteBuffer.allocateDirect(BUFFER_SIZE);
+            pooled.decrementAndGet();
+            return b;
+        }
+
+        private void release(java.nio.ByteBuffer b) {
+            if (pooled.incrementAndGet() <= maxPooled) {
+                b.clear();
+                pool.offer(b);
+            } else {
+                pooled.decrementAndGet();
+            }
+        }
+
+        private void post(Runnable task) {
+            tasks.offer(task);
+            selector.wakeup();
+        }
+
+        /**
+         * Bağlantı başına durum. Girdi alanları yalnızca seçici iş parçacığından, çıktı
+         * alanları oturum kilidiyle kullanılır.
+         */
+        private final class Session implements LineWriter {
+            final int id;
+            final java.nio.channels.SocketChannel channel;
+            final ProcessTable.Process process;
+            final ScriptRunner runner;
+            java.nio.channels.SelectionKey key;
+
+            // Girdi (seçici iş parçacığı)
+            private byte[] line = new byte[64];
+            private int length;
+            private boolean overflow;
+            private int telnet; // 0: veri, 1: IAC sonrası, 2: seçenek baytı bekleniyor
+            private StringBuilder block;
+            private int depth;
+            private java.util.ArrayDeque<String> queued;
+            private java.util.concurrent.Future<?> command;
+            // Komut işçide başladı mı; başlamadan kesilen komut hiç çalışmaz.
+            private java.util.concurrent.atomic.AtomicBoolean started;
+            private boolean closing;
+
+            // Çıktı (kilitli)
+            private final java.util.ArrayDeque<java.nio.ByteBuffer> output = new java.util.ArrayDeque<>(2);
+            private java.nio.ByteBuffer fill;
+            private volatile boolean closed;
+            private final java.util.concurrent.atomic.AtomicBoolean flushPosted = new java.util.concurrent.atomic.AtomicBoolean();
+
+            Session(int id, java.nio.channels.SocketChannel channel) {
+                this.id = id;
+                this.channel = channel;
+                this.process = processes.spawn("tty" + id, ProcessTable.Priority.NORMAL, null);
+                // calc ve let değişkenleri oturuma özeldir; boru aşamaları da süreçten bulur.
+                ExpressionEngine expressions = new ExpressionEngine();
+                process.setExpressions(expressions);
+                this.runner = new ScriptRunner(shell, expressions, this, this::printError);
+                runner.setArgs("tty" + id);
+            }
+
+            // ---- girdi ----
+
+            void received(byte c) {
+                int b = c & 0xFF;
+                if (telnet == 1) {
+                    // WILL/WONT/DO/DONT bir seçenek baytı daha taşır; IP (244) kesme isteğidir.
+                    telnet = b >= 251 && b <= 254 ? 2 : 0;
+                    if (b == 244) interrupt();
+                    if (b != 255) return;
+                } else if (telnet == 2) {
+                    telnet = 0;
+                    return;
+                } else if (b == 255) {
+                    telnet = 1;
+                    return;
+                }
+                switch (b) {
+                    case 3:
+                        interrupt();
+                        return;
+                    case '\r':
+                    case 0:
+                        return;
+                    case '\n': {
+                        String text = new String(line, 0, length, StandardCharsets.UTF_8);
+                        boolean tooLong = overflow;
+                        length = 0;
+                        overflow = false;
+                        if (line.length > 1024) line = new byte[64];
+                        if (tooLong) {
+                            printError("tty" + id + ": satır çok uzun (en fazla " + MAX_LINE + " bayt)");
+                            if (command == null) prompt();
+                        } else {
+                            lineReceived(text);
+                        }
+                        return;
+                    }
+                    default:
+                        if (length == MAX_LINE) {
+                            overflow = true;
+                            return;
+                        }
+                        if (length == line.length) line = java.util.Arrays.copyOf(line, Math.min(MAX_LINE, line.length * 2));
+                        line[length++] = c;
+                }
+            }
+
+            private void lineReceived(String text) {
+                if (command != null) {
+                    if (queued == null) queued = new java.util.ArrayDeque<>();
+                    queued.add(text);
+                    // Sıra dolunca istemciden okumayı bırak; TCP penceresi göndereni yavaşlatır.
+                    if (queued.size() >= MAX_QUEUED_LINES) key.interestOps(key.interestOps() & ~java.nio.channels.SelectionKey.OP_READ);
+                    return;
+                }
+                depth = Math.max(0, depth + ScriptRunner.depthChange(text));
+                if (block == null) block = new StringBuilder();
+                block.append(text).append('\n');
+                if (depth > 0) {
+                    write(CONTINUATION, false);
+                    flush(false);
+                    return;
+                }
+                String script = block.toString();
+                block = null;
+                if (script.isBlank()) {
+                    prompt();
+                    return;
+                }
+                java.util.concurrent.atomic.AtomicBoolean flag = new java.util.concurrent.atomic.AtomicBoolean();
+                started = flag;
+                command = workers.submit(() -> {
+                    if (flag.compareAndSet(false, true)) run(script);
+                });
+            }
+
+            // İşçi iş parçacığında.
+            private void run(String script) {
+                boolean exit = false;
+                try {
+                    process.call(() -> runner.run(new java.io.BufferedReader(new java.io.StringReader(script))));
+                    exit = runner.exited();
+                } catch (BrokenPipeException ex) {
+                    exit = true;
+                } catch (Exception ex) {
+                    printError("tty" + id + ": " + errorMessage(ex));
+                }
+                // Ctrl-C ile kesildiyse bayrağı temizle; iş parçacığı havuza döner.
+                boolean interrupted = Thread.interrupted();
+                boolean close = exit && !interrupted;
+                post(() -> finished(close));
+            }
+
+            private void finished(boolean exit) {
+                command = null;
+                if (closed) return;
+                if (exit) {
+                    closing = true;
+                    flush(false);
+                    return;
+                }
+                if (queued != null && !queued.isEmpty()) {
+                    String next = queued.poll();
+                    if (queued.size() < MAX_QUEUED_LINES) key.interestOps(key.interestOps() | java.nio.channels.SelectionKey.OP_READ);
+                    lineReceived(next);
+                    return;
+                }
+                prompt();
+            }
+
+            private void interrupt() {
+                if (queued != null) queued.clear();
+                block = null;
+                depth = 0;
+                write("^C\r\n".getBytes(StandardCharsets.UTF_8), false);
+                if (command == null) {
+                    prompt();
+                } else if (started.compareAndSet(false, true)) {
+                    // Henüz sıradaydı: bitiş bildirimi gelmeyecek.
+                    command.cancel(false);
+                    command = null;
+                    prompt();
+                } else {
+                    command.cancel(true);
+                }
+            }
+
+            private void prompt() {
+                write(PROMPT, false);
+                flush(false);
+            }
+
+            // ---- çıktı ----
+
+            public void println(String text) throws InterruptedException {
+                byte[] b = (text + "\r\n").getBytes(StandardCharsets.UTF_8);
+                write(b, true);
+            }
+
+            private void printError(String message) {
+                try {
+                    println(message);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (BrokenPipeException ignored) {
+                }
+            }
+
+            /**
+             * Baytları çıktı tamponlarına ekler. wait true ise (işçi) sınır aşılınca istemci okuyana
+             * kadar bekler; seçici iş parçacığı beklemez, istem gibi küçük yazılar sınırı aşabilir.
+             */
+            void write(byte[] b, boolean wait) {
+                try {
+                    synchronized (this) {
+                        int off = 0;
+                        while (off < b.length) {
+                            if (closed) throw new BrokenPipeException();
+                            if (fill == null || !fill.hasRemaining()) {
+                                if (fill != null) {
+                                    fill.flip();
+                                    output.add(fill);
+                                    fill = null;
+                                }
+                                while (wait && output.size() >= MAX_OUTPUT_BUFFERS && !closed) {
+                                    postFlush();
+                                    wait();
+                                }
+                                if (closed) throw new BrokenPipeException();
+                                fill = acquire();
+                            }
+                            int n = Math.min(fill.remaining(), b.length - off);
+                            fill.put(b, off, n);
+                            off += n;
+                        }
+                    }
+                } catch (InterruptedException ex) {
+                    // Ctrl-C bekleyen yazıcıyı da keser.
+                    Thread.currentThread().interrupt();
+                    throw new BrokenPipeException();
+                }
+                if (wait) postFlush();
+            }
+
+            private void postFlush() {
+                if (flushPosted.compareAndSet(false, true)) post(() -> flush(true));
+            }
+
+            void flush() {
+                flush(false);
+            }
+
+            /** Seçici iş parçacığında: tamponları kanala yazar, boşalanları havuza verir. */
+            private void flush(boolean posted) {
+                if (posted) flushPosted.set(false);
+                boolean drained;
+                synchronized (this) {
+                    if (closed) return;
+                    if (fill != null && fill.position() > 0) {
+                        fill.flip();
+                        output.add(fill);
+                        fill = null;
+                    }
+                    try {
+                        while (!output.isEmpty()) {
+                            java.nio.ByteBuffer head = output.peek();
+                            int n = channel.write(head);
+                            bytesOut.add(n);
+                            if (head.hasRemaining()) break;
+                            release(output.poll());
+                        }
+                    } catch (IOException ex) {
+                        closeLocked();
+                        return;
+                    }
+                    drained = output.isEmpty();
+                    notifyAll();
+                }
+                if (!key.isValid()) return;
+                int ops = key.interestOps();
+                key.interestOps(drained ? ops & ~java.nio.channels.SelectionKey.OP_WRITE : ops | java.nio.channels.SelectionKey.OP_WRITE);
+                if (drained && closing) close();
+            }
+
+            void close() {
+                synchronized (this) {
+                    if (closed) return;
+                    closeLocked();
+                }
+            }
+
+            // Kilit tutulurken çağrılır.
+            private void closeLocked() {
+                closed = true;
+                if (fill != null) release(fill);
+                fill = null;
+                for (java.nio.ByteBuffer b : output) release(b);
+                output.clear();
+                notifyAll();
+                if (command != null) command.cancel(true);
+                key.cancel();
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+                process.exit();
+                sessions.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * İş yöneticisi: komutları EDT dışında çalıştırır, iş tablosunu tutar.
+     * Çalışma zamanı destekliyorsa sanal iş parçacıkları kullanılır. Her iş süreç
+     * tablosunda bir süreçtir; borudaki aşamalar da aynı sürece sayılır.
+     */
+    public static class JobManager {
+        public enum State { RUNNING, DONE, FAILED, KILLED }
+
+        private final java.util.concurrent.ExecutorService executor = newExecutor();
+        private final Map<Integer, Job> jobs = new java.util.TreeMap<>();
+        private final ProcessTable processes;
+        private int nextId = 1;
+        private static final int MAX_FINISHED = 64;
+
+        public JobManager(ProcessTable processes) {
+            this.processes = processes;
+        }
+
+        private static java.util.concurrent.ExecutorService newExecutor() {
+            try {
+                return (java.util.concurrent.ExecutorService) java.util.concurrent.Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                java.util.concurrent.atomic.AtomicInteger n = new java.util.concurrent.atomic.AtomicInteger();
+                return java.util.concurrent.Executors.newCachedThreadPool(r -> {
+                    Thread t = new Thread(r, "job-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+        }
+
+        public java.util.concurrent.ExecutorService executor() {
+            return executor;
+        }
+
+        /**
+         * İşi başlatır; bittiğinde (iptal dahil) onDone iş parçacığından çağrılır.
+         */
+        public Job submit(String commandLine, java.util.concurrent.Callable<?> body,
+                          java.util.function.Consumer<Job> onDone) {
+            Job job;
+            synchronized (this) {
+                job = new Job(nextId++, commandLine, body, onDone);
+                jobs.put(job.id, job);
+            }
+            executor.execute(job.task);
+            return job;
+        }
+
+        public synchronized Job get(int id) {
+            return jobs.get(id);
+        }
+
+        /** Süren işler ve henüz bildirilmemiş bitmiş işler. */
+        public synchronized java.util.List<Job> list() {
+            return new java.util.ArrayList<>(jobs.values());
+        }
+
+        /** list() gibi; döndürülen bitmiş işler bildirilmiş sayılır ve tablodan çıkar. */
+        public synchronized java.util.List<Job> report() {
+            java.util.List<Job> all = new java.util.ArrayList<>(jobs.values());
+            for (Job j : all) if (j.state != State.RUNNING) jobs.remove(j.id);
+            return all;
+        }
+
+        /** Bitmiş işi bildirilmiş sayar. */
+        public synchronized void reported(Job job) {
+            if (job.state != State.RUNNING) jobs.remove(job.id, job);
+        }
+
+        public boolean kill(int id) {
+            Job job = get(id);
+            if (job == null) return false;
+            job.cancel();
+            return true;
+        }
+
+        // Bitmiş iş bildirilene kadar tabloda kalır; hiç sorulmayanlar en eskiden başlayarak atılır.
+        private synchronized void finished(Job job) {
+            int done = 0;
+            for (Job j : jobs.values()) if (j.state != State.RUNNING) done++;
+            java.util.Iterator<Job> it = jobs.values().iterator();
+            while (done > MAX_FINISHED && it.hasNext()) {
+                if (it.next().state != State.RUNNING) {
+                    it.remove();
+                    done--;
+                }
+            }
+        }
+
+        public class Job {
+            public final int id;
+            public final String commandLine;
+            public final long startedAt = System.currentTimeMillis();
+            public final ProcessTable.Process process;
+            private final java.util.concurrent.FutureTask<Object> task;
+            private volatile Throwable failure;
+            private volatile State state = State.RUNNING;
+
+            private Job(int id, String commandLine, java.util.concurrent.Callable<?> body,
+                        java.util.function.Consumer<Job> onDone) {
+                this.id = id;
+                this.commandLine = commandLine;
+                this.process = processes.spawn(commandLine, ProcessTable.Priority.NORMAL, null);
+                this.task = new java.util.concurrent.FutureTask<Object>(() -> process.call(body)) {
+                    protected void done() {
+                        if (isCancelled()) {
+                            state = State.KILLED;
+                        } else {
+                            try {
+                                get();
+                                state = State.DONE;
+                            } catch (java.util.concurrent.ExecutionException ex) {
+                                failure = ex.getCause();
+                                state = failure instanceof InterruptedException ? State.KILLED : State.FAILED;
+                            } catch (InterruptedException ex) {
+                                state = State.KILLED;
+                            }
+                        }
+                        finished(Job.this);
+                        process.exit();
+                        if (onDone != null) onDone.accept(Job.this);
+                    }
+                };
+            }
+
+            public State state() {
+                return state;
+            }
+
+            public Throwable failure() {
+                return failure;
+            }
+
+            /** Ctrl-C / kill: iş parçacığını keser. */
+            public void cancel() {
+                task.cancel(true);
+            }
+        }
+    }
+
+    // CompletableFuture sarmalayıcılarını açıp asıl hata mesajını döndürür.
+    public static String errorMessage(Throwable ex) {
+        while ((ex instanceof java.util.concurrent.CompletionException
+                || ex instanceof java.util.concurrent.ExecutionException) && ex.getCause() != null) {
+            ex = ex.getCause();
+        }
+        return ex.getMessage() != null ? ex.getMessage() : ex.toString();
+    }
+
+    /**
+     * Sızıntı dedektörü: kapanan pencereleri zayıf başvuruyla, sonlanan süreçlerin kesilmiş
+     * iş parçacıklarını doğrudan izler. javaos.leak.graceSeconds (varsayılan 10) sonra hâlâ
+     * erişilebilen pencere için bir kez GC istenir; yine geri alınmamışsa (ya da iş parçacığı
+     * hâlâ çalışıyorsa) bir kez raporlanır: stderr, "leak.suspects" sayacı ve leaks komutu.
+     * Denetim, izlenen kayıt varken uyanan bir arka plan iş parçacığında yapılır.
+     */
+    public static class LeakDetector {
+        private static final long GRACE_MS = Long.getLong("javaos.leak.graceSeconds", 10) * 1000;
+
+        private final Metrics metrics;
+        private final java.util.List<Watched> watched = new java.util.ArrayList<>();   // guarded by this
+        private Thread checker;   // guarded by this
+
+        public LeakDetector(Metrics metrics) {
+            this.metrics = metrics;
+        }
+
+        /** Süresi dolduğu halde geri alınmamış bir pencere ya da bitmemiş bir iş parçacığı. */
+        public static final class Suspect {
+            public final String label;
+            public final boolean thread;
+            public final long closedAt;
+
+            Suspect(String label, boolean thread, long closedAt) {
+                this.label = label;
+                this.thread = thread;
+                this.closedAt = closedAt;
+            }
+
+            public String toString() {
+                long s = (System.currentTimeMillis() - closedAt) / 1000;
+                return (thread ? "iş parçacığı " + label + " kesileli " : label + " kapanalı ") + s + " sn, hâlâ "
+                        + (thread ? "çalışıyor" : "bellekte");
+            }
+        }
+
+        private static final class Watched {
+            final String label;
+            final java.lang.ref.WeakReference<Object> ref;
+            final boolean thread;
+            final long since = System.currentTimeMillis();
+            boolean collected;   // bu kayıt için GC istendi
+            boolean reported;
+
+            Watched(String label, Object target, boolean thread) {
+                this.label = label;
+                this.ref = new java.lang.ref.WeakReference<>(target);
+                this.thread = thread;
+            }
+
+            boolean alive() {
+                Object o = ref.get();
+                return o != null && (!thread || ((Thread) o).isAlive());
+            }
+        }
+
+        /** Artık erişilmemesi gereken nesneyi izler (kapanmış pencere vb.). */
+        public void watch(String label, Object target) {
+            add(new Watched(label, target, false));
+        }
+
+        /** Bitmesi beklenen iş parçacığını izler; zaten bittiyse bir şey yapmaz. */
+        public void watchThread(String label, Thread thread) {
+            if (thread.isAlive()) add(new Watched(label, thread, true));
+        }
+
+        public synchronized int watching() {
+            return watched.size();
+        }
+
+        private synchronized void add(Watched w) {
+            watched.add(w);
+            metrics.counter("leak.watched").increment();
+            if (checker == null) {
+                checker = new Thread(this::loop, "leak-detector");
+                checker.setDaemon(true);
+                checker.start();
+            }
+        }
+
+        private void loop() {
+            try {
+                while (true) {
+                    Thread.sleep(Math.max(1000, GRACE_MS / 2));
+                    check(false);
+                    synchronized (this) {
+                        if (watched.isEmpty()) {
+                            checker = null;
+                            return;
+                        }
+                    }
+                }
+            } catch (InterruptedException ex) {
+                synchronized (this) {
+                    checker = null;
+                }
+            }
+        }
+
+        /**
+         * Süresi dolan kayıtları denetler: geri alınanlar düşer, ilk kez süresi dolan pencere
+         * varsa bir GC istenir, hâlâ yaşayanlar ilk seferde raporlanır.
+         * @param force süreyi beklemeden hepsini denetler ve her durumda GC ister
+         * @return hâlâ yaşayan şüpheliler
+         */
+        public java.util.List<Suspect> check(boolean force) {
+            long now = System.currentTimeMillis();
+            boolean gc = false;
+            synchronized (this) {
+                watched.removeIf(w -> !w.alive());
+                for (Watched w : watched) {
+                    if (!w.thread && (force || (!w.collected && now - w.since >= GRACE_MS))) gc = true;
+                }
+            }
+            if (gc) System.gc();
+            java.util.List<Suspect> out = new java.util.ArrayList<>();
+            synchronized (this) {
+                watched.removeIf(w -> !w.alive());
+                for (Watched w : watched) {
+                    if (!force && now - w.since < GRACE_MS) continue;
+                    w.collected = true;
+                    Suspect s = new Suspect(w.label, w.thread, w.since);
+                    if (!w.reported) {
+                        w.reported = true;
+                        metrics.counter("leak.suspects").increment();
+                        System.err.println("Sızıntı şüphesi: " + s);
+                    }
+                    out.add(s);
+                }
+            }
+            return out;
+        }
+
+        /** Şimdiye dek raporlanmış ve hâlâ yaşayan şüpheliler (denetim yapmaz, GC istemez). */
+        public synchronized java.util.List<Suspect> suspects() {
+            java.util.List<Suspect> out = new java.util.ArrayList<>();
+            for (Watched w : watched) {
+                if (w.reported && w.alive()) out.add(new Suspect(w.label, w.thread, w.since));
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HttpService önbelleği: yerel bir HttpServer'a karşı bellek, disk ve ETag ile yeniden
+ * doğrulama (304) yolları.
+ */
+class HttpServiceTest {
+    private static final String BODY = "<html><body>merhaba</body></html>";
+    private static final String ETAG = "\"v1\"";
+
+    @TempDir
+    Path cacheDir;
+
+    private HttpServer server;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private volatile String cacheControl = "max-age=60";
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", ex -> {
+            hits.incrementAndGet();
+            ex.getResponseHeaders().set("ETag", ETAG);
+            ex.getResponseHeaders().set("Cache-Control", cacheControl);
+            if (ETAG.equals(ex.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                ex.sendResponseHeaders(304, -1);
+            } else {
+                byte[] b = BODY.getBytes(StandardCharsets.UTF_8);
+                ex.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+                ex.sendResponseHeaders(200, b.length);
+                ex.getResponseBody().write(b);
+            }
+            ex.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static Kernel.HttpService service(Path dir) {
+        return new Kernel.HttpService(dir, 1 << 20, Runnable::run, new Kernel.Metrics());
+    }
+
+    @Test
+    void freshResponseIsServedFromMemory() throws Exception {
+        Kernel.HttpService http = service(null);
+        Kernel.HttpService.Response first = http.get(url("/a"));
+        assertEquals(200, first.status);
+        assertFalse(first.fromCache);
+        assertEquals(BODY, new String(first.body, StandardCharsets.UTF_8));
+
+        Kernel.HttpService.Response second = http.get(url("/a"));
+        assertTrue(second.fromCache);
+        assertEquals(BODY, new String(second.body, StandardCharsets.UTF_8));
+        assertEquals(1, hits.get());
+        assertEquals(1, http.networkRequests());
+    }
+
+    @Test
+    void diskCacheSurvivesNewService() throws Exception {
+        service(cacheDir).get(url("/b"));
+
+        Kernel.HttpService other = service(cacheDir);
+        Kernel.HttpService.Response r = other.get(url("/b"));
+        assertTrue(r.fromCache);
+        assertEquals(BODY, new String(r.body, StandardCharsets.UTF_8));
+        assertEquals(ETAG, r.etag);
+        assertEquals(0, other.networkRequests());
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    void staleEntryIsRevalidatedWithEtag() throws Exception {
+        cacheControl = "no-cache";
+        Kernel.HttpService http = service(cacheDir);
+        http.get(url("/c"));
+
+        Kernel.HttpService.Response r = http.get(url("/c"));
+        assertEquals(2, hits.get());
+        assertEquals(1, notModified.get());
+        assertEquals(200, r.status);
+        assertTrue(r.fromCache);
+        assertEquals(BODY, new String(r.body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void streamIsCachedOnlyWhenReadToEnd() throws Exception {
+        Kernel.HttpService http = service(null);
+        try (Kernel.HttpService.Stream s = http.open(url("/d"))) {
+            s.body.read();
+        }
+        try (Kernel.HttpService.Stream s = http.open(url("/d"))) {
+            assertEquals(BODY, new String(s.body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(2, hits.get());
+
+        Kernel.HttpService.Response r = http.get(url("/d"));
+        assertTrue(r.fromCache);
+        assertEquals(2, hits.get());
+    }
+}
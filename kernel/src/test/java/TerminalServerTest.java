@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TerminalServer: loopback üzerinden eşzamanlı oturumlar ve okumayan istemcide geri basınç.
+ */
+class TerminalServerTest {
+    private Kernel.TerminalServer server;
+    private InetSocketAddress address;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new Kernel().terminals();
+        address = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        server.close();
+    }
+
+    private Socket connect() throws IOException {
+        Socket s = new Socket(address.getAddress(), address.getPort());
+        s.setSoTimeout(10_000);
+        return s;
+    }
+
+    private static void send(Socket s, String text) throws IOException {
+        OutputStream out = s.getOutputStream();
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static BufferedReader reader(Socket s) throws IOException {
+        return new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    // Komut çıktısı bir önceki istemin ardından gelir: "JavaOS> satır".
+    private static String await(BufferedReader in, String suffix) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.endsWith(suffix)) return line;
+        }
+        throw new IOException("Bağlantı kapandı, beklenen: " + suffix);
+    }
+
+    @Test
+    void concurrentSessionsKeepTheirOwnVariables() throws Exception {
+        int clients = 32;
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            int id = i;
+            results.add(CompletableFuture.supplyAsync(() -> {
+                try (Socket s = connect()) {
+                    BufferedReader in = reader(s);
+                    send(s, "let n = " + id + "\n");
+                    send(s, "echo oturum $n\n");
+                    String line = await(in, "oturum " + id);
+                    send(s, "exit\n");
+                    while (in.readLine() != null) {
+                        // sunucu oturumu kapatana kadar oku
+                    }
+                    return line;
+                } catch (IOException e) {
+                    throw new java.io.UncheckedIOException(e);
+                }
+            }));
+        }
+        for (int i = 0; i < clients; i++) {
+            assertTrue(results.get(i).get(30, TimeUnit.SECONDS).endsWith("oturum " + i));
+        }
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (server.sessions() > 0 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertEquals(0, server.sessions());
+    }
+
+    @Test
+    void slowReaderDoesNotStallOtherSessions() throws Exception {
+        int lines = 20_000;
+        String payload = "x".repeat(100);
+        try (Socket slow = connect(); Socket fast = connect()) {
+            // ~2 MB çıktı: sunucunun oturum başına tamponlarını ve soket tamponlarını aşar.
+            send(slow, "repeat " + lines + "\necho " + payload + "\nend\necho bitti\n");
+            Thread.sleep(300);
+
+            BufferedReader fastIn = reader(fast);
+            send(fast, "echo pong\n");
+            assertTrue(await(fastIn, "pong").endsWith("pong"));
+
+            BufferedReader slowIn = reader(slow);
+            int seen = 0;
+            String line;
+            while ((line = slowIn.readLine()) != null && !line.endsWith("bitti")) {
+                if (line.endsWith(payload)) seen++;
+            }
+            assertEquals(lines, seen);
+            assertNotNull(line);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VFS günlüğü: çökme, imaj ve günlük dosyalarının VFS açıkken kopyalanmasıyla taklit edilir;
+ * kopya açılınca günlük imaja yeniden uygulanır.
+ */
+class VirtualFileSystemTest {
+    private static final int BLOCK = Kernel.VirtualFileSystem.BLOCK;
+    // Bölüm sınırına yuvarlanınca 256 blok (1 MB); bit eşlemi ve i-düğümler birer blok.
+    private static final int MAX_BLOCKS = 256, MAX_INODES = 64;
+
+    @TempDir
+    Path dir;
+
+    private final List<Kernel.VirtualFileSystem> open = new ArrayList<>();
+
+    @AfterEach
+    void closeAll() throws IOException {
+        for (Kernel.VirtualFileSystem fs : open) fs.close();
+    }
+
+    private Kernel.VirtualFileSystem open(Path image) throws IOException {
+        Kernel.VirtualFileSystem fs = new Kernel.VirtualFileSystem(image, MAX_BLOCKS, MAX_INODES, 4);
+        open.add(fs);
+        return fs;
+    }
+
+    private static ByteBuffer text(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String text(ByteBuffer b) {
+        byte[] a = new byte[b.remaining()];
+        b.duplicate().get(a);
+        return new String(a, StandardCharsets.UTF_8);
+    }
+
+    private static Path wal(Path image) {
+        return image.resolveSibling(image.getFileName() + ".wal");
+    }
+
+    // Açık VFS'in imajını ve günlüğünü yeni bir klasöre kopyalar: o anda çökmüş gibi.
+    private Path crash(Path image, String name) throws IOException {
+        Path copy = Files.createDirectories(dir.resolve(name)).resolve(image.getFileName());
+        Files.copy(image, copy);
+        Files.copy(wal(image), wal(copy));
+        return copy;
+    }
+
+    private static int dataStart(Path image) throws IOException {
+        try (FileChannel ch = FileChannel.open(image, StandardOpenOption.READ)) {
+            ByteBuffer sb = ByteBuffer.allocate(32);
+            ch.read(sb, 0);
+            return sb.getInt(28);
+        }
+    }
+
+    @Test
+    void replayRestoresMetadataThatNeverReachedTheImage() throws Exception {
+        Path image = dir.resolve("vfs.img");
+        Kernel.VirtualFileSystem fs = open(image);
+        fs.mkdir("/belgeler");
+        fs.checkpoint();
+        byte[] before = Files.readAllBytes(image);
+
+        fs.write("/belgeler/a.txt", text("merhaba"));
+        fs.write("/b.txt", text("bir"));
+        fs.append("/b.txt", text(" iki"));
+        assertTrue(Files.size(wal(image)) > 0);
+
+        // Bit eşlemi ve i-düğümler çökme öncesindeki haline döner; yalnızca günlükte kalırlar.
+        Path copy = crash(image, "crash");
+        int metadataEnd = dataStart(copy) * BLOCK;
+        try (FileChannel ch = FileChannel.open(copy, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(before, BLOCK, metadataEnd - BLOCK), BLOCK);
+        }
+
+        Kernel.VirtualFileSystem recovered = open(copy);
+        assertEquals(0, Files.size(wal(copy)));
+        assertEquals("merhaba", text(recovered.read("/belgeler/a.txt")));
+        assertEquals("bir iki", text(recovered.read("/b.txt")));
+        assertEquals(1, recovered.list("/belgeler").size());
+    }
+
+    @Test
+    void tornTailOfTheJournalIsDiscarded() throws Exception {
+        Path image = dir.resolve("vfs.img");
+        Kernel.VirtualFileSystem fs = open(image);
+        fs.write("/a.txt", text("tamam"));
+
+        Path copy = crash(image, "crash");
+        // Yarım kalmış bir işlem kaydı: başlık var, sayfalar ve CRC yok.
+        ByteBuffer torn = ByteBuffer.allocate(100).putInt(0x57414C31).putInt(3);
+        torn.clear();
+        try (FileChannel ch = FileChannel.open(wal(copy), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ch.write(torn);
+        }
+
+        Kernel.VirtualFileSystem recovered = open(copy);
+        assertEquals("tamam", text(recovered.read("/a.txt")));
+        recovered.write("/c.txt", text("sonra"));
+        assertEquals("sonra", text(recovered.read("/c.txt")));
+    }
+
+    @Test
+    void replayDoesNotOverwriteDataInReusedDirectoryBlocks() throws Exception {
+        Path image = dir.resolve("vfs.img");
+        Kernel.VirtualFileSystem fs = open(image);
+        // /d'nin dizin bloğu günlüğe girer, sonra boşalır.
+        fs.mkdir("/d");
+        fs.write("/d/a", text("x"));
+        fs.delete("/d/a");
+        fs.delete("/d");
+        // Kalan blokları doldurur: sonraki ayırma sarmalayıp boşalan blokları kullanır.
+        int used = dataStart(image) + 3;
+        fs.write("/dolu", ByteBuffer.allocate((MAX_BLOCKS - used) * BLOCK));
+        byte[] data = new byte[2 * BLOCK];
+        Arrays.fill(data, (byte) 'F');
+        fs.write("/f", ByteBuffer.wrap(data));
+
+        Kernel.VirtualFileSystem recovered = open(crash(image, "crash"));
+        ByteBuffer b = recovered.read("/f");
+        assertEquals(data.length, b.remaining());
+        while (b.hasRemaining()) assertEquals('F', b.get());
+    }
+}